@@ -327,43 +327,75 @@ class AsyncBatchRpcRetryingCaller<T> {
     } else {
       remainingNs = Long.MAX_VALUE;
     }
+    ServerConcurrencyLimiter limiter = conn.concurrencyLimiter;
     actionsByServer.forEach((sn, serverReq) -> {
-      ClientService.Interface stub;
-      try {
-        stub = conn.getRegionServerStub(sn);
-      } catch (IOException e) {
-        onError(serverReq.actionsByRegion, tries, e, sn);
-        return;
+      if (limiter == null) {
+        send(sn, serverReq, tries, remainingNs, null);
+      } else {
+        limiter.execute(sn, () -> send(sn, serverReq, tries, remainingNs, limiter));
       }
-      ClientProtos.MultiRequest req;
-      List<CellScannable> cells = new ArrayList<>();
-      try {
-        req = buildReq(serverReq.actionsByRegion, cells);
-      } catch (IOException e) {
-        onError(serverReq.actionsByRegion, tries, e, sn);
+    });
+  }
+
+  private void send(ServerName sn, ServerRequest serverReq, int tries, long remainingNs,
+      ServerConcurrencyLimiter limiter) {
+    if (limiter != null && operationTimeoutNs > 0) {
+      // the request may have waited for the other requests to the server
+      remainingNs = remainingTimeNs();
+      if (remainingNs <= 0) {
+        limiter.release(sn, -1, false);
+        failAll(serverReq.actionsByRegion.values().stream().flatMap(r -> r.actions.stream()),
+          tries);
         return;
       }
-      HBaseRpcController controller = conn.rpcControllerFactory.newController();
-      resetController(controller, Math.min(rpcTimeoutNs, remainingNs));
-      if (!cells.isEmpty()) {
-        controller.setCellScanner(createCellScanner(cells));
-      }
-      stub.multi(controller, req, resp -> {
-        if (controller.failed()) {
-          onError(serverReq.actionsByRegion, tries, controller.getFailed(), sn);
-        } else {
-          try {
-            onComplete(serverReq.actionsByRegion, tries, sn,
-              ResponseConverter.getResults(req, resp, controller.cellScanner()));
-          } catch (Exception e) {
-            onError(serverReq.actionsByRegion, tries, e, sn);
-            return;
-          }
+    }
+    ClientService.Interface stub;
+    try {
+      stub = conn.getRegionServerStub(sn);
+    } catch (IOException e) {
+      release(limiter, sn, -1, e);
+      onError(serverReq.actionsByRegion, tries, e, sn);
+      return;
+    }
+    ClientProtos.MultiRequest req;
+    List<CellScannable> cells = new ArrayList<>();
+    try {
+      req = buildReq(serverReq.actionsByRegion, cells);
+    } catch (IOException e) {
+      release(limiter, sn, -1, e);
+      onError(serverReq.actionsByRegion, tries, e, sn);
+      return;
+    }
+    HBaseRpcController controller = conn.rpcControllerFactory.newController();
+    resetController(controller, Math.min(rpcTimeoutNs, remainingNs));
+    if (!cells.isEmpty()) {
+      controller.setCellScanner(createCellScanner(cells));
+    }
+    long startNs = System.nanoTime();
+    stub.multi(controller, req, resp -> {
+      if (controller.failed()) {
+        release(limiter, sn, -1, controller.getFailed());
+        onError(serverReq.actionsByRegion, tries, controller.getFailed(), sn);
+      } else {
+        release(limiter, sn, System.nanoTime() - startNs, null);
+        try {
+          onComplete(serverReq.actionsByRegion, tries, sn,
+            ResponseConverter.getResults(req, resp, controller.cellScanner()));
+        } catch (Exception e) {
+          onError(serverReq.actionsByRegion, tries, e, sn);
+          return;
         }
-      });
+      }
     });
   }
 
+  private static void release(ServerConcurrencyLimiter limiter, ServerName sn, long rttNs,
+      Throwable error) {
+    if (limiter != null) {
+      limiter.release(sn, rttNs, error != null && ServerConcurrencyLimiter.isOverloaded(error));
+    }
+  }
+
   private void onError(Map<byte[], RegionRequest> actionsByRegion, int tries, Throwable t,
       ServerName serverName) {
     Throwable error = translateException(t);
@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Used to communicate with a single HBase table in batches. Obtain an instance from a
+ * {@link AsyncConnection} and call {@link #close()} afterwards.
+ * <p>
+ * The mutations are buffered per region server, and sent to a server once its buffer is full, or
+ * on {@link #flush()}. Several batches can be in flight to the same server, up to a limit, so the
+ * writes are pipelined without any thread waiting on them. The returned
+ * {@code CompletableFuture}s complete when the mutations are written, so they are also the way to
+ * push back: the caller should not have more of them pending than it can afford to keep in memory.
+ * <p>
+ * The returned {@code CompletableFuture}s are completed in the rpc framework's callback thread, so
+ * typically you should not do any time consuming work inside them.
+ * @see AsyncConnection#getBufferedMutator(TableName)
+ * @see AsyncConnection#getBufferedMutatorBuilder(TableName)
+ */
+@InterfaceAudience.Public
+public interface AsyncBufferedMutator extends Closeable {
+
+  /**
+   * Gets the fully qualified table name instance of the table that this
+   * {@code AsyncBufferedMutator} writes to.
+   */
+  TableName getName();
+
+  /**
+   * Returns the {@link org.apache.hadoop.conf.Configuration} object used by this instance.
+   * <p>
+   * The reference returned is not a copy, so any change made to it will affect this instance.
+   */
+  Configuration getConfiguration();
+
+  /**
+   * Sends a {@link Mutation} to the table. The mutation will be buffered and sent over the wire
+   * as part of a batch.
+   * @param mutation The data to send.
+   * @return a future which completes once the mutation is written
+   */
+  CompletableFuture<Void> mutate(Mutation mutation);
+
+  /**
+   * Sends some {@link Mutation}s to the table. The mutations will be buffered and sent over the
+   * wire as part of a batch.
+   * @param mutations The data to send.
+   * @return a list of futures, one for each mutation, which complete once it is written
+   */
+  List<CompletableFuture<Void>> mutate(List<? extends Mutation> mutations);
+
+  /**
+   * Sends all the buffered mutations to the region servers, without waiting for them to be
+   * written.
+   */
+  void flush();
+
+  /**
+   * Flushes the buffered mutations. Mutations sent after are failed.
+   */
+  @Override
+  void close();
+
+  /**
+   * Returns the size of the batches sent to each region server, in bytes.
+   */
+  long getWriteBufferSize();
+
+  /**
+   * Returns the size of the mutations sent to each region server which are not written yet, in
+   * bytes.
+   */
+  Map<ServerName, Long> getInFlightSizeByServer();
+}
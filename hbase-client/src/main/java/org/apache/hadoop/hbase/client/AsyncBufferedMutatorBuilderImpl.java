@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * The implementation of {@link AsyncBufferedMutatorBuilder}.
+ */
+@InterfaceAudience.Private
+class AsyncBufferedMutatorBuilderImpl implements AsyncBufferedMutatorBuilder {
+
+  private final AsyncConnectionImpl conn;
+
+  private final TableName tableName;
+
+  private final AsyncTableBuilder<RawAsyncTable> tableBuilder;
+
+  private long writeBufferSize;
+
+  private int maxInFlightBatches;
+
+  private long lingerNs;
+
+  AsyncBufferedMutatorBuilderImpl(AsyncConnectionImpl conn, TableName tableName,
+      AsyncConnectionConfiguration connConf) {
+    this.conn = conn;
+    this.tableName = tableName;
+    this.tableBuilder = conn.getRawTableBuilder(tableName);
+    this.writeBufferSize = connConf.getWriteBufferSize();
+    this.maxInFlightBatches = connConf.getMaxInFlightBatchesPerServer();
+    this.lingerNs = connConf.getWriteBufferLingerNs();
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setOperationTimeout(long timeout, TimeUnit unit) {
+    tableBuilder.setOperationTimeout(timeout, unit);
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setRpcTimeout(long timeout, TimeUnit unit) {
+    tableBuilder.setRpcTimeout(timeout, unit);
+    tableBuilder.setWriteRpcTimeout(timeout, unit);
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setRetryPause(long pause, TimeUnit unit) {
+    tableBuilder.setRetryPause(pause, unit);
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setMaxAttempts(int maxAttempts) {
+    tableBuilder.setMaxAttempts(maxAttempts);
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setStartLogErrorsCnt(int startLogErrorsCnt) {
+    tableBuilder.setStartLogErrorsCnt(startLogErrorsCnt);
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setWriteBufferSize(long writeBufferSize) {
+    Preconditions.checkArgument(writeBufferSize > 0, "writeBufferSize %d must be > 0",
+      writeBufferSize);
+    this.writeBufferSize = writeBufferSize;
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setMaxInFlightBatchesPerServer(int maxInFlightBatches) {
+    Preconditions.checkArgument(maxInFlightBatches > 0, "maxInFlightBatches %d must be > 0",
+      maxInFlightBatches);
+    this.maxInFlightBatches = maxInFlightBatches;
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutatorBuilder setWriteBufferLinger(long linger, TimeUnit unit) {
+    Preconditions.checkArgument(linger >= 0, "linger %d must be >= 0", linger);
+    this.lingerNs = unit.toNanos(linger);
+    return this;
+  }
+
+  @Override
+  public AsyncBufferedMutator build() {
+    return new AsyncBufferedMutatorImpl(conn.getConfiguration(), tableBuilder.build(),
+        conn.getRegionLocator(tableName), writeBufferSize, maxInFlightBatches, lingerNs);
+  }
+}
@@ -0,0 +1,388 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.util.CollectionUtils.computeIfAbsent;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * The implementation of {@link AsyncBufferedMutator}.
+ * <p>
+ * The mutations are grouped by the region server of their region, as found in the location cache
+ * of the connection. Each server has its own buffer, sent as a batch when it reaches the write
+ * buffer size, or when its first mutation has waited for {@link #lingerNs}. At most
+ * {@link #maxInFlightBatches} batches are in flight to a server at once, the next ones are queued
+ * until one of them is done. The batches are sent with {@link RawAsyncTable#batch(List)}, which
+ * retries the mutations whose region has moved.
+ * <p>
+ * The mutations are added to the buffers in the order they are passed to {@link #mutate(List)},
+ * a mutation whose region is being located holds back the later ones until it is located. A batch
+ * with a row which is also in a batch in flight to the same server is queued until that batch is
+ * done, so that a mutation being retried is not overwritten by a later one of the same row.
+ */
+@InterfaceAudience.Private
+class AsyncBufferedMutatorImpl implements AsyncBufferedMutator {
+
+  private final Configuration conf;
+
+  private final RawAsyncTable table;
+
+  private final AsyncTableRegionLocator locator;
+
+  private final long writeBufferSize;
+
+  private final int maxInFlightBatches;
+
+  private final long lingerNs;
+
+  private final ConcurrentMap<ServerName, ServerBuffer> buffers = new ConcurrentHashMap<>();
+
+  // incremented by each flush, a mutation located after a flush it was sent before is sent at once
+  private final AtomicLong flushCount = new AtomicLong();
+
+  private volatile boolean closed;
+
+  // the mutations in the order they were passed, until they are located and buffered
+  private final Queue<PendingMutation> pending = new ArrayDeque<>();
+
+  // whether a thread is buffering the located mutations at the head of pending
+  private boolean buffering;
+
+  private static final class PendingMutation {
+
+    public final Mutation mutation;
+
+    public final CompletableFuture<Void> future;
+
+    public final long flush;
+
+    public final CompletableFuture<HRegionLocation> location;
+
+    public PendingMutation(Mutation mutation, CompletableFuture<Void> future, long flush,
+        CompletableFuture<HRegionLocation> location) {
+      this.mutation = mutation;
+      this.future = future;
+      this.flush = flush;
+      this.location = location;
+    }
+  }
+
+  private static final class Batch {
+
+    public final List<Mutation> mutations = new ArrayList<>();
+
+    public final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+    public long size;
+  }
+
+  /**
+   * The mutations buffered for a region server, and its batches which are not written yet.
+   */
+  private final class ServerBuffer {
+
+    private Batch buffer = new Batch();
+
+    private final Queue<Batch> queued = new ArrayDeque<>();
+
+    private int inFlightBatches;
+
+    private long inFlightSize;
+
+    // the number of batches in flight with each row, if several batches can be in flight
+    private final Map<byte[], Integer> inFlightRows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+
+    /**
+     * Must be called with the lock of this buffer held.
+     * @return the buffered batch if it can be sent now, or null if it is queued
+     */
+    private Batch takeBuffer() {
+      Batch batch = buffer;
+      buffer = new Batch();
+      if (inFlightBatches >= maxInFlightBatches || !queued.isEmpty() || hasRowInFlight(batch)) {
+        queued.add(batch);
+        return null;
+      }
+      startBatch(batch);
+      return batch;
+    }
+
+    private boolean hasRowInFlight(Batch batch) {
+      if (inFlightBatches == 0) {
+        return false;
+      }
+      for (Mutation mutation : batch.mutations) {
+        if (inFlightRows.containsKey(mutation.getRow())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void startBatch(Batch batch) {
+      inFlightBatches++;
+      inFlightSize += batch.size;
+      if (maxInFlightBatches > 1) {
+        for (Mutation mutation : batch.mutations) {
+          inFlightRows.merge(mutation.getRow(), 1, Integer::sum);
+        }
+      }
+    }
+
+    private void onBatchDone(Batch batch) {
+      List<Batch> toSend = new ArrayList<>();
+      synchronized (this) {
+        inFlightBatches--;
+        inFlightSize -= batch.size;
+        if (maxInFlightBatches > 1) {
+          for (Mutation mutation : batch.mutations) {
+            inFlightRows.computeIfPresent(mutation.getRow(), (row, n) -> n > 1 ? n - 1 : null);
+          }
+        }
+        // in order, a batch waiting for a row blocks the next ones which may have the same row
+        while (inFlightBatches < maxInFlightBatches && !queued.isEmpty()
+            && !hasRowInFlight(queued.peek())) {
+          Batch next = queued.poll();
+          startBatch(next);
+          toSend.add(next);
+        }
+      }
+      for (Batch next : toSend) {
+        send(this, next);
+      }
+    }
+  }
+
+  AsyncBufferedMutatorImpl(Configuration conf, RawAsyncTable table,
+      AsyncTableRegionLocator locator, long writeBufferSize, int maxInFlightBatches,
+      long lingerNs) {
+    this.conf = conf;
+    this.table = table;
+    this.locator = locator;
+    this.writeBufferSize = writeBufferSize;
+    this.maxInFlightBatches = maxInFlightBatches;
+    this.lingerNs = lingerNs;
+  }
+
+  @Override
+  public TableName getName() {
+    return table.getName();
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return conf;
+  }
+
+  @Override
+  public CompletableFuture<Void> mutate(Mutation mutation) {
+    return mutate(Collections.singletonList(mutation)).get(0);
+  }
+
+  @Override
+  public List<CompletableFuture<Void>> mutate(List<? extends Mutation> mutations) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(mutations.size());
+    // read before closed, see close
+    long flush = flushCount.get();
+    if (closed) {
+      for (int i = 0, n = mutations.size(); i < n; i++) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new IOException("Already closed"));
+        futures.add(future);
+      }
+      return futures;
+    }
+    List<PendingMutation> located = new ArrayList<>(mutations.size());
+    for (Mutation mutation : mutations) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      futures.add(future);
+      located.add(new PendingMutation(mutation, future, flush,
+          locator.getRegionLocation(mutation.getRow())));
+    }
+    synchronized (pending) {
+      pending.addAll(located);
+    }
+    // the callbacks of the locations run in any order, so they only buffer the head of pending
+    for (PendingMutation pm : located) {
+      pm.location.whenComplete((loc, error) -> bufferLocated());
+    }
+    return futures;
+  }
+
+  /**
+   * Adds the located mutations at the head of {@link #pending} to the buffers of their servers, in
+   * order. Only one thread does it at a time, the others leave the mutations they located to it.
+   */
+  private void bufferLocated() {
+    synchronized (pending) {
+      if (buffering) {
+        return;
+      }
+      buffering = true;
+    }
+    for (;;) {
+      PendingMutation pm;
+      synchronized (pending) {
+        pm = pending.peek();
+        if (pm == null || !pm.location.isDone()) {
+          // a location done after this check runs its own bufferLocated once we are out
+          buffering = false;
+          return;
+        }
+        pending.poll();
+      }
+      if (pm.location.isCompletedExceptionally()) {
+        // the retrying of the batch locates the region again
+        sendAlone(pm.mutation, pm.future);
+      } else {
+        add(pm.location.join().getServerName(), pm.mutation, pm.future, pm.flush);
+      }
+    }
+  }
+
+  private void add(ServerName serverName, Mutation mutation, CompletableFuture<Void> future,
+      long flush) {
+    ServerBuffer sb = computeIfAbsent(buffers, serverName, ServerBuffer::new);
+    Batch batch;
+    synchronized (sb) {
+      sb.buffer.mutations.add(mutation);
+      sb.buffer.futures.add(future);
+      sb.buffer.size += mutation.heapSize();
+      if (sb.buffer.size < writeBufferSize && flush == flushCount.get()) {
+        if (lingerNs > 0 && sb.buffer.mutations.size() == 1) {
+          Batch lingering = sb.buffer;
+          AsyncConnectionImpl.RETRY_TIMER.newTimeout(t -> flush(sb, lingering), lingerNs,
+            TimeUnit.NANOSECONDS);
+        }
+        return;
+      }
+      batch = sb.takeBuffer();
+    }
+    if (batch != null) {
+      send(sb, batch);
+    }
+  }
+
+  /**
+   * Sends the buffer of a server if it is still the given batch, that is if it has not been sent
+   * since.
+   */
+  private void flush(ServerBuffer sb, Batch buffer) {
+    Batch batch;
+    synchronized (sb) {
+      if (sb.buffer != buffer) {
+        return;
+      }
+      batch = sb.takeBuffer();
+    }
+    if (batch != null) {
+      send(sb, batch);
+    }
+  }
+
+  private void send(ServerBuffer sb, Batch batch) {
+    List<CompletableFuture<Object>> results = table.batch(batch.mutations);
+    for (int i = 0, n = results.size(); i < n; i++) {
+      CompletableFuture<Void> future = batch.futures.get(i);
+      results.get(i).whenComplete((r, e) -> {
+        if (e != null) {
+          future.completeExceptionally(e);
+        } else {
+          future.complete(null);
+        }
+      });
+    }
+    CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+        .whenComplete((r, e) -> sb.onBatchDone(batch));
+  }
+
+  private void sendAlone(Mutation mutation, CompletableFuture<Void> future) {
+    table.<Object> batch(Collections.singletonList(mutation)).get(0).whenComplete((r, e) -> {
+      if (e != null) {
+        future.completeExceptionally(e);
+      } else {
+        future.complete(null);
+      }
+    });
+  }
+
+  @Override
+  public void flush() {
+    flushCount.incrementAndGet();
+    for (ServerBuffer sb : buffers.values()) {
+      Batch batch;
+      synchronized (sb) {
+        if (sb.buffer.mutations.isEmpty()) {
+          continue;
+        }
+        batch = sb.takeBuffer();
+      }
+      if (batch != null) {
+        send(sb, batch);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    // set before the flush, so that a mutation either sees it or is sent by the flush count
+    closed = true;
+    flush();
+  }
+
+  @Override
+  public long getWriteBufferSize() {
+    return writeBufferSize;
+  }
+
+  @Override
+  public Map<ServerName, Long> getInFlightSizeByServer() {
+    Map<ServerName, Long> sizes = new HashMap<>();
+    buffers.forEach((serverName, sb) -> {
+      long size;
+      synchronized (sb) {
+        size = sb.inFlightSize;
+      }
+      if (size > 0) {
+        sizes.put(serverName, size);
+      }
+    });
+    return sizes;
+  }
+}
@@ -39,6 +39,12 @@ import static org.apache.hadoop.hbase.HConstants.HBASE_RPC_TIMEOUT_KEY;
 import static org.apache.hadoop.hbase.HConstants.HBASE_RPC_WRITE_TIMEOUT_KEY;
 import static org.apache.hadoop.hbase.client.AsyncProcess.DEFAULT_START_LOG_ERRORS_AFTER_COUNT;
 import static org.apache.hadoop.hbase.client.AsyncProcess.START_LOG_ERRORS_AFTER_COUNT_KEY;
+import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_LINGER_MS_DEFAULT;
+import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_LINGER_MS_KEY;
+import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_MAX_INFLIGHT_BATCHES_DEFAULT;
+import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_MAX_INFLIGHT_BATCHES_KEY;
+import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_SIZE_DEFAULT;
+import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_SIZE_KEY;
 
 import java.util.concurrent.TimeUnit;
 
@@ -87,6 +93,12 @@ class AsyncConnectionConfiguration {
 
   private final long scannerMaxResultSize;
 
+  private final long writeBufferSize;
+
+  private final int maxInFlightBatchesPerServer;
+
+  private final long writeBufferLingerNs;
+
   @SuppressWarnings("deprecation")
   AsyncConnectionConfiguration(Configuration conf) {
     this.metaOperationTimeoutNs = TimeUnit.MILLISECONDS.toNanos(
@@ -112,6 +124,11 @@ class AsyncConnectionConfiguration {
     this.metaScannerCaching = conf.getInt(HBASE_META_SCANNER_CACHING, DEFAULT_HBASE_META_SCANNER_CACHING);
     this.scannerMaxResultSize = conf.getLong(HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE_KEY,
       DEFAULT_HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE);
+    this.writeBufferSize = conf.getLong(WRITE_BUFFER_SIZE_KEY, WRITE_BUFFER_SIZE_DEFAULT);
+    this.maxInFlightBatchesPerServer = conf.getInt(WRITE_BUFFER_MAX_INFLIGHT_BATCHES_KEY,
+      WRITE_BUFFER_MAX_INFLIGHT_BATCHES_DEFAULT);
+    this.writeBufferLingerNs = TimeUnit.MILLISECONDS
+        .toNanos(conf.getLong(WRITE_BUFFER_LINGER_MS_KEY, WRITE_BUFFER_LINGER_MS_DEFAULT));
   }
 
   long getMetaOperationTimeoutNs() {
@@ -161,4 +178,16 @@ class AsyncConnectionConfiguration {
   long getScannerMaxResultSize() {
     return scannerMaxResultSize;
   }
+
+  long getWriteBufferSize() {
+    return writeBufferSize;
+  }
+
+  int getMaxInFlightBatchesPerServer() {
+    return maxInFlightBatchesPerServer;
+  }
+
+  long getWriteBufferLingerNs() {
+    return writeBufferLingerNs;
+  }
 }
@@ -89,6 +89,10 @@ class AsyncConnectionImpl implements AsyncConnection {
 
   final AsyncRpcRetryingCallerFactory callerFactory;
 
+  final AsyncGetCoalescer getCoalescer;
+
+  final ServerConcurrencyLimiter concurrencyLimiter;
+
   private final NonceGenerator nonceGenerator;
 
   private final ConcurrentMap<String, ClientService.Interface> rsStubs = new ConcurrentHashMap<>();
@@ -112,6 +116,8 @@ class AsyncConnectionImpl implements AsyncConnection {
       TimeUnit.NANOSECONDS.toMillis(connConf.getRpcTimeoutNs()));
     this.locator = new AsyncRegionLocator(this, RETRY_TIMER);
     this.callerFactory = new AsyncRpcRetryingCallerFactory(this, RETRY_TIMER);
+    this.getCoalescer = AsyncGetCoalescer.create(conf, locator, connConf);
+    this.concurrencyLimiter = ServerConcurrencyLimiter.create(conf);
     if (conf.getBoolean(CLIENT_NONCES_ENABLED_KEY, true)) {
       nonceGenerator = PerClientRandomNonceGenerator.get();
     } else {
@@ -297,4 +303,9 @@ class AsyncConnectionImpl implements AsyncConnection {
       }
     };
   }
-}
\ No newline at end of file
+
+  @Override
+  public AsyncBufferedMutatorBuilder getBufferedMutatorBuilder(TableName tableName) {
+    return new AsyncBufferedMutatorBuilderImpl(this, tableName, connConf);
+  }
+}
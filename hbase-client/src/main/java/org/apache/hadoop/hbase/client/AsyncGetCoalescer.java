@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.util.CollectionUtils.computeIfAbsent;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos;
+import org.apache.hadoop.hbase.util.Pair;
+
+/**
+ * Coalesces the concurrent gets of an {@link AsyncConnection}.
+ * <p>
+ * A get identical to another one still in flight, that is with the same row, columns, time
+ * range, filter, consistency and so on, and issued with the same rpc and operation timeouts, is
+ * not sent, it completes with a copy of the result of the one in flight. So it may not see a
+ * mutation which completed after the get in flight was sent, which is why this is only done when
+ * {@link #COALESCE_GETS_KEY} is set.
+ * <p>
+ * If {@link #MERGE_REGION_GETS_KEY} is set too, the gets of a region which has a get in flight
+ * wait for it to complete, and are then sent together as one multi get. Only the gets issued
+ * with the same timeouts are sent together.
+ */
+@InterfaceAudience.Private
+class AsyncGetCoalescer {
+
+  /**
+   * Set this key to {@code true} to complete the gets identical to a get in flight with its
+   * result.
+   */
+  public static final String COALESCE_GETS_KEY = "hbase.client.get.coalesce";
+
+  /**
+   * Set this key to {@code true}, with {@link #COALESCE_GETS_KEY}, to send the gets of a region
+   * which has a get in flight together after it.
+   */
+  public static final String MERGE_REGION_GETS_KEY = "hbase.client.get.coalesce.region";
+
+  private final AsyncRegionLocator locator;
+
+  private final long locateTimeoutNs;
+
+  private final boolean mergeRegionGets;
+
+  private final ConcurrentMap<GetKey, CompletableFuture<Result>> inFlight =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Pair<String, Timeouts>, RegionGets> regionGets =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The timeouts a get is issued with, which a get waiting for another one must share with it.
+   */
+  private static final class Timeouts {
+
+    private final long readRpcTimeoutNs;
+
+    private final long operationTimeoutNs;
+
+    Timeouts(RawAsyncTableImpl table) {
+      this.readRpcTimeoutNs = table.getReadRpcTimeout(TimeUnit.NANOSECONDS);
+      this.operationTimeoutNs = table.getOperationTimeout(TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(readRpcTimeoutNs) + Long.hashCode(operationTimeoutNs);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Timeouts)) {
+        return false;
+      }
+      Timeouts other = (Timeouts) obj;
+      return readRpcTimeoutNs == other.readRpcTimeoutNs
+          && operationTimeoutNs == other.operationTimeoutNs;
+    }
+  }
+
+  private static final class GetKey {
+
+    private final TableName tableName;
+
+    private final Timeouts timeouts;
+
+    private final ClientProtos.Get get;
+
+    GetKey(TableName tableName, Timeouts timeouts, ClientProtos.Get get) {
+      this.tableName = tableName;
+      this.timeouts = timeouts;
+      this.get = get;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * tableName.hashCode() + timeouts.hashCode()) + get.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof GetKey)) {
+        return false;
+      }
+      GetKey other = (GetKey) obj;
+      return tableName.equals(other.tableName) && timeouts.equals(other.timeouts)
+          && get.equals(other.get);
+    }
+  }
+
+  /**
+   * The gets of a region waiting for its get in flight.
+   */
+  private final class RegionGets {
+
+    private final Pair<String, Timeouts> key;
+
+    private boolean inFlight;
+
+    private List<Get> gets = new ArrayList<>();
+
+    private List<CompletableFuture<Result>> futures = new ArrayList<>();
+
+    RegionGets(Pair<String, Timeouts> key) {
+      this.key = key;
+    }
+
+    void send(RawAsyncTableImpl table, Get get, CompletableFuture<Result> future) {
+      synchronized (this) {
+        if (inFlight) {
+          gets.add(get);
+          futures.add(future);
+          return;
+        }
+        inFlight = true;
+      }
+      table.get0(get).whenComplete((r, e) -> {
+        complete(future, r, e);
+        onDone(table);
+      });
+    }
+
+    private void onDone(RawAsyncTableImpl table) {
+      List<Get> toSend;
+      List<CompletableFuture<Result>> toComplete;
+      synchronized (this) {
+        if (gets.isEmpty()) {
+          inFlight = false;
+          regionGets.remove(key, this);
+          return;
+        }
+        toSend = gets;
+        toComplete = futures;
+        gets = new ArrayList<>();
+        futures = new ArrayList<>();
+      }
+      List<CompletableFuture<Result>> results = table.get(toSend);
+      for (int i = 0, n = results.size(); i < n; i++) {
+        CompletableFuture<Result> future = toComplete.get(i);
+        results.get(i).whenComplete((r, e) -> complete(future, r, e));
+      }
+      CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+          .whenComplete((r, e) -> onDone(table));
+    }
+  }
+
+  @VisibleForTesting
+  AsyncGetCoalescer(AsyncRegionLocator locator, long locateTimeoutNs, boolean mergeRegionGets) {
+    this.locator = locator;
+    this.locateTimeoutNs = locateTimeoutNs;
+    this.mergeRegionGets = mergeRegionGets;
+  }
+
+  /**
+   * @return the coalescer of the gets of a connection, or null if they are not coalesced
+   */
+  static AsyncGetCoalescer create(Configuration conf, AsyncRegionLocator locator,
+      AsyncConnectionConfiguration connConf) {
+    if (!conf.getBoolean(COALESCE_GETS_KEY, false)) {
+      return null;
+    }
+    return new AsyncGetCoalescer(locator, connConf.getOperationTimeoutNs(),
+        conf.getBoolean(MERGE_REGION_GETS_KEY, false));
+  }
+
+  private static void complete(CompletableFuture<Result> future, Result result, Throwable error) {
+    if (error != null) {
+      future.completeExceptionally(error);
+    } else {
+      future.complete(result);
+    }
+  }
+
+  /**
+   * @return a copy of the result of a get, as the cells of a result may be modified by its caller
+   */
+  private static Result copy(Result result) {
+    return Result.create(result.rawCells(), result.getExists(), result.isStale(),
+      result.mayHaveMoreCellsInRow());
+  }
+
+  CompletableFuture<Result> get(RawAsyncTableImpl table, Get get) {
+    Timeouts timeouts = new Timeouts(table);
+    GetKey key;
+    try {
+      key = new GetKey(table.getName(), timeouts, ProtobufUtil.toGet(get));
+    } catch (IOException e) {
+      // the get can not be serialized, let it fail as usual
+      return table.get0(get);
+    }
+    CompletableFuture<Result> future = new CompletableFuture<>();
+    CompletableFuture<Result> sent = inFlight.putIfAbsent(key, future);
+    if (sent != null) {
+      // each caller has its own future, so that one of them cancelling it has no effect on others
+      CompletableFuture<Result> coalesced = new CompletableFuture<>();
+      sent.whenComplete((r, e) -> complete(coalesced, r != null ? copy(r) : null, e));
+      return coalesced;
+    }
+    CompletableFuture<Result> result = new CompletableFuture<>();
+    future.whenComplete((r, e) -> {
+      // removed before completing the gets coalesced, a get issued after this is sent again
+      inFlight.remove(key, future);
+      complete(result, r, e);
+    });
+    send(table, timeouts, get, future);
+    return result;
+  }
+
+  private void send(RawAsyncTableImpl table, Timeouts timeouts, Get get,
+      CompletableFuture<Result> future) {
+    if (!mergeRegionGets) {
+      table.get0(get).whenComplete((r, e) -> complete(future, r, e));
+      return;
+    }
+    locator.getRegionLocation(table.getName(), get.getRow(), RegionLocateType.CURRENT,
+      locateTimeoutNs).whenComplete((loc, error) -> {
+        if (error != null) {
+          // the get locates the region again when retrying
+          table.get0(get).whenComplete((r, e) -> complete(future, r, e));
+          return;
+        }
+        Pair<String, Timeouts> regionKey =
+            new Pair<>(loc.getRegionInfo().getEncodedName(), timeouts);
+        computeIfAbsent(regionGets, regionKey, () -> new RegionGets(regionKey))
+            .send(table, get, future);
+      });
+  }
+
+  @VisibleForTesting
+  int getInFlightCount() {
+    return inFlight.size();
+  }
+}
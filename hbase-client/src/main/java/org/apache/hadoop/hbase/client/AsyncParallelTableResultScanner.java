@@ -0,0 +1,426 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.TableName.META_TABLE_NAME;
+import static org.apache.hadoop.hbase.client.ConnectionUtils.calcEstimatedSize;
+import static org.apache.hadoop.hbase.client.ConnectionUtils.isEmptyStartRow;
+import static org.apache.hadoop.hbase.client.ConnectionUtils.isEmptyStopRow;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.AsyncMetaTableAccessor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ReflectionUtils;
+
+/**
+ * The {@link ResultScanner} returned by {@link AsyncTable#getParallelScanner(Scan, int, boolean)}.
+ * <p>
+ * The range of the scan is split at the boundaries of the regions of the table, as found in meta
+ * when the scanner is created, and up to {@link #maxConcurrentRegions} of these ranges are scanned
+ * at once, and no more than {@link #maxRegionsPerServer} on the same region server. A range is
+ * scanned with {@link RawAsyncTable#scan(Scan, RawScanResultConsumer)}, so it still completes if
+ * its region splits or moves meanwhile.
+ * <p>
+ * The results of each range are cached in memory, up to {@link #maxCacheSize}, after which the scan
+ * of the range is suspended until they are consumed. If the results are returned in key order, a
+ * range is only scanned once all but {@code maxConcurrentRegions - 1} of the ranges before it are
+ * consumed, so the results waiting to be returned are bounded.
+ */
+@InterfaceAudience.Private
+class AsyncParallelTableResultScanner implements ResultScanner {
+
+  private static final Log LOG = LogFactory.getLog(AsyncParallelTableResultScanner.class);
+
+  /**
+   * The maximum number of regions of the same region server scanned at once by a parallel
+   * scanner.
+   */
+  public static final String MAX_REGIONS_PER_SERVER_KEY =
+      "hbase.client.scanner.parallel.max.perserver.regions";
+
+  public static final int DEFAULT_MAX_REGIONS_PER_SERVER = 2;
+
+  private final RawAsyncTable rawTable;
+
+  private final Scan scan;
+
+  private final int maxConcurrentRegions;
+
+  private final int maxRegionsPerServer;
+
+  private final boolean ordered;
+
+  private final long maxCacheSize;
+
+  // the ranges not scanned yet, in key order
+  private final LinkedList<RegionScan> pending = new LinkedList<>();
+
+  // the ranges being scanned or with results left, in key order
+  private final List<RegionScan> active = new ArrayList<>();
+
+  private final Map<ServerName, Integer> scanningPerServer = new HashMap<>();
+
+  private boolean located = false;
+
+  private boolean closed = false;
+
+  private Throwable error;
+
+  // where to look for a result first when they are not ordered
+  private int nextActive = 0;
+
+  /**
+   * The scan of the range of a region.
+   */
+  private final class RegionScan implements RawScanResultConsumer {
+
+    private final Scan scan;
+
+    private final ServerName serverName;
+
+    private final Queue<Result> queue = new ArrayDeque<>();
+
+    private long cacheSize;
+
+    private ScanResumer resumer;
+
+    private boolean done;
+
+    RegionScan(Scan scan, ServerName serverName) {
+      this.scan = scan;
+      this.serverName = serverName;
+    }
+
+    @Override
+    public void onNext(Result[] results, ScanController controller) {
+      synchronized (AsyncParallelTableResultScanner.this) {
+        if (closed || AsyncParallelTableResultScanner.this.error != null) {
+          controller.terminate();
+          return;
+        }
+        for (Result result : results) {
+          queue.add(result);
+          cacheSize += calcEstimatedSize(result);
+        }
+        AsyncParallelTableResultScanner.this.notifyAll();
+        if (cacheSize >= maxCacheSize) {
+          resumer = controller.suspend();
+        }
+      }
+    }
+
+    @Override
+    public void onHeartbeat(ScanController controller) {
+      synchronized (AsyncParallelTableResultScanner.this) {
+        if (closed || AsyncParallelTableResultScanner.this.error != null) {
+          controller.terminate();
+        }
+      }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      synchronized (AsyncParallelTableResultScanner.this) {
+        done = true;
+        if (AsyncParallelTableResultScanner.this.error == null) {
+          AsyncParallelTableResultScanner.this.error = error;
+        }
+        // the whole scan fails, so stop the scans of the other ranges too
+        stopScans();
+        AsyncParallelTableResultScanner.this.notifyAll();
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      List<RegionScan> toStart;
+      synchronized (AsyncParallelTableResultScanner.this) {
+        done = true;
+        scanningPerServer.merge(serverName, -1, Integer::sum);
+        AsyncParallelTableResultScanner.this.notifyAll();
+        toStart = nextRegionsToScan();
+      }
+      startScans(toStart);
+    }
+
+    Result poll() {
+      Result result = queue.poll();
+      if (result != null) {
+        cacheSize -= calcEstimatedSize(result);
+        if (resumer != null && cacheSize <= maxCacheSize / 2) {
+          resume();
+        }
+      }
+      return result;
+    }
+
+    void resume() {
+      resumer.resume();
+      resumer = null;
+    }
+  }
+
+  AsyncParallelTableResultScanner(AsyncConnectionImpl conn, RawAsyncTable rawTable, Scan scan,
+      int maxConcurrentRegions, boolean ordered, long maxCacheSize) {
+    this.rawTable = rawTable;
+    this.scan = scan;
+    this.maxConcurrentRegions = maxConcurrentRegions;
+    this.maxRegionsPerServer = Math.max(1, conn.getConfiguration()
+        .getInt(MAX_REGIONS_PER_SERVER_KEY, DEFAULT_MAX_REGIONS_PER_SERVER));
+    this.ordered = ordered;
+    this.maxCacheSize = maxCacheSize;
+    AsyncMetaTableAccessor
+        .getTableHRegionLocations(conn.getRawTable(META_TABLE_NAME),
+          Optional.of(rawTable.getName()))
+        .whenComplete((locs, e) -> {
+          if (e != null) {
+            synchronized (this) {
+              error = e;
+              notifyAll();
+            }
+            return;
+          }
+          List<RegionScan> toStart;
+          synchronized (this) {
+            located = true;
+            for (HRegionLocation loc : sortByStartKey(locs)) {
+              Scan regionScan = createRegionScan(loc.getRegionInfo());
+              if (regionScan != null) {
+                pending.add(new RegionScan(regionScan, loc.getServerName()));
+              }
+            }
+            if (LOG.isDebugEnabled()) {
+              LOG.debug("Scanning " + pending.size() + " regions of " + rawTable.getName()
+                  + " with up to " + maxConcurrentRegions + " of them at once");
+            }
+            notifyAll();
+            toStart = nextRegionsToScan();
+          }
+          startScans(toStart);
+        });
+  }
+
+  private static List<HRegionLocation> sortByStartKey(List<HRegionLocation> locs) {
+    List<HRegionLocation> sorted = new ArrayList<>(locs.size());
+    for (HRegionLocation loc : locs) {
+      if (RegionReplicaUtil.isDefaultReplica(loc.getRegionInfo())) {
+        sorted.add(loc);
+      }
+    }
+    Collections.sort(sorted, (l1, l2) -> Bytes.compareTo(l1.getRegionInfo().getStartKey(),
+      l2.getRegionInfo().getStartKey()));
+    return sorted;
+  }
+
+  /**
+   * @return the scan of the part of the range of the scan in the region, or null if they do not
+   *         overlap
+   */
+  @VisibleForTesting
+  Scan createRegionScan(HRegionInfo region) {
+    byte[] startRow = scan.getStartRow();
+    boolean includeStartRow = scan.includeStartRow();
+    byte[] stopRow = scan.getStopRow();
+    boolean includeStopRow = scan.includeStopRow();
+    if (!isEmptyStopRow(region.getEndKey()) && !isEmptyStartRow(startRow)
+        && Bytes.compareTo(startRow, region.getEndKey()) >= 0) {
+      return null;
+    }
+    if (!isEmptyStartRow(region.getStartKey()) && !isEmptyStopRow(stopRow)) {
+      int c = Bytes.compareTo(region.getStartKey(), stopRow);
+      if (c > 0 || (c == 0 && !includeStopRow)) {
+        return null;
+      }
+    }
+    if (isEmptyStartRow(startRow) || Bytes.compareTo(startRow, region.getStartKey()) < 0) {
+      startRow = region.getStartKey();
+      includeStartRow = true;
+    }
+    if (isEmptyStopRow(stopRow) || (!isEmptyStopRow(region.getEndKey())
+        && Bytes.compareTo(stopRow, region.getEndKey()) >= 0)) {
+      stopRow = region.getEndKey();
+      includeStopRow = false;
+    }
+    return ReflectionUtils.newInstance(scan.getClass(), scan)
+        .withStartRow(startRow, includeStartRow).withStopRow(stopRow, includeStopRow);
+  }
+
+  /**
+   * Must be called with the lock held.
+   * @return the ranges to start scanning, moved from pending to active
+   */
+  private List<RegionScan> nextRegionsToScan() {
+    List<RegionScan> toStart = new ArrayList<>();
+    if (closed || error != null) {
+      return toStart;
+    }
+    for (Iterator<RegionScan> iter = pending.iterator(); iter.hasNext()
+        && active.size() < maxConcurrentRegions;) {
+      RegionScan regionScan = iter.next();
+      if (scanningPerServer.getOrDefault(regionScan.serverName, 0) >= maxRegionsPerServer) {
+        if (ordered) {
+          // the ranges must be scanned in order, wait for the server
+          break;
+        }
+        continue;
+      }
+      iter.remove();
+      active.add(regionScan);
+      scanningPerServer.merge(regionScan.serverName, 1, Integer::sum);
+      toStart.add(regionScan);
+    }
+    return toStart;
+  }
+
+  private void startScans(List<RegionScan> toStart) {
+    for (RegionScan regionScan : toStart) {
+      rawTable.scan(regionScan.scan, regionScan);
+    }
+  }
+
+  /**
+   * Must be called with the lock held.
+   * @return the next result to return, or null if there is none yet
+   */
+  private Result poll() {
+    if (ordered) {
+      while (!active.isEmpty()) {
+        RegionScan head = active.get(0);
+        Result result = head.poll();
+        if (result != null) {
+          return result;
+        }
+        if (!head.done) {
+          return null;
+        }
+        active.remove(0);
+      }
+      return null;
+    }
+    for (int i = 0; i < active.size();) {
+      int index = (nextActive + i) % active.size();
+      RegionScan regionScan = active.get(index);
+      Result result = regionScan.poll();
+      if (result != null) {
+        // start from the next range next time, so that all of them make progress
+        nextActive = index + 1;
+        return result;
+      }
+      if (regionScan.done) {
+        active.remove(index);
+      } else {
+        i++;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Result next() throws IOException {
+    Result result;
+    List<RegionScan> toStart;
+    synchronized (this) {
+      for (;;) {
+        if (error != null) {
+          Throwables.propagateIfPossible(error, IOException.class);
+          throw new IOException(error);
+        }
+        if (closed) {
+          return null;
+        }
+        int activeCount = active.size();
+        result = poll();
+        toStart = active.size() < activeCount ? nextRegionsToScan() : Collections.emptyList();
+        if (result != null || !toStart.isEmpty()) {
+          break;
+        }
+        if (located && active.isEmpty() && pending.isEmpty()) {
+          return null;
+        }
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          throw new InterruptedIOException();
+        }
+      }
+    }
+    startScans(toStart);
+    return result != null ? result : next();
+  }
+
+  /**
+   * Must be called with the lock held, once the scanner is closed or has failed. Drops the
+   * results not returned yet and the ranges not scanned yet. The scans running are terminated on
+   * their next batch of results or heartbeat.
+   */
+  private void stopScans() {
+    for (RegionScan regionScan : active) {
+      regionScan.queue.clear();
+      regionScan.cacheSize = 0;
+      if (regionScan.resumer != null) {
+        // let it see that the scanner is closed or has failed
+        regionScan.resume();
+      }
+    }
+    active.clear();
+    pending.clear();
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    stopScans();
+    notifyAll();
+  }
+
+  @Override
+  public boolean renewLease() {
+    // the ranges are scanned in the background, see AsyncTableResultScanner
+    return false;
+  }
+
+  /**
+   * The metrics of the scans of the ranges are not merged, so this returns null.
+   */
+  @Override
+  public ScanMetrics getScanMetrics() {
+    return null;
+  }
+}
@@ -449,6 +449,11 @@ class AsyncProcess {
   void decTaskCounters(Collection<byte[]> regions, ServerName sn) {
     requestController.decTaskCounters(regions, sn);
   }
+
+  void notifyTaskDone(ServerName sn, long elapsedNs, Throwable error) {
+    requestController.notifyTaskDone(sn, elapsedNs, error);
+  }
+
   /**
    * Only used w/useGlobalErrors ctor argument, for HTable backward compat.
    * @return Whether there were any errors in any request since the last time
@@ -210,11 +210,18 @@ class AsyncRequestFutureImpl<CResult> implements AsyncRequestFuture {
           if (callsInProgress != null) {
             callsInProgress.add(callable);
           }
-          res = caller.callWithoutRetries(callable, operationTimeout);
+          long startNs = System.nanoTime();
+          try {
+            res = caller.callWithoutRetries(callable, operationTimeout);
+          } catch (IOException e) {
+            asyncProcess.notifyTaskDone(server, System.nanoTime() - startNs, e);
+            throw e;
+          }
           if (res == null) {
             // Cancelled
             return;
           }
+          asyncProcess.notifyTaskDone(server, System.nanoTime() - startNs, null);
         } catch (IOException e) {
           // The service itself failed . It may be an error coming from the communication
           //   layer, but, as well, a functional error raised by the server.
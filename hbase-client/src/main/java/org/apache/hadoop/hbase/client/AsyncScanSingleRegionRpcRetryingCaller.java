@@ -120,6 +120,24 @@ class AsyncScanSingleRegionRpcRetryingCaller {
 
   private long nextCallSeq = -1L;
 
+  // Whether to send the next scan request before handing the current batch to the consumer, see
+  // Scan#setAsyncPrefetch.
+  private final boolean prefetch;
+
+  // The fields below are guarded by this and only used when prefetch is enabled. While the
+  // consumer processes a batch the next request is already in flight, and its response is parked
+  // here, with the controller it came back on, until the consumer is done with the current batch.
+  private boolean delivering;
+
+  private boolean hasPendingResp;
+
+  private HBaseRpcController pendingController;
+
+  private ScanResponse pendingResp;
+
+  // The consumer terminated the scan while a prefetch was in flight.
+  private boolean terminated;
+
   private enum ScanControllerState {
     INITIALIZED, SUSPENDED, TERMINATED, DESTROYED
   }
@@ -213,6 +231,9 @@ class AsyncScanSingleRegionRpcRetryingCaller {
 
     private int numberOfCompleteRows;
 
+    // The scan was suspended while the next batch was being prefetched.
+    private boolean prefetched;
+
     // If the scan is suspended successfully, we need to do lease renewal to prevent it being closed
     // by RS due to lease expire. It is a one-time timer task so we need to schedule a new task
     // every time when the previous task is finished. There could also be race as the renewal is
@@ -247,6 +268,18 @@ class AsyncScanSingleRegionRpcRetryingCaller {
         localResp = this.resp;
         localNumberOfCompleteRows = this.numberOfCompleteRows;
       }
+      if (prefetched) {
+        if (finishDelivery()) {
+          // Do not pass the prefetched batch to the consumer from inside resume, the consumer may
+          // not be done with its own bookkeeping for this resumer yet. Hand it off to the timer
+          // thread instead, as the response of a call made here would arrive on the rpc thread.
+          HBaseRpcController localController = pendingController;
+          ScanResponse localPendingResp = pendingResp;
+          retryTimer.newTimeout(t -> onComplete(localController, localPendingResp), 0,
+            TimeUnit.NANOSECONDS);
+        }
+        return;
+      }
       completeOrNext(localResp, localNumberOfCompleteRows);
     }
 
@@ -283,6 +316,18 @@ class AsyncScanSingleRegionRpcRetryingCaller {
       }
       return true;
     }
+
+    // Same as prepare but for a scan suspended with a prefetch in flight. No lease renewal is
+    // needed, the prefetch keeps the scanner alive. If the user suspends for longer than the lease
+    // period the next call fails with UnknownScannerException and we reopen the scanner.
+    synchronized boolean preparePrefetched() {
+      if (state == ScanResumerState.RESUMED) {
+        return false;
+      }
+      state = ScanResumerState.SUSPENDED;
+      this.prefetched = true;
+      return true;
+    }
   }
 
   public AsyncScanSingleRegionRpcRetryingCaller(HashedWheelTimer retryTimer,
@@ -313,6 +358,7 @@ class AsyncScanSingleRegionRpcRetryingCaller {
     this.future = new CompletableFuture<>();
     this.controller = conn.rpcControllerFactory.newController();
     this.exceptions = new ArrayList<>();
+    this.prefetch = Boolean.TRUE.equals(scan.isAsyncPrefetch());
   }
 
   private long elapsedMs() {
@@ -456,9 +502,36 @@ class AsyncScanSingleRegionRpcRetryingCaller {
   }
 
   private void onComplete(HBaseRpcController controller, ScanResponse resp) {
+    synchronized (this) {
+      if (delivering) {
+        // The response of a prefetch which came back while the consumer is still processing the
+        // previous batch. It will be processed once the consumer is done with that batch. The
+        // controller is kept too, it holds the cells of the response, and whether the call failed.
+        pendingController = controller;
+        pendingResp = resp;
+        hasPendingResp = true;
+        return;
+      }
+    }
+    // Loop instead of recursing so a long scan with a slow consumer does not grow the stack.
+    while (processResponse(controller, resp)) {
+      controller = pendingController;
+      resp = pendingResp;
+    }
+  }
+
+  // Returns true if a prefetched response is pending and should be processed next.
+  private boolean processResponse(HBaseRpcController controller, ScanResponse resp) {
+    if (terminated) {
+      // The consumer has terminated the scan while we were prefetching, just release the scanner.
+      if (!controller.failed() && resp.getMoreResultsInRegion()) {
+        closeScanner();
+      }
+      return false;
+    }
     if (controller.failed()) {
       onError(controller.getFailed());
-      return;
+      return false;
     }
     updateServerSideMetrics(scanMetrics, resp);
     boolean isHeartbeatMessage = resp.hasHeartbeatMessage() && resp.getHeartbeatMessage();
@@ -476,17 +549,23 @@ class AsyncScanSingleRegionRpcRetryingCaller {
       // OutOfOrderScannerNextException. Let the upper layer open a new scanner.
       LOG.warn("decode scan response failed", e);
       completeWhenError(true);
-      return;
+      return false;
     }
+    int numberOfCompleteRows = resultCache.numberOfCompleteRows() - numberOfCompleteRowsBefore;
 
     ScanControllerImpl scanController = new ScanControllerImpl();
+    boolean prefetched = false;
     if (results.length > 0) {
       updateNextStartRowWhenError(results[results.length - 1]);
+      prefetched = tryPrefetch(resp, numberOfCompleteRows);
       consumer.onNext(results, scanController);
     } else if (resp.hasHeartbeatMessage() && resp.getHeartbeatMessage()) {
       consumer.onHeartbeat(scanController);
     }
     ScanControllerState state = scanController.destroy();
+    if (prefetched) {
+      return onPrefetchedBatchConsumed(state, scanController);
+    }
     if (state == ScanControllerState.TERMINATED) {
       if (resp.getMoreResultsInRegion()) {
         // we have more results in region but user request to stop the scan, so we need to close the
@@ -494,15 +573,59 @@ class AsyncScanSingleRegionRpcRetryingCaller {
         closeScanner();
       }
       completeNoMoreResults();
-      return;
+      return false;
     }
-    int numberOfCompleteRows = resultCache.numberOfCompleteRows() - numberOfCompleteRowsBefore;
     if (state == ScanControllerState.SUSPENDED) {
       if (scanController.resumer.prepare(resp, numberOfCompleteRows)) {
-        return;
+        return false;
       }
     }
     completeOrNext(resp, numberOfCompleteRows);
+    return false;
+  }
+
+  // Send the next request before handing the current batch to the consumer if prefetch is enabled
+  // and the region has more results. Returns true if the next request has been sent.
+  private boolean tryPrefetch(ScanResponse resp, int numberOfCompleteRows) {
+    if (!prefetch || !resp.getMoreResultsInRegion() ||
+        (resp.hasMoreResults() && !resp.getMoreResults())) {
+      return false;
+    }
+    if (scan.getLimit() > 0) {
+      int newLimit = scan.getLimit() - numberOfCompleteRows;
+      assert newLimit > 0;
+      scan.setLimit(newLimit);
+    }
+    synchronized (this) {
+      delivering = true;
+    }
+    next();
+    return true;
+  }
+
+  private boolean onPrefetchedBatchConsumed(ScanControllerState state,
+      ScanControllerImpl scanController) {
+    if (state == ScanControllerState.TERMINATED) {
+      terminated = true;
+      completeNoMoreResults();
+    } else if (state == ScanControllerState.SUSPENDED) {
+      if (scanController.resumer.preparePrefetched()) {
+        return false;
+      }
+    }
+    return finishDelivery();
+  }
+
+  // Mark the current batch as consumed. Returns true if the prefetched response has already
+  // arrived, in which case it is available in pendingController and pendingResp and must be
+  // processed by the caller.
+  private synchronized boolean finishDelivery() {
+    delivering = false;
+    if (!hasPendingResp) {
+      return false;
+    }
+    hasPendingResp = false;
+    return true;
   }
 
   private void call() {
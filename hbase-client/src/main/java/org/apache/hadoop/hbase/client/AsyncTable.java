@@ -57,6 +57,28 @@ public interface AsyncTable extends AsyncTableBase {
    */
   ResultScanner getScanner(Scan scan);
 
+  /**
+   * Returns a scanner on the current table as specified by the {@link Scan} object, which scans
+   * several regions at once.
+   * <p>
+   * The range of the scan is split at the region boundaries, and up to
+   * {@code maxConcurrentRegions} regions are scanned in parallel, with no more than
+   * hbase.client.scanner.parallel.max.perserver.regions of them on the same region server. This is
+   * meant for scanning a large part of a table, as the plain scanner scans one region after
+   * another.
+   * <p>
+   * A reversed scan, or a scan with a limit, is not split and is the same as
+   * {@link #getScanner(Scan)}. The scan metrics of the returned scanner are not available.
+   * @param scan A configured {@link Scan} object.
+   * @param maxConcurrentRegions the maximum number of regions to scan at once.
+   * @param ordered whether to return the results in key order, as {@link #getScanner(Scan)} does,
+   *          or as soon as they are fetched. In key order, the results of a region can only be
+   *          fetched in advance while less than {@code maxConcurrentRegions} regions are waiting
+   *          to be returned, so a slow region also slows down the next ones.
+   * @return A scanner.
+   */
+  ResultScanner getParallelScanner(Scan scan, int maxConcurrentRegions, boolean ordered);
+
   /**
    * The scan API uses the observer pattern. All results that match the given scan object will be
    * passed to the given {@code consumer} by calling {@link ScanResultConsumer#onNext(Result)}.
@@ -36,6 +36,8 @@ import org.apache.hadoop.hbase.util.ReflectionUtils;
 @InterfaceAudience.Private
 class AsyncTableImpl implements AsyncTable {
 
+  private final AsyncConnectionImpl conn;
+
   private final RawAsyncTable rawTable;
 
   private final ExecutorService pool;
@@ -43,6 +45,7 @@ class AsyncTableImpl implements AsyncTable {
   private final long defaultScannerMaxResultSize;
 
   AsyncTableImpl(AsyncConnectionImpl conn, RawAsyncTable rawTable, ExecutorService pool) {
+    this.conn = conn;
     this.rawTable = rawTable;
     this.pool = pool;
     this.defaultScannerMaxResultSize = conn.connConf.getScannerMaxResultSize();
@@ -160,6 +163,21 @@ class AsyncTableImpl implements AsyncTable {
           scan.getMaxResultSize() > 0 ? scan.getMaxResultSize() : defaultScannerMaxResultSize));
   }
 
+  @Override
+  public ResultScanner getParallelScanner(Scan scan, int maxConcurrentRegions, boolean ordered) {
+    if (maxConcurrentRegions <= 0) {
+      throw new IllegalArgumentException("maxConcurrentRegions must be positive, got "
+          + maxConcurrentRegions);
+    }
+    if (scan.isReversed() || scan.getLimit() > 0 || maxConcurrentRegions == 1) {
+      return getScanner(scan);
+    }
+    return new AsyncParallelTableResultScanner(conn, rawTable,
+        ReflectionUtils.newInstance(scan.getClass(), scan), maxConcurrentRegions, ordered,
+        resultSize2CacheSize(
+          scan.getMaxResultSize() > 0 ? scan.getMaxResultSize() : defaultScannerMaxResultSize));
+  }
+
   private void scan0(Scan scan, ScanResultConsumer consumer) {
     try (ResultScanner scanner = getScanner(scan)) {
       consumer.onScanMetricsCreated(scanner.getScanMetrics());
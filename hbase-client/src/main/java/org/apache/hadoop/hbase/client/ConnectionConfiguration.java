@@ -30,6 +30,11 @@ public class ConnectionConfiguration {
 
   public static final String WRITE_BUFFER_SIZE_KEY = "hbase.client.write.buffer";
   public static final long WRITE_BUFFER_SIZE_DEFAULT = 2097152;
+  public static final String WRITE_BUFFER_MAX_INFLIGHT_BATCHES_KEY =
+      "hbase.client.write.buffer.max.inflight.batches";
+  public static final int WRITE_BUFFER_MAX_INFLIGHT_BATCHES_DEFAULT = 4;
+  public static final String WRITE_BUFFER_LINGER_MS_KEY = "hbase.client.write.buffer.linger.ms";
+  public static final long WRITE_BUFFER_LINGER_MS_DEFAULT = 0;
   public static final String MAX_KEYVALUE_SIZE_KEY = "hbase.client.keyvalue.maxsize";
   public static final int MAX_KEYVALUE_SIZE_DEFAULT = -1;
 
@@ -51,6 +51,7 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.MasterNotRunningException;
 import org.apache.hadoop.hbase.MetaTableAccessor;
+import org.apache.hadoop.hbase.MetaTableAccessor.QueryType;
 import org.apache.hadoop.hbase.RegionLocations;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.TableName;
@@ -140,6 +141,25 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
 
   private static final String RESOLVE_HOSTNAME_ON_FAIL_KEY = "hbase.resolve.hostnames.on.failure";
 
+  /**
+   * Whether to cache the locations of all the regions of a table with a single scan of meta, on
+   * the first miss of the cache for the table.
+   */
+  public static final String PREFETCH_REGION_LOCATIONS_KEY =
+      "hbase.client.prefetch.region.locations";
+  public static final boolean DEFAULT_PREFETCH_REGION_LOCATIONS = false;
+  /** The maximum number of regions of a table to prefetch on the first miss. */
+  public static final String PREFETCH_REGION_LOCATIONS_MAX_KEY =
+      "hbase.client.prefetch.region.locations.max";
+  public static final int DEFAULT_PREFETCH_REGION_LOCATIONS_MAX = 10000;
+  /**
+   * The number of regions following a region looked up after a miss to refresh as well, once the
+   * table has been prefetched.
+   */
+  public static final String PREFETCH_REGION_LOCATIONS_REFRESH_KEY =
+      "hbase.client.prefetch.region.locations.refresh";
+  public static final int DEFAULT_PREFETCH_REGION_LOCATIONS_REFRESH = 10;
+
   private final boolean hostnamesCanChange;
   private final long pause;
   private final long pauseForCQTBE;// pause for CallQueueTooBigException, if specified
@@ -147,6 +167,9 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
   private final int metaReplicaCallTimeoutScanInMicroSecond;
   private final int numTries;
   final int rpcTimeout;
+  private final boolean prefetchRegionLocations;
+  private final int prefetchRegionLocationsMax;
+  private final int prefetchRegionLocationsRefresh;
 
   /**
    * Global nonceGenerator shared per client.Currently there's no reason to limit its scope.
@@ -159,6 +182,7 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
   private final AsyncProcess asyncProcess;
   // single tracker per connection
   private final ServerStatisticTracker stats;
+  private final ReplicaCallDelayTracker replicaCallDelayTracker;
 
   private volatile boolean closed;
   private volatile boolean aborted;
@@ -242,6 +266,12 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
       HConstants.DEFAULT_USE_META_REPLICAS);
     this.metaReplicaCallTimeoutScanInMicroSecond =
         connectionConfig.getMetaReplicaCallTimeoutMicroSecondScan();
+    this.prefetchRegionLocations =
+        conf.getBoolean(PREFETCH_REGION_LOCATIONS_KEY, DEFAULT_PREFETCH_REGION_LOCATIONS);
+    this.prefetchRegionLocationsMax =
+        conf.getInt(PREFETCH_REGION_LOCATIONS_MAX_KEY, DEFAULT_PREFETCH_REGION_LOCATIONS_MAX);
+    this.prefetchRegionLocationsRefresh = conf.getInt(PREFETCH_REGION_LOCATIONS_REFRESH_KEY,
+      DEFAULT_PREFETCH_REGION_LOCATIONS_REFRESH);
 
     // how many times to try, one more than max *retry* time
     this.numTries = retries2Attempts(connectionConfig.getRetriesNumber());
@@ -259,6 +289,7 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
     }
 
     this.stats = ServerStatisticTracker.create(conf);
+    this.replicaCallDelayTracker = ReplicaCallDelayTracker.create(conf);
     this.interceptor = (new RetryingCallerInterceptorFactory(conf)).build();
     this.rpcControllerFactory = RpcControllerFactory.instantiate(conf);
     this.rpcCallerFactory = RpcRetryingCallerFactory.instantiate(conf, interceptor, this.stats);
@@ -794,6 +825,14 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
       if (locations != null && locations.getRegionLocation(replicaId) != null) {
         return locations;
       }
+      if (prefetchRegionLocations && metaCache.markPrefetched(tableName)) {
+        prefetchRegionLocations(tableName, HConstants.EMPTY_START_ROW,
+          prefetchRegionLocationsMax);
+        locations = getCachedLocation(tableName, row);
+        if (locations != null && locations.getRegionLocation(replicaId) != null) {
+          return locations;
+        }
+      }
     }
 
     // build the key of the meta region we should be looking for.
@@ -890,6 +929,13 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
         }
         // Instantiate the location
         cacheLocation(tableName, locations);
+        if (prefetchRegionLocations && metaCache.isPrefetched(tableName)
+            && !Bytes.equals(regionInfo.getEndKey(), HConstants.EMPTY_END_ROW)) {
+          // The region was dropped from the cache, probably after a split, a move or a crash,
+          // which are likely to have changed the location of the following regions too.
+          prefetchRegionLocations(tableName, regionInfo.getEndKey(),
+            prefetchRegionLocationsRefresh);
+        }
         return locations;
       } catch (TableNotFoundException e) {
         // if we got this error, probably means the table just plain doesn't
@@ -931,6 +977,49 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
     }
   }
 
+  /**
+   * Scan hbase:meta for the locations of the regions of a table starting at the given row, and
+   * cache them. Failures are only logged, the regions will be looked up one by one on a miss.
+   * @param tableName the table whose locations to prefetch
+   * @param startRow the start key of the first region to prefetch
+   * @param maxRegions the maximum number of regions to prefetch
+   */
+  private void prefetchRegionLocations(TableName tableName, byte[] startRow, int maxRegions)
+      throws InterruptedIOException {
+    List<RegionLocations> prefetched = new ArrayList<>();
+    MetaTableAccessor.Visitor visitor = r -> {
+      RegionLocations locations = MetaTableAccessor.getRegionLocations(r);
+      HRegionLocation location = locations == null ? null : locations.getDefaultRegionLocation();
+      if (location == null) {
+        return true;
+      }
+      HRegionInfo regionInfo = location.getRegionInfo();
+      if (!regionInfo.getTable().equals(tableName)) {
+        return false;
+      }
+      if (!regionInfo.isSplit() && !regionInfo.isOffline() && location.getServerName() != null
+          && !isDeadServer(location.getServerName())) {
+        prefetched.add(locations);
+      }
+      return true;
+    };
+    try {
+      MetaTableAccessor.scanMeta(this,
+        HRegionInfo.createRegionName(tableName, startRow, HConstants.ZEROES, false),
+        MetaTableAccessor.getTableStopRowForMeta(tableName, QueryType.REGION), QueryType.REGION,
+        maxRegions, visitor);
+    } catch (IOException e) {
+      ExceptionUtil.rethrowIfInterrupt(e);
+      LOG.warn("Failed to prefetch the region locations of " + tableName + " from row "
+          + Bytes.toStringBinary(startRow), e);
+    }
+    metaCache.cacheLocations(tableName, prefetched);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Prefetched " + prefetched.size() + " region locations of " + tableName
+          + " from row " + Bytes.toStringBinary(startRow));
+    }
+  }
+
   /**
    * Put a newly discovered HRegionLocation into the cache.
    * @param tableName The table name.
@@ -1931,6 +2020,14 @@ class ConnectionImplementation implements ClusterConnection, Closeable {
     return this.stats;
   }
 
+  /**
+   * @return the tracker of the delays before querying the secondary replicas of a get, or null
+   *         if the delay is fixed
+   */
+  ReplicaCallDelayTracker getReplicaCallDelayTracker() {
+    return this.replicaCallDelayTracker;
+  }
+
   @Override
   public ClientBackoffPolicy getBackoffPolicy() {
     return this.backoffPolicy;
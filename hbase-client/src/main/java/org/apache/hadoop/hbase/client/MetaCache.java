@@ -20,9 +20,12 @@ package org.apache.hadoop.hbase.client;
 
 import static org.apache.hadoop.hbase.util.CollectionUtils.computeIfAbsent;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -50,7 +53,7 @@ public class MetaCache {
   /**
    * Map of table to table {@link HRegionLocation}s.
    */
-  private final ConcurrentMap<TableName, ConcurrentNavigableMap<byte[], RegionLocations>>
+  private final ConcurrentMap<TableName, CopyOnWriteArrayMap<byte[], RegionLocations>>
     cachedRegionLocations = new CopyOnWriteArrayMap<>();
 
   // The presence of a server in the map implies it's likely that there is an
@@ -60,6 +63,9 @@ public class MetaCache {
   // The access to this attribute must be protected by a lock on cachedRegionLocations
   private final Set<ServerName> cachedServers = new CopyOnWriteArraySet<>();
 
+  // The tables whose locations have been prefetched with a scan of meta, see markPrefetched
+  private final Set<TableName> prefetchedTables = ConcurrentHashMap.newKeySet();
+
   private final MetricsConnection metrics;
 
   public MetaCache(MetricsConnection metrics) {
@@ -180,6 +186,48 @@ public class MetaCache {
     addToCachedServers(locations);
   }
 
+  /**
+   * Put the locations of many regions of a table, as found in a scan of meta, into the cache.
+   * All of them are merged into the array of the table with a single copy, each with the rules of
+   * {@link #cacheLocation(TableName, RegionLocations)}: the locations of the regions which are
+   * not cached yet are added, the others are merged with the cached ones.
+   * @param tableName The table name.
+   * @param locationsList the new locations
+   */
+  public void cacheLocations(final TableName tableName,
+      final List<RegionLocations> locationsList) {
+    CopyOnWriteArrayMap<byte[], RegionLocations> tableLocations = getTableLocations(tableName);
+    Map<byte[], RegionLocations> newLocations = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (RegionLocations locations : locationsList) {
+      newLocations.put(locations.getRegionLocation().getRegionInfo().getStartKey(), locations);
+    }
+    // the cached locations are read under the lock of the map, so that the ones cached while
+    // meta was scanned are merged rather than overwritten
+    tableLocations.mergeAll(newLocations, RegionLocations::mergeLocations);
+    for (RegionLocations locations : newLocations.values()) {
+      addToCachedServers(locations);
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Cached " + newLocations.size() + " locations of table " + tableName);
+    }
+  }
+
+  /**
+   * Mark the locations of a table as prefetched.
+   * @return true if they were not marked yet, so the caller has to prefetch them
+   */
+  public boolean markPrefetched(final TableName tableName) {
+    return prefetchedTables.add(tableName);
+  }
+
+  /**
+   * @return true if the locations of the table have been prefetched since the last time its
+   *         cache was cleared
+   */
+  public boolean isPrefetched(final TableName tableName) {
+    return prefetchedTables.contains(tableName);
+  }
+
   private void addToCachedServers(RegionLocations locations) {
     for (HRegionLocation loc : locations.getRegionLocations()) {
       if (loc != null) {
@@ -192,7 +240,7 @@ public class MetaCache {
    * @param tableName
    * @return Map of cached locations for passed <code>tableName</code>
    */
-  private ConcurrentNavigableMap<byte[], RegionLocations> getTableLocations(
+  private CopyOnWriteArrayMap<byte[], RegionLocations> getTableLocations(
       final TableName tableName) {
     // find the map of cached locations for this table
     return computeIfAbsent(cachedRegionLocations, tableName,
@@ -232,6 +280,7 @@ public class MetaCache {
   public void clearCache() {
     this.cachedRegionLocations.clear();
     this.cachedServers.clear();
+    this.prefetchedTables.clear();
   }
 
   /**
@@ -287,6 +336,7 @@ public class MetaCache {
       LOG.trace("Removed all cached region locations for table " + tableName);
     }
     this.cachedRegionLocations.remove(tableName);
+    this.prefetchedTables.remove(tableName);
   }
 
   /**
@@ -73,6 +73,7 @@ public class MetricsConnection implements StatisticTrackable {
     private long responseSizeBytes = 0;
     private long startTime = 0;
     private long callTimeMs = 0;
+    private int concurrentCallsPerConnection = 0;
 
     public long getRequestSizeBytes() {
       return requestSizeBytes;
@@ -105,6 +106,14 @@ public class MetricsConnection implements StatisticTrackable {
     public void setCallTimeMs(long callTimeMs) {
       this.callTimeMs = callTimeMs;
     }
+
+    public int getConcurrentCallsPerConnection() {
+      return concurrentCallsPerConnection;
+    }
+
+    public void setConcurrentCallsPerConnection(int callsPerConnection) {
+      this.concurrentCallsPerConnection = callsPerConnection;
+    }
   }
 
   @VisibleForTesting
@@ -269,6 +278,7 @@ public class MetricsConnection implements StatisticTrackable {
   @VisibleForTesting protected final RunnerStats runnerStats;
   @VisibleForTesting protected final Counter metaCacheNumClearServer;
   @VisibleForTesting protected final Counter metaCacheNumClearRegion;
+  @VisibleForTesting protected final Histogram concurrentCallsPerConnectionHist;
 
   // dynamic metrics
 
@@ -323,6 +333,8 @@ public class MetricsConnection implements StatisticTrackable {
     this.putTracker = new CallTracker(this.registry, "Mutate", "Put", scope);
     this.multiTracker = new CallTracker(this.registry, "Multi", scope);
     this.runnerStats = new RunnerStats(this.registry);
+    this.concurrentCallsPerConnectionHist = registry.histogram(name(this.getClass(),
+      "concurrentCallsPerConnection", scope));
 
     this.reporter = JmxReporter.forRegistry(this.registry).build();
     this.reporter.start();
@@ -408,6 +420,7 @@ public class MetricsConnection implements StatisticTrackable {
 
   /** Report RPC context to metrics system. */
   public void updateRpc(MethodDescriptor method, Message param, CallStats stats) {
+    concurrentCallsPerConnectionHist.update(stats.getConcurrentCallsPerConnection());
     // this implementation is tied directly to protobuf implementation details. would be better
     // if we could dispatch based on something static, ie, request Message type.
     if (method.getService() == ClientService.getDescriptor()) {
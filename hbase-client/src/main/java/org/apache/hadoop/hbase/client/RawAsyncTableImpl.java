@@ -209,6 +209,13 @@ class RawAsyncTableImpl implements RawAsyncTable {
 
   @Override
   public CompletableFuture<Result> get(Get get) {
+    if (conn.getCoalescer != null) {
+      return conn.getCoalescer.get(this, get);
+    }
+    return get0(get);
+  }
+
+  CompletableFuture<Result> get0(Get get) {
     return this.<Result> newCaller(get, readRpcTimeoutNs)
         .action((controller, loc, stub) -> RawAsyncTableImpl
             .<Get, GetRequest, GetResponse, Result> call(controller, loc, stub, get,
@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.util.CollectionUtils.computeIfAbsent;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Decides how long a timeline consistent get waits for the primary replica before also querying
+ * the secondary ones.
+ * <p>
+ * Instead of the fixed hbase.client.primaryCallTimeout.get, the get waits for the configured
+ * percentile of the latencies of the gets recently served by the region server of the primary
+ * replica, so that only the gets slower than usual for this server, say because of a GC pause or
+ * a compaction, are sent to the secondary replicas. As this still multiplies the load of the
+ * cluster when a server is slow, only a ratio of the gets can be sent to the secondary replicas
+ * after the delay. The others wait for the primary replica, unless it fails.
+ */
+@InterfaceAudience.Private
+public class ReplicaCallDelayTracker {
+
+  /**
+   * Set this key to {@code true} to wait for a percentile of the latencies of the server of the
+   * primary replica before querying the secondary ones.
+   */
+  public static final String ADAPTIVE_PRIMARY_CALL_TIMEOUT_KEY =
+      "hbase.client.primaryCallTimeout.get.adaptive";
+
+  public static final String PRIMARY_CALL_TIMEOUT_PERCENTILE_KEY =
+      "hbase.client.primaryCallTimeout.get.percentile";
+
+  public static final double DEFAULT_PRIMARY_CALL_TIMEOUT_PERCENTILE = 0.95;
+
+  /**
+   * The ratio of the gets which can be sent to the secondary replicas after waiting for the
+   * primary one.
+   */
+  public static final String HEDGED_GETS_RATIO_KEY = "hbase.client.hedged.gets.ratio";
+
+  public static final double DEFAULT_HEDGED_GETS_RATIO = 0.1;
+
+  /**
+   * The number of gets which can be sent to the secondary replicas at once when more than the
+   * ratio of the recent gets was not.
+   */
+  public static final String HEDGED_GETS_BURST_KEY = "hbase.client.hedged.gets.burst";
+
+  public static final int DEFAULT_HEDGED_GETS_BURST = 100;
+
+  // the latencies of a server are not trusted until there are enough of them
+  @VisibleForTesting
+  static final int MIN_SAMPLES = 100;
+
+  // the counts of the latencies of a server are halved when they reach this
+  @VisibleForTesting
+  static final int DECAY_SAMPLES = 1000;
+
+  // the budget is counted in millionths of a hedged get
+  private static final long HEDGED_GET = 1000000;
+
+  private final ConcurrentHashMap<ServerName, LatencyHistogram> latencies =
+      new ConcurrentHashMap<>();
+
+  private final double percentile;
+
+  private final long creditPerGet;
+
+  private final long maxCredit;
+
+  private final AtomicLong credit;
+
+  @VisibleForTesting
+  ReplicaCallDelayTracker(double percentile, double hedgedGetsRatio, int hedgedGetsBurst) {
+    this.percentile = percentile;
+    this.creditPerGet = (long) (hedgedGetsRatio * HEDGED_GET);
+    this.maxCredit = hedgedGetsBurst * HEDGED_GET;
+    this.credit = new AtomicLong(maxCredit);
+  }
+
+  /**
+   * @return the delay tracker to use, or null if the delay before querying the secondary replicas
+   *         is fixed
+   */
+  public static ReplicaCallDelayTracker create(Configuration conf) {
+    if (!conf.getBoolean(ADAPTIVE_PRIMARY_CALL_TIMEOUT_KEY, false)) {
+      return null;
+    }
+    return new ReplicaCallDelayTracker(
+        conf.getDouble(PRIMARY_CALL_TIMEOUT_PERCENTILE_KEY,
+          DEFAULT_PRIMARY_CALL_TIMEOUT_PERCENTILE),
+        conf.getDouble(HEDGED_GETS_RATIO_KEY, DEFAULT_HEDGED_GETS_RATIO),
+        conf.getInt(HEDGED_GETS_BURST_KEY, DEFAULT_HEDGED_GETS_BURST));
+  }
+
+  /**
+   * Called once per get querying the primary replica, which also earns it its share of the
+   * hedging budget.
+   * @param serverName the server of the primary replica
+   * @param defaultTimeout the delay to use while the latencies of the server are not known, in
+   *          microseconds
+   * @return how long to wait for the primary replica, in microseconds
+   */
+  public long getPrimaryCallTimeout(ServerName serverName, long defaultTimeout) {
+    long c = credit.get();
+    while (c < maxCredit && !credit.compareAndSet(c, Math.min(c + creditPerGet, maxCredit))) {
+      c = credit.get();
+    }
+    LatencyHistogram histogram = latencies.get(serverName);
+    if (histogram == null) {
+      return defaultTimeout;
+    }
+    long timeout = histogram.getPercentile(percentile);
+    return timeout < 0 ? defaultTimeout : timeout;
+  }
+
+  /**
+   * Called when a get waited for the primary replica for the delay returned by
+   * {@link #getPrimaryCallTimeout(ServerName, long)} without an answer.
+   * @return whether the secondary replicas can be queried too, or whether the get is over the
+   *         hedging budget and must keep on waiting for the primary replica
+   */
+  public boolean tryHedge() {
+    for (;;) {
+      long c = credit.get();
+      if (c < HEDGED_GET) {
+        return false;
+      }
+      if (credit.compareAndSet(c, c - HEDGED_GET)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Records the latency of a get served by the primary replica.
+   * @param serverName the server of the primary replica
+   * @param latency the latency of the get, in microseconds
+   */
+  public void updatePrimaryLatency(ServerName serverName, long latency) {
+    computeIfAbsent(latencies, serverName, LatencyHistogram::new).add(latency);
+  }
+
+  /**
+   * A histogram of latencies with four buckets per power of two, so the percentiles are within
+   * 25% of the actual ones. The counts are halved once in a while so that it follows the recent
+   * latencies of the server.
+   */
+  @VisibleForTesting
+  static final class LatencyHistogram {
+
+    // enough for latencies of up to 2^31 microseconds, longer ones go to the last bucket
+    private static final int BUCKETS = 120;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    static int getBucket(long value) {
+      if (value < 4) {
+        return (int) Math.max(value, 0);
+      }
+      long v = Math.min(value, Integer.MAX_VALUE);
+      int msb = 63 - Long.numberOfLeadingZeros(v);
+      return 4 * (msb - 1) + (int) ((v >>> (msb - 2)) & 3);
+    }
+
+    /**
+     * @return the smallest value which is too large for the bucket
+     */
+    static long getUpperBound(int bucket) {
+      if (bucket < 4) {
+        return bucket + 1;
+      }
+      int shift = bucket / 4 - 1;
+      return (long) (5 + bucket % 4) << shift;
+    }
+
+    void add(long value) {
+      counts.incrementAndGet(getBucket(value));
+      if (count.incrementAndGet() >= DECAY_SAMPLES) {
+        decay();
+      }
+    }
+
+    private synchronized void decay() {
+      if (count.get() < DECAY_SAMPLES) {
+        return;
+      }
+      long removed = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        long half = counts.get(i) / 2;
+        counts.addAndGet(i, -half);
+        removed += half;
+      }
+      count.addAndGet(-removed);
+    }
+
+    /**
+     * @return an upper bound of the percentile of the latencies, or -1 if there are not enough of
+     *         them
+     */
+    long getPercentile(double percentile) {
+      long total = count.get();
+      if (total < MIN_SAMPLES) {
+        return -1;
+      }
+      long rank = (long) Math.ceil(percentile * total);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts.get(i);
+        if (seen >= rank) {
+          return getUpperBound(i);
+        }
+      }
+      return getUpperBound(BUCKETS - 1);
+    }
+  }
+}
@@ -88,6 +88,16 @@ public interface RequestController {
    */
   void decTaskCounters(Collection<byte[]> regions, ServerName sn);
 
+  /**
+   * Notifies the controller that a task to a server is done, before its counters are decremented.
+   * The default implementation does nothing.
+   * @param sn The target server
+   * @param elapsedNs How long the request of the task took, in nanoseconds
+   * @param error The error of the request, or null if it succeeded
+   */
+  default void notifyTaskDone(ServerName sn, long elapsedNs, Throwable error) {
+  }
+
   /**
    * @return The number of running task.
    */
@@ -38,8 +38,6 @@ import org.apache.hadoop.hbase.CellScannable;
 import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HConstants;
-import org.apache.hadoop.hbase.KeyValue;
-import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.util.Bytes;
 
@@ -94,8 +92,6 @@ public class Result implements CellScannable, CellScanner {
   private transient NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
       familyMap = null;
 
-  private static ThreadLocal<byte[]> localBuffer = new ThreadLocal<>();
-  private static final int PAD_WIDTH = 128;
   public static final Result EMPTY_RESULT = new Result(true);
 
   private final static int INITIAL_CELLSCANNER_INDEX = -1;
@@ -294,23 +290,8 @@ public class Result implements CellScannable, CellScanner {
                              final byte [] qualifier) {
     byte[] familyNotNull = notNullBytes(family);
     byte[] qualifierNotNull = notNullBytes(qualifier);
-    Cell searchTerm =
-        CellUtil.createFirstOnRow(kvs[0].getRowArray(),
-            kvs[0].getRowOffset(), kvs[0].getRowLength(),
-            familyNotNull, 0, (byte)familyNotNull.length,
-            qualifierNotNull, 0, qualifierNotNull.length);
-
-    // pos === ( -(insertion point) - 1)
-    int pos = Arrays.binarySearch(kvs, searchTerm, CellComparator.COMPARATOR);
-    // never will exact match
-    if (pos < 0) {
-      pos = (pos+1) * -1;
-      // pos is now insertion point
-    }
-    if (pos == kvs.length) {
-      return -1; // doesn't exist
-    }
-    return pos;
+    return binarySearch(kvs, familyNotNull, 0, familyNotNull.length,
+        qualifierNotNull, 0, qualifierNotNull.length);
   }
 
   /**
@@ -329,33 +310,27 @@ public class Result implements CellScannable, CellScanner {
   protected int binarySearch(final Cell [] kvs,
       final byte [] family, final int foffset, final int flength,
       final byte [] qualifier, final int qoffset, final int qlength) {
-
-    double keyValueSize = (double)
-        KeyValue.getKeyValueDataStructureSize(kvs[0].getRowLength(), flength, qlength, 0);
-
-    byte[] buffer = localBuffer.get();
-    if (buffer == null || keyValueSize > buffer.length) {
-      // pad to the smallest multiple of the pad width
-      buffer = new byte[(int) Math.ceil(keyValueSize / PAD_WIDTH) * PAD_WIDTH];
-      localBuffer.set(buffer);
-    }
-
-    Cell searchTerm = KeyValueUtil.createFirstOnRow(buffer, 0,
-        kvs[0].getRowArray(), kvs[0].getRowOffset(), kvs[0].getRowLength(),
-        family, foffset, flength,
-        qualifier, qoffset, qlength);
-
-    // pos === ( -(insertion point) - 1)
-    int pos = Arrays.binarySearch(kvs, searchTerm, CellComparator.COMPARATOR);
-    // never will exact match
-    if (pos < 0) {
-      pos = (pos+1) * -1;
-      // pos is now insertion point
+    // Look for the first cell of the row of kvs[0] whose column is not before the given one,
+    // comparing the cells in place rather than with a first on row cell made for the search.
+    int low = 0;
+    int high = kvs.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int cmp = CellComparator.COMPARATOR.compareRows(kvs[mid], kvs[0]);
+      if (cmp == 0) {
+        cmp = CellComparator.compareColumns(kvs[mid], family, foffset, flength,
+            qualifier, qoffset, qlength);
+      }
+      if (cmp < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
-    if (pos == kvs.length) {
+    if (low == kvs.length) {
       return -1; // doesn't exist
     }
-    return pos;
+    return low;
   }
 
   /**
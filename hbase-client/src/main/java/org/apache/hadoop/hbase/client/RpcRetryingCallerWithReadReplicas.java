@@ -66,6 +66,7 @@ public class RpcRetryingCallerWithReadReplicas {
   private final int retries;
   private final RpcControllerFactory rpcControllerFactory;
   private final RpcRetryingCallerFactory rpcRetryingCallerFactory;
+  private final ReplicaCallDelayTracker delayTracker;
 
   public RpcRetryingCallerWithReadReplicas(
       RpcControllerFactory rpcControllerFactory, TableName tableName,
@@ -83,6 +84,8 @@ public class RpcRetryingCallerWithReadReplicas {
     this.rpcTimeout = rpcTimeout;
     this.timeBeforeReplicas = timeBeforeReplicas;
     this.rpcRetryingCallerFactory = new RpcRetryingCallerFactory(conf);
+    this.delayTracker = cConnection instanceof ConnectionImplementation
+        ? ((ConnectionImplementation) cConnection).getReplicaCallDelayTracker() : null;
   }
 
   /**
@@ -140,7 +143,18 @@ public class RpcRetryingCallerWithReadReplicas {
       hrc.reset();
       hrc.setCallTimeout(rpcTimeout);
       hrc.setPriority(tableName);
-      ClientProtos.GetResponse response = getStub().get(hrc, request);
+      long startTime = System.nanoTime();
+      ClientProtos.GetResponse response;
+      try {
+        response = getStub().get(hrc, request);
+      } finally {
+        // the calls which failed or were cancelled when a secondary answered first count too,
+        // otherwise only the fast calls of a slow primary would be seen
+        if (id == RegionReplicaUtil.DEFAULT_REPLICA_ID && delayTracker != null) {
+          delayTracker.updatePrimaryLatency(location.getServerName(),
+            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        }
+      }
       if (response == null) {
         return null;
       }
@@ -164,10 +178,12 @@ public class RpcRetryingCallerWithReadReplicas {
    * can take some i/o.
    * </p>
    * Globally, the number of retries, timeout and so on still applies, but it's per replica,
-   * not global. We continue until all retries are done, or all timeouts are exceeded.
+   * not global. We continue until all retries are done, or all timeouts are exceeded. The whole
+   * call, including the wait for the primary, is bounded by the operation timeout.
    */
   public Result call(int operationTimeout)
       throws DoNotRetryIOException, InterruptedIOException, RetriesExhaustedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(operationTimeout);
     boolean isTargetReplicaSpecified = (get.getReplicaId() >= 0);
 
     RegionLocations rl = null;
@@ -210,9 +226,26 @@ public class RpcRetryingCallerWithReadReplicas {
     } else {
       if (!skipPrimary) {
         addCallsForReplica(cs, rl, 0, 0);
+        long primaryCallTimeout = timeBeforeReplicas;
+        HRegionLocation primary = rl.getRegionLocation(RegionReplicaUtil.DEFAULT_REPLICA_ID);
+        if (delayTracker != null && primary != null) {
+          primaryCallTimeout =
+              delayTracker.getPrimaryCallTimeout(primary.getServerName(), timeBeforeReplicas);
+        }
         try {
-          // wait for the timeout to see whether the primary responds back
-          Future<Result> f = cs.poll(timeBeforeReplicas, TimeUnit.MICROSECONDS); // Yes, microseconds
+          // wait for the timeout to see whether the primary responds back, yes, microseconds
+          Future<Result> f = cs.poll(Math.min(TimeUnit.MICROSECONDS.toNanos(primaryCallTimeout),
+            remainingNs(deadline)), TimeUnit.NANOSECONDS);
+          if (f == null && delayTracker != null && !delayTracker.tryHedge()) {
+            // Over the hedging budget, only go to the secondaries if the primary fails
+            f = cs.poll(remainingNs(deadline), TimeUnit.NANOSECONDS);
+            if (f == null) {
+              cs.cancelAll();
+              throw new RetriesExhaustedException("Timed out after " + operationTimeout +
+                  "ms waiting for the primary replica, too many gets were sent to the " +
+                  "secondaries. Locations: " + rl);
+            }
+          }
           if (f != null) {
             return f.get(); //great we got a response
           }
@@ -238,8 +271,9 @@ public class RpcRetryingCallerWithReadReplicas {
       addCallsForReplica(cs, rl, 1, rl.size() - 1);
     }
     try {
-      Future<Result> f = cs.pollForFirstSuccessfullyCompletedTask(operationTimeout,
-          TimeUnit.MILLISECONDS, startIndex, endIndex);
+      Future<Result> f = cs.pollForFirstSuccessfullyCompletedTask(
+        TimeUnit.NANOSECONDS.toMillis(remainingNs(deadline)), TimeUnit.MILLISECONDS, startIndex,
+        endIndex);
       if (f == null) {
         throw new RetriesExhaustedException("Timed out after " + operationTimeout +
             "ms. Get is sent to replicas with startIndex: " + startIndex +
@@ -262,6 +296,10 @@ public class RpcRetryingCallerWithReadReplicas {
     return null; // unreachable
   }
 
+  private static long remainingNs(long deadline) {
+    return Math.max(0, deadline - System.nanoTime());
+  }
+
   /**
    * Extract the real exception from the ExecutionException, and throws what makes more
    * sense.
@@ -1095,6 +1095,16 @@ public class Scan extends Query {
     return asyncPrefetch;
   }
 
+  /**
+   * Set whether the client fetches the next batch of results while the current one is being
+   * consumed.
+   * <p>
+   * For the async client this means the next scan request is sent before the current batch is
+   * passed to the {@link RawScanResultConsumer}, so the round trip overlaps with the processing
+   * of the batch. The async client only prefetches when this is explicitly set to true.
+   * @param asyncPrefetch whether to prefetch the next batch
+   * @return this
+   */
   public Scan setAsyncPrefetch(boolean asyncPrefetch) {
     this.asyncPrefetch = asyncPrefetch;
     return this;
@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.util.CollectionUtils.computeIfAbsent;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.CallDroppedException;
+import org.apache.hadoop.hbase.CallQueueTooBigException;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.RegionTooBusyException;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.exceptions.ClientExceptionsUtil;
+import org.apache.hadoop.hbase.ipc.CallTimeoutException;
+import org.apache.hadoop.hbase.ipc.ServerTooBusyException;
+
+/**
+ * Limits the number of concurrent requests to each region server, adapting the limit to the
+ * round trip times of its requests.
+ * <p>
+ * The round trip times of a server are tracked over a short and a long window. While they are
+ * about the same, the limit grows by its square root at each request if it is used, otherwise it
+ * shrinks by their ratio, as the requests are then queued on the server rather than served. The
+ * new limit is smoothed with the previous one. A request failing because the server is overloaded
+ * halves the limit.
+ * <p>
+ * Used by {@link SimpleRequestController} instead of hbase.client.max.perserver.tasks, and by the
+ * batches of the async client, which otherwise send all their requests at once.
+ */
+@InterfaceAudience.Private
+class ServerConcurrencyLimiter {
+
+  /**
+   * Set this key to {@code true} to adapt the number of concurrent requests to a region server to
+   * its latencies.
+   */
+  public static final String ADAPTIVE_LIMIT_KEY = "hbase.client.perserver.adaptive.limit";
+
+  public static final String MIN_LIMIT_KEY = "hbase.client.perserver.adaptive.limit.min";
+
+  public static final int DEFAULT_MIN_LIMIT = 1;
+
+  public static final String MAX_LIMIT_KEY = "hbase.client.perserver.adaptive.limit.max";
+
+  public static final int DEFAULT_MAX_LIMIT = 64;
+
+  // the weights of a new round trip time in the short and long windows
+  private static final double SHORT_RTT_WEIGHT = 0.5;
+
+  private static final double LONG_RTT_WEIGHT = 0.01;
+
+  // the weight of the new limit computed after a request
+  private static final double LIMIT_WEIGHT = 0.2;
+
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final int initialLimit;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final ConcurrentMap<ServerName, ServerLimit> limits = new ConcurrentHashMap<>();
+
+  private final class ServerLimit {
+
+    private volatile double limit = initialLimit;
+
+    private double shortRttNs = -1;
+
+    private double longRttNs = -1;
+
+    // only used by execute and release
+    private int inFlight;
+
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+    /**
+     * Must be called with the lock of this limit held.
+     */
+    private void update(long rttNs, int inFlight, boolean overloaded) {
+      if (overloaded) {
+        limit = Math.max(minLimit, limit / 2);
+        return;
+      }
+      if (rttNs < 0) {
+        return;
+      }
+      if (longRttNs < 0) {
+        shortRttNs = longRttNs = rttNs;
+      } else {
+        shortRttNs += SHORT_RTT_WEIGHT * (rttNs - shortRttNs);
+        longRttNs += LONG_RTT_WEIGHT * (rttNs - longRttNs);
+        if (longRttNs > 2 * shortRttNs) {
+          // the server has recovered, do not wait for the long window to catch up
+          longRttNs = 2 * shortRttNs;
+        }
+      }
+      double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longRttNs / shortRttNs));
+      double newLimit = limit * gradient;
+      if (inFlight >= limit / 2) {
+        // only grow a limit which is used, a client sending few requests tells nothing
+        newLimit += Math.sqrt(limit);
+      }
+      newLimit = (1 - LIMIT_WEIGHT) * limit + LIMIT_WEIGHT * newLimit;
+      limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+  }
+
+  @VisibleForTesting
+  ServerConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  /**
+   * @return the limiter to use, or null if the number of concurrent requests to a server is fixed
+   */
+  static ServerConcurrencyLimiter create(Configuration conf) {
+    if (!conf.getBoolean(ADAPTIVE_LIMIT_KEY, false)) {
+      return null;
+    }
+    int minLimit = conf.getInt(MIN_LIMIT_KEY, DEFAULT_MIN_LIMIT);
+    int maxLimit = conf.getInt(MAX_LIMIT_KEY, DEFAULT_MAX_LIMIT);
+    if (minLimit <= 0 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          MIN_LIMIT_KEY + "=" + minLimit + ", " + MAX_LIMIT_KEY + "=" + maxLimit);
+    }
+    return new ServerConcurrencyLimiter(conf.getInt(HConstants.HBASE_CLIENT_MAX_PERSERVER_TASKS,
+      HConstants.DEFAULT_HBASE_CLIENT_MAX_PERSERVER_TASKS), minLimit, maxLimit);
+  }
+
+  /**
+   * @return whether the error tells the server is overloaded, so fewer requests should be sent to
+   *         it
+   */
+  static boolean isOverloaded(Throwable error) {
+    Throwable cause = ClientExceptionsUtil.findException(error);
+    return cause instanceof CallQueueTooBigException || cause instanceof CallDroppedException
+        || cause instanceof ServerTooBusyException || cause instanceof RegionTooBusyException
+        || cause instanceof CallTimeoutException || cause instanceof SocketTimeoutException;
+  }
+
+  private ServerLimit getServerLimit(ServerName serverName) {
+    return computeIfAbsent(limits, serverName, ServerLimit::new);
+  }
+
+  /**
+   * @return the maximum number of concurrent requests to the server
+   */
+  int getLimit(ServerName serverName) {
+    ServerLimit sl = limits.get(serverName);
+    return sl != null ? (int) sl.limit : initialLimit;
+  }
+
+  /**
+   * Updates the limit of a server after one of its requests is done.
+   * @param rttNs the round trip time of the request, or -1 if it failed
+   * @param inFlight the number of requests to the server in flight along with it
+   * @param overloaded whether the request failed because the server is overloaded
+   */
+  void update(ServerName serverName, long rttNs, int inFlight, boolean overloaded) {
+    ServerLimit sl = getServerLimit(serverName);
+    synchronized (sl) {
+      sl.update(rttNs, inFlight, overloaded);
+    }
+  }
+
+  /**
+   * Runs the request now if the server is below its limit, or later when enough of its requests
+   * in flight are done. Each request run must be followed by a call to
+   * {@link #release(ServerName, long, boolean)}.
+   */
+  void execute(ServerName serverName, Runnable request) {
+    ServerLimit sl = getServerLimit(serverName);
+    synchronized (sl) {
+      if (sl.inFlight >= (int) sl.limit) {
+        sl.waiting.add(request);
+        return;
+      }
+      sl.inFlight++;
+    }
+    request.run();
+  }
+
+  /**
+   * Called when a request run by {@link #execute(ServerName, Runnable)} is done, runs the waiting
+   * requests which are now below the limit.
+   * @param rttNs the round trip time of the request, or -1 if it failed
+   * @param overloaded whether the request failed because the server is overloaded
+   */
+  void release(ServerName serverName, long rttNs, boolean overloaded) {
+    ServerLimit sl = getServerLimit(serverName);
+    List<Runnable> toRun = null;
+    synchronized (sl) {
+      sl.update(rttNs, sl.inFlight, overloaded);
+      sl.inFlight--;
+      while (sl.inFlight < (int) sl.limit && !sl.waiting.isEmpty()) {
+        if (toRun == null) {
+          toRun = new ArrayList<>();
+        }
+        toRun.add(sl.waiting.poll());
+        sl.inFlight++;
+      }
+    }
+    if (toRun != null) {
+      toRun.forEach(Runnable::run);
+    }
+  }
+
+  @VisibleForTesting
+  int getWaitingCount(ServerName serverName) {
+    ServerLimit sl = getServerLimit(serverName);
+    synchronized (sl) {
+      return sl.waiting.size();
+    }
+  }
+}
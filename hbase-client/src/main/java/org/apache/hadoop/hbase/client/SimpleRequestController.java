@@ -120,6 +120,12 @@ class SimpleRequestController implements RequestController {
    */
   @VisibleForTesting
   final int maxConcurrentTasksPerServer;
+
+  /**
+   * Adapts the number of tasks per server to its latencies, if not null.
+   */
+  @VisibleForTesting
+  final ServerConcurrencyLimiter limiter;
   private final int thresholdToLogUndoneTaskDetails;
   public static final String THRESHOLD_TO_LOG_UNDONE_TASK_DETAILS =
       "hbase.client.threshold.log.details";
@@ -153,6 +159,7 @@ class SimpleRequestController implements RequestController {
     this.thresholdToLogRegionDetails = conf.getInt(
           THRESHOLD_TO_LOG_REGION_DETAILS,
           DEFAULT_THRESHOLD_TO_LOG_REGION_DETAILS);
+    this.limiter = ServerConcurrencyLimiter.create(conf);
   }
 
   private static int checkAndGet(Configuration conf, String key, int defaultValue) {
@@ -232,7 +239,8 @@ class SimpleRequestController implements RequestController {
             maxConcurrentTasksPerRegion,
             tasksInProgress,
             taskCounterPerServer,
-            taskCounterPerRegion));
+            taskCounterPerRegion,
+            limiter));
     checkers.add(new RequestHeapSizeChecker(maxHeapSizePerRequest));
     checkers.add(new SubmittedSizeChecker(maxHeapSizeSubmit));
     checkers.add(new RequestRowsChecker(maxRowsPerRequest));
@@ -264,6 +272,20 @@ class SimpleRequestController implements RequestController {
     }
   }
 
+  @Override
+  public void notifyTaskDone(ServerName sn, long elapsedNs, Throwable error) {
+    if (limiter == null) {
+      return;
+    }
+    AtomicInteger serverCnt = taskCounterPerServer.get(sn);
+    int inFlight = serverCnt != null ? serverCnt.get() : 0;
+    if (error == null) {
+      limiter.update(sn, elapsedNs, inFlight, false);
+    } else {
+      limiter.update(sn, -1, inFlight, ServerConcurrencyLimiter.isOverloaded(error));
+    }
+  }
+
   @Override
   public long getNumberOfTasksInProgress() {
     return tasksInProgress.get();
@@ -378,6 +400,7 @@ class SimpleRequestController implements RequestController {
     private final Map<ServerName, AtomicInteger> taskCounterPerServer;
     private final Set<byte[]> busyRegions = new TreeSet<>(Bytes.BYTES_COMPARATOR);
     private final AtomicLong tasksInProgress;
+    private final ServerConcurrencyLimiter limiter;
 
     TaskCountChecker(final int maxTotalConcurrentTasks,
             final int maxConcurrentTasksPerServer,
@@ -385,12 +408,24 @@ class SimpleRequestController implements RequestController {
             final AtomicLong tasksInProgress,
             final Map<ServerName, AtomicInteger> taskCounterPerServer,
             final Map<byte[], AtomicInteger> taskCounterPerRegion) {
+      this(maxTotalConcurrentTasks, maxConcurrentTasksPerServer, maxConcurrentTasksPerRegion,
+          tasksInProgress, taskCounterPerServer, taskCounterPerRegion, null);
+    }
+
+    TaskCountChecker(final int maxTotalConcurrentTasks,
+            final int maxConcurrentTasksPerServer,
+            final int maxConcurrentTasksPerRegion,
+            final AtomicLong tasksInProgress,
+            final Map<ServerName, AtomicInteger> taskCounterPerServer,
+            final Map<byte[], AtomicInteger> taskCounterPerRegion,
+            final ServerConcurrencyLimiter limiter) {
       this.maxTotalConcurrentTasks = maxTotalConcurrentTasks;
       this.maxConcurrentTasksPerRegion = maxConcurrentTasksPerRegion;
       this.maxConcurrentTasksPerServer = maxConcurrentTasksPerServer;
       this.taskCounterPerRegion = taskCounterPerRegion;
       this.taskCounterPerServer = taskCounterPerServer;
       this.tasksInProgress = tasksInProgress;
+      this.limiter = limiter;
     }
 
     @Override
@@ -455,7 +490,9 @@ class SimpleRequestController implements RequestController {
         return ReturnCode.SKIP;
       }
       AtomicInteger serverCnt = taskCounterPerServer.get(loc.getServerName());
-      if (serverCnt != null && serverCnt.get() >= maxConcurrentTasksPerServer) {
+      int maxTasksPerServer = limiter != null ? limiter.getLimit(loc.getServerName())
+          : maxConcurrentTasksPerServer;
+      if (serverCnt != null && serverCnt.get() >= maxTasksPerServer) {
         // Too many tasks for this individual server
         return ReturnCode.SKIP;
       }
@@ -251,13 +251,6 @@ public enum EventType {
    */
   M_LOG_REPLAY              (74, ExecutorType.M_LOG_REPLAY_OPS),
 
-  /**
-   * RS controlled events to be executed on the RS.<br>
-   *
-   * RS_PARALLEL_SEEK
-   */
-  RS_PARALLEL_SEEK          (80, ExecutorType.RS_PARALLEL_SEEK),
-
   /**
    * RS wal recovery work items(either creating recover.edits or directly replay wals)
    * to be executed on the RS.<br>
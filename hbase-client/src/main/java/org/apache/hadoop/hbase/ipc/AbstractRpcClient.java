@@ -183,7 +183,8 @@ public abstract class AbstractRpcClient<T extends RpcConnection> implements RpcC
         HConstants.HBASE_CLIENT_PERSERVER_REQUESTS_THRESHOLD,
         HConstants.DEFAULT_HBASE_CLIENT_PERSERVER_REQUESTS_THRESHOLD);
 
-    this.connections = new PoolMap<>(getPoolType(conf), getPoolSize(conf));
+    this.connections = new PoolMap<>(getPoolType(conf), getPoolSize(conf),
+        RpcConnection::getOutstandingCalls);
 
     this.cleanupIdleConnectionTask = IDLE_CONN_SWEEPER.scheduleAtFixedRate(new Runnable() {
 
@@ -267,33 +268,43 @@ public abstract class AbstractRpcClient<T extends RpcConnection> implements RpcC
     if (className == null || className.isEmpty()) {
       return null;
     }
+    CompressionCodec compressor;
     try {
-      return (CompressionCodec) Class.forName(className).newInstance();
+      compressor = (CompressionCodec) Class.forName(className).newInstance();
     } catch (Exception e) {
       throw new RuntimeException("Failed getting compressor " + className, e);
     }
+    int minSize = conf.getInt(CellBlockCompressionCodec.CLIENT_MIN_SIZE_KEY,
+      CellBlockCompressionCodec.DEFAULT_CLIENT_MIN_SIZE);
+    return minSize < 0 ? compressor : new CellBlockCompressionCodec(compressor, minSize);
   }
 
   /**
    * Return the pool type specified in the configuration, which must be set to either
-   * {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#RoundRobin} or
+   * {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#RoundRobin},
+   * {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#LeastLoaded} or
    * {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#ThreadLocal}, otherwise default to the
-   * former. For applications with many user threads, use a small round-robin pool. For applications
-   * with few user threads, you may want to try using a thread-local pool. In any case, the number
-   * of {@link org.apache.hadoop.hbase.ipc.RpcClient} instances should not exceed the operating
+   * first. For applications with many user threads, use a small round-robin pool. For applications
+   * with many user threads mixing small and large requests, use a least-loaded pool, which sends
+   * each call on the connection with the fewest outstanding calls, so that a small call does not
+   * wait behind a large response. For applications with few user threads, you may want to try
+   * using a thread-local pool. In any case, the number of
+   * {@link org.apache.hadoop.hbase.ipc.RpcClient} instances should not exceed the operating
    * system's hard limit on the number of connections.
    * @param config configuration
-   * @return either a {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#RoundRobin} or
+   * @return either a {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#RoundRobin},
+   *         {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#LeastLoaded} or
    *         {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#ThreadLocal}
    */
   private static PoolMap.PoolType getPoolType(Configuration config) {
     return PoolMap.PoolType.valueOf(config.get(HConstants.HBASE_CLIENT_IPC_POOL_TYPE),
-      PoolMap.PoolType.RoundRobin, PoolMap.PoolType.ThreadLocal);
+      PoolMap.PoolType.RoundRobin, PoolMap.PoolType.LeastLoaded, PoolMap.PoolType.ThreadLocal);
   }
 
   /**
    * Return the pool size specified in the configuration, which is applicable only if the pool type
-   * is {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#RoundRobin}.
+   * is {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#RoundRobin} or
+   * {@link org.apache.hadoop.hbase.util.PoolMap.PoolType#LeastLoaded}.
    * @param config configuration
    * @return the maximum pool size
    */
@@ -404,6 +415,9 @@ public abstract class AbstractRpcClient<T extends RpcConnection> implements RpcC
           @Override
           public void run(Call call) {
             counter.decrementAndGet();
+            if (call.connection != null) {
+              call.connection.callDone();
+            }
             onCallFinished(call, hrc, addr, callback);
           }
         }, cs);
@@ -414,6 +428,8 @@ public abstract class AbstractRpcClient<T extends RpcConnection> implements RpcC
         throw new ServerTooBusyException(addr, count);
       }
       T connection = getConnection(remoteId);
+      call.connection = connection;
+      cs.setConcurrentCallsPerConnection(connection.callStarted());
       connection.sendRequest(call, hrc);
     } catch (Exception e) {
       call.setException(toIOE(e));
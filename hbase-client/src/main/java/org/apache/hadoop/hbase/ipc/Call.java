@@ -59,6 +59,7 @@ class Call {
   final RpcCallback<Call> callback;
   final Span span;
   Timeout timeoutTask;
+  RpcConnection connection; // the connection the call is sent on, set before sending it
 
   protected Call(int id, final Descriptors.MethodDescriptor md, Message param,
       final CellScanner cells, final Message responseDefaultType, int timeout, int priority,
@@ -27,6 +27,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -42,12 +44,16 @@ import org.apache.hadoop.hbase.io.ByteBufferInputStream;
 import org.apache.hadoop.hbase.io.ByteBufferListOutputStream;
 import org.apache.hadoop.hbase.io.ByteBufferOutputStream;
 import org.apache.hadoop.hbase.io.ByteBufferPool;
+import org.apache.hadoop.hbase.io.ByteBufferWriter;
 import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.nio.SingleByteBuff;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
 import org.apache.hadoop.io.compress.CodecPool;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
 import org.apache.hadoop.io.compress.Compressor;
 import org.apache.hadoop.io.compress.Decompressor;
 
@@ -60,8 +66,18 @@ class CellBlockBuilder {
   // LOG is being used in TestCellBlockBuilder
   static final Log LOG = LogFactory.getLog(CellBlockBuilder.class);
 
+  /**
+   * Set this key to {@code true} for the client to make the cells of a response over its cell
+   * block instead of copying each of them. This saves a copy and an object per cell, but a cell
+   * kept by the application keeps the whole cell block of its response.
+   */
+  public static final String CLIENT_DECODE_IN_PLACE_KEY =
+      "hbase.client.rpc.cellblock.decode.in.place";
+
   private final Configuration conf;
 
+  private final boolean decodeInPlace;
+
   /**
    * How much we think the decompressor will expand the original compressed content.
    */
@@ -69,8 +85,17 @@ class CellBlockBuilder {
 
   private final int cellBlockBuildingInitialBufferSize;
 
+  /**
+   * The largest uncompressed size of a compressed cell block we accept from the peer. A request
+   * can not be larger than this on the server, and we use the same bound for the responses.
+   */
+  private final int maxCellBlockSize;
+
+  private static final int COPY_CHUNK_SIZE = 8 * 1024;
+
   public CellBlockBuilder(Configuration conf) {
     this.conf = conf;
+    this.decodeInPlace = conf.getBoolean(CLIENT_DECODE_IN_PLACE_KEY, false);
     this.cellBlockDecompressionMultiplier = conf
         .getInt("hbase.ipc.cellblock.decompression.buffersize.multiplier", 3);
 
@@ -78,6 +103,7 @@ class CellBlockBuilder {
     // #buildCellBlock.
     this.cellBlockBuildingInitialBufferSize = ClassSize
         .align(conf.getInt("hbase.ipc.cellblock.building.initial.buffersize", 16 * 1024));
+    this.maxCellBlockSize = conf.getInt("hbase.ipc.max.request.size", 256 * 1024 * 1024);
   }
 
   private interface OutputStreamSupplier {
@@ -178,6 +204,13 @@ class CellBlockBuilder {
 
   private void encodeCellsTo(OutputStream os, CellScanner cellScanner, Codec codec,
       CompressionCodec compressor) throws IOException {
+    if (compressor instanceof CellBlockCompressionCodec) {
+      ByteBufferOutputStream cells = new ByteBufferOutputStream(cellBlockBuildingInitialBufferSize);
+      encodeCellsTo(cells, cellScanner, codec, null);
+      writeCellBlock(os, Collections.singletonList(cells.getByteBuffer()),
+        (CellBlockCompressionCodec) compressor);
+      return;
+    }
     Compressor poolCompressor = null;
     try {
       if (compressor != null) {
@@ -202,6 +235,70 @@ class CellBlockBuilder {
     }
   }
 
+  /**
+   * Writes encoded cells as a cell block in the format of {@link CellBlockCompressionCodec},
+   * compressing them only if they are at least its minimum size. Writes nothing if there are no
+   * cells.
+   * @param os to write the cell block to, closed at the end
+   * @param cells the encoded cells, flipped and ready for reading
+   * @param compressor the codec of the connection
+   */
+  private void writeCellBlock(OutputStream os, List<ByteBuffer> cells,
+      CellBlockCompressionCodec compressor) throws IOException {
+    try {
+      int size = 0;
+      for (ByteBuffer bb : cells) {
+        size += bb.remaining();
+      }
+      if (size == 0) {
+        return;
+      }
+      if (size < compressor.getMinSize()) {
+        os.write(CellBlockCompressionCodec.UNCOMPRESSED);
+        writeTo(os, cells);
+        return;
+      }
+      os.write(CellBlockCompressionCodec.COMPRESSED);
+      os.write(Bytes.toBytes(size));
+      CompressionCodec codec = compressor.getCodec();
+      if (codec instanceof Configurable) {
+        ((Configurable) codec).setConf(this.conf);
+      }
+      Compressor poolCompressor = CodecPool.getCompressor(codec);
+      try {
+        CompressionOutputStream cos = codec.createOutputStream(os, poolCompressor);
+        writeTo(cos, cells);
+        cos.finish();
+      } finally {
+        CodecPool.returnCompressor(poolCompressor);
+      }
+    } catch (BufferOverflowException | IndexOutOfBoundsException e) {
+      throw new DoNotRetryIOException(e);
+    } finally {
+      os.close();
+    }
+  }
+
+  private static void writeTo(OutputStream os, List<ByteBuffer> cells) throws IOException {
+    byte[] chunk = null;
+    for (ByteBuffer bb : cells) {
+      if (bb.hasArray() || os instanceof ByteBufferWriter) {
+        ByteBufferUtils.copyBufferToStream(os, bb, bb.position(), bb.remaining());
+        continue;
+      }
+      // The buffers of the pool are off heap, copy them in chunks rather than a byte at a time.
+      if (chunk == null) {
+        chunk = new byte[COPY_CHUNK_SIZE];
+      }
+      ByteBuffer dup = bb.duplicate();
+      while (dup.hasRemaining()) {
+        int len = Math.min(chunk.length, dup.remaining());
+        dup.get(chunk, 0, len);
+        os.write(chunk, 0, len);
+      }
+    }
+  }
+
   /**
    * Puts CellScanner Cells into a cell block using passed in <code>codec</code> and/or
    * <code>compressor</code>.
@@ -226,7 +323,18 @@ class CellBlockBuilder {
     }
     assert pool != null;
     ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(pool);
-    encodeCellsTo(bbos, cellScanner, codec, compressor);
+    if (compressor instanceof CellBlockCompressionCodec) {
+      // Encode the cells in buffers of the pool too, before deciding whether to compress them.
+      ByteBufferListOutputStream cells = new ByteBufferListOutputStream(pool);
+      try {
+        encodeCellsTo(cells, cellScanner, codec, null);
+        writeCellBlock(bbos, cells.getByteBuffers(), (CellBlockCompressionCodec) compressor);
+      } finally {
+        cells.releaseResources();
+      }
+    } else {
+      encodeCellsTo(bbos, cellScanner, codec, compressor);
+    }
     if (bbos.size() == 0) {
       bbos.releaseResources();
       return null;
@@ -243,10 +351,32 @@ class CellBlockBuilder {
   public CellScanner createCellScanner(final Codec codec, final CompressionCodec compressor,
       final byte[] cellBlock) throws IOException {
     // Use this method from Client side to create the CellScanner
+    if (compressor instanceof CellBlockCompressionCodec) {
+      if (cellBlock[0] == CellBlockCompressionCodec.UNCOMPRESSED) {
+        if (decodeInPlace) {
+          return codec
+              .getDecoder(new SingleByteBuff(ByteBuffer.wrap(cellBlock, 1, cellBlock.length - 1)));
+        }
+        return codec.getDecoder(new ByteArrayInputStream(cellBlock, 1, cellBlock.length - 1));
+      }
+      int offset = 1 + Bytes.SIZEOF_INT;
+      ByteBuffer cellBlockBuf = decompressFully(
+        ((CellBlockCompressionCodec) compressor).getCodec(),
+        new ByteArrayInputStream(cellBlock, offset, cellBlock.length - offset),
+        Bytes.toInt(cellBlock, 1));
+      // The buffer holds just the cells, the Cells can be made over it without keeping more.
+      return codec.getDecoder(new SingleByteBuff(cellBlockBuf));
+    }
     if (compressor != null) {
       ByteBuffer cellBlockBuf = decompress(compressor, cellBlock);
+      if (decodeInPlace) {
+        return codec.getDecoder(new SingleByteBuff(cellBlockBuf));
+      }
       return codec.getDecoder(new ByteBufferInputStream(cellBlockBuf));
     }
+    if (decodeInPlace) {
+      return codec.getDecoder(new SingleByteBuff(ByteBuffer.wrap(cellBlock)));
+    }
     // Not making the Decoder over the ByteBuffer purposefully. The Decoder over the BB will
     // make Cells directly over the passed BB. This method is called at client side and we don't
     // want the Cells to share the same byte[] where the RPC response is being read. Caching of any
@@ -267,6 +397,16 @@ class CellBlockBuilder {
     // Use this method from HRS to create the CellScanner
     // If compressed, decompress it first before passing it on else we will leak compression
     // resources if the stream is not closed properly after we let it out.
+    if (compressor instanceof CellBlockCompressionCodec) {
+      // The cells of an uncompressed cell block are used in place, just after the flag.
+      if (cellBlock.get() == CellBlockCompressionCodec.COMPRESSED) {
+        int size = cellBlock.getInt();
+        cellBlock = new SingleByteBuff(decompressFully(
+          ((CellBlockCompressionCodec) compressor).getCodec(), new ByteBuffInputStream(cellBlock),
+          size));
+      }
+      return codec.getDecoder(cellBlock);
+    }
     if (compressor != null) {
       cellBlock = decompress(compressor, cellBlock);
     }
@@ -307,4 +447,30 @@ class CellBlockBuilder {
       CodecPool.returnDecompressor(poolDecompressor);
     }
   }
+
+  /**
+   * Decompresses a cell block whose uncompressed size is known into a buffer of that size.
+   * @throws DoNotRetryIOException if the size sent by the peer is negative or too large
+   */
+  private ByteBuffer decompressFully(CompressionCodec compressor, InputStream cellBlockStream,
+      int uncompressedSize) throws IOException {
+    if (uncompressedSize < 0 || uncompressedSize > maxCellBlockSize) {
+      throw new DoNotRetryIOException("Uncompressed cell block size " + uncompressedSize
+          + " is negative or greater than max allowed " + maxCellBlockSize
+          + ". Set \"hbase.ipc.max.request.size\" on the client and the server if this is a"
+          + " valid cell block");
+    }
+    if (compressor instanceof Configurable) {
+      ((Configurable) compressor).setConf(this.conf);
+    }
+    Decompressor poolDecompressor = CodecPool.getDecompressor(compressor);
+    try {
+      CompressionInputStream cis = compressor.createInputStream(cellBlockStream, poolDecompressor);
+      byte[] cellBlock = new byte[uncompressedSize];
+      IOUtils.readFully(cis, cellBlock, 0, uncompressedSize);
+      return ByteBuffer.wrap(cellBlock);
+    } finally {
+      CodecPool.returnDecompressor(poolDecompressor);
+    }
+  }
 }
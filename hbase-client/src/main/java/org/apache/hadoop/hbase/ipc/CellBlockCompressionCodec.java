@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+
+/**
+ * Compresses the cell blocks of a connection with another {@link CompressionCodec}, but only the
+ * ones of at least a minimum size, as compressing small cell blocks costs more than it saves.
+ * <p>
+ * Each cell block starts with a byte telling whether it is compressed. A compressed cell block
+ * goes on with its uncompressed size as an int, so it can be decompressed into a buffer of the
+ * right size at once, and then with the cell block compressed by the wrapped codec.
+ * <p>
+ * As this is not the format of the cell blocks compressed with a plain {@link CompressionCodec},
+ * a client asks for it in its connection header with the name of the wrapped codec prefixed by
+ * {@link #CONNECTION_HEADER_PREFIX}. A server which supports it then uses the same format and
+ * codec for the connection, each side deciding which of its cell blocks it compresses.
+ * <p>
+ * The stream methods just delegate to the wrapped codec, {@link CellBlockBuilder} handles the
+ * format of the cell blocks.
+ */
+@InterfaceAudience.Private
+public class CellBlockCompressionCodec implements CompressionCodec {
+
+  /**
+   * The prefix of the cell block compressor in the connection header of the connections which
+   * use this codec.
+   */
+  public static final String CONNECTION_HEADER_PREFIX = "hbase.cellblock.min.size.compression:";
+
+  /**
+   * The minimum size of the cell blocks a client compresses with the codec set in
+   * hbase.client.rpc.compressor. If negative, the client compresses all its cell blocks the plain
+   * way, which is the only one older servers support.
+   */
+  public static final String CLIENT_MIN_SIZE_KEY = "hbase.client.rpc.compressor.min.size";
+
+  public static final int DEFAULT_CLIENT_MIN_SIZE = -1;
+
+  /**
+   * The minimum size of the cell blocks a server compresses on the connections whose client asked
+   * for this codec.
+   */
+  public static final String SERVER_MIN_SIZE_KEY = "hbase.ipc.server.rpc.compressor.min.size";
+
+  public static final int DEFAULT_SERVER_MIN_SIZE = 8 * 1024;
+
+  static final byte UNCOMPRESSED = 0;
+
+  static final byte COMPRESSED = 1;
+
+  private final CompressionCodec codec;
+
+  private final int minSize;
+
+  public CellBlockCompressionCodec(CompressionCodec codec, int minSize) {
+    this.codec = codec;
+    this.minSize = minSize;
+  }
+
+  /**
+   * @return the codec compressing the cell blocks
+   */
+  public CompressionCodec getCodec() {
+    return codec;
+  }
+
+  /**
+   * @return the minimum size of the cell blocks to compress
+   */
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * @return the cell block compressor to put in the connection header for this codec
+   */
+  public String toConnectionHeader() {
+    return CONNECTION_HEADER_PREFIX + codec.getClass().getName();
+  }
+
+  /**
+   * @return whether the cell block compressor of a connection header asks for this codec
+   */
+  public static boolean isInConnectionHeader(String compressorClass) {
+    return compressorClass.startsWith(CONNECTION_HEADER_PREFIX);
+  }
+
+  /**
+   * Creates the codec asked for by the cell block compressor of a connection header.
+   * @param compressorClass the cell block compressor of the connection header
+   * @param minSize the minimum size of the cell blocks this side of the connection compresses
+   */
+  public static CellBlockCompressionCodec fromConnectionHeader(String compressorClass,
+      int minSize) throws ReflectiveOperationException {
+    String className = compressorClass.substring(CONNECTION_HEADER_PREFIX.length());
+    CompressionCodec codec = (CompressionCodec) Class.forName(className).newInstance();
+    return new CellBlockCompressionCodec(codec, minSize);
+  }
+
+  @Override
+  public CompressionOutputStream createOutputStream(OutputStream out) throws IOException {
+    return codec.createOutputStream(out);
+  }
+
+  @Override
+  public CompressionOutputStream createOutputStream(OutputStream out, Compressor compressor)
+      throws IOException {
+    return codec.createOutputStream(out, compressor);
+  }
+
+  @Override
+  public Class<? extends Compressor> getCompressorType() {
+    return codec.getCompressorType();
+  }
+
+  @Override
+  public Compressor createCompressor() {
+    return codec.createCompressor();
+  }
+
+  @Override
+  public CompressionInputStream createInputStream(InputStream in) throws IOException {
+    return codec.createInputStream(in);
+  }
+
+  @Override
+  public CompressionInputStream createInputStream(InputStream in, Decompressor decompressor)
+      throws IOException {
+    return codec.createInputStream(in, decompressor);
+  }
+
+  @Override
+  public Class<? extends Decompressor> getDecompressorType() {
+    return codec.getDecompressorType();
+  }
+
+  @Override
+  public Decompressor createDecompressor() {
+    return codec.createDecompressor();
+  }
+
+  @Override
+  public String getDefaultExtension() {
+    return codec.getDefaultExtension();
+  }
+
+  @Override
+  public String toString() {
+    return "CellBlockCompressionCodec(" + codec.getClass().getName() + ", minSize=" + minSize + ")";
+  }
+}
@@ -24,6 +24,7 @@ import io.netty.util.TimerTask;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -81,6 +82,9 @@ abstract class RpcConnection {
   // the last time we were picked up from connection pool.
   protected long lastTouched;
 
+  // the calls sent on this connection which are not done yet.
+  private final AtomicInteger outstandingCalls = new AtomicInteger();
+
   protected RpcConnection(Configuration conf, HashedWheelTimer timeoutTimer, ConnectionId remoteId,
       String clusterId, boolean isSecurityEnabled, Codec codec, CompressionCodec compressor)
       throws IOException {
@@ -231,7 +235,10 @@ abstract class RpcConnection {
     if (this.codec != null) {
       builder.setCellBlockCodecClass(this.codec.getClass().getCanonicalName());
     }
-    if (this.compressor != null) {
+    if (this.compressor instanceof CellBlockCompressionCodec) {
+      builder.setCellBlockCompressorClass(
+        ((CellBlockCompressionCodec) this.compressor).toConnectionHeader());
+    } else if (this.compressor != null) {
       builder.setCellBlockCompressorClass(this.compressor.getClass().getCanonicalName());
     }
     builder.setVersionInfo(ProtobufUtil.getVersionInfo());
@@ -258,6 +265,28 @@ abstract class RpcConnection {
     this.lastTouched = lastTouched;
   }
 
+  /**
+   * @return the number of calls sent on this connection which are not done yet
+   */
+  public int getOutstandingCalls() {
+    return outstandingCalls.get();
+  }
+
+  /**
+   * Called before a call is sent on this connection.
+   * @return the number of outstanding calls, including this one
+   */
+  int callStarted() {
+    return outstandingCalls.incrementAndGet();
+  }
+
+  /**
+   * Called when a call sent on this connection is done.
+   */
+  void callDone() {
+    outstandingCalls.decrementAndGet();
+  }
+
   /**
    * Tell the idle connection sweeper whether we could be swept.
    */
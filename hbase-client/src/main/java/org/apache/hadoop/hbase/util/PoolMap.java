@@ -30,6 +30,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
 
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 
@@ -57,6 +58,8 @@ public class PoolMap<K, V> implements Map<K, V> {
 
   private int poolMaxSize;
 
+  private ToIntFunction<? super V> loadFunction = value -> 0;
+
   private Map<K, Pool<V>> pools = new ConcurrentHashMap<>();
 
   public PoolMap(PoolType poolType) {
@@ -68,6 +71,15 @@ public class PoolMap<K, V> implements Map<K, V> {
     this.poolMaxSize = poolMaxSize;
   }
 
+  /**
+   * @param loadFunction the load of a resource, for the
+   *          {@link PoolType#LeastLoaded} pool type
+   */
+  public PoolMap(PoolType poolType, int poolMaxSize, ToIntFunction<? super V> loadFunction) {
+    this(poolType, poolMaxSize);
+    this.loadFunction = loadFunction;
+  }
+
   @Override
   public V get(Object key) {
     Pool<V> pool = pools.get(key);
@@ -228,7 +240,7 @@ public class PoolMap<K, V> implements Map<K, V> {
   }
 
   public enum PoolType {
-    Reusable, ThreadLocal, RoundRobin;
+    Reusable, ThreadLocal, RoundRobin, LeastLoaded;
 
     public static PoolType valueOf(String poolTypeName,
         PoolType defaultPoolType, PoolType... allowedPoolTypes) {
@@ -276,6 +288,8 @@ public class PoolMap<K, V> implements Map<K, V> {
       return new RoundRobinPool<>(poolMaxSize);
     case ThreadLocal:
       return new ThreadLocalPool<>();
+    case LeastLoaded:
+      return new LeastLoadedPool(poolMaxSize);
     }
     return null;
   }
@@ -375,6 +389,57 @@ public class PoolMap<K, V> implements Map<K, V> {
 
   }
 
+  /**
+   * The <code>LeastLoadedPool</code> represents a {@link PoolMap.Pool}, which
+   * stores its resources in an {@link ArrayList}. It returns the resource with
+   * the lowest load, as given by the load function of the map, so that a
+   * resource busy with a long task is not handed out while others are idle.
+   *
+   * <p>
+   * As long as the pool is not full, a new resource is only asked for when
+   * all the resources are loaded, so the pool only grows to the number of
+   * resources needed by the concurrency of its users, up to {@link #maxSize}.
+   * </p>
+   */
+  @SuppressWarnings("serial")
+  class LeastLoadedPool extends CopyOnWriteArrayList<V> implements Pool<V> {
+    private int maxSize;
+
+    public LeastLoadedPool(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public V put(V resource) {
+      if (super.size() < maxSize) {
+        add(resource);
+      }
+      return null;
+    }
+
+    @Override
+    public V get() {
+      V leastLoaded = null;
+      int minLoad = Integer.MAX_VALUE;
+      for (V resource : this) {
+        int load = loadFunction.applyAsInt(resource);
+        if (load < minLoad) {
+          leastLoaded = resource;
+          minLoad = load;
+        }
+      }
+      if (minLoad > 0 && super.size() < maxSize) {
+        return null;
+      }
+      return leastLoaded;
+    }
+
+    @Override
+    public Collection<V> values() {
+      return this;
+    }
+  }
+
   /**
    * The <code>ThreadLocalPool</code> represents a {@link PoolMap.Pool} that
    * builds on the {@link ThreadLocal} class. It essentially binds the resource
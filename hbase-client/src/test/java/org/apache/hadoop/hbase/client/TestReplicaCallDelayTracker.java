@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.ReplicaCallDelayTracker.LatencyHistogram;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestReplicaCallDelayTracker {
+
+  private static final ServerName SN = ServerName.valueOf("localhost", 1234, 1);
+
+  @Test
+  public void testDisabledByDefault() {
+    Configuration conf = HBaseConfiguration.create();
+    assertNull(ReplicaCallDelayTracker.create(conf));
+    conf.setBoolean(ReplicaCallDelayTracker.ADAPTIVE_PRIMARY_CALL_TIMEOUT_KEY, true);
+    assertNotNull(ReplicaCallDelayTracker.create(conf));
+  }
+
+  @Test
+  public void testBuckets() {
+    for (long v = 0; v < 1000000; v++) {
+      int bucket = LatencyHistogram.getBucket(v);
+      assertTrue(v < LatencyHistogram.getUpperBound(bucket));
+      if (bucket > 0) {
+        assertTrue(v >= LatencyHistogram.getUpperBound(bucket - 1));
+      }
+    }
+    int last = LatencyHistogram.getBucket(Long.MAX_VALUE);
+    assertEquals(last, LatencyHistogram.getBucket(Integer.MAX_VALUE));
+    assertTrue(Integer.MAX_VALUE < LatencyHistogram.getUpperBound(last));
+  }
+
+  @Test
+  public void testPercentile() {
+    ReplicaCallDelayTracker tracker = new ReplicaCallDelayTracker(0.95, 0.1, 100);
+    for (int i = 0; i < ReplicaCallDelayTracker.MIN_SAMPLES - 5; i++) {
+      tracker.updatePrimaryLatency(SN, 100);
+    }
+    for (int i = 0; i < 4; i++) {
+      tracker.updatePrimaryLatency(SN, 10000);
+    }
+    // not enough latencies yet
+    assertEquals(10000, tracker.getPrimaryCallTimeout(SN, 10000));
+    tracker.updatePrimaryLatency(SN, 10000);
+    // 100us is in [96, 112), 10ms in [8192, 10240)
+    assertEquals(112, tracker.getPrimaryCallTimeout(SN, 10000));
+    tracker.updatePrimaryLatency(SN, 10000);
+    assertEquals(10240, tracker.getPrimaryCallTimeout(SN, 10000));
+    // unknown server
+    assertEquals(10000, tracker.getPrimaryCallTimeout(ServerName.valueOf("localhost", 1, 1),
+      10000));
+  }
+
+  @Test
+  public void testDecay() {
+    ReplicaCallDelayTracker tracker = new ReplicaCallDelayTracker(0.95, 0.1, 100);
+    for (int i = 0; i < ReplicaCallDelayTracker.DECAY_SAMPLES; i++) {
+      tracker.updatePrimaryLatency(SN, 10000);
+    }
+    assertEquals(10240, tracker.getPrimaryCallTimeout(SN, 0));
+    // the old latencies are forgotten
+    for (int i = 0; i < 5 * ReplicaCallDelayTracker.DECAY_SAMPLES; i++) {
+      tracker.updatePrimaryLatency(SN, 100);
+    }
+    assertEquals(112, tracker.getPrimaryCallTimeout(SN, 0));
+  }
+
+  @Test
+  public void testHedgingBudget() {
+    ReplicaCallDelayTracker tracker = new ReplicaCallDelayTracker(0.95, 0.1, 2);
+    assertTrue(tracker.tryHedge());
+    assertTrue(tracker.tryHedge());
+    assertFalse(tracker.tryHedge());
+    // each get earns a tenth of a hedged get
+    for (int i = 0; i < 9; i++) {
+      tracker.getPrimaryCallTimeout(SN, 0);
+    }
+    assertFalse(tracker.tryHedge());
+    tracker.getPrimaryCallTimeout(SN, 0);
+    assertTrue(tracker.tryHedge());
+    assertFalse(tracker.tryHedge());
+    // no more than the burst
+    for (int i = 0; i < 100; i++) {
+      tracker.getPrimaryCallTimeout(SN, 0);
+    }
+    assertTrue(tracker.tryHedge());
+    assertTrue(tracker.tryHedge());
+    assertFalse(tracker.tryHedge());
+  }
+}
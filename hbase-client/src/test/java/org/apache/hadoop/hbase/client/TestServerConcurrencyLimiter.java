@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.CallQueueTooBigException;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.RegionTooBusyException;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestServerConcurrencyLimiter {
+
+  private static final ServerName SN = ServerName.valueOf("localhost", 1234, 1);
+
+  @Test
+  public void testCreate() {
+    Configuration conf = HBaseConfiguration.create();
+    assertNull(ServerConcurrencyLimiter.create(conf));
+    conf.setBoolean(ServerConcurrencyLimiter.ADAPTIVE_LIMIT_KEY, true);
+    conf.setInt(HConstants.HBASE_CLIENT_MAX_PERSERVER_TASKS, 3);
+    ServerConcurrencyLimiter limiter = ServerConcurrencyLimiter.create(conf);
+    assertNotNull(limiter);
+    assertEquals(3, limiter.getLimit(SN));
+    conf.setInt(ServerConcurrencyLimiter.MIN_LIMIT_KEY, 0);
+    try {
+      ServerConcurrencyLimiter.create(conf);
+      fail("Should fail with a min limit of 0");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testGrowWhileStable() {
+    ServerConcurrencyLimiter limiter = new ServerConcurrencyLimiter(4, 1, 16);
+    // a limit which is not used does not grow
+    for (int i = 0; i < 100; i++) {
+      limiter.update(SN, 1000000, 0, false);
+    }
+    assertEquals(4, limiter.getLimit(SN));
+    int last = limiter.getLimit(SN);
+    for (int i = 0; i < 100; i++) {
+      limiter.update(SN, 1000000, limiter.getLimit(SN), false);
+      int limit = limiter.getLimit(SN);
+      assertTrue(limit >= last);
+      last = limit;
+    }
+    assertEquals(16, limiter.getLimit(SN));
+  }
+
+  @Test
+  public void testShrinkWhenSlower() {
+    ServerConcurrencyLimiter limiter = new ServerConcurrencyLimiter(16, 1, 16);
+    for (int i = 0; i < 100; i++) {
+      limiter.update(SN, 1000000, 16, false);
+    }
+    assertEquals(16, limiter.getLimit(SN));
+    // the requests are now queued on the server
+    for (int i = 0; i < 20; i++) {
+      limiter.update(SN, 10000000, limiter.getLimit(SN), false);
+    }
+    assertTrue(limiter.getLimit(SN) < 16);
+  }
+
+  @Test
+  public void testHalveWhenOverloaded() {
+    ServerConcurrencyLimiter limiter = new ServerConcurrencyLimiter(16, 3, 16);
+    limiter.update(SN, -1, 16, true);
+    assertEquals(8, limiter.getLimit(SN));
+    limiter.update(SN, -1, 8, true);
+    assertEquals(4, limiter.getLimit(SN));
+    limiter.update(SN, -1, 4, true);
+    assertEquals(3, limiter.getLimit(SN));
+    // other failures do not change the limit
+    limiter.update(SN, -1, 3, false);
+    assertEquals(3, limiter.getLimit(SN));
+  }
+
+  @Test
+  public void testIsOverloaded() {
+    assertTrue(ServerConcurrencyLimiter.isOverloaded(new CallQueueTooBigException()));
+    assertTrue(ServerConcurrencyLimiter.isOverloaded(new RegionTooBusyException("busy")));
+    assertFalse(ServerConcurrencyLimiter.isOverloaded(new DoNotRetryIOException("fail")));
+  }
+
+  @Test
+  public void testExecuteAndRelease() {
+    ServerConcurrencyLimiter limiter = new ServerConcurrencyLimiter(2, 1, 2);
+    AtomicInteger run = new AtomicInteger();
+    for (int i = 0; i < 4; i++) {
+      limiter.execute(SN, run::incrementAndGet);
+    }
+    assertEquals(2, run.get());
+    assertEquals(2, limiter.getWaitingCount(SN));
+    limiter.release(SN, 1000000, false);
+    assertEquals(3, run.get());
+    assertEquals(1, limiter.getWaitingCount(SN));
+    // the limit is now 1, so the last request waits for the two in flight
+    limiter.release(SN, -1, true);
+    assertEquals(3, run.get());
+    limiter.release(SN, 1000000, false);
+    assertEquals(4, run.get());
+    assertEquals(0, limiter.getWaitingCount(SN));
+  }
+}
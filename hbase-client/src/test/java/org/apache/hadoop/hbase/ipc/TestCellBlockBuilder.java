@@ -18,23 +18,32 @@
 package org.apache.hadoop.hbase.ipc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang.time.StopWatch;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.logging.impl.Log4JLogger;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.codec.KeyValueCodec;
+import org.apache.hadoop.hbase.io.ByteBufferListOutputStream;
+import org.apache.hadoop.hbase.io.ByteBufferPool;
 import org.apache.hadoop.hbase.io.SizedCellScanner;
+import org.apache.hadoop.hbase.nio.MultiByteBuff;
 import org.apache.hadoop.hbase.nio.SingleByteBuff;
 import org.apache.hadoop.hbase.testclassification.ClientTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -67,6 +76,119 @@ public class TestCellBlockBuilder {
     doBuildCellBlockUndoCellBlock(this.builder, new KeyValueCodec(), new GzipCodec());
   }
 
+  @Test
+  public void testBuildCellBlockWithMinSizeCompression() throws IOException {
+    doBuildCellBlockUndoCellBlock(this.builder, new KeyValueCodec(),
+      new CellBlockCompressionCodec(new DefaultCodec(), 1024 * 1024));
+    doBuildCellBlockUndoCellBlock(this.builder, new KeyValueCodec(),
+      new CellBlockCompressionCodec(new GzipCodec(), 0));
+  }
+
+  @Test
+  public void testMinSizeCompression() throws IOException {
+    Codec codec = new KeyValueCodec();
+    CellBlockCompressionCodec compressor = new CellBlockCompressionCodec(new DefaultCodec(), 4096);
+
+    // a small cell block is not compressed
+    ByteBuffer bb = builder.buildCellBlock(codec, compressor,
+      CellUtil.createCellScanner(getCells(2, 10)));
+    assertEquals(CellBlockCompressionCodec.UNCOMPRESSED, bb.get(bb.position()));
+    assertCellCount(2, builder.createCellScanner(codec, compressor, toBytes(bb)));
+
+    // a large one is, and the values of the cells are all zeros so it shrinks
+    bb = builder.buildCellBlock(codec, compressor, CellUtil.createCellScanner(getCells(10)));
+    assertEquals(CellBlockCompressionCodec.COMPRESSED, bb.get(bb.position()));
+    assertTrue(bb.remaining() < 1024);
+    assertCellCount(10, builder.createCellScanner(codec, compressor, toBytes(bb)));
+    assertCellCount(10,
+      builder.createCellScannerReusingBuffers(codec, compressor, new SingleByteBuff(bb)));
+  }
+
+  @Test
+  public void testRejectBadUncompressedSize() throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt("hbase.ipc.max.request.size", 1024 * 1024);
+    CellBlockBuilder builder = new CellBlockBuilder(conf);
+    Codec codec = new KeyValueCodec();
+    CellBlockCompressionCodec compressor = new CellBlockCompressionCodec(new DefaultCodec(), 0);
+    byte[] cellBlock = toBytes(
+      builder.buildCellBlock(codec, compressor, CellUtil.createCellScanner(getCells(10))));
+    assertEquals(CellBlockCompressionCodec.COMPRESSED, cellBlock[0]);
+    for (int size : new int[] { -1, 1024 * 1024 + 1, Integer.MAX_VALUE }) {
+      // the uncompressed size follows the flag
+      Bytes.putInt(cellBlock, 1, size);
+      try {
+        builder.createCellScanner(codec, compressor, cellBlock);
+        fail("Should reject uncompressed size " + size);
+      } catch (DoNotRetryIOException e) {
+        // expected
+      }
+      try {
+        builder.createCellScannerReusingBuffers(codec, compressor,
+          new SingleByteBuff(ByteBuffer.wrap(cellBlock)));
+        fail("Should reject uncompressed size " + size);
+      } catch (DoNotRetryIOException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testMinSizeCompressionWithPool() throws IOException {
+    Codec codec = new KeyValueCodec();
+    // off heap buffers smaller than the cell block, as on the server
+    ByteBufferPool pool = new ByteBufferPool(4096, 16, true);
+    for (int minSize : new int[] { 0, 1024 * 1024 }) {
+      CellBlockCompressionCodec compressor =
+          new CellBlockCompressionCodec(new DefaultCodec(), minSize);
+      ByteBufferListOutputStream bbos = builder.buildCellBlockStream(codec, compressor,
+        CellUtil.createCellScanner(getCells(10)), pool);
+      try {
+        List<ByteBuffer> bbs = bbos.getByteBuffers();
+        assertCellCount(10, builder.createCellScannerReusingBuffers(codec, compressor,
+          new MultiByteBuff(bbs.toArray(new ByteBuffer[bbs.size()]))));
+      } finally {
+        bbos.releaseResources();
+      }
+    }
+  }
+
+  @Test
+  public void testDecodeInPlace() throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(CellBlockBuilder.CLIENT_DECODE_IN_PLACE_KEY, true);
+    CellBlockBuilder builder = new CellBlockBuilder(conf);
+    Codec codec = new KeyValueCodec();
+    Cell[] cells = getCells(10);
+    byte[] cellBlock =
+        toBytes(builder.buildCellBlock(codec, null, CellUtil.createCellScanner(cells)));
+    CellScanner cellScanner = builder.createCellScanner(codec, null, cellBlock);
+    int i = 0;
+    while (cellScanner.advance()) {
+      Cell cell = cellScanner.current();
+      // the cells are made over the cell block
+      assertSame(cellBlock, cell.getValueArray());
+      assertTrue(CellUtil.equals(cells[i], cell));
+      assertTrue(CellUtil.matchingValue(cells[i], cell));
+      i++;
+    }
+    assertEquals(cells.length, i);
+  }
+
+  private static byte[] toBytes(ByteBuffer bb) {
+    byte[] bytes = new byte[bb.remaining()];
+    bb.duplicate().get(bytes);
+    return bytes;
+  }
+
+  private static void assertCellCount(int count, CellScanner cellScanner) throws IOException {
+    int i = 0;
+    while (cellScanner.advance()) {
+      i++;
+    }
+    assertEquals(count, i);
+  }
+
   static void doBuildCellBlockUndoCellBlock(final CellBlockBuilder builder, final Codec codec,
       final CompressionCodec compressor) throws IOException {
     doBuildCellBlockUndoCellBlock(builder, codec, compressor, 10, 1, false);
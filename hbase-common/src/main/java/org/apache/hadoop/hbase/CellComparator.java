@@ -144,6 +144,20 @@ public class CellComparator implements Comparator<Cell>, Serializable {
     return compareQualifiers(left, right);
   }
 
+  /**
+   * Compare the column of the left cell with the given family and qualifier
+   * @param left
+   * @return 0 if the column of the cell is the given one, 1 if it is bigger, -1 otherwise
+   */
+  public final static int compareColumns(Cell left, byte[] family, int foffset, int flength,
+      byte[] qualifier, int qoffset, int qlength) {
+    int diff = compareFamilies(left, family, foffset, flength);
+    if (diff != 0) {
+      return diff;
+    }
+    return compareQualifiers(left, qualifier, qoffset, qlength);
+  }
+
   private final static int compareColumns(Cell left, byte[] right, int rfoffset, int rflength,
       int rqoffset, int rqlength) {
     int diff = compareFamilies(left, right, rfoffset, rflength);
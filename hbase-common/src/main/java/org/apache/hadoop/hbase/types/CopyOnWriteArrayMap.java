@@ -22,6 +22,7 @@ import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.classification.InterfaceStability;
 
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -31,6 +32,7 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.function.BiFunction;
 
 /**
  * A Map that keeps a sorted array in order to provide the concurrent map interface.
@@ -327,6 +329,68 @@ public class CopyOnWriteArrayMap<K, V> extends AbstractMap<K, V>
     return null;
   }
 
+  /**
+   * Puts all the mappings with a single copy of the array, instead of one for each of them.
+   */
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    mergeAll(m, (oldValue, value) -> value);
+  }
+
+  /**
+   * Merges all the mappings with a single copy of the array, as
+   * {@link #merge(Object, Object, BiFunction)} does for each of them: a key which is not mapped
+   * yet is mapped to the passed value, otherwise to the result of <code>remappingFunction</code>,
+   * or removed if it is null. The mapped values are read under the write lock, so no concurrent
+   * modification is overwritten.
+   */
+  public synchronized void mergeAll(Map<? extends K, ? extends V> m,
+      BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+    if (m.isEmpty()) {
+      return;
+    }
+    COWEntry<K, V>[] added = new COWEntry[m.size()];
+    int i = 0;
+    for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+      added[i++] = new COWEntry<>(e.getKey(), e.getValue());
+    }
+    ArrayHolder<K, V> current = this.holder;
+    // stable, so of the equal keys of the passed map the last one wins, as with put
+    Arrays.sort(added, current.comparator);
+    COWEntry<K, V>[] newEntries = new COWEntry[current.getLength() + added.length];
+    int size = 0;
+    int j = current.startIndex;
+    for (i = 0; i < added.length; i++) {
+      if (i + 1 < added.length && keyComparator.compare(added[i].key, added[i + 1].key) == 0) {
+        continue;
+      }
+      int c = -1;
+      while (j < current.endIndex
+          && (c = keyComparator.compare(current.entries[j].key, added[i].key)) < 0) {
+        newEntries[size++] = current.entries[j++];
+      }
+      if (c == 0) {
+        COWEntry<K, V> old = current.entries[j++];
+        V value = remappingFunction.apply(old.value, added[i].value);
+        if (value == old.value) {
+          newEntries[size++] = old;
+        } else if (value != null) {
+          newEntries[size++] = new COWEntry<>(old.key, value);
+        }
+      } else {
+        newEntries[size++] = added[i];
+      }
+    }
+    while (j < current.endIndex) {
+      newEntries[size++] = current.entries[j++];
+    }
+    if (size < newEntries.length) {
+      // the other modifications expect the array to end at the end index
+      newEntries = Arrays.copyOf(newEntries, size);
+    }
+    this.holder = new ArrayHolder<>(newEntries, 0, size, keyComparator, current.comparator);
+  }
+
   @Override
   public synchronized V remove(Object key) {
 
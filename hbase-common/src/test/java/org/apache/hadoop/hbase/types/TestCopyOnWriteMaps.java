@@ -24,10 +24,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
 
 import static org.junit.Assert.*;
 
@@ -309,4 +311,48 @@ public class TestCopyOnWriteMaps {
     assertEquals(5, m.size());
     assertEquals(false, m.isEmpty());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testPutAll() throws Exception {
+    Map<Long, Long> added = new HashMap<>();
+    for (long i = 5000; i < 15000; i++) {
+      long o = ThreadLocalRandom.current().nextLong(MAX_RAND);
+      added.put(i, o);
+    }
+    added.put(-1L, -1L);
+    m.putAll(added);
+    csm.putAll(added);
+    assertEquals(csm, m);
+    assertEquals(csm.firstKey(), m.firstKey());
+    assertEquals(csm.lastKey(), m.lastKey());
+
+    // the other modifications still work on the merged array
+    m.remove(14999L);
+    csm.remove(14999L);
+    m.put(20000L, 20000L);
+    csm.put(20000L, 20000L);
+    assertEquals(csm, m);
+  }
+
+  @Test
+  public void testMergeAll() throws Exception {
+    Map<Long, Long> added = new HashMap<>();
+    for (long i = 5000; i < 15000; i++) {
+      long o = ThreadLocalRandom.current().nextLong(MAX_RAND);
+      added.put(i, o);
+    }
+    added.put(-1L, -1L);
+    // keep the larger value, and remove the keys whose values are equal
+    BiFunction<Long, Long, Long> remapping =
+        (oldValue, value) -> oldValue.equals(value) ? null : Math.max(oldValue, value);
+    added.put(1L, m.get(1L));
+    ((CopyOnWriteArrayMap<Long, Long>) m).mergeAll(added, remapping);
+    for (Map.Entry<Long, Long> e : added.entrySet()) {
+      csm.merge(e.getKey(), e.getValue(), remapping);
+    }
+    assertEquals(csm, m);
+    assertFalse(m.containsKey(1L));
+    assertEquals(csm.firstKey(), m.firstKey());
+    assertEquals(csm.lastKey(), m.lastKey());
+  }
+}
@@ -159,6 +159,20 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
    */
   void updateFlushOutputSize(long bytes);
 
+  /**
+   * Update the flush time histogram of a column family
+   * @param table the name of the table
+   * @param family the name of the column family
+   * @param t time it took to write the store of the family, in milliseconds
+   */
+  void updateStoreFlushTime(String table, String family, long t);
+
+  /**
+   * Remove the flush time histograms of the column families of a table
+   * @param table the name of the table
+   */
+  void removeStoreFlushTimes(String table);
+
   /**
    * Update the compaction time histogram, both major and minor
    * @param isMajor whether compaction is a major compaction
@@ -217,6 +231,8 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
   String AVG_STORE_FILE_AGE_DESC = "Average age of store files hosted on this region server";
   String NUM_REFERENCE_FILES_DESC = "Number of reference file on this region server";
   String STOREFILE_SIZE_DESC = "Size of storefiles being served.";
+  String STOREFILE_SIZE_BY_STORAGE_POLICY_DESC =
+      "Size of storefiles being served written with this storage policy.";
   String TOTAL_REQUEST_COUNT = "totalRequestCount";
   String TOTAL_REQUEST_COUNT_DESC =
       "Total number of requests this RegionServer has answered.";
@@ -264,6 +280,8 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
       + "larger than throttle threshold (2.5GB by default)";
   String SMALL_COMPACTION_QUEUE_LENGTH_DESC = "Length of the queue for compactions with input size "
       + "smaller than throttle threshold (2.5GB by default)";
+  String COMPACTION_QUEUE_LENGTH_BY_CLASS_DESC =
+      "Length of the queue for compactions of the stores of this compaction class.";
   String FLUSH_QUEUE_LENGTH = "flushQueueLength";
   String FLUSH_QUEUE_LENGTH_DESC = "Length of the queue for region flushes";
   String BLOCK_CACHE_FREE_SIZE = "blockCacheFreeSize";
@@ -374,6 +392,9 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
   String MAJOR_COMPACTED_CELLS_SIZE = "majorCompactedCellsSize";
   String MAJOR_COMPACTED_CELLS_SIZE_DESC =
       "The total amount of data processed during major compactions, in bytes";
+  String COMPACTION_PREWARMED_SIZE = "compactionPrewarmedSize";
+  String COMPACTION_PREWARMED_SIZE_DESC =
+      "The total size of the blocks written by compactions cached, in bytes";
   String CELLS_COUNT_COMPACTED_TO_MOB = "cellsCountCompactedToMob";
   String CELLS_COUNT_COMPACTED_TO_MOB_DESC =
       "The number of cells moved to mob during compaction";
@@ -433,6 +454,9 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
   String FLUSHED_OUTPUT_BYTES_DESC = "Total number of bytes written from flush";
   String FLUSHED_MEMSTORE_BYTES = "flushedMemstoreBytes";
   String FLUSHED_MEMSTORE_BYTES_DESC = "Total number of bytes of cells in memstore from flush";
+  String STORE_FLUSH_TIME = "storeFlushTime";
+  String STORE_FLUSH_TIME_DESC =
+      "Histogram for the time in millis for writing the memstore of a column family in a flush";
 
   String COMPACTION_TIME = "compactionTime";
   String COMPACTION_TIME_DESC
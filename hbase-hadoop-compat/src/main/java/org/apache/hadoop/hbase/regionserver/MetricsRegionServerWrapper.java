@@ -18,6 +18,8 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Map;
+
 /**
  * This is the interface that will expose RegionServer information to hadoop1/hadoop2
  * implementations of the MetricsRegionServerSource.
@@ -97,6 +99,12 @@ public interface MetricsRegionServerWrapper {
    */
   long getStoreFileSize();
 
+  /**
+   * Get the total size of the store files written with a storage policy of their own, by storage
+   * policy.
+   */
+  Map<String, Long> getStoreFileSizeByStoragePolicy();
+
   /**
    * @return Max age of store files hosted on this region server
    */
@@ -202,6 +210,11 @@ public interface MetricsRegionServerWrapper {
 
   int getLargeCompactionQueueSize();
 
+  /**
+   * Get the sizes of the queues of the compactions of each compaction class, by class name
+   */
+  Map<String, Integer> getCompactionQueueSizeByClass();
+
   /**
    * Get the size of the flush queue.
    */
@@ -308,6 +321,11 @@ public interface MetricsRegionServerWrapper {
    */
   long getMajorCompactedCellsSize();
 
+  /**
+   * Get the total size of the blocks written by compactions cached, in bytes.
+   */
+  long getCompactionPrewarmedSize();
+
   /**
    * Gets the number of cells moved to mob during compaction.
    */
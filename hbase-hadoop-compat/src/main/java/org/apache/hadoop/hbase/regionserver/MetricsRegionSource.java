@@ -43,6 +43,13 @@ public interface MetricsRegionSource extends Comparable<MetricsRegionSource> {
   String COPROCESSOR_EXECUTION_STATISTICS_DESC = "Statistics for coprocessor execution times";
   String REPLICA_ID = "replicaid";
   String REPLICA_ID_DESC = "The replica ID of a region. 0 is primary, otherwise is secondary";
+  String ROW_CACHE_HIT_COUNT = "rowCacheHitCount";
+  String ROW_CACHE_HIT_COUNT_DESC = "Number of gets served from the row cache.";
+  String ROW_CACHE_MISS_COUNT = "rowCacheMissCount";
+  String ROW_CACHE_MISS_COUNT_DESC =
+      "Number of cacheable gets which did not find a valid entry in the row cache.";
+  String ROW_CACHE_SIZE = "rowCacheSize";
+  String ROW_CACHE_SIZE_DESC = "Heap size of the rows in the row cache.";
 
   /**
    * Close the region's metrics as this region is closing.
@@ -123,4 +123,19 @@ public interface MetricsRegionWrapper {
    * Get the replica id of this region.
    */
   int getReplicaId();
+
+  /**
+   * @return Number of gets served from the row cache, 0 if the row cache is disabled
+   */
+  long getRowCacheHitCount();
+
+  /**
+   * @return Number of cacheable gets that missed the row cache, 0 if the row cache is disabled
+   */
+  long getRowCacheMissCount();
+
+  /**
+   * @return Heap size of the row cache, 0 if the row cache is disabled
+   */
+  long getRowCacheSize();
 }
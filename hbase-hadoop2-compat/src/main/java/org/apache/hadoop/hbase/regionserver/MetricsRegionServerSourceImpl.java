@@ -18,6 +18,11 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.metrics.BaseSourceImpl;
 import org.apache.hadoop.hbase.metrics.Interns;
@@ -61,6 +66,9 @@ public class MetricsRegionServerSourceImpl
   private final MetricHistogram flushOutputSizeHisto;
   private final MutableFastCounter flushedMemstoreBytes;
   private final MutableFastCounter flushedOutputBytes;
+  // per table and column family, created on the first flush of a family
+  private final ConcurrentMap<String, ConcurrentMap<String, MetricHistogram>>
+      storeFlushTimeHistos = new ConcurrentHashMap<>();
 
   // compaction related metrics
   private final MetricHistogram compactionTimeHisto;
@@ -266,6 +274,38 @@ public class MetricsRegionServerSourceImpl
     flushedOutputBytes.incr(bytes);
   }
 
+  @Override
+  public void updateStoreFlushTime(String table, String family, long t) {
+    ConcurrentMap<String, MetricHistogram> histos =
+        storeFlushTimeHistos.computeIfAbsent(table, k -> new ConcurrentHashMap<>());
+    MetricHistogram histo = histos.get(family);
+    if (histo == null) {
+      histo = getMetricsRegistry().newTimeHistogram(getStoreFlushTimeName(table, family),
+        STORE_FLUSH_TIME_DESC);
+      MetricHistogram existing = histos.putIfAbsent(family, histo);
+      if (existing != null) {
+        histo = existing;
+      }
+    }
+    histo.add(t);
+  }
+
+  @Override
+  public void removeStoreFlushTimes(String table) {
+    Map<String, MetricHistogram> histos = storeFlushTimeHistos.remove(table);
+    if (histos != null) {
+      for (String family : histos.keySet()) {
+        removeMetric(getStoreFlushTimeName(table, family));
+      }
+    }
+  }
+
+  private static String getStoreFlushTimeName(String table, String family) {
+    TableName tableName = TableName.valueOf(table);
+    return "Namespace_" + tableName.getNamespaceAsString() + "_table_"
+        + tableName.getQualifierAsString() + "_family_" + family + "_metric_" + STORE_FLUSH_TIME;
+  }
+
   @Override
   public void updateCompactionTime(boolean isMajor, long t) {
     compactionTimeHisto.add(t);
@@ -465,6 +505,8 @@ public class MetricsRegionServerSourceImpl
               rsWrap.getCompactedCellsSize())
           .addCounter(Interns.info(MAJOR_COMPACTED_CELLS_SIZE, MAJOR_COMPACTED_CELLS_SIZE_DESC),
               rsWrap.getMajorCompactedCellsSize())
+          .addCounter(Interns.info(COMPACTION_PREWARMED_SIZE, COMPACTION_PREWARMED_SIZE_DESC),
+              rsWrap.getCompactionPrewarmedSize())
           .addCounter(
               Interns.info(CELLS_COUNT_COMPACTED_FROM_MOB, CELLS_COUNT_COMPACTED_FROM_MOB_DESC),
               rsWrap.getCellsCountCompactedFromMob())
@@ -507,6 +549,14 @@ public class MetricsRegionServerSourceImpl
           .tag(Interns.info(SERVER_NAME_NAME, SERVER_NAME_DESC), rsWrap.getServerName())
           .tag(Interns.info(CLUSTER_ID_NAME, CLUSTER_ID_DESC), rsWrap.getClusterId());
 
+      for (Map.Entry<String, Long> entry : rsWrap.getStoreFileSizeByStoragePolicy().entrySet()) {
+        mrb.addGauge(Interns.info("StoragePolicy_" + entry.getKey() + "_metric_" + STOREFILE_SIZE,
+          STOREFILE_SIZE_BY_STORAGE_POLICY_DESC), entry.getValue());
+      }
+      for (Map.Entry<String, Integer> entry : rsWrap.getCompactionQueueSizeByClass().entrySet()) {
+        mrb.addGauge(Interns.info("CompactionClass_" + entry.getKey() + "_metric_"
+            + COMPACTION_QUEUE_LENGTH, COMPACTION_QUEUE_LENGTH_BY_CLASS_DESC), entry.getValue());
+      }
     }
 
     metricsRegistry.snapshot(mrb, all);
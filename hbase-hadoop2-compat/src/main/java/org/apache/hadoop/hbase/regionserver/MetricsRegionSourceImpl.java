@@ -273,6 +273,15 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
       mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.REPLICA_ID,
               MetricsRegionSource.REPLICA_ID_DESC),
           this.regionWrapper.getReplicaId());
+      mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.ROW_CACHE_HIT_COUNT,
+              MetricsRegionSource.ROW_CACHE_HIT_COUNT_DESC),
+          this.regionWrapper.getRowCacheHitCount());
+      mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.ROW_CACHE_MISS_COUNT,
+              MetricsRegionSource.ROW_CACHE_MISS_COUNT_DESC),
+          this.regionWrapper.getRowCacheMissCount());
+      mrb.addGauge(Interns.info(regionNamePrefix + MetricsRegionSource.ROW_CACHE_SIZE,
+              MetricsRegionSource.ROW_CACHE_SIZE_DESC),
+          this.regionWrapper.getRowCacheSize());
     }
   }
 
@@ -173,5 +173,20 @@ public class TestMetricsRegionSourceImpl {
     public int getReplicaId() {
       return 0;
     }
+
+    @Override
+    public long getRowCacheHitCount() {
+      return 0;
+    }
+
+    @Override
+    public long getRowCacheMissCount() {
+      return 0;
+    }
+
+    @Override
+    public long getRowCacheSize() {
+      return 0;
+    }
   }
 }
@@ -59,6 +59,15 @@ public interface BlockCache extends Iterable<CachedBlock> {
   Cacheable getBlock(BlockCacheKey cacheKey, boolean caching, boolean repeat,
     boolean updateCacheMetrics);
 
+  /**
+   * Whether the cache holds a block, without counting it as an access.
+   * @param cacheKey Block to look for
+   * @return true if the block is cached, false if not or if the cache can not tell cheaply
+   */
+  default boolean containsBlock(BlockCacheKey cacheKey) {
+    return false;
+  }
+
   /**
    * Evict block from cache.
    * @param cacheKey Block to evict
@@ -21,6 +21,7 @@ import static org.apache.hadoop.hbase.HConstants.BUCKET_CACHE_IOENGINE_KEY;
 import static org.apache.hadoop.hbase.HConstants.BUCKET_CACHE_SIZE_KEY;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,6 +33,7 @@ import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
 import org.apache.hadoop.hbase.io.hfile.BlockType.BlockCategory;
 import org.apache.hadoop.hbase.io.hfile.bucket.BucketCache;
 import org.apache.hadoop.hbase.io.util.MemorySizeUtil;
+import org.apache.hadoop.hbase.metrics.impl.FastLongHistogram;
 import org.apache.hadoop.hbase.util.ReflectionUtils;
 import org.apache.hadoop.util.StringUtils;
 
@@ -79,6 +81,21 @@ public class CacheConfig {
   public static final String CACHE_BLOOM_BLOCKS_ON_WRITE_KEY =
       "hfile.block.bloom.cacheonwrite";
 
+  /**
+   * Configuration key to cache the index and bloom blocks of the files written by compactions, so
+   * that reads do not miss on them once the compacted files are replaced. Unlike
+   * {@link #CACHE_BLOCKS_ON_WRITE_KEY}, it does not apply to flushes.
+   */
+  public static final String PREWARM_COMPACTED_BLOCKS_KEY = "hbase.rs.prewarmcompactedblocks";
+
+  /**
+   * Configuration key for the share of the data of the files compacted which must be in the block
+   * cache for the data blocks written by the compaction to be cached too, when
+   * {@link #PREWARM_COMPACTED_BLOCKS_KEY} is set. Data blocks are not cached if it is 0.
+   */
+  public static final String PREWARM_COMPACTED_DATA_RATIO_KEY =
+      "hbase.rs.prewarmcompactedblocks.data.ratio";
+
   /**
    * Configuration key to cache data blocks in compressed and/or encrypted format.
    */
@@ -185,6 +202,8 @@ public class CacheConfig {
   public static final boolean DEFAULT_EVICT_ON_CLOSE = false;
   public static final boolean DEFAULT_CACHE_DATA_COMPRESSED = false;
   public static final boolean DEFAULT_PREFETCH_ON_OPEN = false;
+  public static final boolean DEFAULT_PREWARM_COMPACTED_BLOCKS = false;
+  public static final float DEFAULT_PREWARM_COMPACTED_DATA_RATIO = 0;
 
   /** Local reference to the block cache, null if completely disabled */
   private final BlockCache blockCache;
@@ -227,6 +246,9 @@ public class CacheConfig {
 
   private final boolean dropBehindCompaction;
 
+  /** Where to record the latencies of the block reads that miss the cache, or null */
+  private FastLongHistogram blockReadLatencies;
+
   /**
    * Create a cache configuration using the specified configuration object and
    * family descriptor.
@@ -329,6 +351,7 @@ public class CacheConfig {
         cacheConf.cacheBloomsOnWrite, cacheConf.evictOnClose,
         cacheConf.cacheDataCompressed, cacheConf.prefetchOnOpen,
         cacheConf.cacheDataInL1, cacheConf.dropBehindCompaction);
+    this.blockReadLatencies = cacheConf.blockReadLatencies;
   }
 
   private CacheConfig() {
@@ -437,6 +460,38 @@ public class CacheConfig {
     return isBlockCacheEnabled() && this.cacheBloomsOnWrite;
   }
 
+  /**
+   * Returns a copy of this configuration for the writers of compactions, which cache the index
+   * and bloom blocks they write, and their data blocks if cacheData and data blocks are cached on
+   * read. The blocks go to the tier blocks read from the new file would go to.
+   * @param priority the priority of the blocks of the compacted files, given to the blocks cached
+   * @param prewarmedSize incremented by the heap size of the blocks cached
+   */
+  public CacheConfig forCompactionPrewarm(boolean cacheData, BlockPriority priority,
+      LongAdder prewarmedSize) {
+    BlockCache prewarmCache = blockCache == null ? null
+        : new PrewarmBlockCache(blockCache, priority, cacheDataInL1, prewarmedSize);
+    return new CacheConfig(prewarmCache, cacheDataOnRead, inMemory, cacheData && cacheDataOnRead,
+        true, true, evictOnClose, cacheDataCompressed, prefetchOnOpen, cacheDataInL1,
+        dropBehindCompaction);
+  }
+
+  /**
+   * @return the histogram to record the latencies of the block reads from the file system in,
+   *         in milliseconds, or null to not record them
+   */
+  public FastLongHistogram getBlockReadLatencies() {
+    return blockReadLatencies;
+  }
+
+  /**
+   * @param blockReadLatencies the histogram to record the latencies of the block reads from the
+   *          file system in, usually the one of the region server
+   */
+  public void setBlockReadLatencies(FastLongHistogram blockReadLatencies) {
+    this.blockReadLatencies = blockReadLatencies;
+  }
+
   /**
    * @return true if blocks should be evicted from the cache when an HFile
    *         reader is closed, false if not
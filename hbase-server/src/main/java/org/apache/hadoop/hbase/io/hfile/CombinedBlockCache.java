@@ -86,6 +86,11 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
         l2Cache.getBlock(cacheKey, caching, repeat, updateCacheMetrics);
   }
 
+  @Override
+  public boolean containsBlock(BlockCacheKey cacheKey) {
+    return lruCache.containsBlock(cacheKey) || l2Cache.containsBlock(cacheKey);
+  }
+
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
     return lruCache.evictBlock(cacheKey) || l2Cache.evictBlock(cacheKey);
@@ -262,6 +262,19 @@ public class HFile {
      * Return the file context for the HFile this writer belongs to
      */
     HFileContext getFileContext();
+
+    /**
+     * @return true if the data blocks of <code>reader</code> are stored in the format of this
+     *         file, so that {@link #appendDataBlocks(Reader)} can copy them as they are
+     */
+    boolean canAppendDataBlocks(Reader reader);
+
+    /**
+     * Appends all cells of <code>reader</code> by copying its data blocks as they are stored,
+     * re-indexing them only. The cells must sort after all cells appended so far. Inline blocks
+     * of the other file are not copied, so Bloom filters have to be fed by the caller.
+     */
+    void appendDataBlocks(Reader reader) throws IOException;
   }
 
   /**
@@ -500,6 +513,23 @@ public class HFile {
     @VisibleForTesting
     boolean prefetchComplete();
 
+    /**
+     * @return the uncompressed size of the data blocks of the file put in the block cache, by
+     *         reads or when the file was written. Blocks evicted since are still counted.
+     */
+    long getCachedDataSize();
+
+    /**
+     * @return the uncompressed size of the data blocks of the file read from the block cache,
+     *         compactions excluded
+     */
+    long getCacheHitDataSize();
+
+    /**
+     * Counts data blocks of the file cached without being read, e.g. by the writer of the file.
+     */
+    void addCachedDataSize(long size);
+
     /**
      * To close the stream's socket. Note: This can be concurrently called from multiple threads and
      * implementation should take care of thread safety.
@@ -1289,6 +1289,53 @@ public class HFileBlock implements Cacheable {
       writeHeaderAndData(out);
     }
 
+    /**
+     * Writes a block read from another file without decoding or decompressing it. Only the
+     * previous block offset, the checksum settings and the checksums are rewritten, so the
+     * block must have been written with the compression, data block encoding and encryption
+     * settings of this writer. Can not be called in the "writing" state. Leaves the writer in
+     * the "block ready" state, without the uncompressed bytes needed for cache-on-write.
+     *
+     * @param block the block as read from the file system, before unpacking
+     * @param out the file system output stream
+     * @throws IOException
+     */
+    void writeRawBlock(HFileBlock block, FSDataOutputStream out) throws IOException {
+      Preconditions.checkState(state != State.WRITING, "Unexpected state: " + state);
+      if (state == State.BLOCK_READY && startOffset != UNSET) {
+        prevOffsetByType[blockType.getId()] = startOffset;
+      }
+      startOffset = UNSET;
+      blockType = block.getBlockType();
+      prevOffset = prevOffsetByType[blockType.getId()];
+
+      int onDiskDataSize = block.getOnDiskDataSizeWithHeader();
+      byte[] onDiskData = new byte[onDiskDataSize];
+      ByteBuff dup = block.getBufferReadOnly();
+      dup.rewind();
+      dup.get(onDiskData, 0, onDiskDataSize);
+      if (onDiskBlockBytesWithHeader == null) {
+        onDiskBlockBytesWithHeader = new ByteArrayOutputStream(onDiskDataSize);
+      }
+      onDiskBlockBytesWithHeader.reset();
+      onDiskBlockBytesWithHeader.write(onDiskData, 0, onDiskDataSize);
+      int numBytes = (int) ChecksumUtil.numBytes(onDiskDataSize,
+          fileContext.getBytesPerChecksum());
+      putHeader(onDiskBlockBytesWithHeader, onDiskDataSize + numBytes,
+          block.getUncompressedSizeWithoutHeader() + HConstants.HFILEBLOCK_HEADER_SIZE,
+          onDiskDataSize);
+      if (onDiskChecksum.length != numBytes) {
+        onDiskChecksum = new byte[numBytes];
+      }
+      ChecksumUtil.generateChecksums(
+          onDiskBlockBytesWithHeader.getBuffer(), 0, onDiskDataSize,
+          onDiskChecksum, 0, fileContext.getChecksumType(), fileContext.getBytesPerChecksum());
+      // there are no uncompressed bytes of this block to cache
+      baosInMemory.reset();
+      state = State.BLOCK_READY;
+      writeHeaderAndData(out);
+    }
+
     /**
      * Creates a new HFileBlock. Checksums have already been validated, so
      * the byte buffer passed into the constructor of this newly created
@@ -110,6 +110,26 @@ public class HFileBlockIndex {
   private static final int MID_KEY_METADATA_SIZE = Bytes.SIZEOF_LONG +
       2 * Bytes.SIZEOF_INT;
 
+  /**
+   * Returns the first keys of the root-level blocks of the data block index of an HFile. The
+   * root-level blocks split the file into parts of roughly the same size, so the keys are
+   * usable as boundaries to divide the key space of the file without reading any data block.
+   * @param reader the reader of the HFile
+   * @return the keys in ascending order, empty if the data block index has no cell keys
+   */
+  public static List<Cell> getRootBlockKeys(HFile.Reader reader) {
+    BlockIndexReader indexReader = reader.getDataBlockIndexReader();
+    if (!(indexReader instanceof CellBasedKeyBlockIndexReader)) {
+      return Collections.emptyList();
+    }
+    CellBasedKeyBlockIndexReader cellIndexReader = (CellBasedKeyBlockIndexReader) indexReader;
+    List<Cell> keys = new ArrayList<>(cellIndexReader.getRootBlockCount());
+    for (int i = 0; i < cellIndexReader.getRootBlockCount(); i++) {
+      keys.add(cellIndexReader.getRootBlockKey(i));
+    }
+    return keys;
+  }
+
   /**
    * An implementation of the BlockIndexReader that deals with block keys which are plain
    * byte[] like MetaBlock or the Bloom Block for ROW bloom.
@@ -24,6 +24,7 @@ import java.security.Key;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -49,6 +50,7 @@ import org.apache.hadoop.hbase.io.encoding.DataBlockEncoder;
 import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
 import org.apache.hadoop.hbase.io.encoding.HFileBlockDecodingContext;
 import org.apache.hadoop.hbase.io.hfile.HFile.FileInfo;
+import org.apache.hadoop.hbase.metrics.impl.FastLongHistogram;
 import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.regionserver.KeyValueScanner;
 import org.apache.hadoop.hbase.security.EncryptionUtil;
@@ -140,6 +142,10 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
    */
   private List<HFileBlock> loadOnOpenBlocks = new ArrayList<>();
 
+  /** Sizes of the data blocks cached and read from the cache, to tell how hot the file is */
+  private final LongAdder cachedDataSize = new LongAdder();
+  private final LongAdder cacheHitDataSize = new LongAdder();
+
   /** Minimum minor version supported by this HFile format */
   static final int MIN_MINOR_VERSION = 0;
 
@@ -1462,6 +1468,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
               if (updateCacheMetrics) {
                 HFile.DATABLOCK_READ_COUNT.increment();
               }
+              if (!isCompaction) {
+                cacheHitDataSize.add(cachedBlock.getUncompressedSizeWithoutHeader());
+              }
               // Validate encoding type for data blocks. We include encoding
               // type in the cache key, and we expect it to match on a cache hit.
               if (cachedBlock.getDataBlockEncoding() != dataBlockEncoder.getDataBlockEncoding()) {
@@ -1486,8 +1495,13 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
           traceScope.getSpan().addTimelineAnnotation("blockCacheMiss");
         }
         // Load block from filesystem.
+        long startTime = System.currentTimeMillis();
         HFileBlock hfileBlock =
             fsBlockReader.readBlockData(dataBlockOffset, onDiskBlockSize, pread, !isCompaction);
+        FastLongHistogram blockReadLatencies = cacheConf.getBlockReadLatencies();
+        if (blockReadLatencies != null && !isCompaction) {
+          blockReadLatencies.add(System.currentTimeMillis() - startTime, 1);
+        }
         validateBlockType(hfileBlock, expectedBlockType);
         HFileBlock unpacked = hfileBlock.unpack(hfileContext, fsBlockReader);
         BlockType.BlockCategory category = hfileBlock.getBlockType().getCategory();
@@ -1497,6 +1511,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
           cacheConf.getBlockCache().cacheBlock(cacheKey,
             cacheConf.shouldCacheCompressed(category) ? hfileBlock : unpacked,
             cacheConf.isInMemory(), this.cacheConf.isCacheDataInL1());
+          if (category == BlockType.BlockCategory.DATA) {
+            cachedDataSize.add(unpacked.getUncompressedSizeWithoutHeader());
+          }
         }
 
         if (updateCacheMetrics && hfileBlock.getBlockType().isData()) {
@@ -1782,6 +1799,21 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     return PrefetchExecutor.isCompleted(path);
   }
 
+  @Override
+  public long getCachedDataSize() {
+    return cachedDataSize.sum();
+  }
+
+  @Override
+  public long getCacheHitDataSize() {
+    return cacheHitDataSize.sum();
+  }
+
+  @Override
+  public void addCachedDataSize(long size) {
+    cachedDataSize.add(size);
+  }
+
   protected HFileContext createHFileContext(FSDataInputStreamWrapper fsdis, long fileSize,
       HFileSystem hfs, Path path, FixedFileTrailer trailer) throws IOException {
     HFileContextBuilder builder = new HFileContextBuilder()
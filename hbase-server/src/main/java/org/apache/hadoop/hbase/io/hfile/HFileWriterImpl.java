@@ -25,6 +25,7 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,18 +35,22 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.hbase.ByteBufferCell;
+import org.apache.hadoop.hbase.ByteBufferKeyOnlyKeyValue;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.CellComparator.MetaCellComparator;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.crypto.Encryption;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoder;
 import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
 import org.apache.hadoop.hbase.io.hfile.HFile.FileInfo;
 import org.apache.hadoop.hbase.io.hfile.HFileBlock.BlockWritable;
+import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.security.EncryptionUtil;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.BloomFilterWriter;
@@ -715,6 +720,115 @@ public class HFileWriterImpl implements HFile.Writer {
     return hFileContext;
   }
 
+  @Override
+  public boolean canAppendDataBlocks(HFile.Reader reader) {
+    HFileContext source = reader.getFileContext();
+    boolean compressTags = blockEncoder.getDataBlockEncoding() != DataBlockEncoding.NONE
+        && hFileContext.isCompressTags();
+    return hFileContext.isUseHBaseChecksum() && source.isUseHBaseChecksum()
+        && hFileContext.getEncryptionContext() == Encryption.Context.NONE
+        && source.getEncryptionContext() == Encryption.Context.NONE
+        && hFileContext.getCompression() == source.getCompression()
+        && blockEncoder.getDataBlockEncoding() == reader.getDataBlockEncoding()
+        && hFileContext.isIncludesMvcc() == reader.shouldIncludeMemstoreTS()
+        && hFileContext.isIncludesTags() == source.isIncludesTags()
+        && (!hFileContext.isIncludesTags() || compressTags == source.isCompressTags());
+  }
+
+  @Override
+  public void appendDataBlocks(HFile.Reader reader) throws IOException {
+    if (!canAppendDataBlocks(reader)) {
+      throw new IOException("Data blocks of " + reader.getPath() + " are not in the format of "
+          + this);
+    }
+    Cell firstKey = reader.getFirstKey();
+    Cell lastKey = reader.getLastKey();
+    if (firstKey == null || lastKey == null) {
+      return;
+    }
+    if (lastCell != null && comparator.compareKeyIgnoresMvcc(lastCell, firstKey) >= 0) {
+      throw new IOException("Added data blocks not lexically larger than previous. First key = "
+          + firstKey + ", lastCell = " + lastCell);
+    }
+    // The copied blocks start at a block boundary.
+    finishBlock();
+    writeInlineBlocks(false);
+
+    DataBlockEncoder encoder = blockEncoder.getDataBlockEncoding().getEncoder();
+    FixedFileTrailer trailer = reader.getTrailer();
+    HFileBlock.FSReader blockReader = reader.getUncachedBlockReader();
+    long offset = trailer.getFirstDataBlockOffset();
+    long onDiskSize = -1;
+    while (offset <= trailer.getLastDataBlockOffset()) {
+      HFileBlock block = blockReader.readBlockData(offset, onDiskSize, false, false);
+      offset += block.getOnDiskSizeWithHeader();
+      onDiskSize = block.getNextBlockOnDiskSize();
+      if (!block.getBlockType().isData()) {
+        // Index and Bloom chunks of the other file, they are rebuilt for this one
+        continue;
+      }
+      Cell firstCell = getFirstKeyCellInBlock(reader.getFileContext(), blockReader, block,
+        encoder);
+      long blockOffset = outputStream.getPos();
+      if (firstDataBlockOffset == UNSET) {
+        firstDataBlockOffset = blockOffset;
+      }
+      lastDataBlockOffset = blockOffset;
+      blockWriter.writeRawBlock(block, outputStream);
+      // The first key of a block is always a valid index key; there is no last key of the
+      // previous block at hand to shorten it with.
+      dataBlockIndexWriter.addEntry(CellUtil.getCellKeySerializedAsKeyValueKey(firstCell),
+        blockOffset, blockWriter.getOnDiskSizeWithHeader());
+      totalUncompressedBytes += block.getUncompressedSizeWithoutHeader() + block.headerSize();
+      writeInlineBlocks(false);
+    }
+
+    Map<byte[], byte[]> sourceFileInfo = reader.loadFileInfo();
+    long entries = reader.getEntries();
+    entryCount += entries;
+    byte[] tmp = sourceFileInfo.get(FileInfo.AVG_KEY_LEN);
+    if (tmp != null) {
+      totalKeyLength += entries * Bytes.toInt(tmp);
+    }
+    tmp = sourceFileInfo.get(FileInfo.AVG_VALUE_LEN);
+    if (tmp != null) {
+      totalValueLength += entries * Bytes.toInt(tmp);
+    }
+    tmp = sourceFileInfo.get(HFile.Writer.MAX_MEMSTORE_TS_KEY);
+    if (tmp != null) {
+      maxMemstoreTS = Math.max(maxMemstoreTS, Bytes.toLong(tmp));
+    }
+    tmp = sourceFileInfo.get(FileInfo.MAX_TAGS_LEN);
+    if (tmp != null) {
+      maxTagsLength = Math.max(maxTagsLength, Bytes.toInt(tmp));
+    }
+    firstCellInBlock = null;
+    lastCell = lastKey;
+    lastCellOfPreviousBlock = lastKey;
+  }
+
+  private static Cell getFirstKeyCellInBlock(HFileContext fileContext, HFileBlock.FSReader reader,
+      HFileBlock block, DataBlockEncoder encoder) throws IOException {
+    HFileBlock unpacked = block.unpack(fileContext, reader);
+    if (encoder != null) {
+      ByteBuff encoded = unpacked.getBufferReadOnly();
+      int pos = unpacked.headerSize() + DataBlockEncoding.ID_SIZE;
+      encoded.position(pos);
+      encoded.limit(pos + unpacked.getUncompressedSizeWithoutHeader() - DataBlockEncoding.ID_SIZE);
+      return encoder.getFirstKeyCellInBlock(encoded.slice());
+    }
+    ByteBuff buffer = unpacked.getBufferWithoutHeader();
+    buffer.rewind();
+    int klen = buffer.getInt();
+    buffer.skip(Bytes.SIZEOF_INT);
+    ByteBuffer keyBuff = buffer.asSubByteBuffer(klen);
+    if (keyBuff.hasArray()) {
+      return new KeyValue.KeyOnlyKeyValue(keyBuff.array(),
+          keyBuff.arrayOffset() + keyBuff.position(), klen);
+    }
+    return new ByteBufferKeyOnlyKeyValue(keyBuff, keyBuff.position(), klen);
+  }
+
   /**
    * Add key/value to file. Keys must be added in an order that agrees with the
    * Comparator passed on construction.
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * The block cache the writers of compactions cache the blocks they write to. The blocks go to the
+ * cache with the priority the blocks of the compacted files had, and the tier blocks read from
+ * the file would get. Only the blocks the cache accepts are counted.
+ * @see CacheConfig#forCompactionPrewarm(boolean, BlockPriority, LongAdder)
+ */
+@InterfaceAudience.Private
+class PrewarmBlockCache implements BlockCache {
+  private final BlockCache cache;
+  private final BlockPriority priority;
+  private final boolean cacheDataInL1;
+  private final LongAdder prewarmedSize;
+
+  PrewarmBlockCache(BlockCache cache, BlockPriority priority, boolean cacheDataInL1,
+      LongAdder prewarmedSize) {
+    this.cache = cache;
+    this.priority = priority;
+    this.cacheDataInL1 = cacheDataInL1;
+    this.prewarmedSize = prewarmedSize;
+  }
+
+  @Override
+  public void cacheBlock(BlockCacheKey cacheKey, Cacheable buf, boolean inMemory,
+      boolean cacheDataInL1) {
+    cache.cacheBlock(cacheKey, buf, inMemory, cacheDataInL1);
+    // the cache silently drops the blocks it has no room for, or which are too large
+    if (!cache.containsBlock(cacheKey)) {
+      return;
+    }
+    if (priority == BlockPriority.MULTI) {
+      // blocks are cached as single access ones, an access promotes them like a second read does
+      Cacheable cached = cache.getBlock(cacheKey, true, true, false);
+      if (cached != null) {
+        cache.returnBlock(cacheKey, cached);
+      }
+    }
+    prewarmedSize.add(buf.heapSize());
+  }
+
+  @Override
+  public void cacheBlock(BlockCacheKey cacheKey, Cacheable buf) {
+    cacheBlock(cacheKey, buf, priority == BlockPriority.MEMORY, cacheDataInL1);
+  }
+
+  @Override
+  public Cacheable getBlock(BlockCacheKey cacheKey, boolean caching, boolean repeat,
+      boolean updateCacheMetrics) {
+    return cache.getBlock(cacheKey, caching, repeat, updateCacheMetrics);
+  }
+
+  @Override
+  public boolean containsBlock(BlockCacheKey cacheKey) {
+    return cache.containsBlock(cacheKey);
+  }
+
+  @Override
+  public boolean evictBlock(BlockCacheKey cacheKey) {
+    return cache.evictBlock(cacheKey);
+  }
+
+  @Override
+  public int evictBlocksByHfileName(String hfileName) {
+    return cache.evictBlocksByHfileName(hfileName);
+  }
+
+  @Override
+  public CacheStats getStats() {
+    return cache.getStats();
+  }
+
+  @Override
+  public void shutdown() {
+    // the cache is shared, it is not ours to shut down
+  }
+
+  @Override
+  public long size() {
+    return cache.size();
+  }
+
+  @Override
+  public long getFreeSize() {
+    return cache.getFreeSize();
+  }
+
+  @Override
+  public long getCurrentSize() {
+    return cache.getCurrentSize();
+  }
+
+  @Override
+  public long getBlockCount() {
+    return cache.getBlockCount();
+  }
+
+  @Override
+  public Iterator<CachedBlock> iterator() {
+    return cache.iterator();
+  }
+
+  @Override
+  public BlockCache[] getBlockCaches() {
+    return cache.getBlockCaches();
+  }
+
+  @Override
+  public void returnBlock(BlockCacheKey cacheKey, Cacheable block) {
+    cache.returnBlock(cacheKey, block);
+  }
+}
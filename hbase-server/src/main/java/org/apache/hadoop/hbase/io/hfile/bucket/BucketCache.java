@@ -481,6 +481,11 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  @Override
+  public boolean containsBlock(BlockCacheKey cacheKey) {
+    return cacheEnabled && (ramCache.containsKey(cacheKey) || backingMap.containsKey(cacheKey));
+  }
+
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
     return evictBlock(cacheKey, true);
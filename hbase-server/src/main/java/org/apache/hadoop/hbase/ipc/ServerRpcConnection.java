@@ -201,7 +201,14 @@ abstract class ServerRpcConnection implements Closeable {
     if (!header.hasCellBlockCompressorClass()) return;
     className = header.getCellBlockCompressorClass();
     try {
-      this.compressionCodec = (CompressionCodec)Class.forName(className).newInstance();
+      if (CellBlockCompressionCodec.isInConnectionHeader(className)) {
+        // Compress the responses the same way as the client, above our own minimum size
+        this.compressionCodec = CellBlockCompressionCodec.fromConnectionHeader(className,
+          this.rpcServer.conf.getInt(CellBlockCompressionCodec.SERVER_MIN_SIZE_KEY,
+            CellBlockCompressionCodec.DEFAULT_SERVER_MIN_SIZE));
+      } else {
+        this.compressionCodec = (CompressionCodec)Class.forName(className).newInstance();
+      }
     } catch (Exception e) {
       throw new UnsupportedCompressionCodecException(className, e);
     }
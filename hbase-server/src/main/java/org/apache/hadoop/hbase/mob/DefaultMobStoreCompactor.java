@@ -88,8 +88,8 @@ public class DefaultMobStoreCompactor extends DefaultCompactor {
             org.apache.hadoop.hbase.regionserver.compactions.Compactor.FileDetails fd,
             boolean shouldDropBehind) throws IOException {
           // make this writer with tags always because of possible new cells with tags.
-          return store.createWriterInTmp(fd.maxKeyCount, compactionCompression, true, true, true,
-            shouldDropBehind);
+          return store.createWriterInTmp(createWriterParams(fd, shouldDropBehind)
+              .includeMVCCReadpoint(true).includesTag(true));
         }
       };
 
@@ -44,6 +44,12 @@ public abstract class AbstractMultiFileWriter implements CellSink, ShipperListen
 
   public interface WriterFactory {
     public StoreFileWriter createWriter() throws IOException;
+
+    /**
+     * @param fileStoragePolicy the storage policy of the new file
+     */
+    public StoreFileWriter createWriterWithStoragePolicy(String fileStoragePolicy)
+        throws IOException;
   }
 
   /**
@@ -18,14 +18,22 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
+import static org.apache.hadoop.hbase.regionserver.throttle.PressureAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_HIGHER_BOUND;
+import static org.apache.hadoop.hbase.regionserver.throttle.PressureAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_LOWER_BOUND;
+import static org.apache.hadoop.hbase.regionserver.throttle.PressureAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_OFFPEAK;
+
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
@@ -42,6 +50,7 @@ import org.apache.hadoop.hbase.quotas.RegionServerSpaceQuotaManager;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionContext;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.regionserver.throttle.CompactionThroughputControllerFactory;
+import org.apache.hadoop.hbase.regionserver.throttle.PressureAwareCompactionThroughputController;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
@@ -82,6 +91,25 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
       "hbase.regionserver.regionSplitLimit";
   public static final int DEFAULT_REGION_SERVER_REGION_SPLIT_LIMIT= 1000;
 
+  /**
+   * The names of the compaction classes of the region server. The stores of a family or table
+   * with {@value #COMPACTION_CLASS_KEY} set to one of them are compacted in the pool of the class,
+   * with the priority and throughput limit of the class, read from the keys under
+   * {@value #COMPACTION_CLASS_PREFIX}&lt;name&gt;.
+   */
+  public static final String COMPACTION_CLASSES = "hbase.regionserver.compaction.classes";
+  public static final String COMPACTION_CLASS_PREFIX = "hbase.regionserver.compaction.class.";
+  /** The threads of the pool of the class; with 0, its compactions run in the shared pools */
+  public static final String COMPACTION_CLASS_THREADS_SUFFIX = ".threads";
+  public static final int COMPACTION_CLASS_THREADS_DEFAULT = 1;
+  /** Added to the priorities of the compactions of the class; the lower run first */
+  public static final String COMPACTION_CLASS_PRIORITY_SUFFIX = ".priority";
+  /** The throughput limit of the compactions of the class in bytes per second, 0 for none */
+  public static final String COMPACTION_CLASS_MAX_THROUGHPUT_SUFFIX = ".max.throughput";
+
+  /** The key of the family or table configuration which assigns its stores to a class */
+  public static final String COMPACTION_CLASS_KEY = "hbase.hstore.compaction.class";
+
   private final HRegionServer server;
   private final Configuration conf;
 
@@ -89,6 +117,7 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
   private final ThreadPoolExecutor shortCompactions;
   private final ThreadPoolExecutor splits;
   private final ThreadPoolExecutor mergePool;
+  private final Map<String, CompactionClass> compactionClasses;
 
   private volatile ThroughputController compactionThroughputController;
 
@@ -164,14 +193,104 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
     // compaction throughput controller
     this.compactionThroughputController =
         CompactionThroughputControllerFactory.create(server, conf);
+
+    this.compactionClasses = new TreeMap<>();
+    for (String name : conf.getTrimmedStringCollection(COMPACTION_CLASSES)) {
+      this.compactionClasses.put(name, createCompactionClass(name, n));
+    }
+  }
+
+  /**
+   * A class of compactions, with its own pool, priority and throughput limit.
+   */
+  private static class CompactionClass {
+    private final String name;
+    /** The pool of the class, or null if its compactions run in the shared pools */
+    private final ThreadPoolExecutor pool;
+    private final int priority;
+    /** The controller of the class, or null if it uses the one of the region server */
+    private final ThroughputController throughputController;
+
+    CompactionClass(String name, ThreadPoolExecutor pool, int priority,
+        ThroughputController throughputController) {
+      this.name = name;
+      this.pool = pool;
+      this.priority = priority;
+      this.throughputController = throughputController;
+    }
+  }
+
+  private CompactionClass createCompactionClass(final String name, final String threadPrefix) {
+    String prefix = COMPACTION_CLASS_PREFIX + name;
+    int threads = conf.getInt(prefix + COMPACTION_CLASS_THREADS_SUFFIX,
+      COMPACTION_CLASS_THREADS_DEFAULT);
+    int priority = conf.getInt(prefix + COMPACTION_CLASS_PRIORITY_SUFFIX, 0);
+    long maxThroughput = conf.getLong(prefix + COMPACTION_CLASS_MAX_THROUGHPUT_SUFFIX, 0);
+    ThreadPoolExecutor pool = null;
+    if (threads > 0) {
+      pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+          new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+              String threadName = threadPrefix + "-" + name + "Compactions-"
+                  + System.currentTimeMillis();
+              return new Thread(r, threadName);
+            }
+          });
+      pool.setRejectedExecutionHandler(new Rejection());
+      pool.prestartAllCoreThreads();
+    }
+    ThroughputController throughputController = null;
+    if (maxThroughput > 0) {
+      Configuration classConf = new Configuration(conf);
+      classConf.set(CompactionThroughputControllerFactory.HBASE_THROUGHPUT_CONTROLLER_KEY,
+        PressureAwareCompactionThroughputController.class.getName());
+      classConf.setLong(HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_LOWER_BOUND, maxThroughput);
+      classConf.setLong(HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_HIGHER_BOUND, maxThroughput);
+      classConf.setLong(HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_OFFPEAK, maxThroughput);
+      throughputController = CompactionThroughputControllerFactory.create(server, classConf);
+    }
+    LOG.info("Compaction class " + name + ": threads=" + threads + ", priority=" + priority
+        + ", maxThroughput=" + maxThroughput);
+    return new CompactionClass(name, pool, priority, throughputController);
+  }
+
+  /**
+   * @return the compaction class of the store, or null if it belongs to none
+   */
+  private CompactionClass getCompactionClass(final Region r, final Store s) {
+    if (compactionClasses.isEmpty()) {
+      return null;
+    }
+    String name = null;
+    if (s.getFamily() != null) {
+      name = s.getFamily().getConfigurationValue(COMPACTION_CLASS_KEY);
+    }
+    if (name == null && r.getTableDesc() != null) {
+      name = r.getTableDesc().getConfigurationValue(COMPACTION_CLASS_KEY);
+    }
+    if (name == null) {
+      return null;
+    }
+    CompactionClass compactionClass = compactionClasses.get(name);
+    if (compactionClass == null && LOG.isDebugEnabled()) {
+      LOG.debug("Unknown compaction class " + name + " of " + s + ", using the shared pools");
+    }
+    return compactionClass;
   }
 
   @Override
   public String toString() {
-    return "compaction_queue=("
-        + longCompactions.getQueue().size() + ":"
-        + shortCompactions.getQueue().size() + ")"
-        + ", split_queue=" + splits.getQueue().size();
+    StringBuilder sb = new StringBuilder("compaction_queue=(")
+        .append(longCompactions.getQueue().size()).append(":")
+        .append(shortCompactions.getQueue().size());
+    for (CompactionClass compactionClass : compactionClasses.values()) {
+      if (compactionClass.pool != null) {
+        sb.append(":").append(compactionClass.name).append("=")
+            .append(compactionClass.pool.getQueue().size());
+      }
+    }
+    return sb.append(")").append(", split_queue=").append(splits.getQueue().size()).toString();
   }
 
   public String dumpQueue() {
@@ -196,6 +315,18 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
       }
     }
 
+    for (CompactionClass compactionClass : compactionClasses.values()) {
+      if (compactionClass.pool == null) {
+        continue;
+      }
+      queueLists.append("\n");
+      queueLists.append("  " + compactionClass.name + " Compaction Queue:\n");
+      for (Runnable runnable : compactionClass.pool.getQueue()) {
+        queueLists.append("    " + runnable.toString());
+        queueLists.append("\n");
+      }
+    }
+
     queueLists.append("\n");
     queueLists.append("  Split Queue:\n");
     lq = splits.getQueue();
@@ -355,11 +486,18 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
 
     // We assume that most compactions are small. So, put system compactions into small
     // pool; we will do selection there, and move to large pool if necessary.
-    ThreadPoolExecutor pool = (selectNow && s.throttleCompaction(compaction.getRequest().getSize()))
-      ? longCompactions : shortCompactions;
-    pool.execute(new CompactionRunner(s, r, compaction, pool, user));
+    CompactionClass compactionClass = getCompactionClass(r, s);
+    ThreadPoolExecutor pool;
+    if (compactionClass != null && compactionClass.pool != null) {
+      pool = compactionClass.pool;
+    } else {
+      pool = (selectNow && s.throttleCompaction(compaction.getRequest().getSize()))
+          ? longCompactions : shortCompactions;
+    }
+    pool.execute(new CompactionRunner(s, r, compaction, pool, compactionClass, user));
     if (LOG.isDebugEnabled()) {
-      String type = (pool == shortCompactions) ? "Small " : "Large ";
+      String type = (pool == shortCompactions) ? "Small "
+          : (pool == longCompactions) ? "Large " : (compactionClass.name + " ");
       LOG.debug(type + "Compaction requested: " + (selectNow ? compaction.toString() : "system")
           + (why != null && !why.isEmpty() ? "; Because: " + why : "") + "; " + this);
     }
@@ -390,6 +528,11 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
     splits.shutdown();
     longCompactions.shutdown();
     shortCompactions.shutdown();
+    for (CompactionClass compactionClass : compactionClasses.values()) {
+      if (compactionClass.pool != null) {
+        compactionClass.pool.shutdown();
+      }
+    }
   }
 
   private void waitFor(ThreadPoolExecutor t, String name) {
@@ -411,6 +554,14 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
     waitFor(splits, "Split Thread");
     waitFor(longCompactions, "Large Compaction Thread");
     waitFor(shortCompactions, "Small Compaction Thread");
+    for (CompactionClass compactionClass : compactionClasses.values()) {
+      if (compactionClass.pool != null) {
+        waitFor(compactionClass.pool, compactionClass.name + " Compaction Thread");
+      }
+      if (compactionClass.throughputController != null) {
+        compactionClass.throughputController.stop("region server stopped");
+      }
+    }
   }
 
   /**
@@ -420,7 +571,37 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
    * @return The current size of the regions queue.
    */
   public int getCompactionQueueSize() {
-    return longCompactions.getQueue().size() + shortCompactions.getQueue().size();
+    int size = longCompactions.getQueue().size() + shortCompactions.getQueue().size();
+    for (CompactionClass compactionClass : compactionClasses.values()) {
+      if (compactionClass.pool != null) {
+        size += compactionClass.pool.getQueue().size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the number of queued compactions of each compaction class, by class name
+   */
+  public Map<String, Integer> getCompactionQueueSizeByClass() {
+    Map<String, Integer> sizes = new TreeMap<>();
+    for (CompactionClass compactionClass : compactionClasses.values()) {
+      sizes.put(compactionClass.name,
+        compactionClass.pool != null ? compactionClass.pool.getQueue().size() : 0);
+    }
+    // the compactions of the classes without a pool wait in the shared queues
+    for (BlockingQueue<Runnable> queue : Arrays.asList(longCompactions.getQueue(),
+        shortCompactions.getQueue())) {
+      for (Runnable runnable : queue) {
+        if (runnable instanceof CompactionRunner) {
+          CompactionClass compactionClass = ((CompactionRunner) runnable).compactionClass;
+          if (compactionClass != null && compactionClass.pool == null) {
+            sizes.put(compactionClass.name, sizes.get(compactionClass.name) + 1);
+          }
+        }
+      }
+    }
+    return sizes;
   }
 
   public int getLargeCompactionQueueSize() {
@@ -459,22 +640,36 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
     private CompactionContext compaction;
     private int queuedPriority;
     private ThreadPoolExecutor parent;
+    private final CompactionClass compactionClass;
     private User user;
     private long time;
 
-    public CompactionRunner(Store store, Region region,
-        CompactionContext compaction, ThreadPoolExecutor parent, User user) {
+    public CompactionRunner(Store store, Region region, CompactionContext compaction,
+        ThreadPoolExecutor parent, CompactionClass compactionClass, User user) {
       super();
       this.store = store;
       this.region = (HRegion)region;
       this.compaction = compaction;
-      this.queuedPriority = (this.compaction == null)
-          ? store.getCompactPriority() : compaction.getRequest().getPriority();
+      this.compactionClass = compactionClass;
+      this.queuedPriority = getClassPriority((this.compaction == null)
+          ? store.getCompactPriority() : compaction.getRequest().getPriority());
       this.parent = parent;
       this.user = user;
       this.time =  System.currentTimeMillis();
     }
 
+    /**
+     * @return the priority in the queue of a compaction of the store with the given priority
+     */
+    private int getClassPriority(int priority) {
+      return compactionClass == null ? priority : priority + compactionClass.priority;
+    }
+
+    private ThroughputController getThroughputController() {
+      return (compactionClass != null && compactionClass.throughputController != null)
+          ? compactionClass.throughputController : compactionThroughputController;
+    }
+
     @Override
     public String toString() {
       return (this.compaction != null) ? ("Request = " + compaction.getRequest())
@@ -486,7 +681,8 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
       // Common case - system compaction without a file selection. Select now.
       if (this.compaction == null) {
         int oldPriority = this.queuedPriority;
-        this.queuedPriority = this.store.getCompactPriority();
+        int priority = this.store.getCompactPriority();
+        this.queuedPriority = getClassPriority(priority);
         if (this.queuedPriority > oldPriority) {
           // Store priority decreased while we were in queue (due to some other compaction?),
           // requeue with new priority to avoid blocking potential higher priorities.
@@ -494,7 +690,7 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
           return;
         }
         try {
-          this.compaction = selectCompaction(this.region, this.store, queuedPriority, null, user);
+          this.compaction = selectCompaction(this.region, this.store, priority, null, user);
         } catch (IOException ex) {
           LOG.error("Compaction selection failed " + this, ex);
           server.checkFileSystem();
@@ -526,7 +722,7 @@ public class CompactSplit implements CompactionRequestor, PropagatingConfigurati
         //       put it into region/store/etc. This is CST logic.
         long start = EnvironmentEdgeManager.currentTime();
         boolean completed =
-            region.compact(compaction, store, compactionThroughputController, user);
+            region.compact(compaction, store, getThroughputController(), user);
         long now = EnvironmentEdgeManager.currentTime();
         LOG.info(((completed) ? "Completed" : "Aborted") + " compaction: " +
               this + "; duration=" + StringUtils.formatTimeDiff(now, start));
@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionTask;
+import org.apache.hadoop.hbase.regionserver.compactions.DefaultCompactor;
+import org.apache.hadoop.hbase.regionserver.compactions.OffloadCompactor;
+import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.FSTableDescriptors;
+import org.apache.hadoop.util.StringUtils;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * Runs the compactions region servers hand over with
+ * {@link org.apache.hadoop.hbase.regionserver.compactions.OffloadCompactor}, outside of the
+ * region servers. A worker either polls the directory of the compactions for tasks, or runs the
+ * one task it is given, which is how region servers launch workers on their own node.
+ * <p>
+ * The worker only opens the store files of the compaction, reading them from the file system, and
+ * writes the new files to the temporary directory of the region. It does not commit them: the
+ * region server moves them into the store once it reads the result. A worker stops, and deletes
+ * its new files, when the region server cancels the compaction.
+ */
+@InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.TOOLS)
+public class CompactionWorker extends Configured implements Tool {
+  private static final Log LOG = LogFactory.getLog(CompactionWorker.class);
+
+  public static final String TASK_OPTION = "-task";
+
+  public static final String POLL_INTERVAL_KEY = "hbase.compaction.worker.poll.interval";
+  private static final long DEFAULT_POLL_INTERVAL = 1000L;
+
+  public CompactionWorker() {
+  }
+
+  public CompactionWorker(Configuration conf) {
+    super(conf);
+  }
+
+  /**
+   * Takes one of the tasks of the directory, if any, and runs it.
+   * @return true if a task was run
+   */
+  public boolean runNextTask(FileSystem fs, Path dir) throws IOException {
+    FileStatus[] statuses;
+    try {
+      statuses = fs.listStatus(dir);
+    } catch (FileNotFoundException e) {
+      return false;
+    }
+    for (FileStatus status : statuses) {
+      if (status.getPath().getName().endsWith(CompactionTask.TASK_SUFFIX)
+          && runTask(fs, status.getPath())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs a task, unless another worker took it or the region server cancelled it.
+   * @return true if the task was run
+   */
+  public boolean runTask(FileSystem fs, Path taskPath) throws IOException {
+    Path dir = taskPath.getParent();
+    String id = CompactionTask.getId(taskPath);
+    Path runningPath = CompactionTask.getPath(dir, id, CompactionTask.RUNNING_SUFFIX);
+    try {
+      if (!fs.rename(taskPath, runningPath)) {
+        return false;
+      }
+    } catch (FileNotFoundException e) {
+      return false;
+    }
+    CompactionTask.Result result;
+    try {
+      result = compact(fs, CompactionTask.read(fs, runningPath), runningPath);
+    } catch (Exception e) {
+      if (fs.exists(runningPath)) {
+        LOG.warn("Failed compaction " + id, e);
+        CompactionTask.writeFailure(fs,
+          CompactionTask.getPath(dir, id, CompactionTask.FAILED_SUFFIX),
+          StringUtils.stringifyException(e));
+      } else {
+        LOG.info("Stopped compaction " + id + " cancelled by the region server");
+      }
+      return true;
+    }
+    // the region server may have given up on the compaction, e.g. because it closed the region,
+    // in which case it must not find new files for it
+    if (!fs.rename(runningPath, CompactionTask.getPath(dir, id, CompactionTask.DONE_SUFFIX))) {
+      LOG.info("Compaction " + id + " was cancelled by the region server, deleting "
+          + result.getNewFiles());
+      for (Path newFile : result.getNewFiles()) {
+        fs.delete(newFile, false);
+      }
+      return true;
+    }
+    result.write(fs, CompactionTask.getPath(dir, id, CompactionTask.RESULT_SUFFIX));
+    LOG.info("Finished compaction " + id + " into " + result.getNewFiles());
+    return true;
+  }
+
+  @VisibleForTesting
+  protected CompactionTask.Result compact(FileSystem fs, final CompactionTask task,
+      Path runningPath) throws IOException {
+    Configuration conf = getConf();
+    Path regionDir = task.getRegionDir();
+    Path tableDir = regionDir.getParent();
+    HTableDescriptor htd = FSTableDescriptors.getTableDescriptorFromFs(fs, tableDir);
+    HRegionInfo hri = HRegionFileSystem.loadRegionInfoFileContent(fs, regionDir);
+    LOG.info("Compacting " + task.getFileNames() + " of table=" + htd.getTableName() + " region="
+        + hri.getRegionNameAsString() + " family=" + Bytes.toString(task.getFamily()));
+    HRegionFileSystem regionFs = new HRegionFileSystem(conf, fs, tableDir, hri);
+    // the region is never opened, it only gives the store its file system and descriptors
+    HRegion region = new HRegion(regionFs, null, conf, htd, null);
+    TaskStore store = new TaskStore(region, htd.getFamily(task.getFamily()), conf, runningPath,
+        conf.getLong(POLL_INTERVAL_KEY, DEFAULT_POLL_INTERVAL));
+    List<StoreFile> files = new ArrayList<>(task.getFileNames().size());
+    try {
+      Path storeDir = regionFs.getStoreDir(store.getColumnFamilyName());
+      for (String fileName : task.getFileNames()) {
+        files.add(store.createStoreFileAndReader(new Path(storeDir, fileName)));
+      }
+      CompactionRequest request = new CompactionRequest(files);
+      request.setIsMajor(task.isMajor(), task.isAllFiles());
+      DefaultCompactor compactor = new DefaultCompactor(conf, store) {
+        @Override
+        protected long getSmallestReadPoint() {
+          // the cells newer than this read point may still be read at an older one in the
+          // region server
+          return task.getSmallestReadPoint();
+        }
+      };
+      List<Path> newFiles = compactor.compact(request, NoLimitThroughputController.INSTANCE, null);
+      return new CompactionTask.Result(newFiles, compactor.getProgress().totalCompactingKVs,
+          compactor.getProgress().totalCompactedSize);
+    } finally {
+      for (StoreFile file : files) {
+        file.closeReader(false);
+      }
+      store.close();
+    }
+  }
+
+  /**
+   * The store a worker compacts the files of a task with. It only opens the files of the task,
+   * does not cache their blocks, and stops the compaction once the region server cancels the
+   * task.
+   */
+  private static class TaskStore extends HStore {
+    private final Path runningPath;
+    private final long checkInterval;
+    private long nextCheckTime;
+    private boolean cancelled;
+
+    TaskStore(HRegion region, HColumnDescriptor family, Configuration conf, Path runningPath,
+        long checkInterval) throws IOException {
+      super(region, family, conf);
+      this.runningPath = runningPath;
+      this.checkInterval = checkInterval;
+    }
+
+    @Override
+    protected void createCacheConf(HColumnDescriptor family) {
+      this.cacheConf = CacheConfig.DISABLED;
+    }
+
+    @Override
+    protected List<StoreFile> loadStoreFiles() {
+      return new ArrayList<>();
+    }
+
+    /**
+     * Called by the compactor each time it wrote a few megabytes.
+     */
+    @Override
+    public boolean areWritesEnabled() {
+      long now = EnvironmentEdgeManager.currentTime();
+      if (!cancelled && runningPath != null && now >= nextCheckTime) {
+        nextCheckTime = now + checkInterval;
+        try {
+          cancelled = !getFileSystem().exists(runningPath);
+        } catch (IOException e) {
+          LOG.warn("Failed to check " + runningPath, e);
+        }
+      }
+      return !cancelled;
+    }
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    Configuration conf = getConf();
+    Path dir = OffloadCompactor.getOffloadDir(conf);
+    Path taskPath = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals(TASK_OPTION) && i + 1 < args.length) {
+        taskPath = new Path(args[++i]);
+      } else if (!args[i].startsWith("-")) {
+        dir = new Path(args[i]);
+      } else {
+        printUsage();
+        return 1;
+      }
+    }
+    if (taskPath != null) {
+      runTask(taskPath.getFileSystem(conf), taskPath);
+      return 0;
+    }
+    FileSystem fs = dir.getFileSystem(conf);
+    long pollInterval = conf.getLong(POLL_INTERVAL_KEY, DEFAULT_POLL_INTERVAL);
+    LOG.info("Polling " + dir + " for compactions every " + pollInterval + " ms");
+    while (!Thread.currentThread().isInterrupted()) {
+      if (!runNextTask(fs, dir)) {
+        Thread.sleep(pollInterval);
+      }
+    }
+    return 0;
+  }
+
+  private void printUsage() {
+    System.err.println("Usage: java " + this.getClass().getName() + " \\");
+    System.err.println("  [-D<property=value>]* [" + TASK_OPTION + " taskfile | dir]");
+    System.err.println();
+    System.err.println("Runs the compactions the region servers hand over to the workers in dir, "
+        + "by default " + OffloadCompactor.OFFLOAD_DIR_KEY + ", or the compaction of taskfile.");
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(HBaseConfiguration.create(), new CompactionWorker(), args));
+  }
+}
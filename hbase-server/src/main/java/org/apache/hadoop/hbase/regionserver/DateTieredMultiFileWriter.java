@@ -19,6 +19,7 @@ package org.apache.hadoop.hbase.regionserver;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -36,6 +37,8 @@ public class DateTieredMultiFileWriter extends AbstractMultiFileWriter {
 
   private final NavigableMap<Long, StoreFileWriter> lowerBoundary2Writer = new TreeMap<>();
 
+  private final Map<Long, String> lowerBoundary2StoragePolicy;
+
   private final boolean needEmptyFile;
 
   /**
@@ -43,18 +46,37 @@ public class DateTieredMultiFileWriter extends AbstractMultiFileWriter {
    *          anything.
    */
   public DateTieredMultiFileWriter(List<Long> lowerBoundaries, boolean needEmptyFile) {
+    this(lowerBoundaries, Collections.<Long, String> emptyMap(), needEmptyFile);
+  }
+
+  /**
+   * @param lowerBoundary2StoragePolicy the storage policies of the files of the windows, by lower
+   *          boundary. The files of the other windows get the one of the directories they are
+   *          written to.
+   * @param needEmptyFile whether need to create an empty store file if we haven't written out
+   *          anything.
+   */
+  public DateTieredMultiFileWriter(List<Long> lowerBoundaries,
+      Map<Long, String> lowerBoundary2StoragePolicy, boolean needEmptyFile) {
     for (Long lowerBoundary : lowerBoundaries) {
       lowerBoundary2Writer.put(lowerBoundary, null);
     }
+    this.lowerBoundary2StoragePolicy = lowerBoundary2StoragePolicy;
     this.needEmptyFile = needEmptyFile;
   }
 
+  private StoreFileWriter createWriter(Long lowerBoundary) throws IOException {
+    String storagePolicy = lowerBoundary2StoragePolicy.get(lowerBoundary);
+    return storagePolicy == null ? writerFactory.createWriter()
+        : writerFactory.createWriterWithStoragePolicy(storagePolicy);
+  }
+
   @Override
   public void append(Cell cell) throws IOException {
     Map.Entry<Long, StoreFileWriter> entry = lowerBoundary2Writer.floorEntry(cell.getTimestamp());
     StoreFileWriter writer = entry.getValue();
     if (writer == null) {
-      writer = writerFactory.createWriter();
+      writer = createWriter(entry.getKey());
       lowerBoundary2Writer.put(entry.getKey(), writer);
     }
     writer.append(cell);
@@ -76,6 +98,7 @@ public class DateTieredMultiFileWriter extends AbstractMultiFileWriter {
       }
     }
     // we haven't written out any data, create an empty file to retain metadata
-    lowerBoundary2Writer.put(lowerBoundary2Writer.firstKey(), writerFactory.createWriter());
+    Long firstLowerBoundary = lowerBoundary2Writer.firstKey();
+    lowerBoundary2Writer.put(firstLowerBoundary, createWriter(firstLowerBoundary));
   }
 }
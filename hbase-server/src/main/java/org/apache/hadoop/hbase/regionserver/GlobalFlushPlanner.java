@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+/**
+ * Plans the flushes which bring the memstores of a region server back under the low water mark.
+ * <p>
+ * Flushing the biggest region over and over under global pressure makes many small files when
+ * many regions are close to their flush size. Instead, the planner picks the set of regions which
+ * frees the memory needed with the fewest and cheapest new files. A region costs one file for each
+ * of its stores with cells in memstore, made more expensive by the number of files the store
+ * already has, as they all have to be compacted. It also costs less when flushing it now adds no
+ * file to the ones it would make anyway: when it is about to reach its flush size, or when its
+ * stores are written to so slowly, going by their sizes since their last flush, that they would
+ * only be flushed by the periodic flush.
+ */
+@InterfaceAudience.Private
+class GlobalFlushPlanner {
+
+  static final String GLOBAL_FLUSH_PLANNER_ENABLED_KEY =
+      "hbase.regionserver.global.flush.planner.enabled";
+
+  /**
+   * The cost of a file which would have been made anyway, relative to the one of a file the flush
+   * adds
+   */
+  private static final double NATURAL_FILE_COST = 0.5;
+
+  private final long periodicFlushInterval;
+  private final int blockingFileCount;
+
+  GlobalFlushPlanner(Configuration conf) {
+    this.periodicFlushInterval = conf.getInt(HRegion.MEMSTORE_PERIODIC_FLUSH_INTERVAL,
+      HRegion.DEFAULT_CACHE_FLUSH_INTERVAL);
+    this.blockingFileCount =
+        conf.getInt(HStore.BLOCKING_STOREFILES_KEY, HStore.DEFAULT_BLOCKING_STOREFILE_COUNT);
+  }
+
+  private static class Candidate {
+    private final HRegion region;
+    private final long size;
+    private final double score;
+
+    Candidate(HRegion region, long size, double score) {
+      this.region = region;
+      this.size = size;
+      this.score = score;
+    }
+  }
+
+  /**
+   * @param regions the regions which can be flushed
+   * @param bytesToFree the memstore size to flush
+   * @return the regions to flush, the best first, or an empty list if no region can be flushed
+   */
+  List<Region> plan(Collection<HRegion> regions, long bytesToFree) {
+    long now = EnvironmentEdgeManager.currentTime();
+    List<Candidate> candidates = new ArrayList<>();
+    for (HRegion region : regions) {
+      Candidate candidate = evaluate(region, now);
+      if (candidate != null) {
+        candidates.add(candidate);
+      }
+    }
+    Collections.sort(candidates, new Comparator<Candidate>() {
+      @Override
+      public int compare(Candidate c1, Candidate c2) {
+        return Double.compare(c2.score, c1.score);
+      }
+    });
+    List<Region> plan = new ArrayList<>();
+    long planned = 0;
+    for (Candidate candidate : candidates) {
+      if (planned >= bytesToFree && !plan.isEmpty()) {
+        break;
+      }
+      plan.add(candidate.region);
+      planned += candidate.size;
+    }
+    return plan;
+  }
+
+  /**
+   * @return the size and the score of the flush of the region, the freed bytes per file, or null
+   *         if the region has nothing to flush
+   */
+  private Candidate evaluate(HRegion region, long now) {
+    long size = 0;
+    double writeRate = 0;
+    double compactionCost = 0;
+    boolean compactionEnabled = region.getTableDesc().isCompactionEnabled();
+    for (Store store : region.getStores()) {
+      long storeSize = store.getSizeOfMemStore().getDataSize();
+      if (storeSize <= 0) {
+        continue;
+      }
+      size += storeSize;
+      long sinceLastFlush = Math.max(now - region.getLastStoreFlushTime(store), 1);
+      writeRate += (double) storeSize / sinceLastFlush;
+      compactionCost += 1.0
+          + (compactionEnabled ? (double) store.getStorefilesCount() / blockingFileCount : 0);
+    }
+    if (size <= 0) {
+      return null;
+    }
+    // the share of a file this flush adds to the ones the region makes on its own
+    double addedFiles;
+    long sizeUntilFlush = region.getMemstoreFlushSize() - size;
+    if (sizeUntilFlush <= 0) {
+      addedFiles = 0;
+    } else if (periodicFlushInterval <= 0) {
+      addedFiles = 1;
+    } else {
+      double timeToFlush = sizeUntilFlush / writeRate;
+      addedFiles = Math.min(1.0, periodicFlushInterval / timeToFlush);
+    }
+    double cost = compactionCost * (NATURAL_FILE_COST + (1 - NATURAL_FILE_COST) * addedFiles);
+    return new Candidate(region, size, size / cost);
+  }
+}
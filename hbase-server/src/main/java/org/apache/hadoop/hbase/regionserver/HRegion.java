@@ -208,6 +208,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   public static final String HBASE_MAX_CELL_SIZE_KEY = "hbase.server.keyvalue.maxsize";
   public static final int DEFAULT_MAX_CELL_SIZE = 10485760;
 
+  /** Config key for the max number of threads which write the stores of a flush in parallel */
+  public static final String FLUSH_STORES_THREADS_MAX = "hbase.hregion.flush.stores.threads.max";
+  public static final int DEFAULT_FLUSH_STORES_THREADS_MAX = 1;
+
   /**
    * This is the global default value for durability. All tables/mutations not
    * defining a durability or using USE_DEFAULT will default to this value.
@@ -279,6 +283,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   // Number of requests blocked by memstore size.
   private final LongAdder blockedRequestsCount = new LongAdder();
 
+  // Cache of hot rows for simple gets, null if disabled. See RowCache.
+  private final RowCache rowCache;
+
   // Compaction LongAdders
   final AtomicLong compactionsFinished = new AtomicLong(0L);
   final AtomicLong compactionsFailed = new AtomicLong(0L);
@@ -726,6 +733,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
                     DEFAULT_ROWLOCK_WAIT_DURATION);
 
     this.isLoadingCfsOnDemandDefault = conf.getBoolean(LOAD_CFS_ON_DEMAND_CONFIG_KEY, true);
+    // Secondary replicas pick up new data by refreshing store files, which the row cache does not
+    // track, so only the primary gets one.
+    this.rowCache = RegionReplicaUtil.isDefaultReplica(fs.getRegionInfo())
+        && rsServices != null ? RowCache.create(rsServices.getRowCache(), this.conf) : null;
     this.htableDescriptor = htd;
     Set<byte[]> families = this.htableDescriptor.getFamiliesKeys();
     for (byte[] family : families) {
@@ -1257,6 +1268,13 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     readRequestsCount.add(i);
   }
 
+  /**
+   * @return the row cache of this region, or null if it is not enabled
+   */
+  public RowCache getRowCache() {
+    return rowCache;
+  }
+
   @Override
   public long getFilteredReadRequestsCount() {
     return filteredReadRequestsCount.sum();
@@ -1706,6 +1724,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       }
 
       this.closed.set(true);
+      if (rowCache != null) {
+        rowCache.removeAll();
+      }
       if (!canFlush) {
         this.decrMemstoreSize(new MemstoreSize(memstoreDataSize.get(), getMemstoreHeapSize()));
       } else if (memstoreDataSize.get() != 0) {
@@ -1879,6 +1900,14 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return this.fs;
   }
 
+  /**
+   * @return the time of the last flush of the store, or of the opening of the region
+   */
+  long getLastStoreFlushTime(Store store) {
+    Long lastFlushTime = lastStoreFlushTimeMap.get(store);
+    return lastFlushTime == null ? 0 : lastFlushTime;
+  }
+
   @Override
   public long getEarliestFlushTimeForAllStores() {
     return Collections.min(lastStoreFlushTimeMap.values());
@@ -2648,9 +2677,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       // just-made new flush store file. The new flushed file is still in the
       // tmp directory.
 
-      for (StoreFlushContext flush : storeFlushCtxs.values()) {
-        flush.flushCache(status);
-      }
+      flushStores(storeFlushCtxs, status);
 
       // Switch snapshot (in memstore) -> new hfile (thus causing
       // all the store scanners to reset/reseek).
@@ -2762,6 +2789,61 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           FlushResult.Result.FLUSHED_NO_COMPACTION_NEEDED, flushOpSeqId);
   }
 
+  /**
+   * Writes the snapshots of the stores to flush to new files. Up to
+   * {@link #FLUSH_STORES_THREADS_MAX} stores are written in parallel, so that the flush of a
+   * region with many families is not as long as the sum of the flushes of its stores.
+   */
+  private void flushStores(final TreeMap<byte[], StoreFlushContext> storeFlushCtxs,
+      final MonitoredTask status) throws IOException {
+    int maxThreads = Math.min(storeFlushCtxs.size(),
+        conf.getInt(FLUSH_STORES_THREADS_MAX, DEFAULT_FLUSH_STORES_THREADS_MAX));
+    if (maxThreads <= 1) {
+      for (Map.Entry<byte[], StoreFlushContext> entry : storeFlushCtxs.entrySet()) {
+        flushStore(entry.getKey(), entry.getValue(), status);
+      }
+      return;
+    }
+    ThreadPoolExecutor storeFlusherThreadPool = getOpenAndCloseThreadPool(maxThreads,
+      "StoreFlusher-" + getRegionInfo().getShortNameToLog());
+    CompletionService<Void> completionService =
+        new ExecutorCompletionService<>(storeFlusherThreadPool);
+    try {
+      for (final Map.Entry<byte[], StoreFlushContext> entry : storeFlushCtxs.entrySet()) {
+        completionService.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            flushStore(entry.getKey(), entry.getValue(), status);
+            return null;
+          }
+        });
+      }
+      for (int i = 0; i < storeFlushCtxs.size(); i++) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      throw (InterruptedIOException)new InterruptedIOException().initCause(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    } finally {
+      storeFlusherThreadPool.shutdownNow();
+    }
+  }
+
+  private void flushStore(byte[] family, StoreFlushContext flush, MonitoredTask status)
+      throws IOException {
+    long start = EnvironmentEdgeManager.currentTime();
+    flush.flushCache(status);
+    if (rsServices != null && rsServices.getMetrics() != null) {
+      rsServices.getMetrics().updateStoreFlush(getRegionInfo().getTable(),
+        Bytes.toString(family), EnvironmentEdgeManager.currentTime() - start);
+    }
+  }
+
   /**
    * Method to safely get the next sequence number.
    * @return Next sequence number unassociated with any actual edit.
@@ -3997,6 +4079,15 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   private void applyToMemstore(final Store store, final List<Cell> cells, final boolean delta,
       MemstoreSize memstoreSize) throws IOException {
     // Any change in how we update Store/MemStore needs to also be done in other applyToMemstore!!!!
+    if (rowCache != null) {
+      Cell prev = null;
+      for (Cell cell : cells) {
+        if (prev == null || !CellUtil.matchingRows(prev, cell)) {
+          rowCache.onWrite(CellUtil.cloneRow(cell), mvcc.getWritePoint());
+        }
+        prev = cell;
+      }
+    }
     boolean upsert = delta && store.getFamily().getMaxVersions() == 1;
     if (upsert) {
       ((HStore) store).upsert(cells, getSmallestReadPoint(), memstoreSize);
@@ -4015,6 +4106,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       checkFamily(CellUtil.cloneFamily(cell));
       // Unreachable because checkFamily will throw exception
     }
+    if (rowCache != null) {
+      rowCache.onWrite(CellUtil.cloneRow(cell), mvcc.getWritePoint());
+    }
     ((HStore) store).add(cell, memstoreSize);
   }
 
@@ -5780,6 +5874,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           }
         }
       }
+      if (rowCache != null && !storeFiles.isEmpty()) {
+        rowCache.invalidateAll();
+      }
 
       closeBulkRegionOperation();
     }
@@ -6972,17 +7069,29 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       }
     }
     long before =  EnvironmentEdgeManager.currentTime();
-    Scan scan = new Scan(get);
-    if (scan.getLoadColumnFamiliesOnDemandValue() == null) {
-      scan.setLoadColumnFamiliesOnDemand(isLoadingCfsOnDemandDefault());
-    }
-    RegionScanner scanner = null;
-    try {
-      scanner = getScanner(scan, null, nonceGroup, nonce);
-      scanner.next(results);
-    } finally {
-      if (scanner != null)
-        scanner.close();
+    RowCache.Key rowCacheKey = rowCache != null && nonce == HConstants.NO_NONCE
+        ? rowCache.toKey(get, this.htableDescriptor) : null;
+    List<Cell> cached = rowCacheKey != null ? rowCache.get(rowCacheKey) : null;
+    if (cached != null) {
+      results.addAll(cached);
+    } else {
+      // Take the epoch before opening the scanner so that a concurrent bulk load is not missed.
+      long rowCacheEpoch = rowCacheKey != null ? rowCache.getEpoch() : -1;
+      Scan scan = new Scan(get);
+      if (scan.getLoadColumnFamiliesOnDemandValue() == null) {
+        scan.setLoadColumnFamiliesOnDemand(isLoadingCfsOnDemandDefault());
+      }
+      RegionScanner scanner = null;
+      try {
+        scanner = getScanner(scan, null, nonceGroup, nonce);
+        scanner.next(results);
+        if (rowCacheKey != null) {
+          rowCache.put(rowCacheKey, scanner.getMvccReadPoint(), rowCacheEpoch, results);
+        }
+      } finally {
+        if (scanner != null)
+          scanner.close();
+      }
     }
 
     // post-get CP hook
@@ -314,6 +314,12 @@ public class HRegionServer extends HasThread implements
   // Instance of the hbase executor service.
   protected ExecutorService service;
 
+  // Shared pool for seeking store files in parallel, null unless parallel seek is enabled.
+  private ParallelStoreSeeker parallelStoreSeeker;
+
+  // Cache of hot rows shared by the regions, null unless the row cache is enabled.
+  private final RowCache.SharedCache rowCache;
+
   // If false, the file system has become unavailable
   protected volatile boolean fsOk;
   protected HFileSystem fs;
@@ -611,6 +617,7 @@ public class HRegionServer extends HasThread implements
 
     regionServerAccounting = new RegionServerAccounting(conf);
     cacheConfig = new CacheConfig(conf);
+    rowCache = RowCache.SharedCache.create(conf);
     mobCacheConfig = new MobCacheConfig(conf);
     uncaughtExceptionHandler = new UncaughtExceptionHandler() {
       @Override
@@ -1901,8 +1908,7 @@ public class HRegionServer extends HasThread implements
     this.service.startExecutorService(ExecutorType.RS_CLOSE_META,
       conf.getInt("hbase.regionserver.executor.closemeta.threads", 1));
     if (conf.getBoolean(StoreScanner.STORESCANNER_PARALLEL_SEEK_ENABLE, false)) {
-      this.service.startExecutorService(ExecutorType.RS_PARALLEL_SEEK,
-        conf.getInt("hbase.storescanner.parallel.seek.threads", 10));
+      this.parallelStoreSeeker = new ParallelStoreSeeker(conf);
     }
     this.service.startExecutorService(ExecutorType.RS_LOG_REPLAY_OPS, conf.getInt(
        "hbase.regionserver.wal.max.splitters", SplitLogWorkerCoordination.DEFAULT_MAX_SPLITTERS));
@@ -2416,6 +2422,7 @@ public class HRegionServer extends HasThread implements
       this.compactSplitThread.join();
     }
     if (this.service != null) this.service.shutdown();
+    if (this.parallelStoreSeeker != null) this.parallelStoreSeeker.shutdown();
     if (this.replicationSourceHandler != null &&
         this.replicationSourceHandler == this.replicationSinkHandler) {
       this.replicationSourceHandler.stopReplicationService();
@@ -2866,6 +2873,16 @@ public class HRegionServer extends HasThread implements
     return service;
   }
 
+  @Override
+  public ParallelStoreSeeker getParallelStoreSeeker() {
+    return parallelStoreSeeker;
+  }
+
+  @Override
+  public RowCache.SharedCache getRowCache() {
+    return rowCache;
+  }
+
   @Override
   public ChoreService getChoreService() {
     return choreService;
@@ -3228,6 +3245,11 @@ public class HRegionServer extends HasThread implements
       addToMovedRegions(r.getRegionInfo().getEncodedName(), destination, closeSeqNum);
     }
     this.regionFavoredNodesMap.remove(r.getRegionInfo().getEncodedName());
+    TableName tableName = r.getRegionInfo().getTable();
+    if (toReturn != null && metricsRegionServer != null
+        && getOnlineRegions(tableName).isEmpty()) {
+      metricsRegionServer.removeStoreFlushes(tableName);
+    }
     return toReturn != null;
   }
 
@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
@@ -39,6 +40,7 @@ import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
@@ -205,6 +207,7 @@ public class HStore implements Store {
   private volatile long flushedOutputFileSize = 0;
   private volatile long compactedCellsSize = 0;
   private volatile long majorCompactedCellsSize = 0;
+  private final LongAdder compactionPrewarmedSize = new LongAdder();
 
   /**
    * Constructor
@@ -281,6 +284,12 @@ public class HStore implements Store {
 
     // Setting up cache configuration for this family
     createCacheConf(family);
+    RegionServerServices rsServices = region.getRegionServerServices();
+    // CacheConfig.DISABLED is shared, do not record into it
+    if (cacheConf != null && cacheConf != CacheConfig.DISABLED && rsServices != null
+        && rsServices.getMetrics() != null) {
+      cacheConf.setBlockReadLatencies(rsServices.getMetrics().getBlockReadLatencies());
+    }
 
     this.verifyBulkLoads = conf.getBoolean("hbase.hstore.bulkload.verify", false);
 
@@ -515,7 +524,7 @@ public class HStore implements Store {
    * from the given directory.
    * @throws IOException
    */
-  private List<StoreFile> loadStoreFiles() throws IOException {
+  protected List<StoreFile> loadStoreFiles() throws IOException {
     Collection<StoreFileInfo> files = fs.getStoreFiles(getColumnFamilyName());
     return openStoreFiles(files);
   }
@@ -658,7 +667,7 @@ public class HStore implements Store {
     completeCompaction(toBeRemovedStoreFiles);
   }
 
-  private StoreFile createStoreFileAndReader(final Path p) throws IOException {
+  protected StoreFile createStoreFileAndReader(final Path p) throws IOException {
     StoreFileInfo info = new StoreFileInfo(conf, this.getFileSystem(), p);
     return createStoreFileAndReader(info);
   }
@@ -1070,8 +1079,20 @@ public class HStore implements Store {
       boolean isCompaction, boolean includeMVCCReadpoint, boolean includesTag,
       boolean shouldDropBehind, final TimeRangeTracker trt)
   throws IOException {
+    return createWriterInTmp(CreateStoreFileWriterParams.create().maxKeyCount(maxKeyCount)
+        .compression(compression).isCompaction(isCompaction)
+        .includeMVCCReadpoint(includeMVCCReadpoint).includesTag(includesTag)
+        .shouldDropBehind(shouldDropBehind).timeRangeTracker(trt));
+  }
+
+  @Override
+  public StoreFileWriter createWriterInTmp(CreateStoreFileWriterParams params)
+      throws IOException {
     final CacheConfig writerCacheConf;
-    if (isCompaction) {
+    if (params.isCompaction() && params.prewarmPriority() != null) {
+      writerCacheConf = cacheConf.forCompactionPrewarm(params.prewarmData(),
+        params.prewarmPriority(), compactionPrewarmedSize);
+    } else if (params.isCompaction()) {
       // Don't cache data on write on compactions.
       writerCacheConf = new CacheConfig(cacheConf);
       writerCacheConf.setCacheDataOnWrite(false);
@@ -1083,20 +1104,23 @@ public class HStore implements Store {
       favoredNodes = region.getRegionServerServices().getFavoredNodesForRegion(
           region.getRegionInfo().getEncodedName());
     }
-    HFileContext hFileContext = createFileContext(compression, includeMVCCReadpoint, includesTag,
-      cryptoContext);
+    HFileContext hFileContext = createFileContext(params.compression(),
+      params.includeMVCCReadpoint(), params.includesTag(), cryptoContext);
     Path familyTempDir = new Path(fs.getTempDir(), family.getNameAsString());
     StoreFileWriter.Builder builder = new StoreFileWriter.Builder(conf, writerCacheConf,
         this.getFileSystem())
             .withOutputDir(familyTempDir)
             .withComparator(comparator)
             .withBloomType(family.getBloomFilterType())
-            .withMaxKeyCount(maxKeyCount)
+            .withMaxKeyCount(params.maxKeyCount())
             .withFavoredNodes(favoredNodes)
             .withFileContext(hFileContext)
-            .withShouldDropCacheBehind(shouldDropBehind);
-    if (trt != null) {
-      builder.withTimeRangeTracker(trt);
+            .withShouldDropCacheBehind(params.shouldDropBehind());
+    if (params.timeRangeTracker() != null) {
+      builder.withTimeRangeTracker(params.timeRangeTracker());
+    }
+    if (params.fileStoragePolicy() != null) {
+      builder.withFileStoragePolicy(params.fileStoragePolicy());
     }
     return builder.build();
   }
@@ -1345,8 +1369,15 @@ public class HStore implements Store {
       }
       // Do the steps necessary to complete the compaction.
       sfs = moveCompatedFilesIntoPlace(cr, newFiles, user);
-      writeCompactionWalRecord(filesToCompact, sfs);
-      replaceStoreFiles(filesToCompact, sfs);
+      if (cr.isDataPrewarmed()) {
+        // the readers of the new files did not cache their data, but it is hot all the same
+        for (StoreFile sf : sfs) {
+          sf.getReader().addCachedDataSize(sf.getReader().getTotalUncompressedBytes());
+        }
+      }
+      Collection<StoreFile> replacedFiles = cr.getReplacedFiles();
+      writeCompactionWalRecord(replacedFiles, sfs);
+      replaceStoreFiles(replacedFiles, sfs);
       if (cr.isMajor()) {
         majorCompactedCellsCount += getCompactionProgress().totalCompactingKVs;
         majorCompactedCellsSize += getCompactionProgress().totalCompactedSize;
@@ -1360,7 +1391,7 @@ public class HStore implements Store {
       }
 
       // At this point the store will use new files for all new scanners.
-      completeCompaction(filesToCompact); // update store size.
+      completeCompaction(replacedFiles); // update store size.
 
       long now = EnvironmentEdgeManager.currentTime();
       if (region.getRegionServerServices() != null
@@ -2098,6 +2129,22 @@ public class HStore implements Store {
     return size;
   }
 
+  @Override
+  public Map<String, Long> getStorefilesSizeByStoragePolicy() {
+    Map<String, Long> sizes = new TreeMap<>();
+    for (StoreFile s: this.storeEngine.getStoreFileManager().getStorefiles()) {
+      StoreFileReader r = s.getReader();
+      byte[] policy = s.getMetadataValue(StoreFile.STORAGE_POLICY_KEY);
+      if (r == null || policy == null) {
+        continue;
+      }
+      String policyName = Bytes.toString(policy);
+      Long size = sizes.get(policyName);
+      sizes.put(policyName, (size == null ? 0 : size) + r.length());
+    }
+    return sizes;
+  }
+
   @Override
   public long getStorefilesIndexSize() {
     long size = 0;
@@ -2434,6 +2481,11 @@ public class HStore implements Store {
     return majorCompactedCellsSize;
   }
 
+  @Override
+  public long getCompactionPrewarmedSize() {
+    return compactionPrewarmedSize.sum();
+  }
+
   /**
    * Returns the StoreEngine that is backing this concrete implementation of Store.
    * @return Returns the {@link StoreEngine} object used internally inside this HStore object.
@@ -25,7 +25,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,7 +49,7 @@ import org.apache.hadoop.hbase.regionserver.ScannerContext.NextState;
 public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
     implements KeyValueScanner, InternalScanner {
   private static final Log LOG = LogFactory.getLog(KeyValueHeap.class);
-  protected PriorityQueue<KeyValueScanner> heap = null;
+  protected KeyValueScannerTournamentTree heap = null;
   // Holds the scanners when a ever a eager close() happens.  All such eagerly closed
   // scans are collected and when the final scanner.close() happens will perform the
   // actual close.
@@ -92,7 +91,7 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
     this.comparator = comparator;
     this.scannersForDelayedClose = new ArrayList<>(scanners.size());
     if (!scanners.isEmpty()) {
-      this.heap = new PriorityQueue<>(scanners.size(), this.comparator);
+      this.heap = new KeyValueScannerTournamentTree(scanners.size(), this.comparator);
       for (KeyValueScanner scanner : scanners) {
         if (scanner.peek() != null) {
           this.heap.add(scanner);
@@ -125,9 +124,9 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
       KeyValueScanner topScanner = this.heap.peek();
       // no need to add current back to the heap if it is the only scanner left
       if (topScanner != null && this.comparator.compare(kvNext, topScanner.peek()) >= 0) {
-        this.heap.add(this.current);
+        KeyValueScanner scanner = this.current;
         this.current = null;
-        this.current = pollRealKV();
+        this.current = addAndPollRealKV(scanner);
       }
     }
     return kvReturn;
@@ -307,9 +306,9 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
           // invariant that the top scanner has done a real seek. This way
           // StoreScanner and RegionScanner do not have to worry about fake
           // keys.
-          heap.add(scanner);
+          KeyValueScanner topScanner = scanner;
           scanner = null;
-          current = pollRealKV();
+          current = addAndPollRealKV(topScanner);
           return current != null;
         }
 
@@ -324,10 +323,10 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
 
         if (!seekResult) {
           this.scannersForDelayedClose.add(scanner);
+          scanner = heap.poll();
         } else {
-          heap.add(scanner);
+          scanner = heap.addAndPoll(scanner);
         }
-        scanner = heap.poll();
         if (scanner == null) {
           current = null;
         }
@@ -359,7 +358,18 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
    * among all top KVs (some of which are fake) in the scanner heap.
    */
   protected KeyValueScanner pollRealKV() throws IOException {
-    KeyValueScanner kvScanner = heap.poll();
+    return pollRealKV(heap.poll());
+  }
+
+  /**
+   * Adds <code>scanner</code> back to the heap and then does {@link #pollRealKV()}, replaying
+   * the heap only once when a scanner other than <code>scanner</code> comes out on top.
+   */
+  protected KeyValueScanner addAndPollRealKV(KeyValueScanner scanner) throws IOException {
+    return pollRealKV(heap.addAndPoll(scanner));
+  }
+
+  private KeyValueScanner pollRealKV(KeyValueScanner kvScanner) throws IOException {
     if (kvScanner == null) {
       return null;
     }
@@ -392,7 +402,8 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
           // Otherwise, put the scanner back into the heap and let it compete
           // against all other scanners (both those that have done a "real
           // seek" and a "lazy seek").
-          heap.add(kvScanner);
+          kvScanner = heap.addAndPoll(kvScanner);
+          continue;
         } else {
           // Close the scanner because we did a real seek and found out there
           // are no more KVs.
@@ -412,7 +423,7 @@ public class KeyValueHeap extends NonReversedNonLazyKeyValueScanner
   /**
    * @return the current Heap
    */
-  public PriorityQueue<KeyValueScanner> getHeap() {
+  public KeyValueScannerTournamentTree getHeap() {
     return this.heap;
   }
 
@@ -0,0 +1,215 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.KeyValueHeap.KVScannerComparator;
+
+/**
+ * The priority queue of the scanners of a {@link KeyValueHeap}, implemented as a tournament tree.
+ * <p>
+ * Every scanner sits in a leaf of a complete binary tree and every inner node remembers the leaf
+ * that won the match between its two children, so the root holds the smallest scanner. Changing
+ * the scanner of one leaf only replays the matches on the path from that leaf to the root, which
+ * is one comparison per level where a binary heap needs two comparisons per level to sift down.
+ * Removed scanners leave an empty leaf behind which loses every match without calling the
+ * comparator.
+ * <p>
+ * The common operation of a heap merge is to put the current scanner back after it advanced and
+ * to take the smallest scanner out. {@link #addAndPoll(KeyValueScanner)} does this with a single
+ * replay by moving the added scanner into the leaf of the winner.
+ * <p>
+ * Scanners must not be modified in a way that changes their order while they are in the tree.
+ * The iterator returns the scanners in no particular order and does not support removal.
+ */
+@InterfaceAudience.Private
+public class KeyValueScannerTournamentTree extends AbstractQueue<KeyValueScanner> {
+
+  private final KVScannerComparator comparator;
+
+  /** The scanner of every leaf, null for an empty leaf. */
+  private KeyValueScanner[] leaves;
+
+  /**
+   * The winning leaf of every node. Node 1 is the root, the children of node n are 2n and 2n+1,
+   * and leaf i is node leaves.length + i.
+   */
+  private int[] winners;
+
+  /** Stack of the empty leaves. */
+  private int[] freeLeaves;
+
+  private int freeCount;
+
+  private int size;
+
+  public KeyValueScannerTournamentTree(int initialCapacity, KVScannerComparator comparator) {
+    this.comparator = comparator;
+    init(Math.max(1, initialCapacity));
+  }
+
+  private void init(int capacity) {
+    this.leaves = new KeyValueScanner[capacity];
+    this.winners = new int[2 * capacity];
+    this.freeLeaves = new int[capacity];
+    // push in reverse so that the leaves are filled from left to right
+    for (int i = 0; i < capacity; i++) {
+      this.freeLeaves[i] = capacity - 1 - i;
+      this.winners[capacity + i] = i;
+    }
+    this.freeCount = capacity;
+    this.size = 0;
+    for (int node = capacity - 1; node > 0; node--) {
+      this.winners[node] = this.winners[2 * node];
+    }
+  }
+
+  /**
+   * @return true if the scanner in leaf <code>a</code> comes before the one in leaf
+   *         <code>b</code>. An empty leaf never comes first.
+   */
+  private boolean before(int a, int b) {
+    KeyValueScanner left = leaves[a];
+    if (left == null) {
+      return false;
+    }
+    KeyValueScanner right = leaves[b];
+    return right == null || comparator.compare(left, right) < 0;
+  }
+
+  /**
+   * Replays the matches on the path from <code>leaf</code> to the root.
+   */
+  private void replay(int leaf) {
+    for (int node = (leaf + leaves.length) >>> 1; node > 0; node >>>= 1) {
+      int left = winners[2 * node];
+      int right = winners[2 * node + 1];
+      winners[node] = before(right, left) ? right : left;
+    }
+  }
+
+  private int top() {
+    // with a single leaf, node 1 is the leaf itself
+    return winners[1];
+  }
+
+  private void grow() {
+    KeyValueScanner[] old = leaves;
+    init(old.length * 2);
+    for (KeyValueScanner scanner : old) {
+      offer(scanner);
+    }
+  }
+
+  @Override
+  public boolean offer(KeyValueScanner scanner) {
+    if (scanner == null) {
+      throw new NullPointerException();
+    }
+    if (freeCount == 0) {
+      grow();
+    }
+    int leaf = freeLeaves[--freeCount];
+    leaves[leaf] = scanner;
+    size++;
+    replay(leaf);
+    return true;
+  }
+
+  @Override
+  public KeyValueScanner peek() {
+    return leaves[top()];
+  }
+
+  @Override
+  public KeyValueScanner poll() {
+    int leaf = top();
+    KeyValueScanner winner = leaves[leaf];
+    if (winner != null) {
+      leaves[leaf] = null;
+      freeLeaves[freeCount++] = leaf;
+      size--;
+      replay(leaf);
+    }
+    return winner;
+  }
+
+  /**
+   * Adds <code>scanner</code> and removes the smallest scanner, which is <code>scanner</code>
+   * itself if it comes before all others. Same as {@link #add(Object)} followed by
+   * {@link #poll()}, but replays the tree once at most.
+   * @return the smallest scanner, never null
+   */
+  public KeyValueScanner addAndPoll(KeyValueScanner scanner) {
+    if (scanner == null) {
+      throw new NullPointerException();
+    }
+    int leaf = top();
+    KeyValueScanner winner = leaves[leaf];
+    if (winner == null || comparator.compare(scanner, winner) < 0) {
+      return scanner;
+    }
+    leaves[leaf] = scanner;
+    replay(leaf);
+    return winner;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    init(leaves.length);
+  }
+
+  @Override
+  public Iterator<KeyValueScanner> iterator() {
+    return new Iterator<KeyValueScanner>() {
+      private int next = advance(0);
+
+      private int advance(int from) {
+        while (from < leaves.length && leaves[from] == null) {
+          from++;
+        }
+        return from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < leaves.length;
+      }
+
+      @Override
+      public KeyValueScanner next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        KeyValueScanner scanner = leaves[next];
+        next = advance(next + 1);
+        return scanner;
+      }
+    };
+  }
+}
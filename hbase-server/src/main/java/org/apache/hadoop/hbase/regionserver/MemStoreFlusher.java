@@ -90,6 +90,8 @@ class MemStoreFlusher implements FlushRequester {
   private final LongAdder updatesBlockedMsHighWater = new LongAdder();
 
   private final FlushHandler[] flushHandlers;
+  // null unless enabled
+  private final GlobalFlushPlanner flushPlanner;
   private List<FlushRequestListener> flushRequestListeners = new ArrayList<>(1);
 
   /**
@@ -107,6 +109,9 @@ class MemStoreFlusher implements FlushRequester {
       90000);
     int handlerCount = conf.getInt("hbase.hstore.flusher.count", 2);
     this.flushHandlers = new FlushHandler[handlerCount];
+    this.flushPlanner =
+        conf.getBoolean(GlobalFlushPlanner.GLOBAL_FLUSH_PLANNER_ENABLED_KEY, false)
+            ? new GlobalFlushPlanner(conf) : null;
     LOG.info("globalMemStoreLimit="
         + TraditionalBinaryPrefix
             .long2String(this.server.getRegionServerAccounting().getGlobalMemstoreLimit(), "", 1)
@@ -128,6 +133,9 @@ class MemStoreFlusher implements FlushRequester {
    * @return true if successful
    */
   private boolean flushOneForGlobalPressure() {
+    if (flushPlanner != null && flushPlannedForGlobalPressure()) {
+      return true;
+    }
     SortedMap<Long, Region> regionsBySize = server.getCopyOfOnlineRegionsSortedBySize();
     Set<Region> excludedRegions = new HashSet<>();
 
@@ -215,6 +223,45 @@ class MemStoreFlusher implements FlushRequester {
     return true;
   }
 
+  /**
+   * The memstore across all regions has exceeded the low water mark. Flush the regions the
+   * {@link GlobalFlushPlanner} picks to get back under it synchronously (this is called from the
+   * flush thread). Secondary region replicas are left to {@link #flushOneForGlobalPressure()}.
+   * @return true if at least one region was flushed
+   */
+  private boolean flushPlannedForGlobalPressure() {
+    RegionServerAccounting accounting = server.getRegionServerAccounting();
+    long bytesToFree = (accounting.isOffheap() ? accounting.getGlobalMemstoreDataSize()
+        : accounting.getGlobalMemstoreHeapSize()) - accounting.getGlobalMemstoreLimitLowMark();
+    List<HRegion> flushableRegions = new ArrayList<>();
+    for (Region region : server.getOnlineRegionsLocalContext()) {
+      if (!((HRegion) region).writestate.flushing && ((HRegion) region).writestate.writesEnabled
+          && RegionReplicaUtil.isDefaultReplica(region.getRegionInfo())) {
+        flushableRegions.add((HRegion) region);
+      }
+    }
+    List<Region> plan = flushPlanner.plan(flushableRegions, bytesToFree);
+    if (!plan.isEmpty()) {
+      LOG.info("Flush of " + plan.size() + " region(s) due to global heap pressure, to free "
+          + TraditionalBinaryPrefix.long2String(bytesToFree, "", 1) + ". Total Memstore size="
+          + humanReadableInt(accounting.getGlobalMemstoreDataSize()));
+    }
+    boolean flushedOne = false;
+    for (Region region : plan) {
+      if (isAboveLowWaterMark() == FlushType.NORMAL) {
+        break;
+      }
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Flush of planned region " + region + ", Region memstore size="
+            + humanReadableInt(region.getMemstoreSize()));
+      }
+      if (flushRegion(region, true, false)) {
+        flushedOne = true;
+      }
+    }
+    return flushedOne;
+  }
+
   private class FlushHandler extends HasThread {
 
     private FlushHandler(String name) {
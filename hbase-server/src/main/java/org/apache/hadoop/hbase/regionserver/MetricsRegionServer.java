@@ -18,11 +18,14 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import org.apache.hadoop.hbase.CompatibilitySingletonFactory;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.classification.InterfaceStability;
 import org.apache.hadoop.hbase.metrics.MetricRegistries;
 import org.apache.hadoop.hbase.metrics.MetricRegistry;
+import org.apache.hadoop.hbase.metrics.Snapshot;
 import org.apache.hadoop.hbase.metrics.Timer;
+import org.apache.hadoop.hbase.metrics.impl.FastLongHistogram;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -43,6 +46,10 @@ public class MetricsRegionServer {
   private MetricRegistry metricRegistry;
   private Timer bulkLoadTimer;
 
+  // latencies since the last snapshot, which throughput controllers tune on
+  private final FastLongHistogram getLatencies = new FastLongHistogram();
+  private final FastLongHistogram blockReadLatencies = new FastLongHistogram();
+
   public MetricsRegionServer(MetricsRegionServerWrapper regionServerWrapper) {
     this(regionServerWrapper,
         CompatibilitySingletonFactory.getInstance(MetricsRegionServerSourceFactory.class)
@@ -90,6 +97,7 @@ public class MetricsRegionServer {
       serverSource.incrSlowGet();
     }
     serverSource.updateGet(t);
+    getLatencies.add(t, 1);
   }
 
   public void updateIncrement(long t) {
@@ -118,6 +126,30 @@ public class MetricsRegionServer {
     serverSource.updateScanTime(t);
   }
 
+  /**
+   * @return the latencies of the gets, including the gets of multi requests, since the last
+   *         call, in milliseconds
+   */
+  public Snapshot snapshotAndResetGetLatencies() {
+    return getLatencies.snapshotAndReset();
+  }
+
+  /**
+   * @return the histogram the store file readers of this server add the latencies of their
+   *         block reads from the file system to, in milliseconds
+   */
+  public FastLongHistogram getBlockReadLatencies() {
+    return blockReadLatencies;
+  }
+
+  /**
+   * @return the latencies of the block reads from the file system since the last call, in
+   *         milliseconds
+   */
+  public Snapshot snapshotAndResetBlockReadLatencies() {
+    return blockReadLatencies.snapshotAndReset();
+  }
+
   public void updateSplitTime(long t) {
     serverSource.updateSplitTime(t);
   }
@@ -136,6 +168,18 @@ public class MetricsRegionServer {
     serverSource.updateFlushOutputSize(fileSize);
   }
 
+  public void updateStoreFlush(TableName table, String family, long t) {
+    serverSource.updateStoreFlushTime(table.getNameAsString(), family, t);
+  }
+
+  /**
+   * Removes the per column family flush metrics of a table, once this server no longer hosts
+   * any of its regions.
+   */
+  public void removeStoreFlushes(TableName table) {
+    serverSource.removeStoreFlushTimes(table.getNameAsString());
+  }
+
   public void updateCompaction(boolean isMajor, long t, int inputFileCount, int outputFileCount,
       long inputBytes, long outputBytes) {
     serverSource.updateCompactionTime(isMajor, t);
@@ -19,7 +19,10 @@ package org.apache.hadoop.hbase.regionserver;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -66,6 +69,7 @@ class MetricsRegionServerWrapperImpl
   private volatile long numStoreFiles = 0;
   private volatile long memstoreSize = 0;
   private volatile long storeFileSize = 0;
+  private volatile Map<String, Long> storeFileSizeByStoragePolicy = Collections.emptyMap();
   private volatile long maxStoreFileAge = 0;
   private volatile long minStoreFileAge = 0;
   private volatile long avgStoreFileAge = 0;
@@ -89,6 +93,7 @@ class MetricsRegionServerWrapperImpl
   private volatile long flushedCellsSize = 0;
   private volatile long compactedCellsSize = 0;
   private volatile long majorCompactedCellsSize = 0;
+  private volatile long compactionPrewarmedSize = 0;
   private volatile long cellsCountCompactedToMob = 0;
   private volatile long cellsCountCompactedFromMob = 0;
   private volatile long cellsSizeCompactedToMob = 0;
@@ -253,6 +258,14 @@ class MetricsRegionServerWrapperImpl
     return this.regionServer.compactSplitThread.getLargeCompactionQueueSize();
   }
 
+  @Override
+  public Map<String, Integer> getCompactionQueueSizeByClass() {
+    if (this.regionServer.compactSplitThread == null) {
+      return Collections.emptyMap();
+    }
+    return this.regionServer.compactSplitThread.getCompactionQueueSizeByClass();
+  }
+
   @Override
   public int getFlushQueueSize() {
     //If there is no flusher there should be no queue.
@@ -427,6 +440,11 @@ class MetricsRegionServerWrapperImpl
     return storeFileSize;
   }
 
+  @Override
+  public Map<String, Long> getStoreFileSizeByStoragePolicy() {
+    return storeFileSizeByStoragePolicy;
+  }
+
   @Override public double getRequestsPerSecond() {
     return requestsPerSecond;
   }
@@ -549,6 +567,11 @@ class MetricsRegionServerWrapperImpl
     return majorCompactedCellsSize;
   }
 
+  @Override
+  public long getCompactionPrewarmedSize() {
+    return compactionPrewarmedSize;
+  }
+
   @Override
   public long getCellsCountCompactedFromMob() {
     return cellsCountCompactedFromMob;
@@ -661,6 +684,7 @@ class MetricsRegionServerWrapperImpl
         long tempFlushedCellsSize = 0;
         long tempCompactedCellsSize = 0;
         long tempMajorCompactedCellsSize = 0;
+        long tempCompactionPrewarmedSize = 0;
         long tempCellsCountCompactedToMob = 0;
         long tempCellsCountCompactedFromMob = 0;
         long tempCellsSizeCompactedToMob = 0;
@@ -671,6 +695,7 @@ class MetricsRegionServerWrapperImpl
         long tempMobScanCellsCount = 0;
         long tempMobScanCellsSize = 0;
         long tempBlockedRequestsCount = 0;
+        Map<String, Long> tempStoreFileSizeByStoragePolicy = new TreeMap<>();
         int regionCount = 0;
         for (Region r : regionServer.getOnlineRegionsLocalContext()) {
           tempNumMutationsWithoutWAL += r.getNumMutationsWithoutWAL();
@@ -687,6 +712,12 @@ class MetricsRegionServerWrapperImpl
             tempNumStoreFiles += store.getStorefilesCount();
             tempMemstoreSize += store.getSizeOfMemStore().getDataSize();
             tempStoreFileSize += store.getStorefilesSize();
+            for (Map.Entry<String, Long> entry :
+                store.getStorefilesSizeByStoragePolicy().entrySet()) {
+              Long size = tempStoreFileSizeByStoragePolicy.get(entry.getKey());
+              tempStoreFileSizeByStoragePolicy.put(entry.getKey(),
+                (size == null ? 0 : size) + entry.getValue());
+            }
 
             long storeMaxStoreFileAge = store.getMaxStoreFileAge();
             tempMaxStoreFileAge = (storeMaxStoreFileAge > tempMaxStoreFileAge) ?
@@ -710,6 +741,7 @@ class MetricsRegionServerWrapperImpl
             tempFlushedCellsSize += store.getFlushedCellsSize();
             tempCompactedCellsSize += store.getCompactedCellsSize();
             tempMajorCompactedCellsSize += store.getMajorCompactedCellsSize();
+            tempCompactionPrewarmedSize += store.getCompactionPrewarmedSize();
             if (store instanceof HMobStore) {
               HMobStore mobStore = (HMobStore) store;
               tempCellsCountCompactedToMob += mobStore.getCellsCountCompactedToMob();
@@ -768,6 +800,7 @@ class MetricsRegionServerWrapperImpl
         numStoreFiles = tempNumStoreFiles;
         memstoreSize = tempMemstoreSize;
         storeFileSize = tempStoreFileSize;
+        storeFileSizeByStoragePolicy = tempStoreFileSizeByStoragePolicy;
         maxStoreFileAge = tempMaxStoreFileAge;
         if (regionCount > 0) {
           averageRegionSize = (memstoreSize + storeFileSize) / regionCount;
@@ -799,6 +832,7 @@ class MetricsRegionServerWrapperImpl
         flushedCellsSize = tempFlushedCellsSize;
         compactedCellsSize = tempCompactedCellsSize;
         majorCompactedCellsSize = tempMajorCompactedCellsSize;
+        compactionPrewarmedSize = tempCompactionPrewarmedSize;
         cellsCountCompactedToMob = tempCellsCountCompactedToMob;
         cellsCountCompactedFromMob = tempCellsCountCompactedFromMob;
         cellsSizeCompactedToMob = tempCellsSizeCompactedToMob;
@@ -250,4 +250,22 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
     return region.getRegionInfo().getReplicaId();
   }
 
+  @Override
+  public long getRowCacheHitCount() {
+    RowCache rowCache = region.getRowCache();
+    return rowCache != null ? rowCache.getHitCount() : 0;
+  }
+
+  @Override
+  public long getRowCacheMissCount() {
+    RowCache rowCache = region.getRowCache();
+    return rowCache != null ? rowCache.getMissCount() : 0;
+  }
+
+  @Override
+  public long getRowCacheSize() {
+    RowCache rowCache = region.getRowCache();
+    return rowCache != null ? rowCache.getSize() : 0;
+  }
+
 }
@@ -0,0 +1,207 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Seeks the store file scanners of a {@link StoreScanner} concurrently on a fork-join pool shared
+ * by the whole region server.
+ * <p>
+ * All store file seeks of one {@link StoreScanner#seekScanners} call are submitted as one
+ * {@link SeekBatch}. The calling thread seeks the memstore scanners itself while the pool works
+ * on the files, then joins the batch. Seeking in parallel only pays off when there are enough
+ * files to hide the dispatch cost, so a batch is only used once the number of store file
+ * scanners reaches {@link #PARALLEL_SEEK_MIN_SCANNERS_KEY}.
+ */
+@InterfaceAudience.Private
+public class ParallelStoreSeeker {
+  private static final Log LOG = LogFactory.getLog(ParallelStoreSeeker.class);
+
+  public static final String PARALLEL_SEEK_THREADS_KEY =
+      "hbase.storescanner.parallel.seek.threads";
+  public static final int DEFAULT_PARALLEL_SEEK_THREADS = 10;
+
+  /**
+   * The minimum number of store file scanners a seek must touch before it is done in parallel.
+   */
+  public static final String PARALLEL_SEEK_MIN_SCANNERS_KEY =
+      "hbase.storescanner.parallel.seek.min.scanners";
+  public static final int DEFAULT_PARALLEL_SEEK_MIN_SCANNERS = 4;
+
+  private final ForkJoinPool pool;
+  private final int minScanners;
+
+  public ParallelStoreSeeker(Configuration conf) {
+    int threads = Math.max(1, conf.getInt(PARALLEL_SEEK_THREADS_KEY,
+      DEFAULT_PARALLEL_SEEK_THREADS));
+    this.minScanners = Math.max(2, conf.getInt(PARALLEL_SEEK_MIN_SCANNERS_KEY,
+      DEFAULT_PARALLEL_SEEK_MIN_SCANNERS));
+    this.pool = new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+      @Override
+      public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        t.setName("StoreScanner-parallel-seek-" + t.getPoolIndex());
+        t.setDaemon(true);
+        return t;
+      }
+    }, null, false);
+    LOG.info("Parallel store seek enabled, threads=" + threads + ", minScanners="
+        + this.minScanners);
+  }
+
+  /**
+   * @param storeFileScanners number of store file scanners to be sought
+   * @return true if a seek over that many store files should be done in parallel
+   */
+  boolean shouldSeekInParallel(int storeFileScanners) {
+    return storeFileScanners >= this.minScanners;
+  }
+
+  /**
+   * Submits a seek to <code>key</code> for every {@link StoreFileScanner} in
+   * <code>scanners</code>. Other scanners are sought on the calling thread before returning.
+   * @return the batch that must be joined with {@link SeekBatch#await()}
+   */
+  SeekBatch submit(List<? extends KeyValueScanner> scanners, final Cell key) throws IOException {
+    final SeekBatch batch = new SeekBatch(scanners.size());
+    try {
+      for (final KeyValueScanner scanner : scanners) {
+        if (scanner instanceof StoreFileScanner) {
+          batch.tasks.add(pool.submit(new Runnable() {
+            @Override
+            public void run() {
+              if (batch.cancelled) {
+                return;
+              }
+              try {
+                scanner.seek(key);
+              } catch (IOException e) {
+                throw new SeekFailedException(e);
+              }
+            }
+          }));
+        }
+      }
+      for (KeyValueScanner scanner : scanners) {
+        if (!(scanner instanceof StoreFileScanner)) {
+          scanner.seek(key);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // the scanners must not be used by the pool any more once the caller gets the failure
+      batch.cancel();
+      batch.join();
+      throw e;
+    }
+    return batch;
+  }
+
+  void shutdown() {
+    pool.shutdownNow();
+    try {
+      if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+        LOG.warn("Parallel seek pool did not terminate in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * The in-flight store file seeks of one scanner. Cancelling the batch, e.g. because the owning
+   * scanner is closed, skips every seek that has not started yet, but the seeks already running
+   * go on, so the scanners may only be closed after {@link #join()}.
+   * <p>
+   * The tasks are not cancelled through the pool, as a cancelled fork-join task is done at once
+   * even when it is still running.
+   */
+  static class SeekBatch {
+    private final List<ForkJoinTask<?>> tasks;
+    private volatile boolean cancelled;
+
+    private SeekBatch(int size) {
+      this.tasks = new ArrayList<>(size);
+    }
+
+    void cancel() {
+      this.cancelled = true;
+    }
+
+    /**
+     * Waits for all seeks of the batch to be done, whether they succeeded, failed or were skipped.
+     */
+    void join() {
+      for (ForkJoinTask<?> task : tasks) {
+        task.quietlyJoin();
+      }
+    }
+
+    /**
+     * Waits for all seeks of the batch. On the first failure the remaining seeks are cancelled,
+     * the ones already running are waited for, and the failure is rethrown.
+     */
+    void await() throws IOException {
+      try {
+        for (ForkJoinTask<?> task : tasks) {
+          task.get();
+        }
+      } catch (InterruptedException e) {
+        cancel();
+        join();
+        throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+      } catch (ExecutionException e) {
+        cancel();
+        join();
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          }
+        }
+        throw new IOException(e.getCause());
+      }
+      if (cancelled) {
+        throw new InterruptedIOException("Parallel seek cancelled, scanner closed");
+      }
+    }
+  }
+
+  /** Carries the IOException of a failed seek out of the pool. */
+  private static class SeekFailedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    SeekFailedException(IOException cause) {
+      super(cause);
+    }
+  }
+}
@@ -2495,6 +2495,29 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       }
     }
     long before = EnvironmentEdgeManager.currentTime();
+    RowCache rowCache = region.getRowCache();
+    RowCache.Key rowCacheKey =
+        rowCache != null ? rowCache.toKey(get, region.getTableDesc()) : null;
+    List<Cell> cached = rowCacheKey != null ? rowCache.get(rowCacheKey) : null;
+    if (cached != null) {
+      results.addAll(cached);
+    } else {
+      getFromScanner(get, region, closeCallBack, context, rowCache, rowCacheKey, results);
+    }
+
+    // post-get CP hook
+    if (region.getCoprocessorHost() != null) {
+      region.getCoprocessorHost().postGet(get, results);
+    }
+    region.metricsUpdateForGet(results, before);
+    return Result.create(results, get.isCheckExistenceOnly() ? !results.isEmpty() : null, stale);
+  }
+
+  private void getFromScanner(Get get, HRegion region, RegionScannersCloseCallBack closeCallBack,
+      RpcCallContext context, RowCache rowCache, RowCache.Key rowCacheKey, List<Cell> results)
+      throws IOException {
+    // Take the epoch before opening the scanner so that a concurrent bulk load is not missed.
+    long rowCacheEpoch = rowCacheKey != null ? rowCache.getEpoch() : -1;
     Scan scan = new Scan(get);
     if (scan.getLoadColumnFamiliesOnDemandValue() == null) {
       scan.setLoadColumnFamiliesOnDemand(region.isLoadingCfsOnDemandDefault());
@@ -2503,6 +2526,10 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     try {
       scanner = region.getScanner(scan);
       scanner.next(results);
+      if (rowCacheKey != null) {
+        // copies the cells, which may point to blocks released once the response is sent
+        rowCache.put(rowCacheKey, scanner.getMvccReadPoint(), rowCacheEpoch, results);
+      }
     } finally {
       if (scanner != null) {
         if (closeCallBack == null) {
@@ -2521,13 +2548,6 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
         }
       }
     }
-
-    // post-get CP hook
-    if (region.getCoprocessorHost() != null) {
-      region.getCoprocessorHost().postGet(get, results);
-    }
-    region.metricsUpdateForGet(results, before);
-    return Result.create(results, get.isCheckExistenceOnly() ? !results.isEmpty() : null, stale);
   }
 
   private void checkBatchSizeAndLogLargeSize(MultiRequest request) {
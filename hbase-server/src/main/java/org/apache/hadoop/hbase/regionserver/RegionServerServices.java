@@ -208,6 +208,17 @@ public interface RegionServerServices extends OnlineRegions, FavoredNodesForRegi
    */
   ExecutorService getExecutorService();
 
+  /**
+   * @return the shared seeker used by store scanners to seek store files in parallel, or null if
+   *         parallel seeking is disabled
+   */
+  ParallelStoreSeeker getParallelStoreSeeker();
+
+  /**
+   * @return the row cache shared by the regions of this region server, or null if it is disabled
+   */
+  RowCache.SharedCache getRowCache();
+
   /**
    * @return set of recovering regions on the hosting region server
    */
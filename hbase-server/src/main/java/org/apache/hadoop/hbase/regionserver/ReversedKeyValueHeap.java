@@ -79,8 +79,7 @@ public class ReversedKeyValueHeap extends KeyValueHeap {
       Cell topKey = scanner.peek();
       if (comparator.getComparator().compareRows(topKey, seekKey) < 0) {
         // Row of Top KeyValue is before Seek row.
-        heap.add(scanner);
-        current = pollRealKV();
+        current = addAndPollRealKV(scanner);
         return current != null;
       }
 
@@ -109,8 +108,7 @@ public class ReversedKeyValueHeap extends KeyValueHeap {
       if ((CellUtil.matchingRow(seekKey, topKey) && comparator
           .getComparator().compare(seekKey, topKey) <= 0)
           || comparator.getComparator().compareRows(seekKey, topKey) > 0) {
-        heap.add(scanner);
-        current = pollRealKV();
+        current = addAndPollRealKV(scanner);
         return current != null;
       }
       if (!scanner.backwardSeek(seekKey)) {
@@ -142,9 +140,9 @@ public class ReversedKeyValueHeap extends KeyValueHeap {
       KeyValueScanner topScanner = this.heap.peek();
       if (topScanner != null
           && this.comparator.compare(this.current, topScanner) > 0) {
-        this.heap.add(this.current);
+        KeyValueScanner scanner = this.current;
         this.current = null;
-        this.current = pollRealKV();
+        this.current = addAndPollRealKV(scanner);
       }
     }
     return kvReturn;
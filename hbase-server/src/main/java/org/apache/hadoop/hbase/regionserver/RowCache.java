@@ -0,0 +1,314 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.IsolationLevel;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the result of simple gets of a region so that reading the same hot row again does not
+ * need to build a {@link RegionScanner} and seek all the stores. The entries of all regions of a
+ * region server share one {@link SharedCache}, owned by the region server and bounded by
+ * {@value #ROW_CACHE_SIZE_KEY}, and each region has its own view of it.
+ * <p>
+ * An entry is keyed by the row and the columns of the get, and remembers the mvcc read point it
+ * was read at. Instead of removing entries on every write, writers record the current write point
+ * in one of a fixed number of row stripes when applying to the memstore. An entry is only valid
+ * while its read point is not below the write point recorded for its stripe, i.e. while every
+ * write that touched a row of the stripe was already visible when the entry was read. Bulk loads
+ * do not go through the memstore, so they bump an epoch which invalidates all entries.
+ * <p>
+ * Only gets which read the latest version without filter, time range, per family limits or
+ * attributes are cached, and only for families without TTL, so that a cached row can not change
+ * without a write to the region.
+ */
+@InterfaceAudience.Private
+public class RowCache {
+
+  /**
+   * The maximum heap size of the rows cached by all the regions of a region server, 0 disables
+   * the cache.
+   */
+  public static final String ROW_CACHE_SIZE_KEY = "hbase.regionserver.row.cache.size";
+  public static final long DEFAULT_ROW_CACHE_SIZE = 0L;
+
+  /**
+   * Whether the regions use the row cache of the region server when it is enabled. Can be set in
+   * the table descriptor to keep the rows of a table out of the cache.
+   */
+  public static final String ROW_CACHE_ENABLED_KEY = "hbase.region.row.cache.enabled";
+  public static final boolean DEFAULT_ROW_CACHE_ENABLED = true;
+
+  private static final int STRIPES = 1024;
+
+  private final Cache<Key, Entry> cache;
+
+  private final AtomicLongArray stripeWritePoints = new AtomicLongArray(STRIPES);
+
+  private final AtomicLong epoch = new AtomicLong();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final AtomicLong size = new AtomicLong();
+
+  @VisibleForTesting
+  RowCache(Cache<Key, Entry> cache) {
+    this.cache = cache;
+  }
+
+  @VisibleForTesting
+  static Cache<Key, Entry> createCache(long maxSize) {
+    return CacheBuilder.newBuilder().maximumWeight(maxSize)
+        .weigher((Key key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.heapSize))
+        .removalListener(n -> n.getKey().owner.size.addAndGet(-n.getValue().heapSize)).build();
+  }
+
+  /**
+   * @param sharedCache the cache of the region server, or null if it has none
+   * @param regionConf the configuration of the region, which may keep it out of the cache
+   * @return the view of the row cache for a region, or null if it is not enabled
+   */
+  static RowCache create(SharedCache sharedCache, Configuration regionConf) {
+    if (sharedCache == null
+        || !regionConf.getBoolean(ROW_CACHE_ENABLED_KEY, DEFAULT_ROW_CACHE_ENABLED)) {
+      return null;
+    }
+    return new RowCache(sharedCache.cache);
+  }
+
+  /**
+   * @return the key to cache the result of <code>get</code> under, or null if the get can not be
+   *         served from the cache
+   */
+  Key toKey(Get get, HTableDescriptor htd) {
+    if (get.getFilter() != null || get.getMaxVersions() != 1 || !get.getTimeRange().isAllTime()
+        || !get.getColumnFamilyTimeRange().isEmpty() || get.getMaxResultsPerColumnFamily() >= 0
+        || get.getRowOffsetPerColumnFamily() > 0
+        || get.getIsolationLevel() != IsolationLevel.READ_COMMITTED
+        || !get.getAttributesMap().isEmpty()) {
+      return null;
+    }
+    Map<byte[], NavigableSet<byte[]>> familyMap = get.getFamilyMap();
+    List<byte[]> columns = new ArrayList<>();
+    if (familyMap.isEmpty()) {
+      for (HColumnDescriptor family : htd.getFamilies()) {
+        if (family.getTimeToLive() != HConstants.FOREVER) {
+          return null;
+        }
+      }
+    }
+    for (Map.Entry<byte[], NavigableSet<byte[]>> e : familyMap.entrySet()) {
+      HColumnDescriptor family = htd.getFamily(e.getKey());
+      if (family == null || family.getTimeToLive() != HConstants.FOREVER) {
+        return null;
+      }
+      columns.add(Bytes.toBytes(e.getKey().length));
+      columns.add(e.getKey());
+      if (e.getValue() == null) {
+        columns.add(Bytes.toBytes(-1));
+      } else {
+        columns.add(Bytes.toBytes(e.getValue().size()));
+        for (byte[] qualifier : e.getValue()) {
+          columns.add(Bytes.toBytes(qualifier.length));
+          columns.add(qualifier);
+        }
+      }
+    }
+    return new Key(this, get.getRow(), Bytes.add(columns.toArray(new byte[columns.size()][])));
+  }
+
+  /**
+   * @return the cached cells for <code>key</code>, or null if there is no valid entry
+   */
+  List<Cell> get(Key key) {
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null && entry.epoch == epoch.get()
+        && entry.readPoint >= stripeWritePoints.get(stripe(key.row))) {
+      hitCount.increment();
+      return new ArrayList<>(entry.cells);
+    }
+    missCount.increment();
+    return null;
+  }
+
+  /**
+   * Caches a copy of <code>cells</code>, read at <code>readPoint</code> by a get started in
+   * <code>epoch</code>. Nothing is cached if a write or bulk load may have been missed.
+   */
+  void put(Key key, long readPoint, long epoch, List<Cell> cells) {
+    if (epoch != this.epoch.get() || readPoint < stripeWritePoints.get(stripe(key.row))) {
+      return;
+    }
+    List<Cell> copies = new ArrayList<>(cells.size());
+    long heapSize = ClassSize.align(2 * ClassSize.ARRAY + key.row.length + key.columns.length)
+        + ClassSize.ARRAYLIST;
+    for (Cell cell : cells) {
+      KeyValue kv = KeyValueUtil.copyToNewKeyValue(cell);
+      heapSize += kv.heapSize() + ClassSize.REFERENCE;
+      copies.add(kv);
+    }
+    Entry entry = new Entry(Collections.unmodifiableList(copies), readPoint, epoch, heapSize);
+    size.addAndGet(heapSize);
+    cache.put(key, entry);
+  }
+
+  /**
+   * Called for every row written to the memstore, before the write becomes visible.
+   * @param writePoint the current mvcc write point, not smaller than the number of the write
+   */
+  void onWrite(byte[] row, long writePoint) {
+    int stripe = stripe(row);
+    for (;;) {
+      long current = stripeWritePoints.get(stripe);
+      if (current >= writePoint || stripeWritePoints.compareAndSet(stripe, current, writePoint)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Invalidates all entries of the region, e.g. after files have been bulk loaded into it.
+   */
+  void invalidateAll() {
+    epoch.incrementAndGet();
+    removeAll();
+  }
+
+  /**
+   * Removes all entries of the region from the shared cache, e.g. when the region is closed.
+   */
+  void removeAll() {
+    cache.asMap().keySet().removeIf(key -> key.owner == this);
+  }
+
+  long getEpoch() {
+    return epoch.get();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getSize() {
+    return size.get();
+  }
+
+  private static int stripe(byte[] row) {
+    return (Bytes.hashCode(row) & Integer.MAX_VALUE) % STRIPES;
+  }
+
+  /**
+   * The cache of a region server, which the views of its regions share.
+   */
+  public static final class SharedCache {
+
+    private final Cache<Key, Entry> cache;
+
+    private SharedCache(long maxSize) {
+      this.cache = createCache(maxSize);
+    }
+
+    /**
+     * @param conf the configuration of the region server
+     * @return the cache sized by {@value #ROW_CACHE_SIZE_KEY}, or null if the row cache is
+     *         disabled
+     */
+    public static SharedCache create(Configuration conf) {
+      long maxSize = conf.getLong(ROW_CACHE_SIZE_KEY, DEFAULT_ROW_CACHE_SIZE);
+      return maxSize > 0 ? new SharedCache(maxSize) : null;
+    }
+  }
+
+  static final class Key {
+    private final RowCache owner;
+    private final byte[] row;
+    private final byte[] columns;
+    private final int hashCode;
+
+    Key(RowCache owner, byte[] row, byte[] columns) {
+      this.owner = owner;
+      this.row = row;
+      this.columns = columns;
+      this.hashCode = 31 * (31 * System.identityHashCode(owner) + Bytes.hashCode(row))
+          + Bytes.hashCode(columns);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hashCode == other.hashCode && owner == other.owner && Arrays.equals(row, other.row)
+          && Arrays.equals(columns, other.columns);
+    }
+  }
+
+  static final class Entry {
+    private final List<Cell> cells;
+    private final long readPoint;
+    private final long epoch;
+    private final long heapSize;
+
+    Entry(List<Cell> cells, long readPoint, long epoch, long heapSize) {
+      this.cells = cells;
+      this.readPoint = readPoint;
+      this.epoch = epoch;
+      this.heapSize = heapSize;
+    }
+  }
+}
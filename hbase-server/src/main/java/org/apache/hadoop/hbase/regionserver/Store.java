@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.regionserver;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableSet;
 
 import org.apache.hadoop.fs.FileSystem;
@@ -242,6 +243,11 @@ public interface Store extends HeapSize, StoreConfigInformation, PropagatingConf
     final TimeRangeTracker trt
   ) throws IOException;
 
+  /**
+   * @return Writer for a new StoreFile in the tmp dir.
+   */
+  StoreFileWriter createWriterInTmp(CreateStoreFileWriterParams params) throws IOException;
+
   // Compaction oriented methods
 
   boolean throttleCompaction(long compactionSize);
@@ -429,6 +435,12 @@ public interface Store extends HeapSize, StoreConfigInformation, PropagatingConf
    */
   long getStorefilesSize();
 
+  /**
+   * @return The size of the store files written with a storage policy of their own, in bytes, by
+   *         storage policy.
+   */
+  Map<String, Long> getStorefilesSizeByStoragePolicy();
+
   /**
    * @return The size of only the store files which are HFiles, in bytes.
    */
@@ -517,6 +529,11 @@ public interface Store extends HeapSize, StoreConfigInformation, PropagatingConf
    */
   long getMajorCompactedCellsSize();
 
+  /**
+   * @return The total size of the blocks written by compactions cached, in bytes
+   */
+  long getCompactionPrewarmedSize();
+
   /*
    * @param o Observer who wants to know about changes in set of Readers
    */
@@ -69,6 +69,9 @@ public interface StoreFile {
   /** Key for the number of mob cells in metadata */
   static final byte[] MOB_CELLS_COUNT = Bytes.toBytes("MOB_CELLS_COUNT");
 
+  /** Key for the storage policy the store file was written with, if set on the file itself */
+  static final byte[] STORAGE_POLICY_KEY = Bytes.toBytes("STORAGE_POLICY");
+
   /** Meta key set when store file is a result of a bulk load */
   static final byte[] BULKLOAD_TASK_KEY = Bytes.toBytes("BULKLOAD_SOURCE_TASK");
   static final byte[] BULKLOAD_TIME_KEY = Bytes.toBytes("BULKLOAD_TIMESTAMP");
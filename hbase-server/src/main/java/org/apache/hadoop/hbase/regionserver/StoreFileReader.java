@@ -554,6 +554,28 @@ public class StoreFileReader {
     return reader.getTrailer().getTotalUncompressedBytes();
   }
 
+  /**
+   * @return the uncompressed size of the data blocks of the file put in the block cache
+   * @see HFile.Reader#getCachedDataSize()
+   */
+  public long getCachedDataSize() {
+    return reader.getCachedDataSize();
+  }
+
+  /**
+   * @return the uncompressed size of the data blocks of the file read from the block cache
+   */
+  public long getCacheHitDataSize() {
+    return reader.getCacheHitDataSize();
+  }
+
+  /**
+   * Counts the data blocks of the file cached when it was written.
+   */
+  public void addCachedDataSize(long size) {
+    reader.addCachedDataSize(size);
+  }
+
   public long getEntries() {
     return reader.getEntries();
   }
@@ -22,6 +22,7 @@ import com.google.common.base.Preconditions;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
@@ -40,6 +41,7 @@ import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileScanner;
 import org.apache.hadoop.hbase.util.BloomContext;
 import org.apache.hadoop.hbase.util.BloomFilterFactory;
 import org.apache.hadoop.hbase.util.BloomFilterWriter;
@@ -266,6 +268,60 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     trackTimestamps(cell);
   }
 
+  /**
+   * @return true if {@link #appendDataBlocks(StoreFileReader)} can copy the data blocks of
+   *         <code>reader</code> into this file
+   */
+  public boolean canAppendDataBlocks(StoreFileReader reader) {
+    return writer.canAppendDataBlocks(reader.getHFileReader());
+  }
+
+  /**
+   * Appends all cells of <code>reader</code>, which must sort after all cells appended so far,
+   * by copying the data blocks of the file as they are. The cells are only read to build the
+   * Bloom filters of this file; the timestamps are taken from the metadata of the other file.
+   */
+  public void appendDataBlocks(StoreFileReader reader) throws IOException {
+    HFile.Reader hfileReader = reader.getHFileReader();
+    Map<byte[], byte[]> fileInfo = hfileReader.loadFileInfo();
+    byte[] deleteFamilyCount = fileInfo.get(StoreFile.DELETE_FAMILY_COUNT);
+    if (generalBloomFilterWriter != null || (deleteFamilyBloomFilterWriter != null
+        && (deleteFamilyCount == null || Bytes.toLong(deleteFamilyCount) > 0))) {
+      HFileScanner scanner = hfileReader.getScanner(false, false, true);
+      try {
+        if (scanner.seekTo()) {
+          do {
+            Cell cell = scanner.getCell();
+            appendGeneralBloomfilter(cell);
+            appendDeleteFamilyBloomFilter(cell);
+          } while (scanner.next());
+        }
+        // the Bloom filters must not refer to the blocks of the scanner
+        beforeShipped();
+      } finally {
+        scanner.close();
+      }
+    } else if (deleteFamilyCount != null) {
+      deleteFamilyCnt += Bytes.toLong(deleteFamilyCount);
+    }
+    writer.appendDataBlocks(hfileReader);
+    byte[] tmp = fileInfo.get(StoreFile.EARLIEST_PUT_TS);
+    earliestPutTs = tmp == null ? HConstants.OLDEST_TIMESTAMP
+        : Math.min(earliestPutTs, Bytes.toLong(tmp));
+    if (!timeRangeTrackerSet) {
+      TimeRangeTracker trt = TimeRangeTracker.getTimeRangeTracker(
+        fileInfo.get(StoreFile.TIMERANGE_KEY));
+      if (trt == null) {
+        // no information, must be an old file
+        timeRangeTracker.includeTimestamp(0);
+        timeRangeTracker.includeTimestamp(HConstants.LATEST_TIMESTAMP);
+      } else {
+        timeRangeTracker.includeTimestamp(trt.getMin());
+        timeRangeTracker.includeTimestamp(trt.getMax());
+      }
+    }
+  }
+
   @Override
   public void beforeShipped() throws IOException {
     // For now these writer will always be of type ShipperListener true.
@@ -387,6 +443,7 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     private HFileContext fileContext;
     private TimeRangeTracker trt;
     private boolean shouldDropCacheBehind;
+    private String fileStoragePolicy;
 
     public Builder(Configuration conf, CacheConfig cacheConf,
         FileSystem fs) {
@@ -479,6 +536,16 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       return this;
     }
 
+    /**
+     * @param fileStoragePolicy the storage policy of the file itself, which it keeps when it is
+     *          moved out of the temporary directory, unlike the one of the directory
+     * @return this (for chained invocation)
+     */
+    public Builder withFileStoragePolicy(String fileStoragePolicy) {
+      this.fileStoragePolicy = fileStoragePolicy;
+      return this;
+    }
+
     /**
      * Create a store file writer. Client is responsible for closing file when
      * done. If metadata, add BEFORE closing using
@@ -517,9 +584,15 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       if (comparator == null) {
         comparator = CellComparator.COMPARATOR;
       }
-      return new StoreFileWriter(fs, filePath,
+      StoreFileWriter writer = new StoreFileWriter(fs, filePath,
           conf, cacheConf, comparator, bloomType, maxKeyCount, favoredNodes, fileContext,
           shouldDropCacheBehind, trt);
+      if (fileStoragePolicy != null) {
+        // set before the first block of the file is allocated
+        FSUtils.setStoragePolicy(this.fs, filePath, fileStoragePolicy);
+        writer.appendFileInfo(StoreFile.STORAGE_POLICY_KEY, Bytes.toBytes(fileStoragePolicy));
+      }
+      return writer;
     }
   }
 }
@@ -20,13 +20,11 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
@@ -41,11 +39,9 @@ import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.client.IsolationLevel;
 import org.apache.hadoop.hbase.client.Scan;
-import org.apache.hadoop.hbase.executor.ExecutorService;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.regionserver.ScannerContext.LimitScope;
 import org.apache.hadoop.hbase.regionserver.ScannerContext.NextState;
-import org.apache.hadoop.hbase.regionserver.handler.ParallelSeekHandler;
 import org.apache.hadoop.hbase.regionserver.querymatcher.CompactionScanQueryMatcher;
 import org.apache.hadoop.hbase.regionserver.querymatcher.LegacyScanQueryMatcher;
 import org.apache.hadoop.hbase.regionserver.querymatcher.ScanQueryMatcher;
@@ -87,13 +83,17 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
    * A flag that enables StoreFileScanner parallel-seeking
    */
   private boolean parallelSeekEnabled = false;
-  private ExecutorService executor;
+  private ParallelStoreSeeker parallelSeeker;
+  // The store file seeks in flight, cancelled if the scanner is closed meanwhile
+  private volatile ParallelStoreSeeker.SeekBatch inflightSeek;
   private final Scan scan;
   private final long oldestUnexpiredTS;
   private final long now;
   private final int minVersions;
   private final long maxRowSize;
   private final long cellsPerHeartbeatCheck;
+  // The exclusive end of the rows a compaction of a row range reads, null for all rows
+  private byte[] compactionStopRow;
 
   // 1) Collects all the KVHeap that are eagerly getting closed during the
   //    course of a scan
@@ -207,12 +207,13 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
     }
     this.preadMaxBytes = scanInfo.getPreadMaxBytes();
     this.cellsPerHeartbeatCheck = scanInfo.getCellsPerTimeoutCheck();
-    // Parallel seeking is on if the config allows and more there is more than one store file.
-    if (this.store != null && this.store.getStorefilesCount() > 1) {
+    // Parallel seeking is on if the config allows. Whether a given seek is worth doing in
+    // parallel is decided per seek from the number of store files it touches.
+    if (this.store != null && scanInfo.isParallelSeekEnabled()) {
       RegionServerServices rsService = ((HStore) store).getHRegion().getRegionServerServices();
-      if (rsService != null && scanInfo.isParallelSeekEnabled()) {
+      if (rsService != null && rsService.getParallelStoreSeeker() != null) {
         this.parallelSeekEnabled = true;
-        this.executor = rsService.getExecutorService();
+        this.parallelSeeker = rsService.getParallelStoreSeeker();
       }
     }
   }
@@ -282,7 +283,27 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
   public StoreScanner(Store store, ScanInfo scanInfo, Scan scan,
       List<? extends KeyValueScanner> scanners, ScanType scanType,
       long smallestReadPoint, long earliestPutTs) throws IOException {
-    this(store, scanInfo, scan, scanners, scanType, smallestReadPoint, earliestPutTs, null, null);
+    this(store, scanInfo, scan, scanners, scanType, smallestReadPoint, earliestPutTs, null, null,
+        null, null);
+  }
+
+  /**
+   * Used for compactions that only read a range of rows of the files, e.g. one of the ranges of a
+   * compaction split over several threads.<p>
+   *
+   * Opens a scanner across specified StoreFiles.
+   * @param store who we scan
+   * @param scan the spec
+   * @param scanners ancillary scanners
+   * @param smallestReadPoint the readPoint that we should use for tracking versions
+   * @param startRow The inclusive first row to read; can be EMPTY_START_ROW.
+   * @param stopRow The exclusive last row to read; can be EMPTY_END_ROW.
+   */
+  public StoreScanner(Store store, ScanInfo scanInfo, Scan scan,
+      List<? extends KeyValueScanner> scanners, ScanType scanType, long smallestReadPoint,
+      long earliestPutTs, byte[] startRow, byte[] stopRow) throws IOException {
+    this(store, scanInfo, scan, scanners, scanType, smallestReadPoint, earliestPutTs, null, null,
+        startRow, stopRow);
   }
 
   /**
@@ -300,12 +321,13 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
       List<? extends KeyValueScanner> scanners, long smallestReadPoint, long earliestPutTs,
       byte[] dropDeletesFromRow, byte[] dropDeletesToRow) throws IOException {
     this(store, scanInfo, scan, scanners, ScanType.COMPACT_RETAIN_DELETES, smallestReadPoint,
-        earliestPutTs, dropDeletesFromRow, dropDeletesToRow);
+        earliestPutTs, dropDeletesFromRow, dropDeletesToRow, null, null);
   }
 
   private StoreScanner(Store store, ScanInfo scanInfo, Scan scan,
       List<? extends KeyValueScanner> scanners, ScanType scanType, long smallestReadPoint,
-      long earliestPutTs, byte[] dropDeletesFromRow, byte[] dropDeletesToRow) throws IOException {
+      long earliestPutTs, byte[] dropDeletesFromRow, byte[] dropDeletesToRow, byte[] startRow,
+      byte[] stopRow) throws IOException {
     this(store, scan, scanInfo, null,
         ((HStore) store).getHRegion().getReadPoint(IsolationLevel.READ_COMMITTED), false, scanType);
     if (scan.hasFilter() || (scan.getStartRow() != null && scan.getStartRow().length > 0)
@@ -325,8 +347,14 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
     // Filter the list of scanners using Bloom filters, time range, TTL, etc.
     scanners = selectScannersFrom(scanners);
 
+    if (stopRow != null && stopRow.length > 0) {
+      this.compactionStopRow = stopRow;
+    }
     // Seek all scanners to the initial key
-    seekScanners(scanners, matcher.getStartKey(), false, parallelSeekEnabled);
+    Cell startKey = startRow != null && startRow.length > 0
+        ? CellUtil.createFirstDeleteFamilyCellOnRow(startRow, scanInfo.getFamily())
+        : matcher.getStartKey();
+    seekScanners(scanners, startKey, false, parallelSeekEnabled);
     addCurrentScanners(scanners);
     // Combine all seeked scanners with a heap
     resetKVHeap(scanners, store.getComparator());
@@ -504,6 +532,12 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
     if (withDelayedScannersClose) {
       this.closing = true;
     }
+    ParallelStoreSeeker.SeekBatch seek = this.inflightSeek;
+    if (seek != null) {
+      // the seeks already running must be done before their scanners are closed below
+      seek.cancel();
+      seek.join();
+    }
     // Under test, we dont have a this.store
     if (this.store != null) {
       this.store.deleteChangedReaderObserver(this);
@@ -566,6 +600,12 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
       close(false);// Do all cleanup except heap.close()
       return scannerContext.setScannerState(NextState.NO_MORE_VALUES).hasMoreValues();
     }
+    // A call never returns cells of more than one row, so checking the first cell is enough
+    if (compactionStopRow != null && store.getComparator().compareRows(cell, compactionStopRow, 0,
+      compactionStopRow.length) >= 0) {
+      close(false);// Do all cleanup except heap.close()
+      return scannerContext.setScannerState(NextState.NO_MORE_VALUES).hasMoreValues();
+    }
 
     // only call setRow if the row changes; avoids confusing the query matcher
     // if scanning intra-row
@@ -1046,7 +1086,8 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
   }
 
   /**
-   * Seek storefiles in parallel to optimize IO latency as much as possible
+   * Seek storefiles in parallel to optimize IO latency as much as possible. Falls back to a serial
+   * seek when there are too few store files for the dispatch to pay off.
    * @param scanners the list {@link KeyValueScanner}s to be read from
    * @param kv the KeyValue on which the operation is being requested
    * @throws IOException
@@ -1054,31 +1095,24 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
   private void parallelSeek(final List<? extends KeyValueScanner>
       scanners, final Cell kv) throws IOException {
     if (scanners.isEmpty()) return;
-    int storeFileScannerCount = scanners.size();
-    CountDownLatch latch = new CountDownLatch(storeFileScannerCount);
-    List<ParallelSeekHandler> handlers = new ArrayList<>(storeFileScannerCount);
+    int storeFileScannerCount = 0;
     for (KeyValueScanner scanner : scanners) {
       if (scanner instanceof StoreFileScanner) {
-        ParallelSeekHandler seekHandler = new ParallelSeekHandler(scanner, kv,
-          this.readPt, latch);
-        executor.submit(seekHandler);
-        handlers.add(seekHandler);
-      } else {
+        storeFileScannerCount++;
+      }
+    }
+    if (!parallelSeeker.shouldSeekInParallel(storeFileScannerCount)) {
+      for (KeyValueScanner scanner : scanners) {
         scanner.seek(kv);
-        latch.countDown();
       }
+      return;
     }
-
+    ParallelStoreSeeker.SeekBatch seek = parallelSeeker.submit(scanners, kv);
+    this.inflightSeek = seek;
     try {
-      latch.await();
-    } catch (InterruptedException ie) {
-      throw (InterruptedIOException)new InterruptedIOException().initCause(ie);
-    }
-
-    for (ParallelSeekHandler handler : handlers) {
-      if (handler.getErr() != null) {
-        throw new IOException(handler.getErr());
-      }
+      seek.await();
+    } finally {
+      this.inflightSeek = null;
     }
   }
 
@@ -109,13 +109,17 @@ public class StripeStoreFlusher extends StoreFlusher {
     return new StripeMultiFileWriter.WriterFactory() {
       @Override
       public StoreFileWriter createWriter() throws IOException {
-        StoreFileWriter writer = store.createWriterInTmp(
-            kvCount, store.getFamily().getCompressionType(),
-            /* isCompaction = */ false,
-            /* includeMVCCReadpoint = */ true,
-            /* includesTags = */ true,
-            /* shouldDropBehind = */ false,
-            tracker);
+        return createWriterWithStoragePolicy(null);
+      }
+
+      @Override
+      public StoreFileWriter createWriterWithStoragePolicy(String fileStoragePolicy)
+          throws IOException {
+        StoreFileWriter writer = store.createWriterInTmp(CreateStoreFileWriterParams.create()
+            .maxKeyCount(kvCount).compression(store.getFamily().getCompressionType())
+            .isCompaction(false).includeMVCCReadpoint(true).includesTag(true)
+            .shouldDropBehind(false).timeRangeTracker(tracker)
+            .fileStoragePolicy(fileStoragePolicy));
         return writer;
       }
     };
@@ -88,6 +88,23 @@ public class CompactionConfiguration {
   private static final Class<? extends CompactionWindowFactory>
     DEFAULT_DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS = ExponentialCompactionWindowFactory.class;
 
+  /*
+   * Whether the date tiered compactions write the files of the windows with the storage policy
+   * of their age, hot or cold
+   */
+  public static final String DATE_TIERED_STORAGE_POLICY_ENABLE_KEY =
+    "hbase.hstore.compaction.date.tiered.storage.policy.enable";
+  /*
+   * The age of the newest cells of the windows whose files are written with the cold storage
+   * policy
+   */
+  public static final String DATE_TIERED_COLD_WINDOW_AGE_MILLIS_KEY =
+    "hbase.hstore.compaction.date.tiered.cold.window.age.millis";
+  public static final String DATE_TIERED_HOT_WINDOW_STORAGE_POLICY_KEY =
+    "hbase.hstore.compaction.date.tiered.hot.window.storage.policy";
+  public static final String DATE_TIERED_COLD_WINDOW_STORAGE_POLICY_KEY =
+    "hbase.hstore.compaction.date.tiered.cold.window.storage.policy";
+
   Configuration conf;
   StoreConfigInformation storeConfigInfo;
 
@@ -109,6 +126,10 @@ public class CompactionConfiguration {
   private final String compactionPolicyForDateTieredWindow;
   private final boolean dateTieredSingleOutputForMinorCompaction;
   private final String dateTieredCompactionWindowFactory;
+  private final boolean dateTieredStoragePolicyEnable;
+  private final long dateTieredColdWindowAgeMillis;
+  private final String dateTieredHotWindowStoragePolicy;
+  private final String dateTieredColdWindowStoragePolicy;
 
   CompactionConfiguration(Configuration conf, StoreConfigInformation storeConfigInfo) {
     this.conf = conf;
@@ -142,6 +163,14 @@ public class CompactionConfiguration {
     this.dateTieredCompactionWindowFactory = conf.get(
       DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS_KEY,
       DEFAULT_DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS.getName());
+    dateTieredStoragePolicyEnable =
+        conf.getBoolean(DATE_TIERED_STORAGE_POLICY_ENABLE_KEY, false);
+    dateTieredColdWindowAgeMillis =
+        conf.getLong(DATE_TIERED_COLD_WINDOW_AGE_MILLIS_KEY, 7L * 24 * 60 * 60 * 1000);
+    // the cold policy defaults to HOT, i.e. disks, as ARCHIVE storage is not always there
+    dateTieredHotWindowStoragePolicy =
+        conf.get(DATE_TIERED_HOT_WINDOW_STORAGE_POLICY_KEY, "ONE_SSD");
+    dateTieredColdWindowStoragePolicy = conf.get(DATE_TIERED_COLD_WINDOW_STORAGE_POLICY_KEY, "HOT");
     LOG.info(this);
   }
 
@@ -152,7 +181,8 @@ public class CompactionConfiguration {
       + " major period %d, major jitter %f, min locality to compact %f;"
       + " tiered compaction: max_age %d, incoming window min %d,"
       + " compaction policy for tiered window %s, single output for minor %b,"
-      + " compaction window factory %s",
+      + " compaction window factory %s, storage policy %b, cold window age %d,"
+      + " hot window storage policy %s, cold window storage policy %s",
       minCompactSize,
       maxCompactSize,
       offPeakMaxCompactSize,
@@ -168,7 +198,11 @@ public class CompactionConfiguration {
       dateTieredIncomingWindowMin,
       compactionPolicyForDateTieredWindow,
       dateTieredSingleOutputForMinorCompaction,
-      dateTieredCompactionWindowFactory
+      dateTieredCompactionWindowFactory,
+      dateTieredStoragePolicyEnable,
+      dateTieredColdWindowAgeMillis,
+      dateTieredHotWindowStoragePolicy,
+      dateTieredColdWindowStoragePolicy
       );
   }
 
@@ -285,4 +319,20 @@ public class CompactionConfiguration {
   public String getDateTieredCompactionWindowFactory() {
     return dateTieredCompactionWindowFactory;
   }
+
+  public boolean isDateTieredStoragePolicyEnable() {
+    return dateTieredStoragePolicyEnable;
+  }
+
+  public long getDateTieredColdWindowAgeMillis() {
+    return dateTieredColdWindowAgeMillis;
+  }
+
+  public String getDateTieredHotWindowStoragePolicy() {
+    return dateTieredHotWindowStoragePolicy;
+  }
+
+  public String getDateTieredColdWindowStoragePolicy() {
+    return dateTieredColdWindowStoragePolicy;
+  }
 }
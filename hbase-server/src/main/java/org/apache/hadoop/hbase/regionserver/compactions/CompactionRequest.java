@@ -53,6 +53,8 @@ public class CompactionRequest implements Comparable<CompactionRequest> {
   private String regionName = "";
   private String storeName = "";
   private long totalSize = -1L;
+  // whether the data blocks written by the compaction were cached
+  private boolean dataPrewarmed = false;
 
   /**
    * This ctor should be used by coprocessors that want to subclass CompactionRequest.
@@ -145,6 +147,13 @@ public class CompactionRequest implements Comparable<CompactionRequest> {
     return this.filesToCompact;
   }
 
+  /**
+   * @return the files the output of the compaction replaces, by default all the files it reads
+   */
+  public Collection<StoreFile> getReplacedFiles() {
+    return getFiles();
+  }
+
   /**
    * Sets the region/store name, for logging.
    */
@@ -185,6 +194,17 @@ public class CompactionRequest implements Comparable<CompactionRequest> {
     this.isOffPeak = value;
   }
 
+  /**
+   * @return true if the compaction cached the data blocks of the files it wrote
+   */
+  public boolean isDataPrewarmed() {
+    return this.dataPrewarmed;
+  }
+
+  public void setDataPrewarmed(boolean value) {
+    this.dataPrewarmed = value;
+  }
+
   public long getSelectionTime() {
     return this.selectionTime;
   }
@@ -0,0 +1,271 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * A compaction which a region server hands over to a
+ * {@link org.apache.hadoop.hbase.regionserver.CompactionWorker}, and the result the worker hands
+ * back. Both go through files of a directory shared by the region servers and the workers, named
+ * after the id of the compaction:
+ * <ul>
+ * <li><code>id.task</code> is written by the region server, and renamed to
+ * <code>id.running</code> by the worker which takes it, or to <code>id.cancelled</code> by the
+ * region server if no worker took it in time. The rename decides who gets it.</li>
+ * <li><code>id.running</code> is renamed to <code>id.done</code> by the worker when the
+ * compaction is done, or to <code>id.cancelled</code> by the region server when it gives up on
+ * the compaction. This rename fences the worker: a cancelled worker deletes its new files and
+ * does not hand back a result.</li>
+ * <li><code>id.result</code> is written by the worker with the paths of the new files, in the
+ * temporary directory of the region, once it renamed the task to <code>id.done</code>.</li>
+ * <li><code>id.failed</code> is written by the worker with the error if the compaction failed.</li>
+ * </ul>
+ * The region server commits the new files itself, as it does for the compactions it runs.
+ */
+@InterfaceAudience.Private
+public class CompactionTask {
+
+  public static final String TASK_SUFFIX = ".task";
+  public static final String RUNNING_SUFFIX = ".running";
+  public static final String CANCELLED_SUFFIX = ".cancelled";
+  public static final String DONE_SUFFIX = ".done";
+  public static final String RESULT_SUFFIX = ".result";
+  public static final String FAILED_SUFFIX = ".failed";
+
+  private static final int VERSION = 1;
+
+  private static final int MAX_ERROR_LENGTH = 16 * 1024;
+
+  private final Path regionDir;
+  private final byte[] family;
+  private final List<String> fileNames;
+  private final boolean major;
+  private final boolean allFiles;
+  private final long smallestReadPoint;
+
+  public CompactionTask(Path regionDir, byte[] family, List<String> fileNames, boolean major,
+      boolean allFiles, long smallestReadPoint) {
+    this.regionDir = regionDir;
+    this.family = family;
+    this.fileNames = fileNames;
+    this.major = major;
+    this.allFiles = allFiles;
+    this.smallestReadPoint = smallestReadPoint;
+  }
+
+  public Path getRegionDir() {
+    return regionDir;
+  }
+
+  public byte[] getFamily() {
+    return family;
+  }
+
+  /**
+   * @return the names of the store files to compact, in the directory of the family
+   */
+  public List<String> getFileNames() {
+    return fileNames;
+  }
+
+  public boolean isMajor() {
+    return major;
+  }
+
+  public boolean isAllFiles() {
+    return allFiles;
+  }
+
+  /**
+   * @return the smallest read point of the region when the compaction was requested, which the
+   *         worker compacts with instead of the one of its own copy of the region
+   */
+  public long getSmallestReadPoint() {
+    return smallestReadPoint;
+  }
+
+  /**
+   * @return the id of the compaction of a task or result file
+   */
+  public static String getId(Path path) {
+    String name = path.getName();
+    int index = name.lastIndexOf('.');
+    return index < 0 ? name : name.substring(0, index);
+  }
+
+  public static Path getPath(Path dir, String id, String suffix) {
+    return new Path(dir, id + suffix);
+  }
+
+  public void write(FileSystem fs, Path path) throws IOException {
+    DataOutputStream out = fs.create(path, false);
+    try {
+      write(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  public static CompactionTask read(FileSystem fs, Path path) throws IOException {
+    DataInputStream in = fs.open(path);
+    try {
+      return read(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeInt(VERSION);
+    out.writeUTF(regionDir.toString());
+    Bytes.writeByteArray(out, family);
+    out.writeInt(fileNames.size());
+    for (String fileName : fileNames) {
+      out.writeUTF(fileName);
+    }
+    out.writeBoolean(major);
+    out.writeBoolean(allFiles);
+    out.writeLong(smallestReadPoint);
+  }
+
+  static CompactionTask read(DataInput in) throws IOException {
+    checkVersion(in.readInt());
+    Path regionDir = new Path(in.readUTF());
+    byte[] family = Bytes.readByteArray(in);
+    int numFiles = in.readInt();
+    List<String> fileNames = new ArrayList<>(numFiles);
+    for (int i = 0; i < numFiles; i++) {
+      fileNames.add(in.readUTF());
+    }
+    boolean major = in.readBoolean();
+    boolean allFiles = in.readBoolean();
+    long smallestReadPoint = in.readLong();
+    return new CompactionTask(regionDir, family, fileNames, major, allFiles, smallestReadPoint);
+  }
+
+  /**
+   * Writes the error of a failed compaction to a temporary file first, as for a result.
+   */
+  public static void writeFailure(FileSystem fs, Path path, String error) throws IOException {
+    Path tmpPath = new Path(path.getParent(), path.getName() + ".tmp");
+    DataOutputStream out = fs.create(tmpPath, true);
+    try {
+      // writeUTF takes at most 64KB
+      out.writeUTF(
+        error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+    } finally {
+      out.close();
+    }
+    if (!fs.rename(tmpPath, path)) {
+      throw new IOException("Failed to rename " + tmpPath + " to " + path);
+    }
+  }
+
+  public static String readFailure(FileSystem fs, Path path) throws IOException {
+    DataInputStream in = fs.open(path);
+    try {
+      return in.readUTF();
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void checkVersion(int version) throws IOException {
+    if (version != VERSION) {
+      throw new IOException("Unsupported compaction task version " + version);
+    }
+  }
+
+  /**
+   * The outcome of a compaction done by a worker.
+   */
+  public static class Result {
+    private final List<Path> newFiles;
+    private final long totalCompactingKVs;
+    private final long totalCompactedSize;
+
+    public Result(List<Path> newFiles, long totalCompactingKVs, long totalCompactedSize) {
+      this.newFiles = newFiles;
+      this.totalCompactingKVs = totalCompactingKVs;
+      this.totalCompactedSize = totalCompactedSize;
+    }
+
+    public List<Path> getNewFiles() {
+      return Collections.unmodifiableList(newFiles);
+    }
+
+    public long getTotalCompactingKVs() {
+      return totalCompactingKVs;
+    }
+
+    public long getTotalCompactedSize() {
+      return totalCompactedSize;
+    }
+
+    /**
+     * Writes the result to a temporary file first, so that the region server never reads a
+     * partial result.
+     */
+    public void write(FileSystem fs, Path path) throws IOException {
+      Path tmpPath = new Path(path.getParent(), path.getName() + ".tmp");
+      DataOutputStream out = fs.create(tmpPath, true);
+      try {
+        out.writeInt(VERSION);
+        out.writeInt(newFiles.size());
+        for (Path newFile : newFiles) {
+          out.writeUTF(newFile.toString());
+        }
+        out.writeLong(totalCompactingKVs);
+        out.writeLong(totalCompactedSize);
+      } finally {
+        out.close();
+      }
+      if (!fs.rename(tmpPath, path)) {
+        throw new IOException("Failed to rename " + tmpPath + " to " + path);
+      }
+    }
+
+    public static Result read(FileSystem fs, Path path) throws IOException {
+      DataInputStream in = fs.open(path);
+      try {
+        checkVersion(in.readInt());
+        int numFiles = in.readInt();
+        List<Path> newFiles = new ArrayList<>(numFiles);
+        for (int i = 0; i < numFiles; i++) {
+          newFiles.add(new Path(in.readUTF()));
+        }
+        return new Result(newFiles, in.readLong(), in.readLong());
+      } finally {
+        in.close();
+      }
+    }
+  }
+}
@@ -34,13 +34,18 @@ import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.RegionObserver;
 import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.hfile.BlockPriority;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.io.hfile.HFile.FileInfo;
 import org.apache.hadoop.hbase.regionserver.CellSink;
+import org.apache.hadoop.hbase.regionserver.CreateStoreFileWriterParams;
 import org.apache.hadoop.hbase.regionserver.HStore;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.KeyValueScanner;
+import org.apache.hadoop.hbase.regionserver.RegionCoprocessorHost;
 import org.apache.hadoop.hbase.regionserver.ScanType;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
 import org.apache.hadoop.hbase.regionserver.ShipperListener;
@@ -87,6 +92,9 @@ public abstract class Compactor<T extends CellSink> {
   private boolean dropCacheMajor;
   private boolean dropCacheMinor;
 
+  private final boolean prewarmBlocks;
+  private final float prewarmDataRatio;
+
   //TODO: depending on Store is not good but, realistically, all compactors currently do.
   Compactor(final Configuration conf, final Store store) {
     this.conf = conf;
@@ -99,6 +107,10 @@ public abstract class Compactor<T extends CellSink> {
       HConstants.MIN_KEEP_SEQID_PERIOD), HConstants.MIN_KEEP_SEQID_PERIOD);
     this.dropCacheMajor = conf.getBoolean(MAJOR_COMPACTION_DROP_CACHE, true);
     this.dropCacheMinor = conf.getBoolean(MINOR_COMPACTION_DROP_CACHE, true);
+    this.prewarmBlocks = conf.getBoolean(CacheConfig.PREWARM_COMPACTED_BLOCKS_KEY,
+      CacheConfig.DEFAULT_PREWARM_COMPACTED_BLOCKS);
+    this.prewarmDataRatio = conf.getFloat(CacheConfig.PREWARM_COMPACTED_DATA_RATIO_KEY,
+      CacheConfig.DEFAULT_PREWARM_COMPACTED_DATA_RATIO);
   }
 
 
@@ -128,6 +140,10 @@ public abstract class Compactor<T extends CellSink> {
     public int maxTagsLength = 0;
     /** Min SeqId to keep during a major compaction **/
     public long minSeqIdToKeep = 0;
+    /** Priority of the blocks of the compacted files, null if the blocks written are not cached */
+    public BlockPriority prewarmPriority = null;
+    /** Whether to cache the data blocks written, as enough of the compacted ones are cached */
+    public boolean prewarmData = false;
   }
 
   /**
@@ -207,9 +223,66 @@ public abstract class Compactor<T extends CellSink> {
           (allFiles ? ", earliestPutTs=" + earliestPutTs: ""));
       }
     }
+    setPrewarm(fd, filesToCompact);
     return fd;
   }
 
+  /**
+   * Decides how the blocks written are cached, so that the reads of hot files do not miss once
+   * they are replaced. The data blocks of cold files are not cached. The blocks are cached with
+   * the priority the blocks of the compacted files likely have: in-memory for an in-memory
+   * family, else multi access if their cached data was read again on average.
+   * <p>
+   * This relies on the sizes each reader counts of the data it cached and of the data it read
+   * from the cache, as walking the block cache would be too costly.
+   */
+  private void setPrewarm(FileDetails fd, Collection<StoreFile> filesToCompact) {
+    CacheConfig cacheConf = store.getCacheConfig();
+    if (!prewarmBlocks || cacheConf == null || cacheConf.getBlockCache() == null) {
+      return;
+    }
+    long dataSize = 0;
+    long cachedSize = 0;
+    long hitSize = 0;
+    for (StoreFile file : filesToCompact) {
+      StoreFileReader r = file.getReader();
+      if (r != null) {
+        dataSize += r.getTotalUncompressedBytes();
+        // a block evicted and read again is counted twice
+        cachedSize += Math.min(r.getCachedDataSize(), r.getTotalUncompressedBytes());
+        hitSize += r.getCacheHitDataSize();
+      }
+    }
+    if (cacheConf.isInMemory()) {
+      fd.prewarmPriority = BlockPriority.MEMORY;
+    } else if (cachedSize > 0 && hitSize >= cachedSize) {
+      fd.prewarmPriority = BlockPriority.MULTI;
+    } else {
+      fd.prewarmPriority = BlockPriority.SINGLE;
+    }
+    fd.prewarmData = prewarmDataRatio > 0 && dataSize > 0
+        && cachedSize >= prewarmDataRatio * dataSize;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(TraditionalBinaryPrefix.long2String(cachedSize, "", 1) + " of the "
+          + TraditionalBinaryPrefix.long2String(dataSize, "", 1) + " of data compacted in "
+          + store + " cached, " + (fd.prewarmData ? "caching" : "not caching")
+          + " the data blocks written, priority=" + fd.prewarmPriority);
+    }
+  }
+
+  /**
+   * @return the parameters of the writers of the compaction
+   */
+  protected CreateStoreFileWriterParams createWriterParams(FileDetails fd,
+      boolean shouldDropBehind) {
+    // When all MVCC readpoints are 0, don't write them.
+    // See HBASE-8166, HBASE-12600, and HBASE-13389.
+    return CreateStoreFileWriterParams.create().maxKeyCount(fd.maxKeyCount)
+        .compression(this.compactionCompression).isCompaction(true)
+        .includeMVCCReadpoint(fd.maxMVCCReadpoint > 0).includesTag(fd.maxTagsLength > 0)
+        .shouldDropBehind(shouldDropBehind).prewarm(fd.prewarmPriority, fd.prewarmData);
+  }
+
   /**
    * Creates file scanners for compaction.
    * @param filesToCompact Files.
@@ -257,30 +330,41 @@ public abstract class Compactor<T extends CellSink> {
    */
   protected StoreFileWriter createTmpWriter(FileDetails fd, boolean shouldDropBehind)
       throws IOException {
-    // When all MVCC readpoints are 0, don't write them.
-    // See HBASE-8166, HBASE-12600, and HBASE-13389.
-    return store.createWriterInTmp(fd.maxKeyCount, this.compactionCompression,
-    /* isCompaction = */true,
-    /* includeMVCCReadpoint = */fd.maxMVCCReadpoint > 0,
-    /* includesTags = */fd.maxTagsLength > 0, shouldDropBehind);
+    return store.createWriterInTmp(createWriterParams(fd, shouldDropBehind));
+  }
+
+  /**
+   * Creates a writer for a new file in a temporary directory, with a storage policy of its own.
+   * @param fd The file details.
+   * @param fileStoragePolicy the storage policy of the new file
+   * @return Writer for a new StoreFile in the tmp dir.
+   * @throws IOException if creation failed
+   */
+  protected StoreFileWriter createTmpWriter(FileDetails fd, boolean shouldDropBehind,
+      String fileStoragePolicy) throws IOException {
+    return store.createWriterInTmp(
+      createWriterParams(fd, shouldDropBehind).fileStoragePolicy(fileStoragePolicy));
+  }
+
+  /**
+   * @return true if the pages written by the compaction should be dropped from the page cache
+   */
+  protected boolean shouldDropBehind(CompactionRequest request) {
+    return request.isMajor() || request.isAllFiles() ? this.dropCacheMajor : this.dropCacheMinor;
   }
 
   protected List<Path> compact(final CompactionRequest request,
       InternalScannerFactory scannerFactory, CellSinkFactory<T> sinkFactory,
       ThroughputController throughputController, User user) throws IOException {
     FileDetails fd = getFileDetails(request.getFiles(), request.isAllFiles());
+    request.setDataPrewarmed(fd.prewarmData);
     this.progress = new CompactionProgress(fd.maxKeyCount);
 
     // Find the smallest read point across all the Scanners.
     long smallestReadPoint = getSmallestReadPoint();
 
     T writer = null;
-    boolean dropCache;
-    if (request.isMajor() || request.isAllFiles()) {
-      dropCache = this.dropCacheMajor;
-    } else {
-      dropCache = this.dropCacheMinor;
-    }
+    boolean dropCache = shouldDropBehind(request);
 
     List<StoreFileScanner> scanners =
         createFileScanners(request.getFiles(), smallestReadPoint, dropCache);
@@ -362,6 +446,19 @@ public abstract class Compactor<T extends CellSink> {
     return store.getCoprocessorHost().preCompact(store, scanner, scanType, request, user);
   }
 
+  /**
+   * @return true if the store has region observers, whose compaction hooks need the cells to go
+   *         through the scanner of the compaction
+   */
+  protected boolean hasRegionObservers() {
+    return hasRegionObservers(store);
+  }
+
+  static boolean hasRegionObservers(Store store) {
+    RegionCoprocessorHost host = store.getCoprocessorHost();
+    return host != null && !host.findCoprocessors(RegionObserver.class).isEmpty();
+  }
+
   /**
    * Performs the compaction.
    * @param fd FileDetails of cell sink writer
@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.regionserver.StoreScanner;
+import org.apache.hadoop.hbase.regionserver.TimeRangeTracker;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputControlUtil;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+/**
+ * A {@link DefaultCompactor} which copies the data blocks of files that do not overlap any other
+ * file of a minor compaction into the new file as they are, without decoding, merging and
+ * re-encoding their cells.
+ * <p>
+ * A file is copied when the range of its rows is disjoint from the ranges of all other files of
+ * the compaction, none of its cells has expired, it was not bulk loaded, and its blocks are
+ * stored with the compression, data block encoding and tag settings of the new file. Only the
+ * block index and the Bloom filters of the copied cells are built anew. The other files are
+ * compacted cell by cell, in the ranges of rows between the copied files, into the same new file.
+ * <p>
+ * A minor compaction keeps delete markers and does not merge rows of different files, so copying
+ * a disjoint file gives the same cells as compacting it, except for versions in excess or cells
+ * masked by a delete marker of the same file, which are dropped by the next major compaction.
+ * Major compactions, the steps of an {@link IncrementalMajorCompactionPolicy} round and compactions
+ * of stores with region observers are always compacted cell by cell. Enable by setting
+ * {@link org.apache.hadoop.hbase.regionserver.DefaultStoreEngine#DEFAULT_COMPACTOR_CLASS_KEY} to
+ * this class.
+ */
+@InterfaceAudience.Private
+public class CopyThroughCompactor extends DefaultCompactor {
+  private static final Log LOG = LogFactory.getLog(CopyThroughCompactor.class);
+
+  public CopyThroughCompactor(Configuration conf, Store store) {
+    super(conf, store);
+  }
+
+  @Override
+  public List<Path> compact(CompactionRequest request, ThroughputController throughputController,
+      User user) throws IOException {
+    if (request.isAllFiles() || hasRegionObservers()
+        || request instanceof MajorSliceCompactionRequest) {
+      // the steps of an incremental major compaction split files or only keep a range of rows
+      return super.compact(request, throughputController, user);
+    }
+    List<StoreFile> filesToCopy = getFilesToCopy(request.getFiles(), store.getComparator(),
+      getOldestUnexpiredTs());
+    if (filesToCopy.isEmpty()) {
+      return super.compact(request, throughputController, user);
+    }
+    FileDetails fd = getFileDetails(request.getFiles(), request.isAllFiles());
+    request.setDataPrewarmed(fd.prewarmData);
+    this.progress = new CompactionProgress(fd.maxKeyCount);
+    long smallestReadPoint = getSmallestReadPoint();
+    boolean dropCache = shouldDropBehind(request);
+    StoreFileWriter writer = createTmpWriter(fd, dropCache);
+    boolean finished = false;
+    try {
+      // files the new file can not take as they are go through the cell path
+      for (Iterator<StoreFile> it = filesToCopy.iterator(); it.hasNext();) {
+        if (!writer.canAppendDataBlocks(it.next().getReader())) {
+          it.remove();
+        }
+      }
+      List<StoreFile> filesToMerge = new ArrayList<>(request.getFiles());
+      filesToMerge.removeAll(filesToCopy);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Copying the data blocks of " + filesToCopy.size() + " of "
+            + request.getFiles().size() + " file(s) of " + store);
+      }
+      finished = compact(fd, filesToCopy, filesToMerge, writer, smallestReadPoint, dropCache,
+        throughputController);
+      if (!finished) {
+        throw new InterruptedIOException("Aborting compaction of store " + store + " in region "
+            + store.getRegionInfo().getRegionNameAsString() + " because it was interrupted.");
+      }
+    } finally {
+      if (!finished) {
+        abortWriter(writer);
+      }
+    }
+    progress.complete();
+    return commitWriter(writer, fd, request);
+  }
+
+  /**
+   * Writes the cells of the files in row order: the files to merge are compacted in the ranges
+   * of rows before, between and after the files to copy, which are sorted by row.
+   */
+  private boolean compact(FileDetails fd, List<StoreFile> filesToCopy,
+      List<StoreFile> filesToMerge, StoreFileWriter writer, long smallestReadPoint,
+      boolean dropCache, ThroughputController throughputController) throws IOException {
+    byte[] startRow = HConstants.EMPTY_START_ROW;
+    for (StoreFile file : filesToCopy) {
+      StoreFileReader reader = file.getReader();
+      byte[] stopRow = CellUtil.cloneRow(reader.getFirstKey());
+      if (!compactRange(fd, filesToMerge, startRow, stopRow, writer, smallestReadPoint, dropCache,
+        throughputController)) {
+        return false;
+      }
+      if (!copyDataBlocks(reader, writer, throughputController)) {
+        return false;
+      }
+      // the first row after the last row of the copied file
+      startRow = Bytes.add(reader.getLastRowKey(), new byte[1]);
+    }
+    return compactRange(fd, filesToMerge, startRow, HConstants.EMPTY_END_ROW, writer,
+      smallestReadPoint, dropCache, throughputController);
+  }
+
+  /**
+   * Compacts the rows [startRow, stopRow) of the files which have cells in this range.
+   */
+  private boolean compactRange(FileDetails fd, List<StoreFile> files, byte[] startRow,
+      byte[] stopRow, StoreFileWriter writer, long smallestReadPoint, boolean dropCache,
+      ThroughputController throughputController) throws IOException {
+    List<StoreFile> filesInRange = new ArrayList<>();
+    for (StoreFile file : files) {
+      StoreFileReader reader = file.getReader();
+      if (reader.getEntries() > 0 && Bytes.compareTo(reader.getLastRowKey(), startRow) >= 0
+          && (Bytes.equals(stopRow, HConstants.EMPTY_END_ROW)
+              || Bytes.compareTo(CellUtil.cloneRow(reader.getFirstKey()), stopRow) < 0)) {
+        filesInRange.add(file);
+      }
+    }
+    if (filesInRange.isEmpty()) {
+      return true;
+    }
+    List<StoreFileScanner> scanners =
+        createFileScanners(filesInRange, smallestReadPoint, dropCache);
+    Scan scan = new Scan();
+    scan.setMaxVersions(store.getFamily().getMaxVersions());
+    InternalScanner scanner = new StoreScanner(store, store.getScanInfo(), scan, scanners,
+        ScanType.COMPACT_RETAIN_DELETES, smallestReadPoint, fd.earliestPutTs, startRow, stopRow);
+    try {
+      long totalCompactingKVs = progress.totalCompactingKVs;
+      boolean finished = performCompaction(fd, scanner, writer, smallestReadPoint, false,
+        throughputController, false, filesInRange.size());
+      if (finished) {
+        // the compaction goes on after this range
+        progress.totalCompactingKVs = totalCompactingKVs;
+      }
+      return finished;
+    } finally {
+      scanner.close();
+    }
+  }
+
+  private boolean copyDataBlocks(StoreFileReader reader, StoreFileWriter writer,
+      ThroughputController throughputController) throws IOException {
+    if (!store.areWritesEnabled()) {
+      progress.cancel();
+      return false;
+    }
+    String compactionName = ThroughputControlUtil.getNameForThrottling(store, "compaction");
+    throughputController.start(compactionName);
+    try {
+      writer.appendDataBlocks(reader);
+      progress.currentCompactedKVs += reader.getEntries();
+      progress.totalCompactedSize += reader.length();
+      throughputController.control(compactionName, reader.length());
+    } catch (InterruptedException e) {
+      progress.cancel();
+      throw new InterruptedIOException("Interrupted while control throughput of compacting "
+          + compactionName);
+    } finally {
+      throughputController.finish(compactionName);
+    }
+    return true;
+  }
+
+  private long getOldestUnexpiredTs() {
+    long ttl = store.getScanInfo().getTtl();
+    return ttl == Long.MAX_VALUE ? Long.MIN_VALUE : EnvironmentEdgeManager.currentTime() - ttl;
+  }
+
+  /**
+   * @return the files whose rows do not overlap the rows of any other file, without expired
+   *         cells and not bulk loaded, sorted by row
+   */
+  static List<StoreFile> getFilesToCopy(Collection<StoreFile> files,
+      final CellComparator comparator, long oldestUnexpiredTs) throws IOException {
+    List<StoreFile> sorted = new ArrayList<>(files.size());
+    for (StoreFile file : files) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null) {
+        return Collections.emptyList();
+      }
+      if (reader.getEntries() > 0) {
+        sorted.add(file);
+      }
+    }
+    Collections.sort(sorted, new Comparator<StoreFile>() {
+      @Override
+      public int compare(StoreFile a, StoreFile b) {
+        return comparator.compareRows(a.getReader().getFirstKey(), b.getReader().getFirstKey());
+      }
+    });
+    List<StoreFile> filesToCopy = new ArrayList<>();
+    Cell maxLastKey = null;
+    for (int i = 0; i < sorted.size(); i++) {
+      StoreFileReader reader = sorted.get(i).getReader();
+      boolean disjoint =
+          (maxLastKey == null || comparator.compareRows(maxLastKey, reader.getFirstKey()) < 0)
+          && (i + 1 == sorted.size() || comparator.compareRows(reader.getLastKey(),
+            sorted.get(i + 1).getReader().getFirstKey()) < 0);
+      if (disjoint && canCopy(sorted.get(i), oldestUnexpiredTs)) {
+        filesToCopy.add(sorted.get(i));
+      }
+      if (maxLastKey == null || comparator.compareRows(maxLastKey, reader.getLastKey()) < 0) {
+        maxLastKey = reader.getLastKey();
+      }
+    }
+    return filesToCopy;
+  }
+
+  private static boolean canCopy(StoreFile file, long oldestUnexpiredTs) throws IOException {
+    StoreFileReader reader = file.getReader();
+    if (file.isReference() || file.isBulkLoadResult() || reader.isBulkLoaded()) {
+      return false;
+    }
+    TimeRangeTracker trt = TimeRangeTracker.getTimeRangeTracker(
+      reader.loadFileInfo().get(StoreFile.TIMERANGE_KEY));
+    return trt != null && trt.getMin() >= oldestUnexpiredTs;
+  }
+}
@@ -18,7 +18,9 @@
 package org.apache.hadoop.hbase.regionserver.compactions;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,17 +33,29 @@ import org.apache.hadoop.hbase.regionserver.Store;
 import org.apache.hadoop.hbase.regionserver.StoreUtils;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+import com.google.common.annotations.VisibleForTesting;
 
 /**
  * This compactor will generate StoreFile for different time ranges.
+ * <p>
+ * If {@link CompactionConfiguration#DATE_TIERED_STORAGE_POLICY_ENABLE_KEY} is set, the files of
+ * the windows whose newest cells are older than
+ * {@link CompactionConfiguration#DATE_TIERED_COLD_WINDOW_AGE_MILLIS_KEY} are written with the cold
+ * storage policy, and the files of the other windows with the hot one, e.g. on disks and on SSDs.
+ * The policies are set on the files themselves, so they keep them once moved into the store.
  */
 @InterfaceAudience.Private
 public class DateTieredCompactor extends AbstractMultiOutputCompactor<DateTieredMultiFileWriter> {
 
   private static final Log LOG = LogFactory.getLog(DateTieredCompactor.class);
 
+  private final CompactionConfiguration comConf;
+
   public DateTieredCompactor(Configuration conf, Store store) {
     super(conf, store);
+    this.comConf = new CompactionConfiguration(conf, store);
   }
 
   private boolean needEmptyFile(CompactionRequest request) {
@@ -50,12 +64,35 @@ public class DateTieredCompactor extends AbstractMultiOutputCompactor<DateTiered
     return StoreUtils.getMaxSequenceIdInList(request.getFiles()) == store.getMaxSequenceId();
   }
 
+  /**
+   * @return the storage policies of the files of the windows, by lower boundary
+   */
+  @VisibleForTesting
+  Map<Long, String> getLowerBoundariesPolicies(List<Long> lowerBoundaries) {
+    Map<Long, String> lowerBoundariesPolicies = new HashMap<>();
+    if (!comConf.isDateTieredStoragePolicyEnable()) {
+      return lowerBoundariesPolicies;
+    }
+    long coldBoundary =
+        EnvironmentEdgeManager.currentTime() - comConf.getDateTieredColdWindowAgeMillis();
+    for (int i = 0; i < lowerBoundaries.size(); i++) {
+      // the upper boundary of a window is the lower boundary of the next one
+      long upperBoundary =
+          i + 1 < lowerBoundaries.size() ? lowerBoundaries.get(i + 1) : Long.MAX_VALUE;
+      lowerBoundariesPolicies.put(lowerBoundaries.get(i),
+        upperBoundary <= coldBoundary ? comConf.getDateTieredColdWindowStoragePolicy()
+            : comConf.getDateTieredHotWindowStoragePolicy());
+    }
+    return lowerBoundariesPolicies;
+  }
+
   public List<Path> compact(final CompactionRequest request, final List<Long> lowerBoundaries,
       ThroughputController throughputController, User user) throws IOException {
     if (LOG.isDebugEnabled()) {
       LOG.debug("Executing compaction with " + lowerBoundaries.size()
           + "windows, lower boundaries: " + lowerBoundaries);
     }
+    final Map<Long, String> lowerBoundariesPolicies = getLowerBoundariesPolicies(lowerBoundaries);
 
     return compact(request, defaultScannerFactory,
       new CellSinkFactory<DateTieredMultiFileWriter>() {
@@ -64,7 +101,7 @@ public class DateTieredCompactor extends AbstractMultiOutputCompactor<DateTiered
         public DateTieredMultiFileWriter createWriter(InternalScanner scanner, FileDetails fd,
             boolean shouldDropBehind) throws IOException {
           DateTieredMultiFileWriter writer = new DateTieredMultiFileWriter(lowerBoundaries,
-              needEmptyFile(request));
+              lowerBoundariesPolicies, needEmptyFile(request));
           initMultiWriter(writer, scanner, fd, shouldDropBehind);
           return writer;
         }
@@ -26,10 +26,15 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.ScanType;
 import org.apache.hadoop.hbase.regionserver.Store;
 import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
 import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.regionserver.StoreScanner;
+import org.apache.hadoop.hbase.regionserver.StripeMultiFileWriter;
 import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.hadoop.hbase.security.User;
@@ -63,9 +68,47 @@ public class DefaultCompactor extends Compactor<StoreFileWriter> {
    */
   public List<Path> compact(final CompactionRequest request,
       ThroughputController throughputController, User user) throws IOException {
+    if (request instanceof MajorSliceCompactionRequest) {
+      MajorSliceCompactionRequest slice = (MajorSliceCompactionRequest) request;
+      if (slice.getSplitBoundaries() != null) {
+        SliceSplitCompactor splitter = new SliceSplitCompactor(conf, store);
+        try {
+          return splitter.compact(slice, throughputController, user);
+        } finally {
+          this.progress = splitter.getProgress();
+        }
+      }
+      return compact(request, createSliceScannerFactory(slice), writerFactory,
+        throughputController, user);
+    }
     return compact(request, defaultScannerFactory, writerFactory, throughputController, user);
   }
 
+  /**
+   * @return a factory of scanners which only read the rows of the slice
+   */
+  private InternalScannerFactory createSliceScannerFactory(
+      final MajorSliceCompactionRequest slice) {
+    return new InternalScannerFactory() {
+
+      @Override
+      public ScanType getScanType(CompactionRequest request) {
+        // the files the slice reads but keeps may hold cells its deletes cover
+        return slice.isReplacingAllFiles() ? ScanType.COMPACT_DROP_DELETES
+            : ScanType.COMPACT_RETAIN_DELETES;
+      }
+
+      @Override
+      public InternalScanner createScanner(List<StoreFileScanner> scanners, ScanType scanType,
+          FileDetails fd, long smallestReadPoint) throws IOException {
+        Scan scan = new Scan();
+        scan.setMaxVersions(store.getFamily().getMaxVersions());
+        return new StoreScanner(store, store.getScanInfo(), scan, scanners, scanType,
+            smallestReadPoint, fd.earliestPutTs, slice.getStartRow(), slice.getStopRow());
+      }
+    };
+  }
+
   /**
    * Compact a list of files for testing. Creates a fake {@link CompactionRequest} to pass to
    * {@link #compact(CompactionRequest, ThroughputController, User)};
@@ -88,6 +131,10 @@ public class DefaultCompactor extends Compactor<StoreFileWriter> {
       CompactionRequest request) throws IOException {
     List<Path> newFiles = Lists.newArrayList(writer.getPath());
     writer.appendMetadata(fd.maxSeqId, request.isAllFiles());
+    if (request instanceof MajorSliceCompactionRequest) {
+      writer.appendFileInfo(IncrementalMajorCompactionPolicy.MAJOR_SLICE_KEY,
+        ((MajorSliceCompactionRequest) request).getProgress());
+    }
     writer.close();
     return newFiles;
   }
@@ -108,4 +155,44 @@ public class DefaultCompactor extends Compactor<StoreFileWriter> {
         e);
     }
   }
+
+  /**
+   * Splits files of a {@link IncrementalMajorCompactionPolicy} round into one file per slice,
+   * keeping their deletes.
+   */
+  private static class SliceSplitCompactor
+      extends AbstractMultiOutputCompactor<StripeMultiFileWriter> {
+
+    SliceSplitCompactor(Configuration conf, Store store) {
+      super(conf, store);
+    }
+
+    List<Path> compact(final MajorSliceCompactionRequest request,
+        ThroughputController throughputController, User user) throws IOException {
+      return compact(request, defaultScannerFactory, new CellSinkFactory<StripeMultiFileWriter>() {
+
+        @Override
+        public StripeMultiFileWriter createWriter(InternalScanner scanner, FileDetails fd,
+            boolean shouldDropBehind) throws IOException {
+          StripeMultiFileWriter writer = new StripeMultiFileWriter.BoundaryMultiWriter(
+              store.getComparator(), request.getSplitBoundaries(), null, null) {
+            @Override
+            protected void preCloseWriter(StoreFileWriter fileWriter) throws IOException {
+              // the files belong to the round rather than to a stripe
+              fileWriter.appendFileInfo(IncrementalMajorCompactionPolicy.MAJOR_SLICE_KEY,
+                request.getProgress());
+            }
+          };
+          initMultiWriter(writer, scanner, fd, shouldDropBehind);
+          return writer;
+        }
+      }, throughputController, user);
+    }
+
+    @Override
+    protected List<Path> commitWriter(StripeMultiFileWriter writer, FileDetails fd,
+        CompactionRequest request) throws IOException {
+      return writer.commitWriters(fd.maxSeqId, false);
+    }
+  }
 }
@@ -0,0 +1,482 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreUtils;
+import org.apache.hadoop.hbase.regionserver.StripeStoreFileManager;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * An {@link ExploringCompactionPolicy} which does the periodic major compactions of large stores
+ * one slice of rows at a time, instead of rewriting the whole store in one compaction.
+ * <p>
+ * When a major compaction is due and the store is larger than {@value #SLICE_SIZE_KEY}, a round
+ * starts: the rows of the store are cut into slices of about that size. The files of the round
+ * which hold rows of several slices are first split into one file per slice, a few files at a
+ * time, keeping their deletes. The slices are then compacted one after the other. The compaction
+ * of a slice reads the rows of the slice from every file which has some, writes them to one file,
+ * and replaces the files which only hold rows of the slice. It drops deletes like a major
+ * compaction when it replaces every file it reads, that is when no file flushed during the round
+ * holds rows of other slices too. So a round never needs more space than the store and one slice
+ * or one group of split files. There is at most one compaction of a round every
+ * {@value #SLICE_INTERVAL_KEY} milliseconds. The next round keeps the slices of the last one if
+ * the store still has as many, so it only splits the files flushed since.
+ * <p>
+ * The progress of a round is written to the files of its slices, so a reopened region resumes the
+ * round where it was. The files flushed during a round are compacted as usual, but never with the
+ * files of the round. Forced major compactions still compact the whole store at once, as do the
+ * compactions of stores with region observers, which may replace the scanners of compactions.
+ * Enable by setting "hbase.hstore.defaultengine.compactionpolicy.class" to this class.
+ */
+@InterfaceAudience.Private
+public class IncrementalMajorCompactionPolicy extends ExploringCompactionPolicy {
+  private static final Log LOG = LogFactory.getLog(IncrementalMajorCompactionPolicy.class);
+
+  /** The approximate size of the slices. Stores of at most this size are compacted at once. */
+  public static final String SLICE_SIZE_KEY = "hbase.hstore.compaction.major.slice.size";
+  public static final long DEFAULT_SLICE_SIZE = 4L * 1024 * 1024 * 1024;
+
+  /** The minimum time between the compactions of two slices of a store, in milliseconds. */
+  public static final String SLICE_INTERVAL_KEY = "hbase.hstore.compaction.major.slice.interval";
+  public static final long DEFAULT_SLICE_INTERVAL = 10 * 60 * 1000L;
+
+  /** Key for the progress of the round of major compaction in the metadata of its files */
+  public static final byte[] MAJOR_SLICE_KEY = Bytes.toBytes("MAJOR_SLICE");
+
+  private final long sliceSize;
+  private final long sliceInterval;
+
+  public IncrementalMajorCompactionPolicy(Configuration conf,
+      StoreConfigInformation storeConfigInfo) {
+    super(conf, storeConfigInfo);
+    this.sliceSize = Math.max(1, conf.getLong(SLICE_SIZE_KEY, DEFAULT_SLICE_SIZE));
+    this.sliceInterval = conf.getLong(SLICE_INTERVAL_KEY, DEFAULT_SLICE_INTERVAL);
+  }
+
+  /**
+   * A round of major compaction: its slices, its files, and the last slice compacted.
+   */
+  @VisibleForTesting
+  static class Round {
+    /** The time the round started at, which identifies it */
+    final long id;
+    /** The first rows of all slices but the first */
+    final List<byte[]> boundaries;
+    /** The names of the files of the store when the round started */
+    final Set<String> fileNames;
+    /** The index of the last slice compacted, -1 if the files of the round are being split */
+    final int slice;
+    /** The time the last slice was selected at */
+    final long sliceTime;
+
+    Round(long id, List<byte[]> boundaries, Set<String> fileNames, int slice, long sliceTime) {
+      this.id = id;
+      this.boundaries = boundaries;
+      this.fileNames = fileNames;
+      this.slice = slice;
+      this.sliceTime = sliceTime;
+    }
+
+    int getSliceCount() {
+      return boundaries.size() + 1;
+    }
+
+    byte[] getStartRow(int index) {
+      return index == 0 ? HConstants.EMPTY_START_ROW : boundaries.get(index - 1);
+    }
+
+    byte[] getStopRow(int index) {
+      return index == boundaries.size() ? HConstants.EMPTY_END_ROW : boundaries.get(index);
+    }
+
+    /**
+     * @return true if the file is one of the files of the round, or was written by one of its
+     *         slices
+     */
+    boolean contains(StoreFile file) {
+      if (fileNames.contains(file.getPath().getName())) {
+        return true;
+      }
+      Round round = parseFrom(file);
+      return round != null && round.id == id;
+    }
+
+    byte[] toBytes() throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeLong(id);
+      out.writeInt(slice);
+      out.writeLong(sliceTime);
+      out.writeInt(boundaries.size());
+      for (byte[] boundary : boundaries) {
+        Bytes.writeByteArray(out, boundary);
+      }
+      out.writeInt(fileNames.size());
+      for (String fileName : fileNames) {
+        out.writeUTF(fileName);
+      }
+      out.close();
+      return bytes.toByteArray();
+    }
+
+    /**
+     * @return the progress written to the file, or null if it was not written by a slice
+     */
+    static Round parseFrom(StoreFile file) {
+      byte[] value = file.getMetadataValue(MAJOR_SLICE_KEY);
+      if (value == null) {
+        return null;
+      }
+      try {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+        long id = in.readLong();
+        int slice = in.readInt();
+        long sliceTime = in.readLong();
+        int boundaryCount = in.readInt();
+        List<byte[]> boundaries = new ArrayList<>(boundaryCount);
+        for (int i = 0; i < boundaryCount; i++) {
+          boundaries.add(Bytes.readByteArray(in));
+        }
+        int fileCount = in.readInt();
+        Set<String> fileNames = new HashSet<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+          fileNames.add(in.readUTF());
+        }
+        return new Round(id, boundaries, fileNames, slice, sliceTime);
+      } catch (IOException e) {
+        LOG.warn("Ignoring the unreadable major compaction progress of " + file, e);
+        return null;
+      }
+    }
+  }
+
+  /**
+   * @return the latest round of the store, done or not, or null if there is none
+   */
+  private Round getLatestRound(Collection<StoreFile> files) {
+    Round latest = null;
+    for (StoreFile file : files) {
+      Round round = Round.parseFrom(file);
+      if (round != null && (latest == null || round.id > latest.id
+          || (round.id == latest.id && (round.slice > latest.slice
+              || (round.slice == latest.slice && round.sliceTime > latest.sliceTime))))) {
+        latest = round;
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * @return the round in progress in the store, or null if there is none. A round is over once
+   *         none of its files is left to split or to compact.
+   */
+  @VisibleForTesting
+  Round getRound(Collection<StoreFile> files) {
+    Round latest = getLatestRound(files);
+    if (latest == null) {
+      return null;
+    }
+    for (StoreFile file : files) {
+      if (isPending(latest, file)) {
+        return latest;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return true if a later step of the round will replace the file, because it holds rows of
+   *         several slices or of a slice which is not compacted yet
+   */
+  private boolean isPending(Round round, StoreFile file) {
+    if (!round.contains(file)) {
+      return false;
+    }
+    int index = getSlice(round, file);
+    return index < 0 || index > round.slice;
+  }
+
+  @Override
+  public CompactionRequest selectCompaction(Collection<StoreFile> candidateFiles,
+      List<StoreFile> filesCompacting, boolean isUserCompaction, boolean mayUseOffPeak,
+      boolean forceMajor) throws IOException {
+    if ((forceMajor && isUserCompaction) || StoreUtils.hasReferences(candidateFiles)
+        || hasRegionObservers()) {
+      return super.selectCompaction(candidateFiles, filesCompacting, isUserCompaction,
+        mayUseOffPeak, forceMajor);
+    }
+    long now = EnvironmentEdgeManager.currentTime();
+    Round round = getRound(candidateFiles);
+    boolean started = false;
+    if (round == null) {
+      if (forceMajor || shouldPerformMajorCompaction(candidateFiles)) {
+        round = startRound(candidateFiles, now);
+        started = round != null;
+      }
+      if (round == null) {
+        return super.selectCompaction(candidateFiles, filesCompacting, isUserCompaction,
+          mayUseOffPeak, forceMajor);
+      }
+    }
+    if (started || now - round.sliceTime >= sliceInterval) {
+      CompactionRequest request = selectNext(round, candidateFiles, filesCompacting, now);
+      if (request != null) {
+        return request;
+      }
+    }
+    // the files of the round still hold the cells the delete markers of the others may cover
+    List<StoreFile> candidates = new ArrayList<>(candidateFiles.size());
+    for (StoreFile file : candidateFiles) {
+      if (!round.contains(file)) {
+        candidates.add(file);
+      }
+    }
+    List<StoreFile> compacting = new ArrayList<>(filesCompacting.size());
+    for (StoreFile file : filesCompacting) {
+      if (!round.contains(file)) {
+        compacting.add(file);
+      }
+    }
+    CompactionRequest request = super.selectCompaction(candidates, compacting, isUserCompaction,
+      mayUseOffPeak, false);
+    request.setIsMajor(false, false);
+    return request;
+  }
+
+  @Override
+  public boolean needsCompaction(Collection<StoreFile> storeFiles,
+      List<StoreFile> filesCompacting) {
+    if (super.needsCompaction(storeFiles, filesCompacting)) {
+      return true;
+    }
+    Round round = getRound(storeFiles);
+    return round != null
+        && EnvironmentEdgeManager.currentTime() - round.sliceTime >= sliceInterval;
+  }
+
+  /**
+   * @return a new round over the files, or null if the store is small enough to be compacted at
+   *         once
+   */
+  private Round startRound(Collection<StoreFile> files, long now) {
+    Round last = getLatestRound(files);
+    long totalSize = 0;
+    Set<String> fileNames = new HashSet<>(files.size());
+    for (StoreFile file : files) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null) {
+        return null;
+      }
+      totalSize += reader.length();
+      fileNames.add(file.getPath().getName());
+    }
+    long sliceCount = (totalSize + sliceSize - 1) / sliceSize;
+    if (sliceCount < 2) {
+      return null;
+    }
+    // the files of the last round which only hold the rows of a slice need no split
+    List<byte[]> boundaries = last != null && last.getSliceCount() == sliceCount
+        ? last.boundaries : ParallelRangeCompactor.getRangeBoundaries(files,
+          (int) Math.min(Integer.MAX_VALUE, sliceCount), getComparator());
+    if (boundaries.isEmpty()) {
+      return null;
+    }
+    LOG.info("Starting a major compaction of " + files.size() + " file(s) of " + storeConfigInfo
+        + " in " + (boundaries.size() + 1) + " slices");
+    return new Round(now, boundaries, fileNames, -1, now);
+  }
+
+  /**
+   * Selects the next step of the round: the split of some of its files which hold rows of several
+   * slices, or once there are none, the compaction of the next slice.
+   * @return the compaction of the step, or null if some of its files are being compacted
+   */
+  private CompactionRequest selectNext(Round round, Collection<StoreFile> candidateFiles,
+      List<StoreFile> filesCompacting, long now) throws IOException {
+    List<StoreFile> spanning = new ArrayList<>();
+    for (StoreFile file : candidateFiles) {
+      if (round.contains(file) && getSlice(round, file) < 0) {
+        spanning.add(file);
+      }
+    }
+    return spanning.isEmpty() ? selectSlice(round, candidateFiles, filesCompacting, now)
+        : selectSplit(round, spanning, filesCompacting, now);
+  }
+
+  /**
+   * Selects files of the round which hold rows of several slices, up to the size of a slice, to
+   * split them into one file per slice. The split keeps the deletes, as the files it replaces
+   * are not all the files with rows of the slices.
+   */
+  private CompactionRequest selectSplit(Round round, List<StoreFile> spanning,
+      List<StoreFile> filesCompacting, long now) throws IOException {
+    List<StoreFile> files = new ArrayList<>();
+    long size = 0;
+    for (StoreFile file : spanning) {
+      if (filesCompacting.contains(file)) {
+        continue;
+      }
+      StoreFileReader reader = file.getReader();
+      long length = reader == null ? 0 : reader.length();
+      if (!files.isEmpty() && size + length > sliceSize) {
+        break;
+      }
+      files.add(file);
+      size += length;
+    }
+    if (files.isEmpty()) {
+      return null;
+    }
+    List<byte[]> boundaries = new ArrayList<>(round.boundaries.size() + 2);
+    boundaries.add(StripeStoreFileManager.OPEN_KEY);
+    boundaries.addAll(round.boundaries);
+    boundaries.add(StripeStoreFileManager.OPEN_KEY);
+    Round progress = new Round(round.id, round.boundaries, round.fileNames, round.slice, now);
+    MajorSliceCompactionRequest request =
+        new MajorSliceCompactionRequest(files, boundaries, progress.toBytes());
+    request.setIsMajor(false, false);
+    LOG.info("Selected " + files.size() + " of " + spanning.size() + " file(s) to split into the "
+        + round.getSliceCount() + " slices of the major compaction of " + storeConfigInfo);
+    return request;
+  }
+
+  /**
+   * Selects the next slice of the round, and the slices after it if they have no file.
+   * @return the compaction of the slices, or null if some of their files are being compacted
+   */
+  private CompactionRequest selectSlice(Round round, Collection<StoreFile> candidateFiles,
+      List<StoreFile> filesCompacting, long now) throws IOException {
+    int first = round.slice + 1;
+    byte[] startRow = round.getStartRow(first);
+    List<StoreFile> files = new ArrayList<>();
+    List<StoreFile> replacedFiles = new ArrayList<>();
+    int last = first;
+    for (; last < round.getSliceCount(); last++) {
+      byte[] stopRow = round.getStopRow(last);
+      for (StoreFile file : candidateFiles) {
+        if (isInside(file, startRow, stopRow)) {
+          files.add(file);
+          replacedFiles.add(file);
+        } else if (overlaps(file, startRow, stopRow)) {
+          files.add(file);
+        }
+      }
+      if (!files.isEmpty()) {
+        break;
+      }
+    }
+    if (files.isEmpty()) {
+      return null;
+    }
+    for (StoreFile file : files) {
+      if (filesCompacting.contains(file)) {
+        return null;
+      }
+    }
+    byte[] stopRow = round.getStopRow(last);
+    Round progress = new Round(round.id, round.boundaries, round.fileNames, last, now);
+    MajorSliceCompactionRequest request = new MajorSliceCompactionRequest(files, replacedFiles,
+        startRow, stopRow, progress.toBytes());
+    // the deletes may only be dropped if no file keeps cells of the slice they may cover
+    request.setIsMajor(true, replacedFiles.size() == files.size());
+    LOG.info("Selected slice " + (last + 1) + " of " + round.getSliceCount()
+        + " of the major compaction of " + storeConfigInfo + ": " + files.size()
+        + " file(s), replacing " + replacedFiles.size());
+    return request;
+  }
+
+  /**
+   * @return the index of the slice of the round which holds all rows of the file, or -1 if the
+   *         file holds rows of several slices
+   */
+  private int getSlice(Round round, StoreFile file) {
+    for (int i = 0; i < round.getSliceCount(); i++) {
+      if (isInside(file, round.getStartRow(i), round.getStopRow(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private CellComparator getComparator() {
+    return storeConfigInfo instanceof Store ? ((Store) storeConfigInfo).getComparator()
+        : CellComparator.COMPARATOR;
+  }
+
+  private boolean hasRegionObservers() {
+    return storeConfigInfo instanceof Store
+        && Compactor.hasRegionObservers((Store) storeConfigInfo);
+  }
+
+  /**
+   * @return true if all rows of the file are in [startRow, stopRow)
+   */
+  private boolean isInside(StoreFile file, byte[] startRow, byte[] stopRow) {
+    Cell firstKey = file.getFirstKey();
+    Cell lastKey = file.getLastKey();
+    if (firstKey == null || lastKey == null) {
+      return true;
+    }
+    CellComparator comparator = getComparator();
+    return (startRow.length == 0
+        || comparator.compareRows(firstKey, startRow, 0, startRow.length) >= 0)
+        && (stopRow.length == 0
+        || comparator.compareRows(lastKey, stopRow, 0, stopRow.length) < 0);
+  }
+
+  /**
+   * @return true if some rows of the file are in [startRow, stopRow)
+   */
+  private boolean overlaps(StoreFile file, byte[] startRow, byte[] stopRow) {
+    Cell firstKey = file.getFirstKey();
+    Cell lastKey = file.getLastKey();
+    if (firstKey == null || lastKey == null) {
+      return true;
+    }
+    CellComparator comparator = getComparator();
+    return (startRow.length == 0
+        || comparator.compareRows(lastKey, startRow, 0, startRow.length) >= 0)
+        && (stopRow.length == 0
+        || comparator.compareRows(firstKey, stopRow, 0, stopRow.length) < 0);
+  }
+}
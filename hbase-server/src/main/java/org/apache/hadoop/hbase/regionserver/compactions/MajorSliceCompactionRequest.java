@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * A step of a major compaction done by {@link IncrementalMajorCompactionPolicy}. Either the
+ * compaction of one slice of rows, which reads the rows [startRow, stopRow) of all its files but
+ * only replaces the files which have no other rows, or the split of files into one file per slice,
+ * along the split boundaries.
+ */
+@edu.umd.cs.findbugs.annotations.SuppressWarnings(value="EQ_DOESNT_OVERRIDE_EQUALS",
+  justification="It is intended to use the same equal method as superclass")
+public class MajorSliceCompactionRequest extends CompactionRequest {
+  private final Collection<StoreFile> replacedFiles;
+  private final byte[] startRow;
+  private final byte[] stopRow;
+  private final byte[] progress;
+  private final List<byte[]> splitBoundaries;
+
+  /**
+   * @param files the files to read the rows of the slice from
+   * @param replacedFiles the files the output replaces
+   * @param progress the progress of the major compaction once this slice is done, written to the
+   *          output
+   */
+  public MajorSliceCompactionRequest(Collection<StoreFile> files,
+      Collection<StoreFile> replacedFiles, byte[] startRow, byte[] stopRow, byte[] progress) {
+    super(files);
+    this.replacedFiles = replacedFiles;
+    this.startRow = startRow;
+    this.stopRow = stopRow;
+    this.progress = progress;
+    this.splitBoundaries = null;
+  }
+
+  /**
+   * @param files the files to split, which the output replaces
+   * @param splitBoundaries the first row of each slice, between two open keys
+   * @param progress the progress of the major compaction, written to the output
+   */
+  public MajorSliceCompactionRequest(Collection<StoreFile> files, List<byte[]> splitBoundaries,
+      byte[] progress) {
+    super(files);
+    this.replacedFiles = files;
+    this.startRow = HConstants.EMPTY_START_ROW;
+    this.stopRow = HConstants.EMPTY_END_ROW;
+    this.progress = progress;
+    this.splitBoundaries = splitBoundaries;
+  }
+
+  @Override
+  public Collection<StoreFile> getReplacedFiles() {
+    return replacedFiles;
+  }
+
+  public byte[] getStartRow() {
+    return startRow;
+  }
+
+  public byte[] getStopRow() {
+    return stopRow;
+  }
+
+  public byte[] getProgress() {
+    return progress;
+  }
+
+  /**
+   * @return the boundaries to split the files along, or null if this is the compaction of a slice
+   */
+  public List<byte[]> getSplitBoundaries() {
+    return splitBoundaries;
+  }
+
+  /**
+   * @return true if the output replaces every file read, so the deletes of the slice can be
+   *         dropped
+   */
+  public boolean isReplacingAllFiles() {
+    return splitBoundaries == null && replacedFiles.containsAll(getFiles());
+  }
+
+  @Override
+  public String toString() {
+    if (splitBoundaries != null) {
+      return super.toString() + " split into " + (splitBoundaries.size() - 1) + " slices";
+    }
+    return super.toString() + " slice=[" + Bytes.toStringBinary(startRow) + ", "
+        + Bytes.toStringBinary(stopRow) + ") replacing " + replacedFiles.size() + " file(s)";
+  }
+}
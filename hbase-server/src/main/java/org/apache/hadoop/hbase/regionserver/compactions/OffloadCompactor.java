@@ -0,0 +1,266 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.CompactionWorker;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.FSUtils;
+
+/**
+ * A {@link DefaultCompactor} which hands its compactions over to {@link CompactionWorker}
+ * processes, so that the reads, merges and writes of the compactions do not compete with the
+ * requests the region server serves for CPU, heap and page cache.
+ * <p>
+ * The compaction is written as a {@link CompactionTask} to the directory
+ * {@value #OFFLOAD_DIR_KEY}, where it is taken by one of the workers polling it, on this node or
+ * on any other. If {@value #OFFLOAD_LOCAL_COMMAND_KEY} is set, a worker is also launched on this
+ * node for the compaction with this command, e.g. <code>$HBASE_HOME/bin/hbase</code>. The worker
+ * writes the new files to the temporary directory of the region, and the region server commits
+ * them as it commits the files of the compactions it runs.
+ * <p>
+ * A compaction no worker takes within {@value #OFFLOAD_CLAIM_TIMEOUT_KEY} milliseconds is run by
+ * the region server. So are the compactions of stores with region observers, whose hooks need
+ * the cells of the compaction. Enable by setting
+ * {@link org.apache.hadoop.hbase.regionserver.DefaultStoreEngine#DEFAULT_COMPACTOR_CLASS_KEY} to
+ * this class.
+ */
+@InterfaceAudience.Private
+public class OffloadCompactor extends DefaultCompactor {
+  private static final Log LOG = LogFactory.getLog(OffloadCompactor.class);
+
+  /** The directory the region servers hand compactions over to the workers in */
+  public static final String OFFLOAD_DIR_KEY = "hbase.hstore.compaction.offload.dir";
+
+  /** The command which launches a worker on the region server node for each compaction */
+  public static final String OFFLOAD_LOCAL_COMMAND_KEY =
+      "hbase.hstore.compaction.offload.local.command";
+
+  public static final String OFFLOAD_CLAIM_TIMEOUT_KEY =
+      "hbase.hstore.compaction.offload.claim.timeout";
+  private static final long DEFAULT_OFFLOAD_CLAIM_TIMEOUT = 60 * 1000L;
+
+  public static final String OFFLOAD_TIMEOUT_KEY = "hbase.hstore.compaction.offload.timeout";
+  private static final long DEFAULT_OFFLOAD_TIMEOUT = 60 * 60 * 1000L;
+
+  /** The longest interval the region server checks the files of a compaction at */
+  public static final String OFFLOAD_POLL_INTERVAL_KEY =
+      "hbase.hstore.compaction.offload.poll.interval";
+  private static final long DEFAULT_OFFLOAD_POLL_INTERVAL = 10 * 1000L;
+  private static final long MIN_POLL_INTERVAL = 100L;
+
+  private final long claimTimeout;
+  private final long timeout;
+  private final long pollInterval;
+
+  public OffloadCompactor(Configuration conf, Store store) {
+    super(conf, store);
+    this.claimTimeout = conf.getLong(OFFLOAD_CLAIM_TIMEOUT_KEY, DEFAULT_OFFLOAD_CLAIM_TIMEOUT);
+    this.timeout = conf.getLong(OFFLOAD_TIMEOUT_KEY, DEFAULT_OFFLOAD_TIMEOUT);
+    this.pollInterval = conf.getLong(OFFLOAD_POLL_INTERVAL_KEY, DEFAULT_OFFLOAD_POLL_INTERVAL);
+  }
+
+  /**
+   * @return the directory the region servers hand compactions over to the workers in
+   */
+  public static Path getOffloadDir(Configuration conf) throws IOException {
+    String dir = conf.get(OFFLOAD_DIR_KEY);
+    if (dir != null) {
+      return new Path(dir);
+    }
+    return new Path(new Path(FSUtils.getRootDir(conf), HConstants.HBASE_TEMP_DIRECTORY),
+        "compactions");
+  }
+
+  @Override
+  public List<Path> compact(CompactionRequest request, ThroughputController throughputController,
+      User user) throws IOException {
+    if (!(store instanceof HStore) || hasRegionObservers()
+        || request instanceof MajorSliceCompactionRequest) {
+      return super.compact(request, throughputController, user);
+    }
+    FileDetails fd = getFileDetails(request.getFiles(), request.isAllFiles());
+    this.progress = new CompactionProgress(fd.maxKeyCount);
+    List<String> fileNames = new ArrayList<>(request.getFiles().size());
+    for (StoreFile file : request.getFiles()) {
+      fileNames.add(file.getPath().getName());
+    }
+    CompactionTask task = new CompactionTask(
+        ((HStore) store).getRegionFileSystem().getRegionDir(), store.getFamily().getName(),
+        fileNames, request.isMajor(), request.isAllFiles(), getSmallestReadPoint());
+
+    Path dir = getOffloadDir(conf);
+    FileSystem fs = dir.getFileSystem(conf);
+    String id = UUID.randomUUID().toString();
+    Path taskPath = CompactionTask.getPath(dir, id, CompactionTask.TASK_SUFFIX);
+    fs.mkdirs(dir);
+    task.write(fs, taskPath);
+    Process worker = null;
+    boolean done = false;
+    try {
+      worker = launchLocalWorker(taskPath);
+      CompactionTask.Result result = waitForResult(fs, dir, id, worker);
+      done = true;
+      if (result == null) {
+        LOG.info("No worker took compaction " + id + " of " + store + " in " + claimTimeout
+            + " ms, compacting in the region server");
+        return super.compact(request, throughputController, user);
+      }
+      progress.totalCompactingKVs = result.getTotalCompactingKVs();
+      progress.totalCompactedSize = result.getTotalCompactedSize();
+      progress.complete();
+      return result.getNewFiles();
+    } finally {
+      if (!done) {
+        cancel(fs, dir, id);
+      }
+      if (worker != null) {
+        worker.destroy();
+      }
+      for (String suffix : new String[] { CompactionTask.TASK_SUFFIX,
+          CompactionTask.RUNNING_SUFFIX, CompactionTask.CANCELLED_SUFFIX,
+          CompactionTask.DONE_SUFFIX, CompactionTask.RESULT_SUFFIX,
+          CompactionTask.FAILED_SUFFIX }) {
+        Path path = CompactionTask.getPath(dir, id, suffix);
+        try {
+          fs.delete(path, false);
+        } catch (IOException e) {
+          LOG.warn("Failed to delete " + path, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Cancels a compaction the region server gave up on, e.g. because it timed out or because the
+   * region is closing. A worker which is still compacting stops, and never hands back the files
+   * it wrote, which the region server may no longer be allowed to commit.
+   */
+  private void cancel(FileSystem fs, Path dir, String id) {
+    Path cancelledPath = CompactionTask.getPath(dir, id, CompactionTask.CANCELLED_SUFFIX);
+    try {
+      if (fs.rename(CompactionTask.getPath(dir, id, CompactionTask.TASK_SUFFIX), cancelledPath)
+          || fs.rename(CompactionTask.getPath(dir, id, CompactionTask.RUNNING_SUFFIX),
+            cancelledPath)) {
+        return;
+      }
+      if (fs.exists(CompactionTask.getPath(dir, id, CompactionTask.DONE_SUFFIX))) {
+        // the worker finished first, its files stay in the temporary directory of the region,
+        // which is cleaned up when the region is opened
+        LOG.info("Compaction " + id + " of " + store + " finished while it was being cancelled");
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to cancel compaction " + id + " of " + store, e);
+    }
+  }
+
+  private Process launchLocalWorker(Path taskPath) throws IOException {
+    String command = conf.get(OFFLOAD_LOCAL_COMMAND_KEY);
+    if (command == null) {
+      return null;
+    }
+    ProcessBuilder builder = new ProcessBuilder(command, CompactionWorker.class.getName(),
+        CompactionWorker.TASK_OPTION, taskPath.toString());
+    builder.redirectErrorStream(true);
+    builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+    return builder.start();
+  }
+
+  /**
+   * Waits until a worker is done with the compaction. A local worker is waited for until it
+   * exits. Otherwise the files of the compaction are checked at intervals which double from
+   * {@value #MIN_POLL_INTERVAL} ms up to the value of {@value #OFFLOAD_POLL_INTERVAL_KEY}.
+   * @return the result of the worker, or null if no worker took the compaction
+   */
+  private CompactionTask.Result waitForResult(FileSystem fs, Path dir, String id, Process worker)
+      throws IOException {
+    Path taskPath = CompactionTask.getPath(dir, id, CompactionTask.TASK_SUFFIX);
+    Path resultPath = CompactionTask.getPath(dir, id, CompactionTask.RESULT_SUFFIX);
+    Path failedPath = CompactionTask.getPath(dir, id, CompactionTask.FAILED_SUFFIX);
+    long startTime = EnvironmentEdgeManager.currentTime();
+    long interval = Math.min(MIN_POLL_INTERVAL, pollInterval);
+    boolean claimed = false;
+    while (true) {
+      // check the worker before the files it writes on its way out
+      boolean workerExited = worker != null && !worker.isAlive();
+      if (fs.exists(resultPath)) {
+        return CompactionTask.Result.read(fs, resultPath);
+      }
+      if (fs.exists(failedPath)) {
+        throw new IOException("Compaction " + id + " of " + store + " failed in the worker: "
+            + CompactionTask.readFailure(fs, failedPath));
+      }
+      if (workerExited) {
+        throw new IOException("The worker of compaction " + id + " of " + store
+            + " exited with code " + worker.exitValue());
+      }
+      if (!store.areWritesEnabled()) {
+        progress.cancel();
+        throw new InterruptedIOException("Aborting compaction " + id + " of store " + store
+            + " in region " + store.getRegionInfo().getRegionNameAsString()
+            + " because it was interrupted.");
+      }
+      long elapsed = EnvironmentEdgeManager.currentTime() - startTime;
+      if (!claimed) {
+        if (!fs.exists(taskPath)) {
+          claimed = true;
+        } else if (elapsed > claimTimeout) {
+          // the rename fails if a worker took the task in the meantime
+          if (fs.rename(taskPath,
+            CompactionTask.getPath(dir, id, CompactionTask.CANCELLED_SUFFIX))) {
+            return null;
+          }
+          claimed = true;
+        }
+      }
+      if (elapsed > timeout) {
+        throw new IOException("Timed out after " + elapsed + " ms waiting for compaction " + id
+            + " of " + store);
+      }
+      try {
+        if (worker != null) {
+          // returns as soon as the worker exits
+          worker.waitFor(interval, TimeUnit.MILLISECONDS);
+        } else {
+          Thread.sleep(interval);
+        }
+      } catch (InterruptedException e) {
+        throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+      }
+      interval = Math.min(interval * 2, pollInterval);
+    }
+  }
+}
@@ -0,0 +1,354 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.regionserver.StoreScanner;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Threads;
+
+/**
+ * A {@link DefaultCompactor} which splits large compactions into ranges of rows and compacts the
+ * ranges concurrently, each into its own output file.
+ * <p>
+ * The boundaries of the ranges are taken from the root-level data block indexes of the files to
+ * compact, weighted by the file sizes, so that every range covers about the same amount of data.
+ * A row is never split between two ranges, so versions and delete markers are handled exactly as
+ * in a single-threaded compaction. The output files of all ranges are only handed back to the
+ * store once every range has finished, and are all deleted if one range fails, so the compaction
+ * still replaces its input files atomically.
+ * <p>
+ * Compactions of stores with region observers are not split, as the observers expect to see one
+ * scanner per compaction. Enable by setting
+ * {@link org.apache.hadoop.hbase.regionserver.DefaultStoreEngine#DEFAULT_COMPACTOR_CLASS_KEY} to
+ * this class.
+ */
+@InterfaceAudience.Private
+public class ParallelRangeCompactor extends DefaultCompactor {
+  private static final Log LOG = LogFactory.getLog(ParallelRangeCompactor.class);
+
+  /** The maximum number of ranges, and threads, of one compaction. */
+  public static final String MAX_RANGES_KEY = "hbase.hstore.compaction.parallel.max.ranges";
+  public static final int DEFAULT_MAX_RANGES = 4;
+
+  /** The minimum size of the input files per range. Smaller compactions are not split. */
+  public static final String MIN_RANGE_SIZE_KEY =
+      "hbase.hstore.compaction.parallel.min.range.size";
+  public static final long DEFAULT_MIN_RANGE_SIZE = 1024L * 1024 * 1024;
+
+  private final int maxRanges;
+  private final long minRangeSize;
+
+  /** The compactors of the ranges of the running compaction, to report its progress. */
+  private volatile List<RangeCompactor> runningRanges;
+
+  public ParallelRangeCompactor(Configuration conf, Store store) {
+    super(conf, store);
+    this.maxRanges = Math.max(1, conf.getInt(MAX_RANGES_KEY, DEFAULT_MAX_RANGES));
+    this.minRangeSize = Math.max(1, conf.getLong(MIN_RANGE_SIZE_KEY, DEFAULT_MIN_RANGE_SIZE));
+  }
+
+  @Override
+  public List<Path> compact(CompactionRequest request, ThroughputController throughputController,
+      User user) throws IOException {
+    if (request instanceof MajorSliceCompactionRequest) {
+      // a slice is already a range of rows of the store
+      return super.compact(request, throughputController, user);
+    }
+    List<byte[]> boundaries = getRangeBoundaries(request);
+    if (boundaries.isEmpty()) {
+      return super.compact(request, throughputController, user);
+    }
+    List<RangeCompactor> ranges = new ArrayList<>(boundaries.size() + 1);
+    byte[] startRow = HConstants.EMPTY_START_ROW;
+    for (byte[] boundary : boundaries) {
+      ranges.add(new RangeCompactor(startRow, boundary, boundaries.size() + 1));
+      startRow = boundary;
+    }
+    ranges.add(new RangeCompactor(startRow, HConstants.EMPTY_END_ROW, boundaries.size() + 1));
+    if (LOG.isDebugEnabled()) {
+      StringBuilder sb = new StringBuilder();
+      for (byte[] boundary : boundaries) {
+        sb.append(sb.length() == 0 ? "" : ", ").append(Bytes.toStringBinary(boundary));
+      }
+      LOG.debug("Compacting " + request.getFiles().size() + " file(s) of " + store + " in "
+          + ranges.size() + " ranges, boundaries: " + sb);
+    }
+    this.runningRanges = ranges;
+    try {
+      return compactRanges(ranges, request, throughputController, user);
+    } finally {
+      this.progress = getProgress();
+      this.runningRanges = null;
+    }
+  }
+
+  private List<Path> compactRanges(List<RangeCompactor> ranges, final CompactionRequest request,
+      final ThroughputController throughputController, final User user) throws IOException {
+    ThreadPoolExecutor pool = Threads.getBoundedCachedThreadPool(ranges.size(), 30L,
+      TimeUnit.SECONDS, Threads.newDaemonThreadFactory("RangeCompactor-"
+          + store.getRegionInfo().getEncodedName() + "-" + store.getColumnFamilyName()));
+    List<Future<List<Path>>> futures = new ArrayList<>(ranges.size());
+    IOException error = null;
+    try {
+      for (final RangeCompactor range : ranges) {
+        futures.add(pool.submit(new Callable<List<Path>>() {
+          @Override
+          public List<Path> call() throws IOException {
+            return range.compact(request, throughputController, user);
+          }
+        }));
+      }
+      for (Future<List<Path>> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          error = (InterruptedIOException) new InterruptedIOException().initCause(e);
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException e) {
+          error = e.getCause() instanceof IOException ? (IOException) e.getCause()
+              : new IOException(e.getCause());
+          break;
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+    if (error != null) {
+      for (Future<List<Path>> future : futures) {
+        future.cancel(true);
+      }
+      // Wait for the other ranges to stop before deleting what they have written.
+      try {
+        while (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
+          LOG.warn("Waiting for the ranges of a failed compaction of " + store + " to stop");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      List<Path> newFiles = new ArrayList<>(ranges.size());
+      for (RangeCompactor range : ranges) {
+        if (range.outputPath != null) {
+          newFiles.add(range.outputPath);
+        }
+      }
+      deleteFiles(newFiles);
+      throw error;
+    }
+    return dropEmptyRanges(ranges);
+  }
+
+  /**
+   * Deletes the output files of ranges without any cell. If all ranges are empty one file is
+   * kept, so that the compaction still retains the max sequence id of its input files.
+   */
+  private List<Path> dropEmptyRanges(List<RangeCompactor> ranges) {
+    List<Path> result = new ArrayList<>(ranges.size());
+    List<Path> empty = new ArrayList<>();
+    for (RangeCompactor range : ranges) {
+      if (range.outputPath == null) {
+        continue;
+      }
+      if (range.getProgress().currentCompactedKVs > 0) {
+        result.add(range.outputPath);
+      } else {
+        empty.add(range.outputPath);
+      }
+    }
+    if (result.isEmpty() && !empty.isEmpty()) {
+      result.add(empty.remove(empty.size() - 1));
+    }
+    deleteFiles(empty);
+    return result;
+  }
+
+  private void deleteFiles(List<Path> files) {
+    for (Path file : files) {
+      try {
+        store.getFileSystem().delete(file, false);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete the leftover file " + file + " of a compaction.", e);
+      }
+    }
+  }
+
+  @Override
+  public CompactionProgress getProgress() {
+    List<RangeCompactor> ranges = this.runningRanges;
+    if (ranges == null) {
+      return super.getProgress();
+    }
+    CompactionProgress sum = new CompactionProgress(0);
+    for (RangeCompactor range : ranges) {
+      CompactionProgress rangeProgress = range.getProgress();
+      if (rangeProgress != null) {
+        sum.totalCompactingKVs += rangeProgress.totalCompactingKVs;
+        sum.currentCompactedKVs += rangeProgress.currentCompactedKVs;
+        sum.totalCompactedSize += rangeProgress.totalCompactedSize;
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * @return the first rows of all ranges but the first, or an empty list if the compaction
+   *         should not be split
+   */
+  List<byte[]> getRangeBoundaries(CompactionRequest request) throws IOException {
+    long totalSize = 0;
+    for (StoreFile file : request.getFiles()) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null) {
+        return Collections.emptyList();
+      }
+      totalSize += reader.length();
+    }
+    int rangeCount = (int) Math.min(maxRanges, totalSize / minRangeSize);
+    if (rangeCount < 2 || hasRegionObservers()) {
+      return Collections.emptyList();
+    }
+    return getRangeBoundaries(request.getFiles(), rangeCount, store.getComparator());
+  }
+
+  /**
+   * Picks the boundaries of <code>rangeCount</code> ranges which hold about the same amount of
+   * data. Every root index key of a file stands for an equal share of the size of the file.
+   */
+  static List<byte[]> getRangeBoundaries(Collection<StoreFile> files, int rangeCount,
+      final CellComparator comparator) {
+    final List<Cell> keys = new ArrayList<>();
+    final List<Long> weights = new ArrayList<>();
+    long totalWeight = 0;
+    for (StoreFile file : files) {
+      StoreFileReader reader = file.getReader();
+      List<Cell> fileKeys = HFileBlockIndex.getRootBlockKeys(reader.getHFileReader());
+      if (fileKeys.isEmpty()) {
+        continue;
+      }
+      long weight = Math.max(1, reader.length() / fileKeys.size());
+      for (Cell key : fileKeys) {
+        keys.add(key);
+        weights.add(weight);
+        totalWeight += weight;
+      }
+    }
+    List<Integer> order = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      order.add(i);
+    }
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return comparator.compareRows(keys.get(a), keys.get(b));
+      }
+    });
+    List<byte[]> boundaries = new ArrayList<>(rangeCount - 1);
+    long weight = 0;
+    Cell previous = null;
+    for (int index : order) {
+      Cell key = keys.get(index);
+      // the share of each range is covered before the boundary that starts the next one
+      if (previous != null && weight >= totalWeight * (boundaries.size() + 1) / rangeCount
+          && comparator.compareRows(previous, key) < 0) {
+        boundaries.add(CellUtil.cloneRow(key));
+        if (boundaries.size() == rangeCount - 1) {
+          break;
+        }
+      }
+      weight += weights.get(index);
+      previous = key;
+    }
+    return boundaries;
+  }
+
+  /**
+   * Compacts the rows [startRow, stopRow) of the files of a request into one file.
+   */
+  private class RangeCompactor extends DefaultCompactor {
+    private final byte[] startRow;
+    private final byte[] stopRow;
+    private final int rangeCount;
+    private volatile Path outputPath;
+
+    RangeCompactor(byte[] startRow, byte[] stopRow, int rangeCount) {
+      super(ParallelRangeCompactor.this.conf, ParallelRangeCompactor.this.store);
+      this.startRow = startRow;
+      this.stopRow = stopRow;
+      this.rangeCount = rangeCount;
+    }
+
+    @Override
+    protected FileDetails getFileDetails(Collection<StoreFile> filesToCompact, boolean allFiles)
+        throws IOException {
+      FileDetails fd = super.getFileDetails(filesToCompact, allFiles);
+      // the ranges are balanced, so each holds about its share of the keys
+      fd.maxKeyCount = (fd.maxKeyCount + rangeCount - 1) / rangeCount;
+      return fd;
+    }
+
+    @Override
+    protected InternalScanner createScanner(Store store, List<StoreFileScanner> scanners,
+        ScanType scanType, long smallestReadPoint, long earliestPutTs) throws IOException {
+      Scan scan = new Scan();
+      scan.setMaxVersions(store.getFamily().getMaxVersions());
+      return new StoreScanner(store, store.getScanInfo(), scan, scanners, scanType,
+          smallestReadPoint, earliestPutTs, startRow, stopRow);
+    }
+
+    @Override
+    protected List<Path> commitWriter(StoreFileWriter writer, FileDetails fd,
+        CompactionRequest request) throws IOException {
+      List<Path> newFiles = super.commitWriter(writer, fd, request);
+      this.outputPath = writer.getPath();
+      return newFiles;
+    }
+  }
+}
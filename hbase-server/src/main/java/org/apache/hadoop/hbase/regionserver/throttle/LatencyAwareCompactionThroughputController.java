@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.throttle;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.ScheduledChore;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.metrics.Snapshot;
+import org.apache.hadoop.hbase.regionserver.MetricsRegionServer;
+import org.apache.hadoop.hbase.regionserver.RegionServerServices;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A throughput controller which tunes the limitation of compactions in a feedback loop on the
+ * latency of the reads the region server serves, instead of on the compaction pressure alone.
+ * <ul>
+ * <li>If compaction pressure is greater than 1.0, no limitation.</li>
+ * <li>In off peak hours, use a fixed throughput limitation
+ * {@value #HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_OFFPEAK}</li>
+ * <li>In normal hours, every tuning period the max throughput is halved if the 99th percentile of
+ * the latency of gets and multi gets since the last tuning is above
+ * {@value #HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET}, or if the 99th percentile of
+ * the latency of the block reads of gets and scans from the file system is above
+ * {@value #HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET}. Otherwise it is raised by
+ * a tenth of the range between the bounds. The max throughput stays between
+ * {@value #HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_LOWER_BOUND} and
+ * {@value #HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_HIGHER_BOUND}.</li>
+ * </ul>
+ * Enable by setting {@value CompactionThroughputControllerFactory#HBASE_THROUGHPUT_CONTROLLER_KEY}
+ * to this class. Unless {@value #HBASE_HSTORE_COMPACTION_THROUGHPUT_TUNE_PERIOD} is set, the
+ * throughput is tuned every 10 seconds.
+ */
+@InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.CONFIG)
+public class LatencyAwareCompactionThroughputController
+    extends PressureAwareCompactionThroughputController {
+
+  private static final Log LOG =
+      LogFactory.getLog(LatencyAwareCompactionThroughputController.class);
+
+  public static final String HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET =
+      "hbase.hstore.compaction.throughput.read.latency.target";
+
+  private static final long DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET = 100;
+
+  /** Zero or less to not tune on the latency of the file system */
+  public static final String HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET =
+      "hbase.hstore.compaction.throughput.fs.read.latency.target";
+
+  private static final long DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET = 0;
+
+  private static final int DEFAULT_LATENCY_AWARE_TUNE_PERIOD = 10 * 1000;
+
+  private long readLatencyTarget;
+
+  private long fsReadLatencyTarget;
+
+  @Override
+  public void setup(final RegionServerServices server) {
+    server.getChoreService().scheduleChore(
+      new ScheduledChore("CompactionThroughputTuner", this, tuningPeriod) {
+
+        @Override
+        protected void chore() {
+          MetricsRegionServer metrics = server.getMetrics();
+          tune(server.getCompactionPressure(),
+            metrics == null ? null : metrics.snapshotAndResetGetLatencies(),
+            metrics == null ? null : metrics.snapshotAndResetBlockReadLatencies());
+        }
+      });
+  }
+
+  @VisibleForTesting
+  void tune(double compactionPressure, Snapshot readLatencies, Snapshot fsReadLatencies) {
+    double maxThroughputToSet;
+    if (compactionPressure > 1.0) {
+      // set to unlimited if some stores already reach the blocking store file count
+      maxThroughputToSet = Double.MAX_VALUE;
+    } else if (offPeakHours.isOffPeakHour()) {
+      maxThroughputToSet = maxThroughputOffpeak;
+    } else {
+      // restart from the bounds when coming from unlimited or off peak throughput
+      double maxThroughput = Math.min(maxThroughputUpperBound,
+        Math.max(maxThroughputLowerBound, getMaxThroughput()));
+      if (isAboveTarget(readLatencies, readLatencyTarget)
+          || isAboveTarget(fsReadLatencies, fsReadLatencyTarget)) {
+        // back off fast, so that reads recover within one tuning period
+        maxThroughputToSet = Math.max(maxThroughputLowerBound, maxThroughput / 2);
+      } else {
+        maxThroughputToSet = Math.min(maxThroughputUpperBound,
+          maxThroughput + (maxThroughputUpperBound - maxThroughputLowerBound) / 10.0);
+      }
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("CompactionPressure is " + compactionPressure + ", read latency p99 is "
+          + getPercentile99(readLatencies) + " ms, fs read latency p99 is "
+          + getPercentile99(fsReadLatencies) + " ms, tune throughput to "
+          + throughputDesc(maxThroughputToSet));
+    }
+    this.setMaxThroughput(maxThroughputToSet);
+  }
+
+  private static boolean isAboveTarget(Snapshot latencies, long target) {
+    return target > 0 && getPercentile99(latencies) > target;
+  }
+
+  private static long getPercentile99(Snapshot latencies) {
+    return latencies == null || latencies.getCount() == 0 ? 0 : latencies.get99thPercentile();
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    super.setConf(conf);
+    if (conf == null) {
+      return;
+    }
+    this.readLatencyTarget = conf.getLong(HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET,
+      DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET);
+    this.fsReadLatencyTarget =
+        conf.getLong(HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET,
+          DEFAULT_HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET);
+    this.tuningPeriod = conf.getInt(HBASE_HSTORE_COMPACTION_THROUGHPUT_TUNE_PERIOD,
+      DEFAULT_LATENCY_AWARE_TUNE_PERIOD);
+    LOG.info("Compaction throughput read latency target: " + readLatencyTarget
+        + " ms, fs read latency target: " + fsReadLatencyTarget + " ms, tuning period: "
+        + tuningPeriod + " ms");
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyAwareCompactionThroughputController [maxThroughput="
+        + throughputDesc(getMaxThroughput()) + ", activeCompactions=" + activeOperations.size()
+        + "]";
+  }
+}
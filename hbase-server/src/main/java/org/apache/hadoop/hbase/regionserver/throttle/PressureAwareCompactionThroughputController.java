@@ -71,7 +71,7 @@ public class PressureAwareCompactionThroughputController extends PressureAwareTh
   private static final String HBASE_HSTORE_COMPACTION_THROUGHPUT_CONTROL_CHECK_INTERVAL =
     "hbase.hstore.compaction.throughput.control.check.interval";
 
-  private long maxThroughputOffpeak;
+  protected long maxThroughputOffpeak;
 
   @Override
   public void setup(final RegionServerServices server) {
@@ -45,9 +45,11 @@ import org.apache.hadoop.hbase.regionserver.FlushRequester;
 import org.apache.hadoop.hbase.regionserver.HeapMemoryManager;
 import org.apache.hadoop.hbase.regionserver.Leases;
 import org.apache.hadoop.hbase.regionserver.MetricsRegionServer;
+import org.apache.hadoop.hbase.regionserver.ParallelStoreSeeker;
 import org.apache.hadoop.hbase.regionserver.Region;
 import org.apache.hadoop.hbase.regionserver.RegionServerAccounting;
 import org.apache.hadoop.hbase.regionserver.RegionServerServices;
+import org.apache.hadoop.hbase.regionserver.RowCache;
 import org.apache.hadoop.hbase.regionserver.SecureBulkLoadManager;
 import org.apache.hadoop.hbase.regionserver.ServerNonceManager;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
@@ -72,6 +74,7 @@ public class MockRegionServerServices implements RegionServerServices {
   private ZooKeeperWatcher zkw = null;
   private ServerName serverName = null;
   private RpcServerInterface rpcServer = null;
+  private RowCache.SharedCache rowCache = null;
   private volatile boolean abortRequested;
   private volatile boolean stopping = false;
   private final AtomicBoolean running = new AtomicBoolean(true);
@@ -257,6 +260,20 @@ public class MockRegionServerServices implements RegionServerServices {
     return null;
   }
 
+  @Override
+  public ParallelStoreSeeker getParallelStoreSeeker() {
+    return null;
+  }
+
+  @Override
+  public RowCache.SharedCache getRowCache() {
+    return rowCache;
+  }
+
+  public void setRowCache(RowCache.SharedCache rowCache) {
+    this.rowCache = rowCache;
+  }
+
   @Override
   public ChoreService getChoreService() {
     return null;
@@ -92,12 +92,19 @@ public abstract class AbstractTestAsyncTableScan {
     return new Scan().setBatch(1).setMaxResultSize(1);
   }
 
+  // fetch the next batch while the current one is being consumed
+  protected static Scan createPrefetchSmallResultSizeScan() {
+    return new Scan().setMaxResultSize(1).setAsyncPrefetch(true);
+  }
+
   protected static List<Pair<String, Supplier<Scan>>> getScanCreater() {
     return Arrays.asList(Pair.newPair("normal", AbstractTestAsyncTableScan::createNormalScan),
       Pair.newPair("batch", AbstractTestAsyncTableScan::createBatchScan),
       Pair.newPair("smallResultSize", AbstractTestAsyncTableScan::createSmallResultSizeScan),
       Pair.newPair("batchSmallResultSize",
-        AbstractTestAsyncTableScan::createBatchSmallResultSizeScan));
+        AbstractTestAsyncTableScan::createBatchSmallResultSizeScan),
+      Pair.newPair("prefetchSmallResultSize",
+        AbstractTestAsyncTableScan::createPrefetchSmallResultSizeScan));
   }
 
   protected abstract Scan createScan();
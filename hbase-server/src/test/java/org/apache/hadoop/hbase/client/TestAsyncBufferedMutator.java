@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.LargeTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ LargeTests.class, ClientTests.class })
+public class TestAsyncBufferedMutator {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static TableName TABLE_NAME = TableName.valueOf("async");
+
+  private static byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static byte[] CQ = Bytes.toBytes("cq");
+
+  private static int COUNT = 1000;
+
+  private static AsyncConnection CONN;
+
+  private static byte[][] SPLIT_KEYS;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.startMiniCluster(3);
+    SPLIT_KEYS = new byte[8][];
+    for (int i = 111; i < 999; i += 111) {
+      SPLIT_KEYS[i / 111 - 1] = Bytes.toBytes(String.format("%03d", i));
+    }
+    CONN = ConnectionFactory.createAsyncConnection(TEST_UTIL.getConfiguration()).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    CONN.close();
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Before
+  public void setUpBeforeTest() throws IOException, InterruptedException {
+    TEST_UTIL.createTable(TABLE_NAME, FAMILY, SPLIT_KEYS);
+    TEST_UTIL.waitTableAvailable(TABLE_NAME);
+  }
+
+  @After
+  public void tearDownAfterTest() throws IOException {
+    TEST_UTIL.deleteTable(TABLE_NAME);
+  }
+
+  private static byte[] getRow(int i) {
+    return Bytes.toBytes(String.format("%03d", i));
+  }
+
+  private static List<Put> getPuts() {
+    return IntStream.range(0, COUNT)
+        .mapToObj(i -> new Put(getRow(i)).addColumn(FAMILY, CQ, Bytes.toBytes(i)))
+        .collect(Collectors.toList());
+  }
+
+  private void verify() throws InterruptedException, ExecutionException {
+    RawAsyncTable table = CONN.getRawTable(TABLE_NAME);
+    for (int i = 0; i < COUNT; i++) {
+      assertArrayEquals(Bytes.toBytes(i), table.get(new Get(getRow(i))).get().getValue(FAMILY, CQ));
+    }
+  }
+
+  @Test
+  public void testWithSmallWriteBuffer() throws InterruptedException, ExecutionException {
+    try (AsyncBufferedMutator mutator = CONN.getBufferedMutatorBuilder(TABLE_NAME)
+        .setWriteBufferSize(1024).setMaxInFlightBatchesPerServer(2).build()) {
+      assertEquals(1024, mutator.getWriteBufferSize());
+      List<CompletableFuture<Void>> futures = mutator.mutate(getPuts());
+      mutator.flush();
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+      assertTrue(mutator.getInFlightSizeByServer().isEmpty());
+    }
+    verify();
+  }
+
+  @Test
+  public void testFlush() throws InterruptedException, ExecutionException {
+    try (AsyncBufferedMutator mutator = CONN.getBufferedMutator(TABLE_NAME)) {
+      List<CompletableFuture<Void>> futures = mutator.mutate(getPuts());
+      // the default write buffer is much larger than the puts, so they wait for the flush
+      Thread.sleep(1000);
+      futures.forEach(f -> assertFalse(f.isDone()));
+      mutator.flush();
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+    }
+    verify();
+  }
+
+  @Test
+  public void testLinger() throws InterruptedException, ExecutionException {
+    try (AsyncBufferedMutator mutator = CONN.getBufferedMutatorBuilder(TABLE_NAME)
+        .setWriteBufferLinger(100, TimeUnit.MILLISECONDS).build()) {
+      List<CompletableFuture<Void>> futures = mutator.mutate(getPuts());
+      // the buffers are not full, they are sent once the puts have waited long enough
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+    }
+    verify();
+  }
+
+  @Test
+  public void testSameRowOrder() throws Exception {
+    try (AsyncConnection conn =
+        ConnectionFactory.createAsyncConnection(TEST_UTIL.getConfiguration()).get()) {
+      // the location cache of a new connection is empty, so the first puts of each region wait for
+      // the same lookup, and the later ones may find the location cached
+      try (AsyncBufferedMutator mutator = conn.getBufferedMutator(TABLE_NAME)) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int v = 0; v < 10; v++) {
+          for (int i = 0; i < COUNT; i++) {
+            futures.add(mutator.mutate(
+              new Put(getRow(i)).addColumn(FAMILY, CQ, Bytes.toBytes(v == 9 ? i : -1))));
+          }
+          // one batch per round and server, a batch has a row at most once
+          mutator.flush();
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+      }
+    }
+    // the last put of each row wins
+    verify();
+  }
+
+  @Test
+  public void testClose() throws InterruptedException, ExecutionException {
+    AsyncBufferedMutator mutator = CONN.getBufferedMutator(TABLE_NAME);
+    List<CompletableFuture<Void>> futures = mutator.mutate(getPuts());
+    mutator.close();
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+    verify();
+    try {
+      mutator.mutate(new Put(getRow(0)).addColumn(FAMILY, CQ, Bytes.toBytes(0))).get();
+      fail("Should fail since the mutator is closed");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(IOException.class));
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ MediumTests.class, ClientTests.class })
+public class TestAsyncGetCoalescing {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static TableName TABLE_NAME = TableName.valueOf("async");
+
+  private static byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static byte[] QUALIFIER = Bytes.toBytes("cq");
+
+  private static int COUNT = 100;
+
+  private static AsyncConnectionImpl ASYNC_CONN;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.startMiniCluster(1);
+    TEST_UTIL.createTable(TABLE_NAME, FAMILY);
+    TEST_UTIL.waitTableAvailable(TABLE_NAME);
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(AsyncGetCoalescer.COALESCE_GETS_KEY, true);
+    conf.setBoolean(AsyncGetCoalescer.MERGE_REGION_GETS_KEY, true);
+    ASYNC_CONN = (AsyncConnectionImpl) ConnectionFactory.createAsyncConnection(conf).get();
+    RawAsyncTable table = ASYNC_CONN.getRawTable(TABLE_NAME);
+    CompletableFuture.allOf(IntStream.range(0, COUNT)
+        .mapToObj(i -> table.put(new Put(getRow(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i))))
+        .toArray(CompletableFuture<?>[]::new)).get();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    IOUtils.closeQuietly(ASYNC_CONN);
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private static byte[] getRow(int i) {
+    return Bytes.toBytes(String.format("%03d", i));
+  }
+
+  private static long getReadRequestsCount() {
+    return TEST_UTIL.getHBaseCluster().getRegions(TABLE_NAME).stream()
+        .mapToLong(HRegion::getReadRequestsCount).sum();
+  }
+
+  @Test
+  public void testIdenticalGets() throws Exception {
+    RawAsyncTable table = ASYNC_CONN.getRawTable(TABLE_NAME);
+    byte[] row = getRow(0);
+    // locate the region first so that the gets are all sent at once
+    table.get(new Get(row)).get();
+    long readRequests = getReadRequestsCount();
+    List<CompletableFuture<Result>> futures = IntStream.range(0, COUNT)
+        .mapToObj(i -> table.get(new Get(row).addColumn(FAMILY, QUALIFIER)))
+        .collect(Collectors.toList());
+    Set<Result> results = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (CompletableFuture<Result> future : futures) {
+      assertArrayEquals(Bytes.toBytes(0), future.get().getValue(FAMILY, QUALIFIER));
+      results.add(future.get());
+    }
+    assertTrue(getReadRequestsCount() - readRequests < COUNT);
+    // each caller has its own result, even those which were coalesced
+    assertEquals(COUNT, results.size());
+    assertEquals(0, ASYNC_CONN.getCoalescer.getInFlightCount());
+  }
+
+  @Test
+  public void testRegionGets() throws Exception {
+    RawAsyncTable table = ASYNC_CONN.getRawTable(TABLE_NAME);
+    table.get(new Get(getRow(0))).get();
+    List<CompletableFuture<Result>> futures = IntStream.range(0, COUNT)
+        .mapToObj(i -> table.get(new Get(getRow(i)).addColumn(FAMILY, QUALIFIER)))
+        .collect(Collectors.toList());
+    for (int i = 0; i < COUNT; i++) {
+      assertArrayEquals(Bytes.toBytes(i), futures.get(i).get().getValue(FAMILY, QUALIFIER));
+    }
+    assertEquals(0, ASYNC_CONN.getCoalescer.getInFlightCount());
+  }
+}
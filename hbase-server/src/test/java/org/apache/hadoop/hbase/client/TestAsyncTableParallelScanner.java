@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.LargeTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+@Category({ LargeTests.class, ClientTests.class })
+public class TestAsyncTableParallelScanner extends AbstractTestAsyncTableScan {
+
+  @Parameter(0)
+  public String scanType;
+
+  @Parameter(1)
+  public Supplier<Scan> scanCreater;
+
+  @Parameter(2)
+  public boolean ordered;
+
+  @Parameters(name = "{index}: scan={0}, ordered={2}")
+  public static List<Object[]> params() {
+    List<Object[]> params = new ArrayList<>();
+    for (Pair<String, Supplier<Scan>> p : getScanCreater()) {
+      params.add(new Object[] { p.getFirst(), p.getSecond(), true });
+      params.add(new Object[] { p.getFirst(), p.getSecond(), false });
+    }
+    return params;
+  }
+
+  @Override
+  protected Scan createScan() {
+    return scanCreater.get();
+  }
+
+  @Override
+  protected List<Result> doScan(Scan scan) throws Exception {
+    AsyncTable table = ASYNC_CONN.getTable(TABLE_NAME, ForkJoinPool.commonPool());
+    List<Result> results = new ArrayList<>();
+    try (ResultScanner scanner = table.getParallelScanner(scan, 3, ordered)) {
+      for (Result result; (result = scanner.next()) != null;) {
+        results.add(result);
+      }
+    }
+    if (!ordered) {
+      // a stable sort, the partial results of a row are still in order
+      Comparator<Result> comparator = (r1, r2) -> Bytes.compareTo(r1.getRow(), r2.getRow());
+      results.sort(scan.isReversed() ? comparator.reversed() : comparator);
+    }
+    if (scan.getBatch() > 0) {
+      results = convertFromBatchResult(results);
+    }
+    return results;
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Suspends and terminates scans while the next batch is being prefetched.
+ */
+@Category({ MediumTests.class, ClientTests.class })
+public class TestAsyncTableScanPrefetch {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static TableName TABLE_NAME = TableName.valueOf("async");
+
+  private static byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static byte[] CQ = Bytes.toBytes("cq");
+
+  private static int COUNT = 10;
+
+  private static AsyncConnection CONN;
+
+  private static RawAsyncTable TABLE;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.startMiniCluster(1);
+    TEST_UTIL.createTable(TABLE_NAME, FAMILY);
+    CONN = ConnectionFactory.createAsyncConnection(TEST_UTIL.getConfiguration()).get();
+    TABLE = CONN.getRawTable(TABLE_NAME);
+    TABLE.putAll(IntStream.range(0, COUNT).mapToObj(
+      i -> new Put(Bytes.toBytes(String.format("%02d", i))).addColumn(FAMILY, CQ, Bytes.toBytes(i)))
+        .collect(Collectors.toList())).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    CONN.close();
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  // one row per batch, and the next one is requested before a batch is passed to the consumer
+  private static Scan createScan() {
+    return new Scan().setMaxResultSize(1).setAsyncPrefetch(true);
+  }
+
+  private static void assertResults(List<Result> results, int count) {
+    assertEquals(count, results.size());
+    IntStream.range(0, count).forEach(i -> {
+      Result result = results.get(i);
+      assertEquals(String.format("%02d", i), Bytes.toString(result.getRow()));
+      assertEquals(i, Bytes.toInt(result.getValue(FAMILY, CQ)));
+    });
+  }
+
+  private static abstract class Consumer implements RawScanResultConsumer {
+
+    protected final List<Result> results = new ArrayList<>();
+
+    protected Throwable error;
+
+    protected boolean finished = false;
+
+    @Override
+    public synchronized void onError(Throwable error) {
+      this.finished = true;
+      this.error = error;
+      notifyAll();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+      this.finished = true;
+      notifyAll();
+    }
+
+    public synchronized List<Result> get() throws Throwable {
+      while (!finished) {
+        wait();
+      }
+      if (error != null) {
+        throw error;
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Suspends the scan after every batch, and resumes it the way AsyncTableResultScanner does, by
+   * clearing its resumer after resume returns.
+   */
+  private static final class SuspendingConsumer extends Consumer {
+
+    private final Thread resumingThread = Thread.currentThread();
+
+    private ScanResumer resumer;
+
+    @Override
+    public synchronized void onNext(Result[] results, ScanController controller) {
+      if (Thread.currentThread() == resumingThread) {
+        error = new AssertionError("Batch passed to the consumer from inside resume");
+      }
+      for (Result result : results) {
+        this.results.add(result);
+      }
+      resumer = controller.suspend();
+      notifyAll();
+    }
+
+    /**
+     * @return false once the scan is finished
+     */
+    synchronized boolean resumeNext() throws InterruptedException {
+      while (resumer == null && !finished) {
+        wait();
+      }
+      if (resumer == null) {
+        return false;
+      }
+      resumer.resume();
+      resumer = null;
+      return true;
+    }
+  }
+
+  @Test
+  public void testSuspend() throws Throwable {
+    SuspendingConsumer consumer = new SuspendingConsumer();
+    TABLE.scan(createScan(), consumer);
+    int resumes = 0;
+    while (consumer.resumeNext()) {
+      resumes++;
+    }
+    assertEquals(COUNT, resumes);
+    assertResults(consumer.get(), COUNT);
+  }
+
+  @Test
+  public void testTerminate() throws Throwable {
+    Consumer consumer = new Consumer() {
+
+      @Override
+      public synchronized void onNext(Result[] results, ScanController controller) {
+        for (Result result : results) {
+          this.results.add(result);
+        }
+        controller.terminate();
+      }
+    };
+    TABLE.scan(createScan(), consumer);
+    assertResults(consumer.get(), 1);
+    // the prefetched batch is dropped, and the scanner it was read from is closed
+    assertResults(TABLE.scanAll(new Scan()).get(), COUNT);
+  }
+}
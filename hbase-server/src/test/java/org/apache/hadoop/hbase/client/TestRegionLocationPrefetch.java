@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ MediumTests.class, ClientTests.class })
+public class TestRegionLocationPrefetch {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("prefetch");
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static final int REGIONS = 10;
+
+  private static byte[][] SPLIT_KEYS;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.startMiniCluster(2);
+    SPLIT_KEYS = new byte[REGIONS - 1][];
+    for (int i = 1; i < REGIONS; i++) {
+      SPLIT_KEYS[i - 1] = Bytes.toBytes(String.format("%02d", i * 10));
+    }
+    TEST_UTIL.createTable(TABLE_NAME, FAMILY, SPLIT_KEYS);
+    TEST_UTIL.waitTableAvailable(TABLE_NAME);
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private static ConnectionImplementation createConnection(boolean prefetch, int refresh)
+      throws IOException {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(ConnectionImplementation.PREFETCH_REGION_LOCATIONS_KEY, prefetch);
+    conf.setInt(ConnectionImplementation.PREFETCH_REGION_LOCATIONS_REFRESH_KEY, refresh);
+    return (ConnectionImplementation) ConnectionFactory.createConnection(conf);
+  }
+
+  @Test
+  public void testNoPrefetch() throws IOException {
+    try (ConnectionImplementation conn = createConnection(false, 10)) {
+      conn.locateRegion(TABLE_NAME, Bytes.toBytes("55"));
+      assertEquals(1, conn.getNumberOfCachedRegionLocations(TABLE_NAME));
+    }
+  }
+
+  @Test
+  public void testPrefetchOnFirstMiss() throws IOException {
+    try (ConnectionImplementation conn = createConnection(true, 10)) {
+      HRegionLocation loc = conn.locateRegion(TABLE_NAME, Bytes.toBytes("55"));
+      assertArrayEquals(Bytes.toBytes("50"), loc.getRegionInfo().getStartKey());
+      assertEquals(REGIONS, conn.getNumberOfCachedRegionLocations(TABLE_NAME));
+      for (byte[] splitKey : SPLIT_KEYS) {
+        assertNotNull(conn.getCachedLocation(TABLE_NAME, splitKey));
+      }
+
+      // clearing the cache of the table prefetches it again on the next miss
+      conn.clearRegionCache(TABLE_NAME);
+      conn.locateRegion(TABLE_NAME, Bytes.toBytes("55"));
+      assertEquals(REGIONS, conn.getNumberOfCachedRegionLocations(TABLE_NAME));
+    }
+  }
+
+  @Test
+  public void testRefreshFollowingRegions() throws IOException {
+    try (ConnectionImplementation conn = createConnection(true, 2)) {
+      conn.locateRegion(TABLE_NAME, Bytes.toBytes("55"));
+      assertEquals(REGIONS, conn.getNumberOfCachedRegionLocations(TABLE_NAME));
+      // drop the locations of the regions starting at 30, 40, 50 and 60
+      for (int i = 3; i <= 6; i++) {
+        conn.clearRegionCache(TABLE_NAME, SPLIT_KEYS[i - 1]);
+      }
+      assertEquals(REGIONS - 4, conn.getNumberOfCachedRegionLocations(TABLE_NAME));
+
+      // looking up the region starting at 30 refreshes the two following ones
+      conn.locateRegion(TABLE_NAME, Bytes.toBytes("35"));
+      assertEquals(REGIONS - 1, conn.getNumberOfCachedRegionLocations(TABLE_NAME));
+      assertNotNull(conn.getCachedLocation(TABLE_NAME, Bytes.toBytes("45")));
+      assertNotNull(conn.getCachedLocation(TABLE_NAME, Bytes.toBytes("55")));
+    }
+  }
+}
@@ -30,6 +30,7 @@ import junit.framework.TestCase;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
 import org.apache.hadoop.hbase.CellScanner;
@@ -128,6 +129,33 @@ public class TestResult extends TestCase {
     }
   }
 
+  public void testGetColumnOfByteBufferCells() throws Exception {
+    KeyValue [] kvs = genKVs(row, family, value, 1, 100);
+
+    Arrays.sort(kvs, CellComparator.COMPARATOR);
+
+    Cell [] cells = new Cell[kvs.length];
+    for (int i = 0; i < kvs.length; ++i) {
+      ByteBuffer bb = ByteBuffer.allocateDirect(kvs[i].getLength());
+      bb.put(kvs[i].getBuffer(), kvs[i].getOffset(), kvs[i].getLength());
+      cells[i] = new ByteBufferKeyValue(bb, 0, kvs[i].getLength());
+    }
+    Result r = Result.create(cells);
+
+    for (int i = 0; i < 100; ++i) {
+      final byte[] qf = Bytes.toBytes(i);
+
+      assertByteEquals(Bytes.add(value, Bytes.toBytes(i)), r.getValue(family, qf));
+      assertEquals(cells[i], r.getColumnLatestCell(family, 0, family.length, qf, 0, qf.length));
+    }
+    // columns before, after and between the ones of the result
+    assertNull(r.getColumnLatestCell(Bytes.toBytes("a"), Bytes.toBytes(0)));
+    assertNull(r.getColumnLatestCell(family, null));
+    assertNull(r.getColumnLatestCell(family, Bytes.toBytes(100)));
+    assertNull(r.getColumnLatestCell(Bytes.toBytes("z"), Bytes.toBytes(0)));
+    assertNull(r.getColumnLatestCell(family, Bytes.add(Bytes.toBytes(1), new byte[1])));
+  }
+
   public void testBasicGetValue() throws Exception {
     KeyValue [] kvs = genKVs(row, family, value, 1, 100);
 
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.RowCache;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+/**
+ * Checks that the gets of clients go through the row cache of the region servers.
+ */
+@Category({ MediumTests.class, ClientTests.class })
+public class TestRowCacheFromClient {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @Rule
+  public TestName name = new TestName();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.getConfiguration().setLong(RowCache.ROW_CACHE_SIZE_KEY, 1024 * 1024);
+    TEST_UTIL.startMiniCluster(1);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private HRegion getRegion(TableName tableName) {
+    List<HRegion> regions = TEST_UTIL.getHBaseCluster().getRegions(tableName);
+    assertEquals(1, regions.size());
+    return regions.get(0);
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    TableName tableName = TableName.valueOf(name.getMethodName());
+    try (Table table = TEST_UTIL.createTable(tableName, FAMILY)) {
+      RowCache rowCache = getRegion(tableName).getRowCache();
+      assertNotNull(rowCache);
+      byte[] row = Bytes.toBytes("row");
+      table.put(new Put(row).addColumn(FAMILY, QUALIFIER, Bytes.toBytes("v1")));
+      Get get = new Get(row).addColumn(FAMILY, QUALIFIER);
+      assertArrayEquals(Bytes.toBytes("v1"), table.get(get).getValue(FAMILY, QUALIFIER));
+      assertEquals(0, rowCache.getHitCount());
+      assertEquals(1, rowCache.getMissCount());
+      assertArrayEquals(Bytes.toBytes("v1"), table.get(get).getValue(FAMILY, QUALIFIER));
+      assertEquals(1, rowCache.getHitCount());
+
+      // a write makes the next get read the row again
+      table.put(new Put(row).addColumn(FAMILY, QUALIFIER, Bytes.toBytes("v2")));
+      assertArrayEquals(Bytes.toBytes("v2"), table.get(get).getValue(FAMILY, QUALIFIER));
+      assertEquals(1, rowCache.getHitCount());
+      assertArrayEquals(Bytes.toBytes("v2"), table.get(get).getValue(FAMILY, QUALIFIER));
+      assertEquals(2, rowCache.getHitCount());
+    }
+  }
+
+  @Test
+  public void testMultiGet() throws Exception {
+    TableName tableName = TableName.valueOf(name.getMethodName());
+    try (Table table = TEST_UTIL.createTable(tableName, FAMILY)) {
+      RowCache rowCache = getRegion(tableName).getRowCache();
+      List<Get> gets = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        byte[] row = Bytes.toBytes(i);
+        table.put(new Put(row).addColumn(FAMILY, QUALIFIER, row));
+        gets.add(new Get(row));
+      }
+      table.get(gets);
+      assertEquals(0, rowCache.getHitCount());
+      Result[] results = table.get(gets);
+      assertEquals(10, rowCache.getHitCount());
+      for (int i = 0; i < 10; i++) {
+        assertArrayEquals(Bytes.toBytes(i), results[i].getValue(FAMILY, QUALIFIER));
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.io.hfile.CacheTestUtils.HFileBlockPair;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({IOTests.class, SmallTests.class})
+public class TestPrewarmBlockCache {
+
+  private static final long CACHE_SIZE = 1024 * 1024;
+  private static final int BLOCK_SIZE = 1024;
+
+  private static void assertPriority(BlockCache cache, BlockPriority priority, int blocks) {
+    int count = 0;
+    for (CachedBlock cb : cache) {
+      assertEquals(priority, cb.getBlockPriority());
+      count++;
+    }
+    assertEquals(blocks, count);
+  }
+
+  private void testPriority(BlockPriority priority) {
+    LruBlockCache lru = new LruBlockCache(CACHE_SIZE, BLOCK_SIZE, false);
+    LongAdder prewarmedSize = new LongAdder();
+    BlockCache cache = new PrewarmBlockCache(lru, priority, false, prewarmedSize);
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 4);
+    long size = 0;
+    for (HFileBlockPair block : blocks) {
+      cache.cacheBlock(block.getBlockName(), block.getBlock());
+      size += block.getBlock().heapSize();
+    }
+    assertPriority(lru, priority, blocks.length);
+    assertEquals(size, prewarmedSize.sum());
+    // the blocks were not counted as read
+    assertEquals(0, lru.getStats().getHitCount());
+    lru.shutdown();
+  }
+
+  @Test
+  public void testSinglePriority() {
+    testPriority(BlockPriority.SINGLE);
+  }
+
+  @Test
+  public void testMultiPriority() {
+    testPriority(BlockPriority.MULTI);
+  }
+
+  @Test
+  public void testMemoryPriority() {
+    testPriority(BlockPriority.MEMORY);
+  }
+
+  @Test
+  public void testRejectedBlocksNotCounted() {
+    Configuration conf = HBaseConfiguration.create();
+    // every block is too large for the cache
+    conf.setLong("hbase.lru.max.block.size", 1);
+    LruBlockCache lru = new LruBlockCache(CACHE_SIZE, BLOCK_SIZE, false, conf);
+    LongAdder prewarmedSize = new LongAdder();
+    BlockCache cache = new PrewarmBlockCache(lru, BlockPriority.MULTI, false, prewarmedSize);
+    HFileBlockPair block = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 1)[0];
+    cache.cacheBlock(block.getBlockName(), block.getBlock());
+    assertFalse(lru.containsBlock(block.getBlockName()));
+    assertEquals(0, prewarmedSize.sum());
+    lru.shutdown();
+  }
+}
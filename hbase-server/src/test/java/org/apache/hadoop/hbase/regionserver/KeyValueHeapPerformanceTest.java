@@ -0,0 +1,167 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.regionserver.KeyValueHeap.KVScannerComparator;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.CollectionBackedScanner;
+
+/**
+ * Measures the cost of merging scanners, the way a {@link StoreScanner} merges the memstore
+ * segments and store files of a store, for 2 to 50 scanners. The cells are spread over the
+ * scanners either randomly, so that the top scanner changes on almost every cell, or in runs,
+ * so that the current scanner usually stays on top.
+ * <p>
+ * Every merge is done with a {@link KeyValueHeap}, and with a plain poll and add loop over a
+ * {@link PriorityQueue} and over a {@link KeyValueScannerTournamentTree} to compare the cost of
+ * the queues alone.
+ */
+public class KeyValueHeapPerformanceTest {
+  private static final double NANOSEC_IN_MILLISEC = 1000.0 * 1000.0;
+
+  private static final int[] SCANNER_COUNTS = { 2, 5, 10, 20, 50 };
+  private static final int DEFAULT_NUMBER_OF_CELLS = 1000000;
+  private static final int RUN_LENGTH = 64;
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int ROUNDS = 5;
+
+  private static final KVScannerComparator COMPARATOR =
+      new KVScannerComparator(CellComparator.COMPARATOR);
+
+  private final int numberOfCells;
+  private final Random randomizer = new Random(42L);
+
+  public KeyValueHeapPerformanceTest(int numberOfCells) {
+    this.numberOfCells = numberOfCells;
+  }
+
+  private List<List<Cell>> prepareCells(int scanners, boolean runs) {
+    List<List<Cell>> cells = new ArrayList<>(scanners);
+    for (int i = 0; i < scanners; i++) {
+      cells.add(new ArrayList<>(numberOfCells / scanners + RUN_LENGTH));
+    }
+    byte[] family = Bytes.toBytes("f");
+    byte[] qualifier = Bytes.toBytes("q");
+    int target = 0;
+    for (int i = 0; i < numberOfCells; i++) {
+      if (!runs || i % RUN_LENGTH == 0) {
+        target = randomizer.nextInt(scanners);
+      }
+      cells.get(target).add(new KeyValue(Bytes.toBytes(i), family, qualifier, i, qualifier));
+    }
+    return cells;
+  }
+
+  private static List<KeyValueScanner> createScanners(List<List<Cell>> cells) {
+    List<KeyValueScanner> scanners = new ArrayList<>(cells.size());
+    for (List<Cell> list : cells) {
+      scanners.add(new CollectionBackedScanner(list, CellComparator.COMPARATOR));
+    }
+    return scanners;
+  }
+
+  private static long mergeWithHeap(List<List<Cell>> cells) throws IOException {
+    long count = 0;
+    KeyValueHeap heap = new KeyValueHeap(createScanners(cells), COMPARATOR);
+    while (heap.next() != null) {
+      count++;
+    }
+    heap.close();
+    return count;
+  }
+
+  private static long mergeWithQueue(Queue<KeyValueScanner> queue, List<List<Cell>> cells)
+      throws IOException {
+    long count = 0;
+    for (KeyValueScanner scanner : createScanners(cells)) {
+      if (scanner.peek() != null) {
+        queue.add(scanner);
+      }
+    }
+    KeyValueScanner scanner;
+    while ((scanner = queue.poll()) != null) {
+      scanner.next();
+      count++;
+      if (scanner.peek() != null) {
+        queue.add(scanner);
+      }
+    }
+    return count;
+  }
+
+  private long run(String name, int scanners, List<List<Cell>> cells) throws IOException {
+    long total = 0;
+    for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+      long start = System.nanoTime();
+      long count;
+      if (name.equals("KeyValueHeap")) {
+        count = mergeWithHeap(cells);
+      } else if (name.equals("PriorityQueue")) {
+        count = mergeWithQueue(new PriorityQueue<>(scanners, COMPARATOR), cells);
+      } else {
+        count = mergeWithQueue(new KeyValueScannerTournamentTree(scanners, COMPARATOR), cells);
+      }
+      long duration = System.nanoTime() - start;
+      if (count != numberOfCells) {
+        throw new IllegalStateException(name + " returned " + count + " cells, expected "
+            + numberOfCells);
+      }
+      if (round >= WARMUP_ROUNDS) {
+        total += duration;
+      }
+    }
+    return total / ROUNDS;
+  }
+
+  public void runTests() throws IOException {
+    System.out.printf("%-8s %-6s %-30s %12s %12s\n", "scanners", "runs", "merge", "ms",
+      "ns/cell");
+    for (int scanners : SCANNER_COUNTS) {
+      for (boolean runs : new boolean[] { false, true }) {
+        List<List<Cell>> cells = prepareCells(scanners, runs);
+        for (String name : new String[] { "KeyValueHeap", "PriorityQueue",
+            "KeyValueScannerTournamentTree" }) {
+          long nanos = run(name, scanners, cells);
+          System.out.printf("%-8d %-6b %-30s %12.2f %12.2f\n", scanners, runs, name,
+            nanos / NANOSEC_IN_MILLISEC, (double) nanos / numberOfCells);
+        }
+      }
+    }
+  }
+
+  /**
+   * Command line interface:
+   * @param args Takes an optional argument - the number of cells to merge.
+   * @throws IOException if a scanner fails
+   */
+  public static void main(final String[] args) throws IOException {
+    int numberOfCells = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUMBER_OF_CELLS;
+    new KeyValueHeapPerformanceTest(numberOfCells).runTests();
+  }
+}
@@ -18,6 +18,9 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrapper {
 
   @Override
@@ -70,6 +73,11 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
     return 1900;
   }
 
+  @Override
+  public Map<String, Long> getStoreFileSizeByStoragePolicy() {
+    return Collections.singletonMap("COLD", 1800L);
+  }
+
   @Override
   public long getMaxStoreFileAge() {
     return 2;
@@ -195,6 +203,11 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
     return 0;
   }
 
+  @Override
+  public Map<String, Integer> getCompactionQueueSizeByClass() {
+    return Collections.singletonMap("critical", 3);
+  }
+
   @Override
   public int getFlushQueueSize() {
     return 412;
@@ -315,6 +328,11 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
     return 10240000;
   }
 
+  @Override
+  public long getCompactionPrewarmedSize() {
+    return 2048000;
+  }
+
   @Override
   public long getHedgedReadOps() {
     return 100;
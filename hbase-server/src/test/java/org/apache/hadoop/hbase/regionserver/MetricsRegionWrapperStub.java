@@ -142,4 +142,19 @@ public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
   public int getReplicaId() {
     return replicaid;
   }
+
+  @Override
+  public long getRowCacheHitCount() {
+    return 108;
+  }
+
+  @Override
+  public long getRowCacheMissCount() {
+    return 109;
+  }
+
+  @Override
+  public long getRowCacheSize() {
+    return 110;
+  }
 }
@@ -615,6 +615,72 @@ public class TestCompaction {
     cst.interruptIfNecessary();
   }
 
+  /** Test that the compactions of a compaction class do not wait behind the shared pools. */
+  @Test
+  public void testCompactionClassPool() throws Exception {
+    final Configuration conf = HBaseConfiguration.create();
+    conf.set(CompactSplit.COMPACTION_CLASSES, "critical");
+    HRegionServer mockServer = mock(HRegionServer.class);
+    when(mockServer.isStopped()).thenReturn(false);
+    when(mockServer.getConfiguration()).thenReturn(conf);
+    when(mockServer.getChoreService()).thenReturn(new ChoreService("test"));
+    CompactSplit cst = new CompactSplit(mockServer);
+    when(mockServer.getCompactSplitThread()).thenReturn(cst);
+    cst.shutdownLongCompactions();
+    HRegion r = mock(HRegion.class);
+    when(
+      r.compact(any(CompactionContext.class), any(Store.class),
+        any(ThroughputController.class), any(User.class))).then(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        invocation.getArgumentAt(0, CompactionContext.class).compact(
+          invocation.getArgumentAt(2, ThroughputController.class), null);
+        return true;
+      }
+    });
+    HColumnDescriptor critical = new HColumnDescriptor(fam1);
+    critical.setConfiguration(CompactSplit.COMPACTION_CLASS_KEY, "critical");
+
+    ArrayList<Integer> results = new ArrayList<>();
+    StoreMockMaker sm = new StoreMockMaker(results);
+    Store store = sm.createStoreMock("store1");
+    when(store.getFamily()).thenReturn(critical);
+    BlockingStoreMockMaker blocker = new BlockingStoreMockMaker();
+
+    // Block the shared pool, the compaction of the class still runs.
+    cst.requestSystemCompaction(r, blocker.createStoreMock(1, "b-shared"), "b-shared");
+    BlockingStoreMockMaker.BlockingCompactionContext sharedBlock = blocker.waitForBlocking();
+    for (int i = 0; i < 4; ++i) {
+      sm.notCompacting.add(createFile());
+    }
+    cst.requestSystemCompaction(r, store, "s1");
+    long deadline = System.currentTimeMillis() + 60000;
+    while (getResultCount(results) < 1 && System.currentTimeMillis() < deadline) {
+      Threads.sleepWithoutInterrupt(50);
+    }
+    assertEquals(1, getResultCount(results));
+    assertEquals(4, results.get(0).intValue());
+
+    // Block the pool of the class, its compactions queue up there.
+    Store blocking = blocker.createStoreMock(1, "b-critical");
+    when(blocking.getFamily()).thenReturn(critical);
+    cst.requestSystemCompaction(r, blocking, "b-critical");
+    BlockingStoreMockMaker.BlockingCompactionContext classBlock = blocker.waitForBlocking();
+    sm.notCompacting.add(createFile());
+    cst.requestSystemCompaction(r, store, "s1");
+    assertEquals(1, cst.getCompactionQueueSizeByClass().get("critical").intValue());
+
+    classBlock.unblock();
+    sharedBlock.unblock();
+    cst.interruptIfNecessary();
+  }
+
+  private static int getResultCount(List<Integer> results) {
+    synchronized (results) {
+      return results.size();
+    }
+  }
+
   /**
    * Firstly write 10 cells (with different time stamp) to a qualifier and flush
    * to hfile1, then write 10 cells (with different time stamp) to the same
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.io.hfile.BlockPriority;
+import org.apache.hadoop.hbase.io.hfile.BlockType.BlockCategory;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.CachedBlock;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestCompactionPrewarm {
+
+  private static final HBaseTestingUtility UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 1000;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  @After
+  public void tearDown() throws IOException {
+    if (region != null) {
+      HBaseTestingUtility.closeRegionAndWAL(region);
+    }
+  }
+
+  private HStore createStore() throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(name.getMethodName()));
+    htd.addFamily(new HColumnDescriptor(FAMILY).setBlocksize(1024));
+    htd.setConfiguration(CacheConfig.PREWARM_COMPACTED_BLOCKS_KEY, "true");
+    htd.setConfiguration(CacheConfig.PREWARM_COMPACTED_DATA_RATIO_KEY, "0.5");
+    region = UTIL.createLocalHRegion(htd, null, null);
+    for (int version = 0; version < 3; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, version,
+          Bytes.toBytes(version)));
+      }
+      region.flush(true);
+    }
+    return (HStore) region.getStore(FAMILY);
+  }
+
+  /**
+   * @return the size of the data blocks of the only file of the store in the block cache, which
+   *         must all have the given priority
+   */
+  private long getCachedDataSize(HStore store, BlockPriority priority) {
+    assertEquals(1, store.getStorefilesCount());
+    String fileName = store.getStorefiles().iterator().next().getPath().getName();
+    long size = 0;
+    for (CachedBlock cb : store.getCacheConfig().getBlockCache()) {
+      if (cb.getBlockType().getCategory() == BlockCategory.DATA
+          && cb.getFilename().equals(fileName)) {
+        assertEquals(priority, cb.getBlockPriority());
+        size += cb.getSize();
+      }
+    }
+    return size;
+  }
+
+  @Test
+  public void testHotFilesPrewarmed() throws IOException {
+    HStore store = createStore();
+    for (int i = 0; i < ROWS; i++) {
+      region.get(new Get(Bytes.toBytes(i)));
+    }
+    region.compact(true);
+    // the rows of a block are read one after the other, so its blocks were read again
+    assertTrue(getCachedDataSize(store, BlockPriority.MULTI) > 0);
+    assertTrue(store.getCompactionPrewarmedSize() > 0);
+    // the new file counts as cached for the next compaction
+    StoreFileReader reader = store.getStorefiles().iterator().next().getReader();
+    assertEquals(reader.getTotalUncompressedBytes(), reader.getCachedDataSize());
+  }
+
+  @Test
+  public void testColdFilesNotPrewarmed() throws IOException {
+    HStore store = createStore();
+    region.compact(true);
+    assertEquals(0, getCachedDataSize(store, BlockPriority.SINGLE));
+    // the blooms are still cached
+    assertTrue(store.getCompactionPrewarmedSize() > 0);
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestGlobalFlushPlanner {
+
+  private static final long MB = 1024L * 1024;
+  private static final long NOW = 10L * 60 * 60 * 1000;
+  private static final long FLUSH_SIZE = 128 * MB;
+
+  private GlobalFlushPlanner planner;
+
+  @Before
+  public void setUp() {
+    ManualEnvironmentEdge edge = new ManualEnvironmentEdge();
+    edge.setValue(NOW);
+    EnvironmentEdgeManager.injectEdge(edge);
+    planner = new GlobalFlushPlanner(HBaseConfiguration.create());
+  }
+
+  @After
+  public void tearDown() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  /**
+   * @param lastFlushAgo the time since the last flush of the stores
+   * @param storeFileCount the number of files of each store
+   * @param storeSizes the memstore sizes of the stores
+   */
+  private static HRegion mockRegion(long lastFlushAgo, int storeFileCount, long... storeSizes) {
+    HRegion region = mock(HRegion.class);
+    List<Store> stores = new ArrayList<>();
+    for (long storeSize : storeSizes) {
+      Store store = mock(Store.class);
+      doReturn(new MemstoreSize(storeSize, storeSize)).when(store).getSizeOfMemStore();
+      doReturn(storeFileCount).when(store).getStorefilesCount();
+      doReturn(NOW - lastFlushAgo).when(region).getLastStoreFlushTime(store);
+      stores.add(store);
+    }
+    doReturn(stores).when(region).getStores();
+    doReturn(new HTableDescriptor(TableName.valueOf("test"))).when(region).getTableDesc();
+    doReturn(FLUSH_SIZE).when(region).getMemstoreFlushSize();
+    return region;
+  }
+
+  @Test
+  public void testFewerFilesFirst() {
+    HRegion oneStore = mockRegion(60 * 1000, 0, 40 * MB);
+    HRegion fourStores = mockRegion(60 * 1000, 0, 10 * MB, 10 * MB, 10 * MB, 10 * MB);
+    assertEquals(Arrays.asList(oneStore),
+      planner.plan(Arrays.asList(fourStores, oneStore), 30 * MB));
+    // both are needed to free enough
+    assertEquals(Arrays.asList(oneStore, fourStores),
+      planner.plan(Arrays.asList(fourStores, oneStore), 60 * MB));
+  }
+
+  @Test
+  public void testSlowlyWrittenRegionsFirst() {
+    // would only be flushed by the periodic flush anyway
+    HRegion slow = mockRegion(5 * 60 * 60 * 1000, 0, 20 * MB);
+    // would reach its flush size in minutes, flushing it now adds a file
+    HRegion fast = mockRegion(60 * 1000, 0, 30 * MB);
+    assertEquals(Arrays.asList(slow), planner.plan(Arrays.asList(fast, slow), 10 * MB));
+  }
+
+  @Test
+  public void testRegionsAboutToFlushFirst() {
+    HRegion full = mockRegion(60 * 1000, 0, 64 * MB, 64 * MB);
+    HRegion big = mockRegion(60 * 1000, 0, 100 * MB);
+    assertEquals(Arrays.asList(full), planner.plan(Arrays.asList(big, full), 10 * MB));
+  }
+
+  @Test
+  public void testStoresWithManyFilesLast() {
+    HRegion manyFiles = mockRegion(60 * 1000, 7, 30 * MB);
+    HRegion fewFiles = mockRegion(60 * 1000, 0, 20 * MB);
+    assertEquals(Arrays.asList(fewFiles), planner.plan(Arrays.asList(manyFiles, fewFiles), MB));
+  }
+
+  @Test
+  public void testEmptyRegionsSkipped() {
+    HRegion empty = mockRegion(60 * 1000, 0, 0, 0);
+    assertEquals(0, planner.plan(Arrays.asList(empty), 10 * MB).size());
+    HRegion small = mockRegion(60 * 1000, 0, MB);
+    // at least one region, even if it does not free enough
+    assertEquals(Arrays.asList(small), planner.plan(Arrays.asList(empty, small), 10 * MB));
+  }
+}
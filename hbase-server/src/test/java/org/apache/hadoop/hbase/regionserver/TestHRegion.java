@@ -4891,6 +4891,43 @@ public class TestHRegion {
     }
   }
 
+  /**
+   * Test that the stores of a region with many families are flushed in parallel
+   */
+  @Test
+  public void testParallelStoreFlush() throws IOException {
+    Configuration conf = new Configuration(CONF);
+    conf.setInt(HRegion.FLUSH_STORES_THREADS_MAX, 4);
+    byte[][] families = new byte[6][];
+    for (int i = 0; i < families.length; i++) {
+      families[i] = Bytes.toBytes("family" + i);
+    }
+    this.region = initHRegion(tableName, method, conf, families);
+    try {
+      for (int i = 0; i < 100; i++) {
+        Put put = new Put(Bytes.toBytes(i));
+        for (byte[] family : families) {
+          put.addColumn(family, qual1, Bytes.toBytes(i));
+        }
+        region.put(put);
+      }
+      assertTrue(region.flush(true).isFlushSucceeded());
+      assertEquals(0, region.getMemstoreSize());
+      for (byte[] family : families) {
+        Store store = region.getStore(family);
+        assertEquals(1, store.getStorefilesCount());
+        assertEquals(0, store.getSizeOfSnapshot().getDataSize());
+      }
+      for (int i = 0; i < 100; i++) {
+        Result result = region.get(new Get(Bytes.toBytes(i)));
+        assertEquals(families.length, result.size());
+      }
+    } finally {
+      HBaseTestingUtility.closeRegionAndWAL(this.region);
+      this.region = null;
+    }
+  }
+
   protected Configuration initSplit() {
     // Always compact if there is more than one store file.
     CONF.setInt("hbase.hstore.compactionThreshold", 2);
@@ -0,0 +1,104 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.regionserver.KeyValueHeap.KVScannerComparator;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.CollectionBackedScanner;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestKeyValueScannerTournamentTree {
+
+  private static final KVScannerComparator COMPARATOR =
+      new KVScannerComparator(CellComparator.COMPARATOR);
+
+  private static KeyValueScanner createScanner(int row) {
+    return new CollectionBackedScanner(Collections.singletonList(new KeyValue(
+        Bytes.toBytes(String.format("row%08d", row)), Bytes.toBytes("f"), Bytes.toBytes("q"))));
+  }
+
+  @Test
+  public void testEmpty() {
+    KeyValueScannerTournamentTree tree = new KeyValueScannerTournamentTree(0, COMPARATOR);
+    assertEquals(0, tree.size());
+    assertNull(tree.peek());
+    assertNull(tree.poll());
+    KeyValueScanner scanner = createScanner(1);
+    assertSame(scanner, tree.addAndPoll(scanner));
+    assertEquals(0, tree.size());
+  }
+
+  @Test
+  public void testSameOrderAsPriorityQueue() {
+    Random rand = new Random(12345);
+    for (int capacity : new int[] { 1, 2, 3, 7, 16, 50 }) {
+      KeyValueScannerTournamentTree tree =
+          new KeyValueScannerTournamentTree(capacity, COMPARATOR);
+      PriorityQueue<KeyValueScanner> queue = new PriorityQueue<>(capacity, COMPARATOR);
+      for (int i = 0; i < 10000; i++) {
+        // distinct rows in scrambled order, ties would make the order ambiguous
+        KeyValueScanner scanner = createScanner((int) (i * 7919L % 1000003));
+        switch (rand.nextInt(3)) {
+          case 0:
+            // also grows the tree beyond its initial capacity
+            tree.add(scanner);
+            queue.add(scanner);
+            break;
+          case 1:
+            assertSame(queue.poll(), tree.poll());
+            break;
+          default:
+            queue.add(scanner);
+            assertSame(queue.poll(), tree.addAndPoll(scanner));
+            break;
+        }
+        assertEquals(queue.size(), tree.size());
+        assertSame(queue.peek(), tree.peek());
+      }
+      Set<KeyValueScanner> expected = new HashSet<>(queue);
+      List<KeyValueScanner> actual = new ArrayList<>();
+      for (KeyValueScanner scanner : tree) {
+        actual.add(scanner);
+      }
+      assertEquals(expected.size(), actual.size());
+      assertEquals(expected, new HashSet<>(actual));
+      tree.clear();
+      assertEquals(0, tree.size());
+      assertNull(tree.peek());
+    }
+  }
+}
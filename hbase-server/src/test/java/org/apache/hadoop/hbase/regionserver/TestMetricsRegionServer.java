@@ -19,6 +19,8 @@ package org.apache.hadoop.hbase.regionserver;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.CompatibilityFactory;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.metrics.Snapshot;
 import org.apache.hadoop.hbase.testclassification.RegionServerTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.apache.hadoop.hbase.test.MetricsAssertHelper;
@@ -28,6 +30,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 /**
@@ -71,6 +75,7 @@ public class TestMetricsRegionServer {
     HELPER.assertGauge("storeFileCount", 300, serverSource);
     HELPER.assertGauge("memstoreSize", 1025, serverSource);
     HELPER.assertGauge("storeFileSize", 1900, serverSource);
+    HELPER.assertGauge("StoragePolicy_COLD_metric_storeFileSize", 1800, serverSource);
     HELPER.assertCounter("totalRequestCount", 899, serverSource);
     HELPER.assertCounter("readRequestCount", 997, serverSource);
     HELPER.assertCounter("filteredReadRequestCount", 1997, serverSource);
@@ -85,6 +90,7 @@ public class TestMetricsRegionServer {
     HELPER.assertGauge("percentFilesLocal", 99, serverSource);
     HELPER.assertGauge("percentFilesLocalSecondaryRegions", 99, serverSource);
     HELPER.assertGauge("compactionQueueLength", 411, serverSource);
+    HELPER.assertGauge("CompactionClass_critical_metric_compactionQueueLength", 3, serverSource);
     HELPER.assertGauge("flushQueueLength", 412, serverSource);
     HELPER.assertGauge("blockCacheFreeSize", 413, serverSource);
     HELPER.assertGauge("blockCacheCount", 414, serverSource);
@@ -96,6 +102,7 @@ public class TestMetricsRegionServer {
     HELPER.assertGauge("blockCacheExpressHitPercent", 97, serverSource);
     HELPER.assertCounter("blockCacheFailedInsertionCount", 36, serverSource);
     HELPER.assertCounter("updatesBlockedTime", 419, serverSource);
+    HELPER.assertCounter("compactionPrewarmedSize", 2048000, serverSource);
   }
 
   @Test
@@ -169,6 +176,30 @@ public class TestMetricsRegionServer {
     HELPER.assertCounter("flushedOutputBytes", 33, serverSource);
   }
 
+  @Test
+  public void testStoreFlush() {
+    TableName t1 = TableName.valueOf("t1");
+    TableName t2 = TableName.valueOf("ns", "t2");
+    rsm.updateStoreFlush(t1, "a", 1);
+    rsm.updateStoreFlush(t1, "a", 2);
+    rsm.updateStoreFlush(t1, "b", 3);
+    rsm.updateStoreFlush(t2, "a", 4);
+    HELPER.assertCounter("Namespace_default_table_t1_family_a_metric_storeFlushTime_num_ops", 2,
+      serverSource);
+    HELPER.assertCounter("Namespace_default_table_t1_family_b_metric_storeFlushTime_num_ops", 1,
+      serverSource);
+    HELPER.assertCounter("Namespace_ns_table_t2_family_a_metric_storeFlushTime_num_ops", 1,
+      serverSource);
+
+    rsm.removeStoreFlushes(t1);
+    assertFalse(HELPER.checkCounterExists(
+      "Namespace_default_table_t1_family_a_metric_storeFlushTime_num_ops", serverSource));
+    assertFalse(HELPER.checkCounterExists(
+      "Namespace_default_table_t1_family_b_metric_storeFlushTime_num_ops", serverSource));
+    HELPER.assertCounter("Namespace_ns_table_t2_family_a_metric_storeFlushTime_num_ops", 1,
+      serverSource);
+  }
+
   @Test
   public void testCompaction() {
     rsm.updateCompaction(false, 1, 2, 3, 4, 5);
@@ -205,6 +236,18 @@ public class TestMetricsRegionServer {
     HELPER.assertCounter("majorCompactedoutputBytes", 500, serverSource);
   }
 
+  @Test
+  public void testGetLatencies() {
+    rsm.updateGet(10);
+    rsm.updateGet(20);
+    // scans are not gets, their latency depends on how much they read
+    rsm.updateScanTime(1000);
+    Snapshot snapshot = rsm.snapshotAndResetGetLatencies();
+    assertEquals(2, snapshot.getCount());
+    assertEquals(20, snapshot.getMax());
+    assertEquals(0, rsm.snapshotAndResetGetLatencies().getCount());
+  }
+
   @Test
   public void testPauseMonitor() {
     Configuration conf = new Configuration();
@@ -0,0 +1,167 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestParallelStoreSeeker {
+
+  private static final Cell KEY = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("f"),
+      Bytes.toBytes("q"));
+
+  private static ParallelStoreSeeker SEEKER;
+
+  @BeforeClass
+  public static void setUp() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(ParallelStoreSeeker.PARALLEL_SEEK_THREADS_KEY, 4);
+    conf.setInt(ParallelStoreSeeker.PARALLEL_SEEK_MIN_SCANNERS_KEY, 3);
+    SEEKER = new ParallelStoreSeeker(conf);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    SEEKER.shutdown();
+  }
+
+  @Test
+  public void testThreshold() {
+    assertFalse(SEEKER.shouldSeekInParallel(2));
+    assertTrue(SEEKER.shouldSeekInParallel(3));
+  }
+
+  @Test
+  public void testSeeksAllScanners() throws IOException {
+    List<KeyValueScanner> scanners = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      scanners.add(mock(StoreFileScanner.class));
+    }
+    scanners.add(mock(SegmentScanner.class));
+    SEEKER.submit(scanners, KEY).await();
+    for (KeyValueScanner scanner : scanners) {
+      verify(scanner).seek(KEY);
+    }
+  }
+
+  @Test
+  public void testSeekFailure() throws IOException {
+    List<KeyValueScanner> scanners = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      scanners.add(mock(StoreFileScanner.class));
+    }
+    IOException error = new IOException("injected");
+    doThrow(error).when(scanners.get(2)).seek(any(Cell.class));
+    try {
+      SEEKER.submit(scanners, KEY).await();
+      fail("Seek should have failed");
+    } catch (IOException e) {
+      assertEquals("injected", e.getMessage());
+    }
+  }
+
+  /**
+   * @return a scanner whose seek signals <code>started</code>, then sleeps a while before setting
+   *         <code>done</code>
+   */
+  private static KeyValueScanner slowScanner(CountDownLatch started, AtomicBoolean done)
+      throws IOException {
+    KeyValueScanner scanner = mock(StoreFileScanner.class);
+    doAnswer(invocation -> {
+      started.countDown();
+      Thread.sleep(500);
+      done.set(true);
+      return true;
+    }).when(scanner).seek(any(Cell.class));
+    return scanner;
+  }
+
+  @Test
+  public void testSeekFailureWaitsForRunningSeeks() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean done = new AtomicBoolean();
+    List<KeyValueScanner> scanners = new ArrayList<>();
+    KeyValueScanner failing = mock(StoreFileScanner.class);
+    doAnswer(invocation -> {
+      started.await();
+      throw new IOException("injected");
+    }).when(failing).seek(any(Cell.class));
+    scanners.add(failing);
+    scanners.add(slowScanner(started, done));
+    scanners.add(mock(StoreFileScanner.class));
+    try {
+      SEEKER.submit(scanners, KEY).await();
+      fail("Seek should have failed");
+    } catch (IOException e) {
+      assertEquals("injected", e.getMessage());
+    }
+    // the scanners may be closed by the caller now, so no seek may be running any more
+    assertTrue(done.get());
+  }
+
+  @Test
+  public void testCancelWaitsForRunningSeeks() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean done = new AtomicBoolean();
+    List<KeyValueScanner> scanners = new ArrayList<>();
+    scanners.add(slowScanner(started, done));
+    for (int i = 0; i < 3; i++) {
+      scanners.add(mock(StoreFileScanner.class));
+    }
+    ParallelStoreSeeker.SeekBatch batch = SEEKER.submit(scanners, KEY);
+    started.await();
+    // as done by StoreScanner.close
+    batch.cancel();
+    batch.join();
+    assertTrue(done.get());
+    try {
+      batch.await();
+      fail("Seek should have been cancelled");
+    } catch (InterruptedIOException e) {
+      // expected
+    }
+  }
+}
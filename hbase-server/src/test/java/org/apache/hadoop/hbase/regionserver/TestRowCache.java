@@ -0,0 +1,190 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.MockRegionServerServices;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({RegionServerTests.class, MediumTests.class})
+public class TestRowCache {
+
+  private static final HBaseTestingUtility TEST_UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final byte[] ROW = Bytes.toBytes("row");
+
+  @Rule
+  public TestName name = new TestName();
+
+  private MockRegionServerServices rsServices;
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    conf.setLong(RowCache.ROW_CACHE_SIZE_KEY, 1024 * 1024);
+    // the regions of a region server share its cache
+    rsServices = new MockRegionServerServices(conf);
+    rsServices.setRowCache(RowCache.SharedCache.create(conf));
+    region = createRegion(TableName.valueOf(name.getMethodName()), null);
+  }
+
+  private HRegion createRegion(TableName tableName, String rowCacheEnabled) throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(tableName);
+    htd.addFamily(new HColumnDescriptor(FAMILY));
+    if (rowCacheEnabled != null) {
+      htd.setConfiguration(RowCache.ROW_CACHE_ENABLED_KEY, rowCacheEnabled);
+    }
+    HRegionInfo info = new HRegionInfo(tableName, null, null, false);
+    Path rootDir = TEST_UTIL.getDataTestDir();
+    HRegion created = HBaseTestingUtility.createRegionAndWAL(info, rootDir,
+      TEST_UTIL.getConfiguration(), htd, false);
+    return HRegion.openHRegion(rootDir, info, htd, created.getWAL(),
+      TEST_UTIL.getConfiguration(), rsServices, null);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private void put(byte[] value) throws IOException {
+    region.put(new Put(ROW).addColumn(FAMILY, QUALIFIER, value));
+  }
+
+  private byte[] get() throws IOException {
+    return region.get(new Get(ROW).addColumn(FAMILY, QUALIFIER)).getValue(FAMILY, QUALIFIER);
+  }
+
+  @Test
+  public void testHitAfterMiss() throws IOException {
+    RowCache rowCache = region.getRowCache();
+    assertNotNull(rowCache);
+    put(Bytes.toBytes("v1"));
+    assertArrayEquals(Bytes.toBytes("v1"), get());
+    assertEquals(0, rowCache.getHitCount());
+    assertEquals(1, rowCache.getMissCount());
+    assertArrayEquals(Bytes.toBytes("v1"), get());
+    assertEquals(1, rowCache.getHitCount());
+  }
+
+  @Test
+  public void testInvalidatedByWrites() throws IOException {
+    put(Bytes.toBytes("v1"));
+    assertArrayEquals(Bytes.toBytes("v1"), get());
+    put(Bytes.toBytes("v2"));
+    assertArrayEquals(Bytes.toBytes("v2"), get());
+    region.flush(true);
+    assertArrayEquals(Bytes.toBytes("v2"), get());
+    region.delete(new Delete(ROW));
+    assertNull(get());
+    put(Bytes.toBytes("v3"));
+    assertArrayEquals(Bytes.toBytes("v3"), get());
+    assertArrayEquals(Bytes.toBytes("v3"), get());
+    assertEquals(2, region.getRowCache().getHitCount());
+  }
+
+  @Test
+  public void testNotCacheable() throws IOException {
+    put(Bytes.toBytes("v1"));
+    Get get = new Get(ROW).setFilter(new FirstKeyOnlyFilter());
+    Result result = region.get(get);
+    assertArrayEquals(Bytes.toBytes("v1"), result.getValue(FAMILY, QUALIFIER));
+    region.get(get);
+    assertEquals(0, region.getRowCache().getHitCount());
+    assertEquals(0, region.getRowCache().getMissCount());
+  }
+
+  @Test
+  public void testSharedBetweenRegions() throws IOException {
+    HRegion other = createRegion(TableName.valueOf(name.getMethodName() + "-other"), null);
+    try {
+      put(Bytes.toBytes("v1"));
+      other.put(new Put(ROW).addColumn(FAMILY, QUALIFIER, Bytes.toBytes("other")));
+      Get get = new Get(ROW).addColumn(FAMILY, QUALIFIER);
+      for (int i = 0; i < 2; i++) {
+        assertArrayEquals(Bytes.toBytes("v1"), get());
+        assertArrayEquals(Bytes.toBytes("other"), other.get(get).getValue(FAMILY, QUALIFIER));
+      }
+      assertEquals(1, region.getRowCache().getHitCount());
+      assertEquals(1, other.getRowCache().getHitCount());
+      assertTrue(other.getRowCache().getSize() > 0);
+    } finally {
+      HBaseTestingUtility.closeRegionAndWAL(other);
+    }
+    // the entries of a closed region leave the cache
+    assertEquals(0, other.getRowCache().getSize());
+    assertTrue(region.getRowCache().getSize() > 0);
+  }
+
+  @Test
+  public void testNoCacheWithoutRegionServer() throws IOException {
+    TableName tableName = TableName.valueOf(name.getMethodName() + "-local");
+    HTableDescriptor htd = new HTableDescriptor(tableName);
+    htd.addFamily(new HColumnDescriptor(FAMILY));
+    HRegion other = TEST_UTIL.createLocalHRegion(new HRegionInfo(tableName, null, null, false),
+      htd);
+    try {
+      assertNull(other.getRowCache());
+    } finally {
+      HBaseTestingUtility.closeRegionAndWAL(other);
+    }
+  }
+
+  @Test
+  public void testDisabledForTable() throws IOException {
+    HRegion other =
+        createRegion(TableName.valueOf(name.getMethodName() + "-disabled"), "false");
+    try {
+      assertNull(other.getRowCache());
+    } finally {
+      HBaseTestingUtility.closeRegionAndWAL(other);
+    }
+  }
+}
@@ -43,6 +43,7 @@ import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.CreateStoreFileWriterParams;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
 import org.apache.hadoop.hbase.regionserver.StoreFile;
@@ -82,13 +83,21 @@ public class TestCompactor {
       public ArrayList<KeyValue> kvs = new ArrayList<>();
       public TreeMap<byte[], byte[]> data = new TreeMap<>(Bytes.BYTES_COMPARATOR);
       public boolean hasMetadata;
+      public String storagePolicy;
     }
 
     private List<Writer> writers = new ArrayList<>();
 
     @Override
     public StoreFileWriter createWriter() throws IOException {
+      return createWriterWithStoragePolicy(null);
+    }
+
+    @Override
+    public StoreFileWriter createWriterWithStoragePolicy(String fileStoragePolicy)
+        throws IOException {
       final Writer realWriter = new Writer();
+      realWriter.storagePolicy = fileStoragePolicy;
       writers.add(realWriter);
       StoreFileWriter writer = mock(StoreFileWriter.class);
       doAnswer(new Answer<Object>() {
@@ -120,7 +129,9 @@ public class TestCompactor {
 
     @Override
     public StoreFileWriter answer(InvocationOnMock invocation) throws Throwable {
-      return createWriter();
+      CreateStoreFileWriterParams params =
+          (CreateStoreFileWriterParams) invocation.getArguments()[0];
+      return createWriterWithStoragePolicy(params.fileStoragePolicy());
     }
 
     public void verifyKvs(KeyValue[][] kvss, boolean allFiles, boolean requireMetadata) {
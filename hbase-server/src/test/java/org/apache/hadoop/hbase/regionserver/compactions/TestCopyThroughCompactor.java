@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
+import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestCopyThroughCompactor {
+
+  private static final HBaseTestingUtility UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @Parameters
+  public static List<Object[]> params() {
+    return Arrays.asList(new Object[][] {
+      { DataBlockEncoding.NONE, Compression.Algorithm.NONE },
+      { DataBlockEncoding.FAST_DIFF, Compression.Algorithm.GZ } });
+  }
+
+  @Rule
+  public TestName name = new TestName();
+
+  private final DataBlockEncoding encoding;
+  private final Compression.Algorithm compression;
+  private HRegion region;
+
+  public TestCopyThroughCompactor(DataBlockEncoding encoding, Compression.Algorithm compression) {
+    this.encoding = encoding;
+    this.compression = compression;
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    String tableName = name.getMethodName().replaceAll("[^a-zA-Z0-9]", "_");
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(tableName));
+    HColumnDescriptor hcd = new HColumnDescriptor(FAMILY);
+    hcd.setBlocksize(1024);
+    hcd.setMaxVersions(2);
+    hcd.setBloomFilterType(BloomType.ROW);
+    hcd.setDataBlockEncoding(encoding);
+    hcd.setCompressionType(compression);
+    htd.addFamily(hcd);
+    htd.setConfiguration(DefaultStoreEngine.DEFAULT_COMPACTOR_CLASS_KEY,
+      CopyThroughCompactor.class.getName());
+    region = UTIL.createLocalHRegion(htd, null, null);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row%06d", i));
+  }
+
+  private static byte[] value(int i, int version) {
+    return Bytes.toBytes("value-" + i + "-" + version);
+  }
+
+  private void putAndFlush(int startRow, int stopRow, int version) throws IOException {
+    for (int i = startRow; i < stopRow; i++) {
+      region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, version, value(i, version)));
+    }
+    region.flush(true);
+  }
+
+  @Test
+  public void testMinorCompactionCopiesDisjointFiles() throws IOException {
+    putAndFlush(0, 1000, 0);
+    putAndFlush(1000, 2000, 0);
+    // the last two files overlap and are merged
+    putAndFlush(2500, 3000, 0);
+    putAndFlush(2800, 3500, 1);
+
+    Store store = region.getStore(FAMILY);
+    List<StoreFile> files = new ArrayList<>(store.getStorefiles());
+    assertEquals(4, files.size());
+    assertEquals(2,
+      CopyThroughCompactor.getFilesToCopy(files, store.getComparator(), Long.MIN_VALUE).size());
+    // an expired file is not copied
+    assertEquals(0,
+      CopyThroughCompactor.getFilesToCopy(files, store.getComparator(), 1).size());
+
+    CopyThroughCompactor compactor =
+        (CopyThroughCompactor) ((HStore) store).getStoreEngine().getCompactor();
+    List<Path> newFiles = compactor.compactForTesting(files, false);
+    assertEquals(1, newFiles.size());
+
+    HStoreFile output = new HStoreFile(store.getFileSystem(), newFiles.get(0),
+        UTIL.getConfiguration(), store.getCacheConfig(), BloomType.ROW, true);
+    output.initReader();
+    StoreFileReader reader = output.getReader();
+    try {
+      assertEquals(2000 + 300 + 2 * 200 + 500, reader.getEntries());
+      for (int i = 0; i < 3500; i++) {
+        if (i < 2000 || i >= 2500) {
+          assertTrue(reader.passesGeneralRowBloomFilter(row(i), 0, row(i).length));
+        }
+      }
+
+      // read the whole file in order
+      StoreFileScanner scanner = reader.getStoreFileScanner(false, false, false,
+        Long.MAX_VALUE, 0, false);
+      try {
+        scanner.seek(KeyValueUtil.createFirstOnRow(HConstants.EMPTY_START_ROW));
+        for (int i = 0; i < 3500; i++) {
+          if (i >= 2000 && i < 2500) {
+            continue;
+          }
+          if (i >= 2800) {
+            assertCell(scanner.next(), i, 1);
+          }
+          if (i < 3000) {
+            assertCell(scanner.next(), i, 0);
+          }
+        }
+        assertNull(scanner.next());
+
+        // seek through the block index of the copied and the merged blocks
+        for (int i : new int[] { 0, 1, 999, 1000, 1500, 1999, 2500, 2900, 3499 }) {
+          scanner.seek(KeyValueUtil.createFirstOnRow(row(i)));
+          assertCell(scanner.peek(), i, i >= 2800 ? 1 : 0);
+        }
+      } finally {
+        scanner.close();
+      }
+    } finally {
+      reader.close(true);
+    }
+  }
+
+  @Test
+  public void testMajorSliceIsNotCopied() throws IOException {
+    putAndFlush(0, 1000, 0);
+    putAndFlush(1000, 2000, 0);
+
+    Store store = region.getStore(FAMILY);
+    List<StoreFile> files = new ArrayList<>(store.getStorefiles());
+    assertEquals(2,
+      CopyThroughCompactor.getFilesToCopy(files, store.getComparator(), Long.MIN_VALUE).size());
+
+    // a split step of an incremental major compaction cuts the disjoint files at the boundaries
+    CopyThroughCompactor compactor =
+        (CopyThroughCompactor) ((HStore) store).getStoreEngine().getCompactor();
+    MajorSliceCompactionRequest request = new MajorSliceCompactionRequest(files,
+        Arrays.asList(row(500), row(1500)), Bytes.toBytes("split"));
+    List<Path> newFiles = compactor.compact(request, NoLimitThroughputController.INSTANCE, null);
+    assertEquals(3, newFiles.size());
+  }
+
+  private static void assertCell(Cell cell, int row, int version) {
+    assertArrayEquals(row(row), CellUtil.cloneRow(cell));
+    assertEquals(version, cell.getTimestamp());
+    assertArrayEquals(value(row, version), CellUtil.cloneValue(cell));
+  }
+}
@@ -17,13 +17,16 @@
  */
 package org.apache.hadoop.hbase.regionserver.compactions;
 
+import static org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration.DATE_TIERED_COLD_WINDOW_AGE_MILLIS_KEY;
+import static org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration.DATE_TIERED_COLD_WINDOW_STORAGE_POLICY_KEY;
+import static org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration.DATE_TIERED_HOT_WINDOW_STORAGE_POLICY_KEY;
+import static org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration.DATE_TIERED_STORAGE_POLICY_ENABLE_KEY;
 import static org.apache.hadoop.hbase.regionserver.compactions.TestCompactor.createDummyRequest;
 import static org.apache.hadoop.hbase.regionserver.compactions.TestCompactor.createDummyStoreFile;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyBoolean;
-import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -41,7 +44,7 @@ import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.TableName;
-import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.regionserver.CreateStoreFileWriterParams;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.ScanInfo;
 import org.apache.hadoop.hbase.regionserver.ScanType;
@@ -55,6 +58,8 @@ import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController
 import org.apache.hadoop.hbase.testclassification.RegionServerTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
@@ -88,7 +93,11 @@ public class TestDateTieredCompactor {
 
   private DateTieredCompactor createCompactor(StoreFileWritersCapture writers,
       final KeyValue[] input, List<StoreFile> storefiles) throws Exception {
-    Configuration conf = HBaseConfiguration.create();
+    return createCompactor(writers, input, storefiles, HBaseConfiguration.create());
+  }
+
+  private DateTieredCompactor createCompactor(StoreFileWritersCapture writers,
+      final KeyValue[] input, List<StoreFile> storefiles, Configuration conf) throws Exception {
     conf.setBoolean("hbase.regionserver.compaction.private.readers", usePrivateReaders);
     final Scanner scanner = new Scanner(input);
     // Create store mock that is satisfactory for compactor.
@@ -101,8 +110,7 @@ public class TestDateTieredCompactor {
     when(store.areWritesEnabled()).thenReturn(true);
     when(store.getFileSystem()).thenReturn(mock(FileSystem.class));
     when(store.getRegionInfo()).thenReturn(new HRegionInfo(TABLE_NAME));
-    when(store.createWriterInTmp(anyLong(), any(Compression.Algorithm.class), anyBoolean(),
-      anyBoolean(), anyBoolean(), anyBoolean())).thenAnswer(writers);
+    when(store.createWriterInTmp(any(CreateStoreFileWriterParams.class))).thenAnswer(writers);
     when(store.getComparator()).thenReturn(CellComparator.COMPARATOR);
     long maxSequenceId = StoreUtils.getMaxSequenceIdInList(storefiles);
     when(store.getMaxSequenceId()).thenReturn(maxSequenceId);
@@ -167,4 +175,48 @@ public class TestDateTieredCompactor {
     assertTrue(dummyWriter.kvs.isEmpty());
     assertTrue(dummyWriter.hasMetadata);
   }
+
+  @Test
+  public void testStoragePolicyByWindowAge() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(DATE_TIERED_STORAGE_POLICY_ENABLE_KEY, true);
+    conf.setLong(DATE_TIERED_COLD_WINDOW_AGE_MILLIS_KEY, 650L);
+    conf.set(DATE_TIERED_HOT_WINDOW_STORAGE_POLICY_KEY, "ALL_SSD");
+    conf.set(DATE_TIERED_COLD_WINDOW_STORAGE_POLICY_KEY, "COLD");
+    ManualEnvironmentEdge edge = new ManualEnvironmentEdge();
+    edge.setValue(1000L);
+    EnvironmentEdgeManager.injectEdge(edge);
+    try {
+      StoreFileWritersCapture writers = new StoreFileWritersCapture();
+      StoreFile sf1 = createDummyStoreFile(1L);
+      StoreFile sf2 = createDummyStoreFile(2L);
+      DateTieredCompactor dtc = createCompactor(writers, a(KV_A, KV_B, KV_C, KV_D),
+        Arrays.asList(sf1, sf2), conf);
+      // the windows older than 1000 - 650 = 350 are cold
+      dtc.compact(new CompactionRequest(Arrays.asList(sf1)), Arrays.asList(100L, 200L, 300L, 400L),
+        NoLimitThroughputController.INSTANCE, null);
+      List<StoreFileWritersCapture.Writer> dummyWriters = writers.getWriters();
+      assertEquals(4, dummyWriters.size());
+      assertEquals("COLD", dummyWriters.get(0).storagePolicy);
+      assertEquals("COLD", dummyWriters.get(1).storagePolicy);
+      assertEquals("ALL_SSD", dummyWriters.get(2).storagePolicy);
+      assertEquals("ALL_SSD", dummyWriters.get(3).storagePolicy);
+    } finally {
+      EnvironmentEdgeManager.reset();
+    }
+  }
+
+  @Test
+  public void testNoStoragePolicyByDefault() throws Exception {
+    StoreFileWritersCapture writers = new StoreFileWritersCapture();
+    StoreFile sf1 = createDummyStoreFile(1L);
+    StoreFile sf2 = createDummyStoreFile(2L);
+    DateTieredCompactor dtc = createCompactor(writers, a(KV_A, KV_B, KV_C, KV_D),
+      Arrays.asList(sf1, sf2));
+    dtc.compact(new CompactionRequest(Arrays.asList(sf1)), Arrays.asList(100L, 300L),
+      NoLimitThroughputController.INSTANCE, null);
+    for (StoreFileWritersCapture.Writer writer : writers.getWriters()) {
+      assertNull(writer.storagePolicy);
+    }
+  }
 }
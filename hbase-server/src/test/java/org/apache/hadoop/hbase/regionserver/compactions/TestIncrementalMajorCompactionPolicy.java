@@ -0,0 +1,268 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.compactions.IncrementalMajorCompactionPolicy.Round;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestIncrementalMajorCompactionPolicy {
+
+  private static final HBaseTestingUtility UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 2000;
+  private static final int FLUSHES = 4;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(name.getMethodName()));
+    HColumnDescriptor hcd = new HColumnDescriptor(FAMILY);
+    hcd.setBlocksize(1024);
+    hcd.setMaxVersions(2);
+    htd.addFamily(hcd);
+    htd.setConfiguration(DefaultStoreEngine.DEFAULT_COMPACTION_POLICY_CLASS_KEY,
+      IncrementalMajorCompactionPolicy.class.getName());
+    htd.setConfiguration(IncrementalMajorCompactionPolicy.SLICE_SIZE_KEY, "131072");
+    htd.setConfiguration(IncrementalMajorCompactionPolicy.SLICE_INTERVAL_KEY, "0");
+    htd.setConfiguration(HConstants.MAJOR_COMPACTION_PERIOD, "1");
+    htd.setConfiguration("hbase.hregion.majorcompaction.jitter", "0");
+    region = UTIL.createLocalHRegion(htd, null, null);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row%06d", i));
+  }
+
+  private static byte[] value(int i, int version) {
+    return Bytes.toBytes("value-" + i + "-" + version);
+  }
+
+  private HStore getStore() {
+    return (HStore) region.getStore(FAMILY);
+  }
+
+  private Round getRound() {
+    HStore store = getStore();
+    IncrementalMajorCompactionPolicy policy =
+        (IncrementalMajorCompactionPolicy) store.getStoreEngine().getCompactionPolicy();
+    return policy.getRound(store.getStorefiles());
+  }
+
+  /**
+   * Checks the rows read, and that the raw rows have no more than the live cells if deletesDropped
+   */
+  private void verify(boolean deletesDropped) throws IOException {
+    Scan scan = new Scan().setMaxVersions().setRaw(deletesDropped);
+    InternalScanner scanner = region.getScanner(scan);
+    List<Cell> cells = new ArrayList<>();
+    int expectedRow = 1;
+    boolean more;
+    do {
+      more = scanner.next(cells);
+      if (cells.isEmpty()) {
+        continue;
+      }
+      assertArrayEquals(row(expectedRow), CellUtil.cloneRow(cells.get(0)));
+      assertEquals(2, cells.size());
+      assertArrayEquals(value(expectedRow, FLUSHES - 1), CellUtil.cloneValue(cells.get(0)));
+      cells.clear();
+      expectedRow++;
+      if (expectedRow % 10 == 0) {
+        expectedRow++;
+      }
+    } while (more);
+    scanner.close();
+    assertEquals(ROWS + 1, expectedRow);
+  }
+
+  private List<Cell> getRawCells(byte[] row) throws IOException {
+    Scan scan = new Scan().withStartRow(row).withStopRow(row, true).setMaxVersions().setRaw(true);
+    InternalScanner scanner = region.getScanner(scan);
+    List<Cell> cells = new ArrayList<>();
+    scanner.next(cells);
+    scanner.close();
+    return cells;
+  }
+
+  private void loadRows() throws IOException, InterruptedException {
+    for (int version = 0; version < FLUSHES; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, version, value(i, version)));
+      }
+      region.flush(true);
+    }
+    for (int i = 0; i < ROWS; i += 10) {
+      region.delete(new Delete(row(i)));
+    }
+    region.flush(true);
+    // let the major compaction be due
+    Thread.sleep(10);
+  }
+
+  /**
+   * Runs the steps of the round in progress until it is over, checking the rows after each.
+   */
+  private void finishRound(long maxStoreSize) throws IOException {
+    for (int i = 0; i < 100 && getRound() != null; i++) {
+      region.compactStores();
+      verify(false);
+      assertTrue(getStore().getStorefilesSize() <= maxStoreSize);
+    }
+    assertNull(getRound());
+  }
+
+  @Test
+  public void testMajorCompactionInSlices() throws Exception {
+    loadRows();
+    long storeSize = getStore().getStorefilesSize();
+    // a round never needs more space than the store and one slice
+    long maxStoreSize = storeSize + Long.parseLong(
+      region.getTableDesc().getConfigurationValue(IncrementalMajorCompactionPolicy.SLICE_SIZE_KEY));
+
+    region.compactStores();
+    Round round = getRound();
+    assertNotNull(round);
+    assertTrue(round.getSliceCount() > 1);
+    // the flushed files hold rows of all slices, so they are split first
+    assertEquals(-1, round.slice);
+    verify(false);
+    assertTrue(getStore().getStorefilesSize() <= maxStoreSize);
+
+    // the round resumes where it was once the region is reopened
+    region.close();
+    region = HRegion.openHRegion(region, null);
+    Round resumed = getRound();
+    assertNotNull(resumed);
+    assertEquals(round.id, resumed.id);
+    assertEquals(-1, resumed.slice);
+
+    finishRound(maxStoreSize);
+
+    // only the files written by the slices are left, each with the rows of its slice
+    List<StoreFile> files = new ArrayList<>(getStore().getStorefiles());
+    assertTrue(files.size() > 1);
+    for (StoreFile file : files) {
+      assertFalse(round.fileNames.contains(file.getPath().getName()));
+      Round progress = Round.parseFrom(file);
+      assertNotNull(progress);
+      assertEquals(round.id, progress.id);
+    }
+    for (int i = 0; i < files.size(); i++) {
+      for (int j = i + 1; j < files.size(); j++) {
+        StoreFile a = files.get(i);
+        StoreFile b = files.get(j);
+        assertTrue(Bytes.compareTo(CellUtil.cloneRow(a.getLastKey()),
+          CellUtil.cloneRow(b.getFirstKey())) < 0
+            || Bytes.compareTo(CellUtil.cloneRow(b.getLastKey()),
+              CellUtil.cloneRow(a.getFirstKey())) < 0);
+      }
+    }
+    // the deleted rows and the old versions are gone, as after a major compaction
+    verify(true);
+  }
+
+  @Test
+  public void testDeletesAcrossRounds() throws Exception {
+    loadRows();
+    region.compactStores();
+    finishRound(Long.MAX_VALUE);
+    verify(true);
+
+    // a put in a file with rows of all slices, deleted by a file with rows of the first slice only
+    region.put(new Put(row(1)).addColumn(FAMILY, QUALIFIER, 100, value(1, 100)));
+    region.put(new Put(row(ROWS - 1)).addColumn(FAMILY, QUALIFIER, 100, value(ROWS - 1, 100)));
+    region.flush(true);
+    region.delete(new Delete(row(1)));
+    region.flush(true);
+    Thread.sleep(10);
+    region.compactStores();
+    assertNotNull(getRound());
+    finishRoundWithDeletedRow(1);
+    // the delete and the cells it covers were all read by a slice which replaced their files
+    assertTrue(getRawCells(row(1)).isEmpty());
+
+    // the same, flushed while the round is in progress
+    Thread.sleep(10);
+    region.compactStores();
+    assertNotNull(getRound());
+    region.put(new Put(row(3)).addColumn(FAMILY, QUALIFIER, 100, value(3, 100)));
+    region.put(new Put(row(ROWS - 1)).addColumn(FAMILY, QUALIFIER, 100, value(ROWS - 1, 100)));
+    region.flush(true);
+    region.delete(new Delete(row(3)));
+    region.flush(true);
+    finishRoundWithDeletedRow(3);
+  }
+
+  private void finishRoundWithDeletedRow(int deletedRow) throws IOException {
+    for (int i = 0; i < 100 && getRound() != null; i++) {
+      assertTrue(region.get(new Get(row(1))).isEmpty());
+      assertTrue(region.get(new Get(row(deletedRow))).isEmpty());
+      region.compactStores();
+    }
+    assertNull(getRound());
+    assertTrue(region.get(new Get(row(1))).isEmpty());
+    assertTrue(region.get(new Get(row(deletedRow))).isEmpty());
+  }
+}
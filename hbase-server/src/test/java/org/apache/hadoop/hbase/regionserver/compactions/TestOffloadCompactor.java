@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.regionserver.CompactionWorker;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSTableDescriptors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestOffloadCompactor {
+
+  private static final HBaseTestingUtility UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @Rule
+  public TestName name = new TestName();
+
+  private Path offloadDir;
+  private FileSystem fs;
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    String tableName = name.getMethodName();
+    offloadDir = UTIL.getDataTestDir(tableName + "-compactions");
+    fs = offloadDir.getFileSystem(UTIL.getConfiguration());
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(tableName));
+    htd.addFamily(new HColumnDescriptor(FAMILY).setMaxVersions(2));
+    htd.setConfiguration(DefaultStoreEngine.DEFAULT_COMPACTOR_CLASS_KEY,
+      OffloadCompactor.class.getName());
+    htd.setConfiguration(OffloadCompactor.OFFLOAD_DIR_KEY, offloadDir.toString());
+    htd.setConfiguration(OffloadCompactor.OFFLOAD_CLAIM_TIMEOUT_KEY, "500");
+    htd.setConfiguration(OffloadCompactor.OFFLOAD_TIMEOUT_KEY, "5000");
+    htd.setConfiguration(OffloadCompactor.OFFLOAD_POLL_INTERVAL_KEY, "10");
+    region = UTIL.createLocalHRegion(htd, null, null);
+    // workers read the table descriptor from the file system
+    new FSTableDescriptors(UTIL.getConfiguration()).createTableDescriptorForTableDirectory(
+      region.getRegionFileSystem().getTableDir(), htd, false);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private void putAndFlush(int version) throws IOException {
+    for (int i = 0; i < 100; i++) {
+      region.put(new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, version,
+        Bytes.toBytes(version)));
+    }
+    region.flush(true);
+  }
+
+  private void verify() throws IOException {
+    assertEquals(1, region.getStore(FAMILY).getStorefilesCount());
+    for (int i = 0; i < 100; i++) {
+      Result result = region.get(new Get(Bytes.toBytes(i)).setMaxVersions());
+      assertEquals(2, result.size());
+      assertArrayEquals(Bytes.toBytes(2), result.getValue(FAMILY, QUALIFIER));
+    }
+    assertEquals(0, fs.listStatus(offloadDir).length);
+  }
+
+  @Test
+  public void testCompactionInWorker() throws Exception {
+    final CompactionWorker worker = new CompactionWorker(UTIL.getConfiguration());
+    final AtomicBoolean stopped = new AtomicBoolean(false);
+    final AtomicInteger tasks = new AtomicInteger();
+    Thread workerThread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          while (!stopped.get()) {
+            if (worker.runNextTask(fs, offloadDir)) {
+              tasks.incrementAndGet();
+            } else {
+              Thread.sleep(10);
+            }
+          }
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    workerThread.start();
+    try {
+      for (int version = 0; version < 3; version++) {
+        putAndFlush(version);
+      }
+      region.compact(true);
+    } finally {
+      stopped.set(true);
+      workerThread.join();
+    }
+    assertEquals(1, tasks.get());
+    verify();
+  }
+
+  @Test
+  public void testCancelledWorkerDoesNotHandBackFiles() throws Exception {
+    final CompactionWorker worker = new CompactionWorker(UTIL.getConfiguration()) {
+      @Override
+      protected CompactionTask.Result compact(FileSystem fs, CompactionTask task,
+          Path runningPath) throws IOException {
+        CompactionTask.Result result = super.compact(fs, task, runningPath);
+        // the region server gives up on the compaction before the worker is done
+        while (fs.exists(runningPath)) {
+          try {
+            Thread.sleep(10);
+          } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+          }
+        }
+        return result;
+      }
+    };
+    final AtomicInteger tasks = new AtomicInteger();
+    Thread workerThread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          while (!worker.runNextTask(fs, offloadDir)) {
+            Thread.sleep(10);
+          }
+          tasks.incrementAndGet();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    workerThread.start();
+    for (int version = 0; version < 3; version++) {
+      putAndFlush(version);
+    }
+    try {
+      region.compact(true);
+      fail("The compaction should time out");
+    } catch (IOException e) {
+      // expected
+    }
+    workerThread.join();
+    assertEquals(1, tasks.get());
+    assertEquals(3, region.getStore(FAMILY).getStorefilesCount());
+    // the worker deleted the files it wrote to the temporary directory of the region
+    Path tmpDir = new Path(region.getRegionFileSystem().getRegionDir(), ".tmp");
+    assertTrue(!fs.exists(tmpDir) || fs.listStatus(tmpDir).length == 0);
+    assertEquals(0, fs.listStatus(offloadDir).length);
+  }
+
+  @Test
+  public void testCompactionInRegionServerWithoutWorker() throws Exception {
+    for (int version = 0; version < 3; version++) {
+      putAndFlush(version);
+    }
+    region.compact(true);
+    verify();
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestParallelRangeCompactor {
+
+  private static final HBaseTestingUtility UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 2000;
+  private static final int FLUSHES = 4;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(name.getMethodName()));
+    HColumnDescriptor hcd = new HColumnDescriptor(FAMILY);
+    hcd.setBlocksize(1024);
+    hcd.setMaxVersions(2);
+    htd.addFamily(hcd);
+    htd.setConfiguration(DefaultStoreEngine.DEFAULT_COMPACTOR_CLASS_KEY,
+      ParallelRangeCompactor.class.getName());
+    htd.setConfiguration(ParallelRangeCompactor.MAX_RANGES_KEY, "4");
+    htd.setConfiguration(ParallelRangeCompactor.MIN_RANGE_SIZE_KEY, "1");
+    region = UTIL.createLocalHRegion(htd, null, null);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row%06d", i));
+  }
+
+  private static byte[] value(int i, int version) {
+    return Bytes.toBytes("value-" + i + "-" + version);
+  }
+
+  @Test
+  public void testMajorCompactionInRanges() throws IOException {
+    for (int version = 0; version < FLUSHES; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, version, value(i, version)));
+      }
+      region.flush(true);
+    }
+    // delete every tenth row, the markers must meet the puts in the same range
+    for (int i = 0; i < ROWS; i += 10) {
+      region.delete(new Delete(row(i)));
+    }
+    region.flush(true);
+
+    Store store = region.getStore(FAMILY);
+    assertTrue(((HStore) store).getStoreEngine().getCompactor() instanceof ParallelRangeCompactor);
+    assertEquals(FLUSHES + 1, store.getStorefilesCount());
+    region.compact(true);
+    assertTrue("Expected the compaction to be split", store.getStorefilesCount() > 1);
+
+    // The output files hold disjoint row ranges
+    List<StoreFile> files = new ArrayList<>(store.getStorefiles());
+    for (int i = 0; i < files.size(); i++) {
+      for (int j = i + 1; j < files.size(); j++) {
+        StoreFile a = files.get(i);
+        StoreFile b = files.get(j);
+        assertTrue(Bytes.compareTo(CellUtil.cloneRow(a.getLastKey()),
+          CellUtil.cloneRow(b.getFirstKey())) < 0
+            || Bytes.compareTo(CellUtil.cloneRow(b.getLastKey()),
+              CellUtil.cloneRow(a.getFirstKey())) < 0);
+      }
+    }
+
+    Scan scan = new Scan().setMaxVersions();
+    InternalScanner scanner = region.getScanner(scan);
+    List<Cell> cells = new ArrayList<>();
+    int expectedRow = 1;
+    boolean more;
+    do {
+      more = scanner.next(cells);
+      if (cells.isEmpty()) {
+        continue;
+      }
+      assertArrayEquals(row(expectedRow), CellUtil.cloneRow(cells.get(0)));
+      // only the two newest versions survive the major compaction
+      assertEquals(2, cells.size());
+      assertArrayEquals(value(expectedRow, FLUSHES - 1), CellUtil.cloneValue(cells.get(0)));
+      assertArrayEquals(value(expectedRow, FLUSHES - 2), CellUtil.cloneValue(cells.get(1)));
+      cells.clear();
+      expectedRow++;
+      if (expectedRow % 10 == 0) {
+        expectedRow++;
+      }
+    } while (more);
+    scanner.close();
+    assertEquals(ROWS + 1, expectedRow);
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.throttle;
+
+import static org.apache.hadoop.hbase.regionserver.throttle.LatencyAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET;
+import static org.apache.hadoop.hbase.regionserver.throttle.LatencyAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET;
+import static org.apache.hadoop.hbase.regionserver.throttle.PressureAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_HIGHER_BOUND;
+import static org.apache.hadoop.hbase.regionserver.throttle.PressureAwareCompactionThroughputController.HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_LOWER_BOUND;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.metrics.Snapshot;
+import org.apache.hadoop.hbase.metrics.impl.FastLongHistogram;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestLatencyAwareCompactionThroughputController {
+
+  private static final long LOWER = 10L * 1024 * 1024;
+  private static final long UPPER = 20L * 1024 * 1024;
+  private static final double DELTA = 1.0;
+
+  private LatencyAwareCompactionThroughputController controller;
+
+  @Before
+  public void setUp() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_LOWER_BOUND, LOWER);
+    conf.setLong(HBASE_HSTORE_COMPACTION_MAX_THROUGHPUT_HIGHER_BOUND, UPPER);
+    conf.setLong(HBASE_HSTORE_COMPACTION_THROUGHPUT_READ_LATENCY_TARGET, 100);
+    conf.setLong(HBASE_HSTORE_COMPACTION_THROUGHPUT_FS_READ_LATENCY_TARGET, 50);
+    controller = new LatencyAwareCompactionThroughputController();
+    controller.setConf(conf);
+  }
+
+  private static Snapshot latencies(long latency) {
+    FastLongHistogram histogram = new FastLongHistogram();
+    for (int i = 0; i < 100; i++) {
+      histogram.add(latency, 1);
+    }
+    return histogram.snapshotAndReset();
+  }
+
+  @Test
+  public void testRaiseWhileReadsAreFast() {
+    assertEquals(LOWER, controller.getMaxThroughput(), DELTA);
+    for (int i = 1; i <= 10; i++) {
+      controller.tune(0.0, latencies(10), latencies(10));
+      assertEquals(LOWER + (UPPER - LOWER) * i / 10.0, controller.getMaxThroughput(), DELTA);
+    }
+    // no reads, no reason to slow down
+    controller.tune(0.0, null, new FastLongHistogram().snapshotAndReset());
+    assertEquals(UPPER, controller.getMaxThroughput(), DELTA);
+  }
+
+  @Test
+  public void testBackOffWhenReadsAreSlow() {
+    for (int i = 0; i < 10; i++) {
+      controller.tune(0.0, latencies(10), latencies(10));
+    }
+    controller.tune(0.0, latencies(1000), latencies(10));
+    assertEquals(UPPER / 2, controller.getMaxThroughput(), DELTA);
+    controller.tune(0.0, latencies(10), latencies(1000));
+    assertEquals(LOWER, controller.getMaxThroughput(), DELTA);
+    controller.tune(0.0, latencies(1000), latencies(1000));
+    assertEquals(LOWER, controller.getMaxThroughput(), DELTA);
+  }
+
+  @Test
+  public void testUnlimitedUnderCompactionPressure() {
+    controller.tune(1.5, latencies(1000), latencies(1000));
+    assertEquals(Double.MAX_VALUE, controller.getMaxThroughput(), DELTA);
+    // back within the bounds once the pressure is gone
+    controller.tune(0.5, latencies(1000), latencies(10));
+    assertEquals(LOWER, controller.getMaxThroughput(), DELTA);
+  }
+}
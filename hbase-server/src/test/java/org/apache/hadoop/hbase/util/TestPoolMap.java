@@ -19,7 +19,9 @@
 package org.apache.hadoop.hbase.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -35,7 +37,7 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({TestPoolMap.TestRoundRobinPoolType.class, TestPoolMap.TestThreadLocalPoolType.class,
-        TestPoolMap.TestReusablePoolType.class})
+        TestPoolMap.TestReusablePoolType.class, TestPoolMap.TestLeastLoadedPoolType.class})
 @Category({MiscTests.class, SmallTests.class})
 public class TestPoolMap {
   public abstract static class TestPoolType extends TestCase {
@@ -230,5 +232,59 @@ public class TestPoolMap {
 
   }
 
-}
+  @Category({MiscTests.class, SmallTests.class})
+  public static class TestLeastLoadedPoolType extends TestPoolType {
+    private final Map<String, Integer> loads = new HashMap<>();
+
+    @Override
+    protected void setUp() throws Exception {
+      this.poolMap = new PoolMap<>(getPoolType(), POOL_SIZE,
+          value -> loads.getOrDefault(value, 0));
+    }
+
+    @Override
+    protected PoolType getPoolType() {
+      return PoolType.LeastLoaded;
+    }
+
+    public void testSingleThreadedClient() throws InterruptedException,
+        ExecutionException {
+      String randomKey = String.valueOf(random.nextInt());
+      String randomValue = String.valueOf(random.nextInt());
+      // An idle value is reused rather than growing the pool
+      runThread(randomKey, randomValue, randomValue);
+      assertEquals(1, poolMap.size(randomKey));
+    }
 
+    public void testGrowWhenLoaded() throws InterruptedException, ExecutionException {
+      String randomKey = String.valueOf(random.nextInt());
+      List<String> randomValues = new ArrayList<>();
+      for (int i = 0; i < POOL_SIZE; i++) {
+        String randomValue = String.valueOf(i);
+        randomValues.add(randomValue);
+        poolMap.put(randomKey, randomValue);
+        loads.put(randomValue, POOL_SIZE - i);
+        if (i < POOL_SIZE - 1) {
+          // As long as the pool is not full and all values are loaded, we'll get null back
+          assertNull(poolMap.get(randomKey));
+        }
+      }
+      assertEquals(POOL_SIZE, poolMap.size(randomKey));
+      // the pool is full, we get the least loaded value
+      assertEquals(randomValues.get(POOL_SIZE - 1), poolMap.get(randomKey));
+      loads.put(randomValues.get(0), 0);
+      assertEquals(randomValues.get(0), poolMap.get(randomKey));
+    }
+
+    public void testPoolCap() throws InterruptedException, ExecutionException {
+      String randomKey = String.valueOf(random.nextInt());
+      for (int i = 0; i < POOL_SIZE * 2; i++) {
+        String randomValue = String.valueOf(i);
+        poolMap.put(randomKey, randomValue);
+        loads.put(randomValue, 1);
+      }
+      assertEquals(POOL_SIZE, poolMap.size(randomKey));
+      assertEquals("0", poolMap.get(randomKey));
+    }
+  }
+}